@@ -90,6 +90,21 @@ public class ApplicationProperties {
 	@Value("${egov.idgen.uri}")
 	private String idGenUrl;
 
+	@Value("${bs.bulk.bill.chunk.size}")
+	private Integer bulkBillChunkSize;
+	
+	@Value("${bs.bulk.bill.chunk.size.max}")
+	private Integer bulkBillMaxChunkSize;
+	
+	@Value("${kafka.topics.bulk.bill.generate}")
+	private String bulkBillGenerateTopic;
+
+	@Value("${bs.bulk.bill.job.lease.ms}")
+	private Long bulkBillJobLease;
+
+	@Value("${bs.bulk.bill.job.status.failed.max}")
+	private Integer bulkBillJobStatusFailedMax;
+
 	@Value("${bs.billaccountdetail.seq.name}")
 	private String billAccDetailSeqName;
 
@@ -146,6 +161,48 @@ public class ApplicationProperties {
 	@Value("#{${bs.businesscode.demand.updateurl}}")
 	private Map<String, String> businessCodeAndDemandUpdateUrlMap;
 	
+	@Value("${bs.demand.update.timeout.ms}")
+	private Long demandUpdateTimeout;
+	
+	@Value("${bs.demand.update.pool.size}")
+	private Integer demandUpdatePoolSize;
+
+	@Value("${bs.demand.update.queue.size}")
+	private Integer demandUpdateQueueSize;
+
+	@Value("${bs.demand.update.connect.timeout.ms}")
+	private Integer demandUpdateConnectTimeout;
+	
+	@Value("${bs.demand.search.limit.max}")
+	private Integer demandSearchMaxLimit;
+	
+	@Value("${bs.demand.stream.fetch.size}")
+	private Integer demandStreamFetchSize;
+	
+	@Value("${bs.mdms.cache.ttl.ms}")
+	private Long mdmsCacheTtl;
+	
+	@Value("${bs.mdms.cache.size.max}")
+	private Integer mdmsCacheMaxSize;
+	
+	@Value("${kafka.topics.mdms.cache.invalidate}")
+	private String mdmsCacheInvalidateTopic;
+	
+	@Value("${bs.payment.consumer.batch.enabled}")
+	private Boolean paymentConsumerBatchEnabled;
+	
+	@Value("${bs.payment.consumer.batch.size}")
+	private Integer paymentConsumerBatchSize;
+	
+	@Value("${bs.idgen.block.enabled}")
+	private Boolean idGenBlockEnabled;
+	
+	@Value("${bs.idgen.block.size}")
+	private Integer idGenBlockSize;
+	
+	@Value("${bs.idgen.block.lease.ms}")
+	private Long idGenBlockLeaseTime;
+	
 	// V2
 	
 	@Value("${kafka.topics.receipt.update.demand.v2}")
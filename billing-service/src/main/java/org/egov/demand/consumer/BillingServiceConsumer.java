@@ -1,11 +1,16 @@
 package org.egov.demand.consumer;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
 import org.egov.common.contract.request.RequestInfo;
 import org.egov.demand.config.ApplicationProperties;
 import org.egov.demand.helper.CollectionReceiptRequest;
@@ -69,8 +74,7 @@ public class BillingServiceConsumer {
 
 	@KafkaListener(topics = { "${kafka.topics.receipt.update.collecteReceipt}", "${kafka.topics.save.bill}",
 			"${kafka.topics.save.demand}", "${kafka.topics.update.demand}", "${kafka.topics.receipt.update.demand}",
-			"${kafka.topics.receipt.cancel.name}", "${kafka.topics.receipt.update.demand.v2}",
-			"${kafka.topics.receipt.cancel.name.v2}" })
+			"${kafka.topics.receipt.cancel.name}" })
 	public void processMessage(Map<String, Object> consumerRecord, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic) {
 
 		log.debug("key:" + topic + ":" + "value:" + consumerRecord);
@@ -138,6 +142,107 @@ public class BillingServiceConsumer {
 	}
 
 
+	/**
+	 * Payment back-update, one record at a time
+	 * 
+	 * used when the batch mode is disabled
+	 */
+	@KafkaListener(topics = { "${kafka.topics.receipt.update.demand.v2}",
+			"${kafka.topics.receipt.cancel.name.v2}" }, autoStartup = "#{!${bs.payment.consumer.batch.enabled}}")
+	public void processPaymentMessage(Map<String, Object> consumerRecord,
+			@Header(KafkaHeaders.RECEIVED_TOPIC) String topic) {
+
+		processMessage(consumerRecord, topic);
+	}
+
+	/**
+	 * Payment back-update in batch mode, enabled with bs.payment.consumer.batch.enabled
+	 * 
+	 * the records of a poll are grouped on topic and tenant, each group is applied with one demand search,
+	 * one batch update and one audit batch in a single transaction. Payments are applied before
+	 * cancellations. If a group fails, its payments are retried one at a time so that a bad payment
+	 * does not hold back the rest of the group.
+	 */
+	@KafkaListener(topics = { "${kafka.topics.receipt.update.demand.v2}",
+			"${kafka.topics.receipt.cancel.name.v2}" }, containerFactory = "batchKafkaListenerContainerFactory",
+			autoStartup = "${bs.payment.consumer.batch.enabled}",
+			properties = { "max.poll.records=${bs.payment.consumer.batch.size}" })
+	public void processPaymentBatch(List<ConsumerRecord<String, Map<String, Object>>> consumerRecords) {
+
+		log.info("Payment back-update batch received with {} records", consumerRecords.size());
+
+		for (Boolean isReceiptCancellation : Arrays.asList(false, true)) {
+
+			String topic = isReceiptCancellation ? applicationProperties.getReceiptCancellationTopicV2()
+					: applicationProperties.getUpdateDemandFromReceiptV2();
+
+			/*
+			 * payment-id to bill request, a payment repeated with in the batch is applied once
+			 */
+			Map<String, BillRequestV2> paymentBillRequestMap = new LinkedHashMap<>();
+			for (ConsumerRecord<String, Map<String, Object>> consumerRecord : consumerRecords) {
+
+				if (!topic.equals(consumerRecord.topic()))
+					continue;
+
+				BillRequestV2 billReq = BillRequestV2.builder().build();
+				try {
+
+					String paymentId = parseBillRequestFromPayment(consumerRecord.value(), billReq, isReceiptCancellation);
+					if (null != paymentBillRequestMap.putIfAbsent(paymentId, billReq))
+						log.info("Duplicate payment with id : {} ignored in the batch", paymentId);
+
+				} catch (Exception e) {
+
+					updatePaymentBackUpdateForFailure(consumerRecord.value().toString(), UUID.randomUUID().toString() + " : " + e.getClass().getName(), isReceiptCancellation);
+					log.info("EGBS_PAYMENT_SERIALIZE_ERROR",e.getClass().getName() + " : " + e.getMessage());
+				}
+			}
+
+			if (paymentBillRequestMap.isEmpty())
+				continue;
+
+			Set<String> backUpdatedPaymentIds = demandRepository.getBackUpdatedPaymentIds(paymentBillRequestMap.keySet(),
+					isReceiptCancellation);
+
+			Map<String, List<BillRequestV2>> tenantBillRequestMap = new LinkedHashMap<>();
+			paymentBillRequestMap.forEach((paymentId, billReq) -> {
+
+				if (backUpdatedPaymentIds.contains(paymentId)) {
+					updatePaymentBackUpdateForFailure("Duplicate Payment object received for back update with payment-id : "
+							+ paymentId + ", payment already updated to demands", paymentId, isReceiptCancellation);
+					return;
+				}
+				tenantBillRequestMap.computeIfAbsent(billReq.getBills().get(0).getTenantId(), k -> new ArrayList<>())
+						.add(billReq);
+			});
+
+			tenantBillRequestMap.forEach((tenantId, billRequests) -> {
+				try {
+					receiptServiceV2.updateDemandsFromPayments(billRequests, isReceiptCancellation);
+				} catch (Exception e) {
+
+					log.error("Batch back-update failed for tenant : {}, retrying the {} payments one by one", tenantId,
+							billRequests.size(), e);
+					billRequests.forEach(billReq -> updateDemandFromBillRequest(billReq, isReceiptCancellation));
+				}
+			});
+		}
+	}
+
+	private void updateDemandFromBillRequest(BillRequestV2 billReq, Boolean isReceiptCancellation) {
+
+		try {
+			receiptServiceV2.updateDemandFromReceipt(billReq, isReceiptCancellation);
+		} catch (Exception e) {
+
+			String paymentId = util.getValueFromAdditionalDetailsForKey(
+					billReq.getBills().get(0).getAdditionalDetails(), Constants.PAYMENT_ID_KEY);
+			updatePaymentBackUpdateForFailure(e.getMessage(), paymentId, isReceiptCancellation);
+			log.info("EGBS_PAYMENT_BACKUPDATE_ERROR",e.getClass().getName() + " : " + e.getMessage());
+		}
+	}
+
 	private void updateDemandsFromPayment(Map<String, Object> consumerRecord, Boolean isReceiptCancellation) {
 		
 		BillRequestV2 billReq = BillRequestV2.builder().build();
@@ -171,6 +276,17 @@ public class BillingServiceConsumer {
 	 * @throws JsonProcessingException 
 	 */
 	private void setBillRequestFromPayment(Map<String, Object> consumerRecord, BillRequestV2 billReq, boolean isReceiptCancelled) throws JsonProcessingException {
+
+		String paymentId = parseBillRequestFromPayment(consumerRecord, billReq, isReceiptCancelled);
+		validatePaymentForDuplicateUpdates(isReceiptCancelled, paymentId);
+	}
+
+	/**
+	 * Sets the bills of the payment with their status in the bill request
+	 * 
+	 * @return the payment id
+	 */
+	private String parseBillRequestFromPayment(Map<String, Object> consumerRecord, BillRequestV2 billReq, boolean isReceiptCancelled) throws JsonProcessingException {
 		
 		DocumentContext context = null;
 		
@@ -189,7 +305,6 @@ public class BillingServiceConsumer {
 		 * additionaldetail info from bill is not needed, so setting new value
 		 */
 		bills.get(0).setAdditionalDetails(util.setValuesAndGetAdditionalDetails(null, Constants.PAYMENT_ID_KEY, paymentId));
-		validatePaymentForDuplicateUpdates(isReceiptCancelled, paymentId);
 
 		for (int i = 0; i < bills.size(); i++) {
 			
@@ -207,6 +322,7 @@ public class BillingServiceConsumer {
 				bill.setStatus(org.egov.demand.model.BillV2.BillStatus.PAID);
 			}
 		}
+		return paymentId;
 	}
 
 	/**
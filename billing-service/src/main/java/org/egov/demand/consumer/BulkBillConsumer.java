@@ -0,0 +1,38 @@
+package org.egov.demand.consumer;
+
+import java.util.Map;
+
+import org.egov.demand.service.BulkBillJobService;
+import org.egov.demand.web.contract.BulkBillRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Job mode of the bulk bill generation
+ * 
+ * the job is persisted on the listener thread before the offset is committed and run
+ * in the background from the job table, so a job is not lost on a restart.
+ */
+@Service
+@Slf4j
+public class BulkBillConsumer {
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private BulkBillJobService bulkBillJobService;
+
+	@KafkaListener(topics = { "${kafka.topics.bulk.bill.generate}" })
+	public void processMessage(Map<String, Object> consumerRecord) {
+
+		BulkBillRequest bulkBillRequest = objectMapper.convertValue(consumerRecord, BulkBillRequest.class);
+		log.info("Bulk bill generation job received for criteria : {}", bulkBillRequest.getBulkBillCriteria());
+		bulkBillJobService.submit(bulkBillRequest);
+	}
+}
@@ -0,0 +1,33 @@
+package org.egov.demand.consumer;
+
+import java.util.Map;
+
+import org.egov.demand.util.MasterDataCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Evicts the cached master data when the billing masters are changed in MDMS
+ * 
+ * every instance holds its own cache, so each instance listens with its own consumer group,
+ * named after the host so that a restarted instance resumes its group instead of adding one
+ */
+@Service
+@Slf4j
+public class MasterDataCacheConsumer {
+
+	@Autowired
+	private MasterDataCache masterDataCache;
+
+	@KafkaListener(topics = { "${kafka.topics.mdms.cache.invalidate}" },
+			groupId = "${spring.kafka.consumer.group-id}-mdms-cache-${kafka.consumer.mdms.cache.instance.id}")
+	public void processMessage(Map<String, Object> consumerRecord) {
+
+		Object tenantId = consumerRecord.get("tenantId");
+		log.info("Master data cache invalidation received for tenant : {}", tenantId);
+		masterDataCache.evict(null == tenantId ? null : tenantId.toString());
+	}
+}
@@ -0,0 +1,52 @@
+package org.egov.demand.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.jayway.jsonpath.DocumentContext;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Billing service master data of a tenant, parsed once from the MDMS response
+ * along with the views frequently looked up on the demand flows
+ * 
+ * instances are shared across requests and must not be modified
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class BillingMasterData {
+
+	private String tenantId;
+
+	private DocumentContext mdmsData;
+
+	private List<TaxHeadMaster> taxHeads;
+
+	private Set<String> businessServiceCodes;
+
+	/*
+	 * tax-head code to order
+	 */
+	@Builder.Default
+	private Map<String, Integer> taxHeadOrderMap = Collections.emptyMap();
+
+	/*
+	 * business service code to the advance tax-head code
+	 */
+	@Builder.Default
+	private Map<String, String> advanceTaxHeadMap = Collections.emptyMap();
+
+	/*
+	 * business service code to the isAdvanceAllowed flag
+	 */
+	@Builder.Default
+	private Map<String, Boolean> advanceAllowedMap = Collections.emptyMap();
+
+	private Long loadedTime;
+}
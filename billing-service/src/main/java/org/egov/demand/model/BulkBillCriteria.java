@@ -0,0 +1,38 @@
+package org.egov.demand.model;
+
+import java.util.Set;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import org.hibernate.validator.constraints.SafeHtml;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkBillCriteria {
+
+	@SafeHtml
+	@NotNull
+	@Size(max = 256)
+	private String tenantId;
+
+	@SafeHtml
+	@NotNull
+	@Size(max = 256)
+	private String businessService;
+
+	/*
+	 * if empty, bills will be generated for every consumer-code
+	 * having an active unpaid demand for the business service
+	 */
+	private Set<String> consumerCodes;
+
+	private Integer chunkSize;
+}
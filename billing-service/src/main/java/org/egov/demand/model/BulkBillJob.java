@@ -0,0 +1,64 @@
+package org.egov.demand.model;
+
+import org.egov.common.contract.request.RequestInfo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Builder.Default;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A bulk bill generation job along with its checkpoint
+ * 
+ * consumer-codes are processed in their order, lastConsumerCode being the last
+ * consumer-code of the last chunk completed. A resumed job continues after it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkBillJob {
+
+	public static final String STATUS_QUEUED = "QUEUED";
+
+	public static final String STATUS_IN_PROGRESS = "IN_PROGRESS";
+
+	public static final String STATUS_COMPLETED = "COMPLETED";
+
+	private String id;
+
+	private String tenantId;
+
+	private String businessService;
+
+	private BulkBillCriteria criteria;
+
+	private RequestInfo requestInfo;
+
+	private String status;
+
+	private String lastConsumerCode;
+
+	@Default
+	private Long consumerCodesProcessed = 0L;
+
+	@Default
+	private Long billsGenerated = 0L;
+
+	@Default
+	private Integer chunksProcessed = 0;
+
+	/*
+	 * the failed consumer-codes themselves are kept in egbs_bulkbill_job_failure
+	 */
+	@Default
+	private Long failedConsumerCodesCount = 0L;
+
+	@Default
+	private Long timeTaken = 0L;
+
+	private Long createdTime;
+
+	private Long lastModifiedTime;
+}
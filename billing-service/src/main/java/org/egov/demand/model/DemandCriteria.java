@@ -89,4 +89,13 @@ public class DemandCriteria {
 	
 	@Default
 	private Boolean receiptRequired=false;
+
+	private Integer limit;
+
+	/*
+	 * keyset of the last demand in the previous page
+	 */
+	private Long lastTaxPeriodFrom;
+
+	private String lastDemandId;
 }
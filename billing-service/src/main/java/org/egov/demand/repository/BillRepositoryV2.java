@@ -187,6 +187,32 @@ public class BillRepositoryV2 {
 		});
 	}
 
+	/**
+	 * Expires the active bills of the consumer-codes and saves the newly generated bills
+	 * 
+	 * in a single transaction, so a consumer-code never ends up with two active bills
+	 * 
+	 * @param billRequest
+	 * @param tenantId
+	 * @param businessService
+	 * @param consumerCodes
+	 */
+	@Transactional
+	public void expireAndSaveBills(BillRequestV2 billRequest, String tenantId, String businessService,
+			Set<String> consumerCodes) {
+
+		if (!CollectionUtils.isEmpty(consumerCodes)) {
+
+			List<Object> preparedStmtList = new ArrayList<>();
+			String expireQuery = billQueryBuilder.getBillExpireQueryForConsumerCodes(tenantId, businessService,
+					consumerCodes, util.getAuditDetail(billRequest.getRequestInfo()), preparedStmtList);
+			jdbcTemplate.update(expireQuery, preparedStmtList.toArray());
+		}
+
+		if (!CollectionUtils.isEmpty(billRequest.getBills()))
+			saveBill(billRequest);
+	}
+
 	/**
 	 * executes query to update bill status to expired 
 	 * @param billIds
@@ -0,0 +1,144 @@
+package org.egov.demand.repository;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.demand.model.BulkBillCriteria;
+import org.egov.demand.model.BulkBillJob;
+import org.egov.demand.repository.querybuilder.BillQueryBuilder;
+import org.egov.demand.util.Constants;
+import org.egov.demand.util.Util;
+import org.egov.tracer.model.CustomException;
+import org.postgresql.util.PGobject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.CollectionUtils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Persists the bulk bill generation jobs and their checkpoints
+ */
+@Repository
+public class BulkBillJobRepository {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Autowired
+	private Util util;
+
+	public void saveJob(BulkBillJob job) {
+		jdbcTemplate.update(BillQueryBuilder.INSERT_BULK_BILL_JOB_QUERY, job.getId(), job.getTenantId(),
+				job.getBusinessService(), util.getPGObject(job.getCriteria()), util.getPGObject(job.getRequestInfo()),
+				job.getStatus(), job.getCreatedTime(), job.getLastModifiedTime());
+	}
+
+	public BulkBillJob getJob(String jobId) {
+		List<BulkBillJob> jobs = jdbcTemplate.query(BillQueryBuilder.BULK_BILL_JOB_SEARCH_QUERY, new Object[] { jobId },
+				(rs, rowNum) -> mapJob(rs));
+		return jobs.isEmpty() ? null : jobs.get(0);
+	}
+
+	/**
+	 * Ids of the jobs queued, or in progress without a checkpoint since the lease expiry
+	 */
+	public List<String> getRunnableJobIds(long leaseExpiry, int limit) {
+		return jdbcTemplate.queryForList(BillQueryBuilder.BULK_BILL_JOB_RUNNABLE_QUERY, String.class, leaseExpiry, limit);
+	}
+
+	/**
+	 * Marks the job in progress if it is still runnable, so a job is picked by one instance only
+	 * 
+	 * @return true if the job was claimed
+	 */
+	public boolean claimJob(String jobId, long leaseExpiry) {
+		return jdbcTemplate.update(BillQueryBuilder.BULK_BILL_JOB_CLAIM_QUERY, System.currentTimeMillis(), jobId,
+				leaseExpiry) == 1;
+	}
+
+	/**
+	 * Saves the status and the checkpoint of the job, which also renews its lease
+	 */
+	public void saveCheckpoint(BulkBillJob job) {
+		job.setLastModifiedTime(System.currentTimeMillis());
+		jdbcTemplate.update(BillQueryBuilder.BULK_BILL_JOB_CHECKPOINT_QUERY, job.getStatus(), job.getLastConsumerCode(),
+				job.getConsumerCodesProcessed(), job.getBillsGenerated(), job.getChunksProcessed(),
+				job.getFailedConsumerCodesCount(), job.getTimeTaken(), job.getLastModifiedTime(), job.getId());
+	}
+
+	/**
+	 * Records the failed consumer-codes of a chunk and saves the checkpoint after it in one transaction,
+	 * the failure count of the job grows by the consumer-codes not recorded for it before
+	 */
+	@Transactional
+	public void saveCheckpoint(BulkBillJob job, Collection<String> failedConsumerCodes) {
+
+		if (!CollectionUtils.isEmpty(failedConsumerCodes)) {
+
+			String[] consumerCodes = failedConsumerCodes.toArray(new String[0]);
+			long now = System.currentTimeMillis();
+			int recorded = jdbcTemplate.update(connection -> {
+
+				PreparedStatement ps = connection.prepareStatement(BillQueryBuilder.INSERT_BULK_BILL_JOB_FAILURE_QUERY);
+				ps.setString(1, job.getId());
+				ps.setArray(2, connection.createArrayOf("varchar", consumerCodes));
+				ps.setLong(3, now);
+				return ps;
+			});
+			job.setFailedConsumerCodesCount(job.getFailedConsumerCodesCount() + recorded);
+		}
+		saveCheckpoint(job);
+	}
+
+	/**
+	 * The first failed consumer-codes of the job in their order
+	 */
+	public Set<String> getFailedConsumerCodes(String jobId, int limit) {
+		return new LinkedHashSet<>(jdbcTemplate.queryForList(BillQueryBuilder.BULK_BILL_JOB_FAILURE_SEARCH_QUERY,
+				String.class, jobId, limit));
+	}
+
+	private BulkBillJob mapJob(ResultSet rs) throws SQLException {
+		return BulkBillJob.builder()
+				.id(rs.getString("id"))
+				.tenantId(rs.getString("tenantid"))
+				.businessService(rs.getString("businessservice"))
+				.criteria(read(rs, "criteria", new TypeReference<BulkBillCriteria>() {}))
+				.requestInfo(read(rs, "requestinfo", new TypeReference<RequestInfo>() {}))
+				.status(rs.getString("status"))
+				.lastConsumerCode(rs.getString("lastconsumercode"))
+				.consumerCodesProcessed(rs.getLong("consumercodesprocessed"))
+				.billsGenerated(rs.getLong("billsgenerated"))
+				.chunksProcessed(rs.getInt("chunksprocessed"))
+				.failedConsumerCodesCount(rs.getLong("failedconsumercodescount"))
+				.timeTaken(rs.getLong("timetaken"))
+				.createdTime(rs.getLong("createdtime"))
+				.lastModifiedTime(rs.getLong("lastmodifiedtime"))
+				.build();
+	}
+
+	private <T> T read(ResultSet rs, String column, TypeReference<T> type) throws SQLException {
+		PGobject json = (PGobject) rs.getObject(column);
+		if (json == null || json.getValue() == null)
+			return null;
+		try {
+			return mapper.readValue(json.getValue(), type);
+		} catch (IOException e) {
+			throw new CustomException(Constants.EG_BS_JSON_EXCEPTION_KEY, Constants.EG_BS_JSON_EXCEPTION_MSG);
+		}
+	}
+}
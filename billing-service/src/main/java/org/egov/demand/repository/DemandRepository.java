@@ -40,15 +40,20 @@
 package org.egov.demand.repository;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import org.egov.demand.config.ApplicationProperties;
 import org.egov.demand.model.AuditDetails;
 import org.egov.demand.model.Demand;
 import org.egov.demand.model.DemandCriteria;
@@ -56,15 +61,18 @@ import org.egov.demand.model.DemandDetail;
 import org.egov.demand.model.PaymentBackUpdateAudit;
 import org.egov.demand.repository.querybuilder.DemandQueryBuilder;
 import org.egov.demand.repository.rowmapper.DemandRowMapper;
+import org.egov.demand.repository.rowmapper.DemandStreamingRowCallbackHandler;
 import org.egov.demand.util.Util;
 import org.egov.demand.web.contract.DemandRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.PreparedStatementSetter;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.CollectionUtils;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -84,12 +92,45 @@ public class DemandRepository {
 	@Autowired
 	private Util util;
 	
+	@Autowired
+	private ApplicationProperties applicationProperties;
+	
 	public List<Demand> getDemands(DemandCriteria demandCriteria) {
 
 		List<Object> preparedStatementValues = new ArrayList<>();
 		String searchDemandQuery = demandQueryBuilder.getDemandQuery(demandCriteria, preparedStatementValues);
 		return jdbcTemplate.query(searchDemandQuery, preparedStatementValues.toArray(), demandRowMapper);
 	}
+
+	/**
+	 * Streams all the demands matching the criteria to the consumer one demand at a time
+	 * 
+	 * the rows are read through a server side cursor (needs the transaction), so the
+	 * memory used is bound by the fetch size and not by the number of matching demands
+	 * 
+	 * @param demandCriteria
+	 * @param demandConsumer
+	 * @return number of demands streamed
+	 */
+	@Transactional(readOnly = true)
+	public long streamDemands(DemandCriteria demandCriteria, Consumer<Demand> demandConsumer) {
+
+		List<Object> preparedStatementValues = new ArrayList<>();
+		String streamDemandQuery = demandQueryBuilder.getDemandStreamQuery(demandCriteria, preparedStatementValues);
+		DemandStreamingRowCallbackHandler handler = new DemandStreamingRowCallbackHandler(demandRowMapper, demandConsumer);
+
+		jdbcTemplate.query(connection -> {
+
+			PreparedStatement ps = connection.prepareStatement(streamDemandQuery, ResultSet.TYPE_FORWARD_ONLY,
+					ResultSet.CONCUR_READ_ONLY);
+			ps.setFetchSize(applicationProperties.getDemandStreamFetchSize());
+			new ArgumentPreparedStatementSetter(preparedStatementValues.toArray()).setValues(ps);
+			return ps;
+		}, handler);
+
+		handler.complete();
+		return handler.getDemandCount();
+	}
 	
 	/**
 	 * Fetches demand from DB based on a map of business code and set of consumer codes
@@ -106,6 +147,40 @@ public class DemandRepository {
 		return jdbcTemplate.query(sql, presparedStmtList.toArray(), demandRowMapper);
 	}
 
+	/**
+	 * Fetches the next page of consumer-codes having active unpaid demands,
+	 * keyset paged on the consumer-code to keep the cost of deep pages constant
+	 * 
+	 * @param tenantId
+	 * @param businessService
+	 * @param lastConsumerCode consumer-code of the last page, empty string for the first page
+	 * @param limit
+	 * @return
+	 */
+	public List<String> getConsumerCodesForBulkBill(String tenantId, String businessService, String lastConsumerCode,
+			Integer limit) {
+
+		Object[] preparedStmtValues = new Object[] { tenantId, businessService, lastConsumerCode, limit };
+		return jdbcTemplate.queryForList(DemandQueryBuilder.BULK_BILL_CONSUMERCODE_QUERY, preparedStmtValues,
+				String.class);
+	}
+
+	/**
+	 * Fetches all the active unpaid demands for the chunk of consumer-codes
+	 * 
+	 * @param tenantId
+	 * @param businessService
+	 * @param consumerCodes
+	 * @return
+	 */
+	public List<Demand> getDemandsForBulkBill(String tenantId, String businessService, Set<String> consumerCodes) {
+
+		List<Object> preparedStmtList = new ArrayList<>();
+		String sql = demandQueryBuilder.getDemandQueryForBulkBill(tenantId, businessService, consumerCodes,
+				preparedStmtList);
+		return jdbcTemplate.query(sql, preparedStmtList.toArray(), demandRowMapper);
+	}
+
 	@Transactional
 	public void save(DemandRequest demandRequest) {
 
@@ -125,6 +200,19 @@ public class DemandRepository {
 	@Transactional
 	public void update(DemandRequest demandRequest, PaymentBackUpdateAudit paymentBackUpdateAudit) {
 
+		update(demandRequest, null != paymentBackUpdateAudit ? Collections.singletonList(paymentBackUpdateAudit)
+				: Collections.emptyList());
+	}
+
+	/**
+	 * Updates the demands and logs the back-update of all the payments applied on them
+	 * 
+	 * @param demandRequest
+	 * @param paymentBackUpdateAudits
+	 */
+	@Transactional
+	public void update(DemandRequest demandRequest, List<PaymentBackUpdateAudit> paymentBackUpdateAudits) {
+
 		List<Demand> demands = demandRequest.getDemands();
 		List<Demand> oldDemands = new ArrayList<>();
 		List<DemandDetail> oldDemandDetails = new ArrayList<>();
@@ -167,8 +255,8 @@ public class DemandRepository {
 			insertBatchForAudit(newDemands, newDemandDetails);
 		}
 		
-		if (null != paymentBackUpdateAudit)
-			insertBackUpdateForPayment(paymentBackUpdateAudit);
+		if (!CollectionUtils.isEmpty(paymentBackUpdateAudits))
+			insertBackUpdatesForPayment(paymentBackUpdateAudits);
 	}
 
 	public void insertBatch(List<Demand> newDemands, List<DemandDetail> newDemandDetails) {
@@ -380,6 +468,45 @@ public class DemandRepository {
 		});
 	}
 
+	public void insertBackUpdatesForPayment(List<PaymentBackUpdateAudit> paymentBackUpdateAudits) {
+
+		jdbcTemplate.batchUpdate(DemandQueryBuilder.PAYMENT_BACKUPDATE_AUDIT_INSERT_QUERY, new BatchPreparedStatementSetter() {
+
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+
+				PaymentBackUpdateAudit paymentBackUpdateAudit = paymentBackUpdateAudits.get(i);
+				ps.setString(1, paymentBackUpdateAudit.getPaymentId());
+				ps.setBoolean(2, paymentBackUpdateAudit.getIsBackUpdateSucces());
+				ps.setBoolean(3, paymentBackUpdateAudit.getIsReceiptCancellation());
+				ps.setString(4, paymentBackUpdateAudit.getErrorMessage());
+			}
+
+			@Override
+			public int getBatchSize() {
+				return paymentBackUpdateAudits.size();
+			}
+		});
+	}
+
+	/**
+	 * Returns the payment-ids out of the given set which are already back updated successfully
+	 * 
+	 * @param paymentIds
+	 * @param isReceiptCancellation
+	 * @return
+	 */
+	public Set<String> getBackUpdatedPaymentIds(Set<String> paymentIds, Boolean isReceiptCancellation) {
+
+		List<String> backUpdatedIds = jdbcTemplate.query(DemandQueryBuilder.PAYMENT_BACKUPDATE_AUDIT_SEARCH_BY_IDS_QUERY,
+				ps -> {
+					ps.setArray(1, ps.getConnection().createArrayOf("varchar", paymentIds.toArray()));
+					ps.setBoolean(2, isReceiptCancellation);
+				}, (rs, rowNum) -> rs.getString("paymentid"));
+
+		return new HashSet<>(backUpdatedIds);
+	}
+
 	public String searchPaymentBackUpdateAudit(PaymentBackUpdateAudit backUpdateAudit) {
 
 		String paymentId = null;
@@ -4,6 +4,7 @@ import java.util.Map;
 
 import org.egov.tracer.model.ServiceCallException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
@@ -40,6 +41,18 @@ public class ServiceRequestRepository {
 	 */
 	@SuppressWarnings("rawtypes")
 	public Map fetchResult(String uri, Object request) {
+		return fetchResult(restTemplate, uri, request);
+	}
+
+	/**
+	 * fetch method which makes the call with the given rest template
+	 * @param restTemplate
+	 * @param uri
+	 * @param request
+	 * @return
+	 */
+	@SuppressWarnings("rawtypes")
+	public Map fetchResult(RestTemplate restTemplate, String uri, Object request) {
 		
 		mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
 		Map response = null;
@@ -57,4 +70,25 @@ public class ServiceRequestRepository {
 
 		return response;
 	}
+
+	/**
+	 * Rest template with the given timeouts, sharing the converters, interceptors
+	 * and error handler of the default rest template
+	 * 
+	 * @param connectTimeout connect timeout in ms
+	 * @param readTimeout read timeout in ms
+	 * @return
+	 */
+	public RestTemplate getRestTemplate(int connectTimeout, int readTimeout) {
+
+		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+		requestFactory.setConnectTimeout(connectTimeout);
+		requestFactory.setReadTimeout(readTimeout);
+
+		RestTemplate timedRestTemplate = new RestTemplate(restTemplate.getMessageConverters());
+		timedRestTemplate.setInterceptors(restTemplate.getInterceptors());
+		timedRestTemplate.setErrorHandler(restTemplate.getErrorHandler());
+		timedRestTemplate.setRequestFactory(requestFactory);
+		return timedRestTemplate;
+	}
 }
\ No newline at end of file
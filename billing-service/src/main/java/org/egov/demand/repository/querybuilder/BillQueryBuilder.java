@@ -3,6 +3,7 @@ package org.egov.demand.repository.querybuilder;
 import java.util.Collection;
 import java.util.List;
 
+import org.egov.demand.model.AuditDetails;
 import org.egov.demand.model.BillSearchCriteria;
 import org.egov.demand.model.BillV2.BillStatus;
 import org.egov.demand.model.UpdateBillCriteria;
@@ -21,6 +22,40 @@ public class BillQueryBuilder {
 	
 	public static final String BILL_STATUS_UPDATE_BASE_QUERY = "UPDATE egbs_bill_v1 SET status=? {replace} WHERE status='ACTIVE' AND tenantId = ? ";
 	
+	public static final String BILL_EXPIRE_FOR_CONSUMERCODES_QUERY = "UPDATE egbs_bill_v1 SET status='EXPIRED', lastmodifiedby=?, lastmodifieddate=? "
+			+ " WHERE status='ACTIVE' AND tenantid=? AND id IN (SELECT billid FROM egbs_billdetail_v1 WHERE tenantid=? AND businessservice=? AND consumercode = ANY(?))";
+	
+	public static final String INSERT_BULK_BILL_JOB_QUERY = "INSERT INTO egbs_bulkbill_job "
+			+ "(id, tenantid, businessservice, criteria, requestinfo, status, createdtime, lastmodifiedtime) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+	public static final String BULK_BILL_JOB_SEARCH_QUERY = "SELECT id, tenantid, businessservice, criteria, requestinfo, status, "
+			+ "lastconsumercode, consumercodesprocessed, billsgenerated, chunksprocessed, failedconsumercodescount, timetaken, "
+			+ "createdtime, lastmodifiedtime FROM egbs_bulkbill_job WHERE id = ?";
+
+	/*
+	 * queued jobs and jobs in progress whose checkpoint has not moved within the lease,
+	 * the instance running them having stopped
+	 */
+	public static final String BULK_BILL_JOB_RUNNABLE_QUERY = "SELECT id FROM egbs_bulkbill_job "
+			+ "WHERE status = 'QUEUED' OR (status = 'IN_PROGRESS' AND lastmodifiedtime < ?) ORDER BY createdtime LIMIT ?";
+
+	public static final String BULK_BILL_JOB_CLAIM_QUERY = "UPDATE egbs_bulkbill_job SET status = 'IN_PROGRESS', lastmodifiedtime = ? "
+			+ "WHERE id = ? AND (status = 'QUEUED' OR (status = 'IN_PROGRESS' AND lastmodifiedtime < ?))";
+
+	public static final String BULK_BILL_JOB_CHECKPOINT_QUERY = "UPDATE egbs_bulkbill_job SET status = ?, lastconsumercode = ?, "
+			+ "consumercodesprocessed = ?, billsgenerated = ?, chunksprocessed = ?, failedconsumercodescount = ?, timetaken = ?, "
+			+ "lastmodifiedtime = ? WHERE id = ?";
+
+	/*
+	 * consumer-codes already recorded for the job are skipped, a chunk retried after a resume is not counted twice
+	 */
+	public static final String INSERT_BULK_BILL_JOB_FAILURE_QUERY = "INSERT INTO egbs_bulkbill_job_failure "
+			+ "(jobid, consumercode, createdtime) SELECT ?, unnest(?), ? ON CONFLICT DO NOTHING";
+
+	public static final String BULK_BILL_JOB_FAILURE_SEARCH_QUERY = "SELECT consumercode FROM egbs_bulkbill_job_failure "
+			+ "WHERE jobid = ? ORDER BY consumercode LIMIT ?";
+
 	public static final String INSERT_BILL_QUERY = "INSERT into egbs_bill_v1 "
 			+"(id, tenantid, payername, payeraddress, payeremail, isactive, iscancelled, createdby, createddate, lastmodifiedby, lastmodifieddate, mobilenumber, status, additionaldetails)"
 			+"values(?,?,?,?,?,?,?,?,?,?,?,?,?,?)";
@@ -192,6 +227,27 @@ public class BillQueryBuilder {
 		return builder.toString();
 	}
 	
+	/**
+	 * Query to expire all the active bills of the given consumer-codes
+	 * 
+	 * @param tenantId
+	 * @param businessService
+	 * @param consumerCodes
+	 * @param auditDetails
+	 * @param preparedStmtList
+	 */
+	public String getBillExpireQueryForConsumerCodes(String tenantId, String businessService,
+			Collection<String> consumerCodes, AuditDetails auditDetails, List<Object> preparedStmtList) {
+
+		preparedStmtList.add(auditDetails.getLastModifiedBy());
+		preparedStmtList.add(auditDetails.getLastModifiedTime());
+		preparedStmtList.add(tenantId);
+		preparedStmtList.add(tenantId);
+		preparedStmtList.add(businessService);
+		DemandQueryBuilder.addArrayToPreparedStatement(preparedStmtList, consumerCodes);
+		return BILL_EXPIRE_FOR_CONSUMERCODES_QUERY;
+	}
+	
 	/**
 	 * @param billIds
 	 * @param preparedStmtList
@@ -39,13 +39,19 @@
  */
 package org.egov.demand.repository.querybuilder;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import org.egov.demand.config.ApplicationProperties;
 import org.egov.demand.model.DemandCriteria;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.support.AbstractSqlTypeValue;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
@@ -55,13 +61,18 @@ import lombok.extern.slf4j.Slf4j;
 @Component
 public class DemandQueryBuilder {
 	
+	@Autowired
+	private ApplicationProperties applicationProperties;
 
 	public static final String PAYMENT_BACKUPDATE_AUDIT_INSERT_QUERY = "INSERT INTO egbs_payment_backupdate_audit (paymentid, isbackupdatesuccess, isreceiptcancellation, errorMessage)"
 			+ " VALUES (?,?,?,?);";
 	
 	public static final String PAYMENT_BACKUPDATE_AUDIT_SEARCH_QUERY = "SELECT paymentid FROM egbs_payment_backupdate_audit where paymentid=? AND isbackupdatesuccess=? AND isreceiptcancellation=?;";
 
-	public static final String BASE_DEMAND_QUERY = "SELECT dmd.id AS did,dmd.consumercode AS dconsumercode,"
+	public static final String PAYMENT_BACKUPDATE_AUDIT_SEARCH_BY_IDS_QUERY = "SELECT DISTINCT paymentid FROM egbs_payment_backupdate_audit"
+			+ " WHERE paymentid = ANY(?) AND isbackupdatesuccess=true AND isreceiptcancellation=?;";
+
+	public static final String DEMAND_SELECT_CLAUSE = "SELECT dmd.id AS did,dmd.consumercode AS dconsumercode,"
 			+ "dmd.consumertype AS dconsumertype,dmd.businessservice AS dbusinessservice,dmd.payer,"
 			+ "dmd.billexpirytime AS dbillexpirytime, dmd.fixedBillExpiryDate as dfixedBillExpiryDate, "
 			+ "dmd.taxperiodfrom AS dtaxperiodfrom,dmd.taxperiodto AS dtaxperiodto,"
@@ -74,8 +85,22 @@ public class DemandQueryBuilder {
 			+ "dmdl.taxamount AS dltaxamount,dmdl.collectionamount AS dlcollectionamount,"
 			+ "dmdl.createdby AS dlcreatedby,dmdl.lastModifiedby AS dllastModifiedby,"
 			+ "dmdl.createdtime AS dlcreatedtime,dmdl.lastModifiedtime AS dllastModifiedtime,"
-			+ "dmdl.tenantid AS dltenantid,dmdl.additionaldetails as detailadditionaldetails " + "FROM egbs_demand_v1 dmd "
-			+ "INNER JOIN egbs_demanddetail_v1 dmdl ON dmd.id=dmdl.demandid " + "AND dmd.tenantid=dmdl.tenantid WHERE ";
+			+ "dmdl.tenantid AS dltenantid,dmdl.additionaldetails as detailadditionaldetails ";
+
+	public static final String DEMAND_DETAIL_JOIN_CLAUSE = "INNER JOIN egbs_demanddetail_v1 dmdl ON dmd.id=dmdl.demandid "
+			+ "AND dmd.tenantid=dmdl.tenantid ";
+
+	public static final String BASE_DEMAND_QUERY = DEMAND_SELECT_CLAUSE + "FROM egbs_demand_v1 dmd "
+			+ DEMAND_DETAIL_JOIN_CLAUSE + "WHERE ";
+
+	/*
+	 * paging is applied on the demands before joining the details,
+	 * so a page always contains complete demands
+	 */
+	public static final String PAGINATED_DEMAND_QUERY = DEMAND_SELECT_CLAUSE
+			+ "FROM (SELECT * FROM egbs_demand_v1 dmd WHERE {replace}) dmd " + DEMAND_DETAIL_JOIN_CLAUSE;
+
+	public static final String REPLACE_STRING = "{replace}";
 
 	public static final String BASE_DEMAND_DETAIL_QUERY = "SELECT "
 			+ "demanddetail.id AS dlid,demanddetail.demandid AS dldemandid,demanddetail.taxheadcode AS dltaxheadcode,"
@@ -88,6 +113,13 @@ public class DemandQueryBuilder {
 
 	public static final String DEMAND_QUERY_ORDER_BY_CLAUSE = "dmd.taxperiodfrom";
 
+	public static final String DEMAND_BUSINESS_CONSUMERCODE_PAIR_CLAUSE = "AND (dmd.businessservice, dmd.consumercode) IN "
+			+ "(SELECT * FROM unnest(?::varchar[], ?::varchar[]))";
+
+	public static final String DEMAND_QUERY_KEYSET_ORDER_BY_CLAUSE = "dmd.taxperiodfrom, dmd.id";
+
+	public static final String DEMAND_QUERY_KEYSET_CLAUSE = "(dmd.taxperiodfrom, dmd.id) > (?, ?)";
+
 	public static final String BASE_DEMAND_DETAIL_QUERY_ORDER_BY_CLAUSE = "dmdl.id";
 
 	public static final String DEMAND_INSERT_QUERY = "INSERT INTO egbs_demand_v1 "
@@ -120,6 +152,10 @@ public class DemandQueryBuilder {
 	public static final String DEMAND_UPDATE_CONSUMERCODE_QUERY="UPDATE egbs_demand_v1 SET consumercode=?, lastmodifiedby=?, lastmodifiedtime=? "
 			+ " WHERE tenantid=? AND id IN (";
 	
+	public static final String BULK_BILL_CONSUMERCODE_QUERY = "SELECT DISTINCT consumercode FROM egbs_demand_v1 "
+			+ "WHERE tenantid=? AND businessservice=? AND status='ACTIVE' AND ispaymentcompleted=false "
+			+ "AND consumercode > ? ORDER BY consumercode LIMIT ?";
+
 
 	public String getDemandQueryForConsumerCodes(Map<String,Set<String>> businessConsumercodeMap,List<Object> preparedStmtList, String tenantId){
 		
@@ -130,32 +166,85 @@ public class DemandQueryBuilder {
 		
 		query.append("AND dmd.status='ACTIVE' ");
 		
-		boolean orFlag = false;
+		/*
+		 * business service and consumer code pairs are sent as two parallel arrays
+		 * so the statement text stays the same irrespective of the number of codes
+		 */
+		List<String> businessServices = new ArrayList<>();
+		List<String> consumerCodes = new ArrayList<>();
 		for (Entry<String, Set<String>> consumerCode : businessConsumercodeMap.entrySet()) {
 			
-			String businessService = consumerCode.getKey();
-			Set<String> consumerCodes = consumerCode.getValue();
-			
-			if(consumerCodes!=null && !consumerCodes.isEmpty()){
-				
-				if(orFlag)
-					query.append("OR");
-				else
-					query.append("AND");
-				
-				query.append(" dmd.businessservice='"+businessService+"' AND dmd.consumercode IN ("
-						+getIdQueryForStrings(consumerCodes)+")");
-				addToPreparedStatement(preparedStmtList, consumerCodes);
-				orFlag=true;
+			if (!CollectionUtils.isEmpty(consumerCode.getValue())) {
+				consumerCode.getValue().forEach(code -> {
+					businessServices.add(consumerCode.getKey());
+					consumerCodes.add(code);
+				});
 			}
 		}
 		
+		query.append(DEMAND_BUSINESS_CONSUMERCODE_PAIR_CLAUSE);
+		addArrayToPreparedStatement(preparedStmtList, businessServices);
+		addArrayToPreparedStatement(preparedStmtList, consumerCodes);
+		
 		return query.toString();
-				}
+	}
+
+	public String getDemandQueryForBulkBill(String tenantId, String businessService, Set<String> consumerCodes,
+			List<Object> preparedStmtList) {
+
+		StringBuilder query = new StringBuilder(BASE_DEMAND_QUERY);
+
+		query.append("dmd.tenantid=? AND dmd.businessservice=? AND dmd.status='ACTIVE' AND dmd.ispaymentcompleted=false ");
+		preparedStmtList.add(tenantId);
+		preparedStmtList.add(businessService);
+
+		query.append("AND dmd.consumercode = ANY(?)");
+		addArrayToPreparedStatement(preparedStmtList, consumerCodes);
+
+		addOrderByClause(query, "dmd.consumercode, " + DEMAND_QUERY_ORDER_BY_CLAUSE);
+		return query.toString();
+	}
 
+	/**
+	 * Demand search query, keyset paged on (taxperiodfrom, id) of the demands
+	 * 
+	 * the next page is fetched by setting the taxPeriodFrom and id of the last demand of 
+	 * the current page in the criteria, which keeps the cost of a page independent of its depth
+	 */
 	public String getDemandQuery(DemandCriteria demandCriteria, List<Object> preparedStatementValues) {
 
+		StringBuilder demandFilterQuery = new StringBuilder();
+		addDemandFilters(demandFilterQuery, demandCriteria, preparedStatementValues);
+		addOrderByClause(demandFilterQuery, DEMAND_QUERY_KEYSET_ORDER_BY_CLAUSE);
+		/*
+		 * search on demand ids is bound by the ids, so it is not paged
+		 */
+		if (CollectionUtils.isEmpty(demandCriteria.getDemandId()))
+			addPagingClause(demandFilterQuery, preparedStatementValues, demandCriteria.getLimit());
+
+		StringBuilder demandQuery = new StringBuilder(PAGINATED_DEMAND_QUERY.replace(REPLACE_STRING, demandFilterQuery));
+		addOrderByClause(demandQuery, DEMAND_QUERY_KEYSET_ORDER_BY_CLAUSE);
+
+		log.info("the query String for demand : " + demandQuery.toString());
+		return demandQuery.toString();
+	}
+
+	/**
+	 * Demand search query without paging for streaming the results
+	 * 
+	 * rows are ordered on (taxperiodfrom, id) so that the details of a demand are contiguous
+	 */
+	public String getDemandStreamQuery(DemandCriteria demandCriteria, List<Object> preparedStatementValues) {
+
 		StringBuilder demandQuery = new StringBuilder(BASE_DEMAND_QUERY);
+		addDemandFilters(demandQuery, demandCriteria, preparedStatementValues);
+		addOrderByClause(demandQuery, DEMAND_QUERY_KEYSET_ORDER_BY_CLAUSE);
+
+		log.info("the stream query String for demand : " + demandQuery.toString());
+		return demandQuery.toString();
+	}
+
+	private void addDemandFilters(StringBuilder demandQuery, DemandCriteria demandCriteria, List<Object> preparedStatementValues) {
 
 		String tenantId = demandCriteria.getTenantId();
 		String[] tenantIdChunks = tenantId.split("\\.");
@@ -178,13 +267,13 @@ public class DemandQueryBuilder {
 		
 		if (demandCriteria.getDemandId() != null && !demandCriteria.getDemandId().isEmpty()) {
 			addAndClause(demandQuery);
-			demandQuery.append("dmd.id IN (" + getIdQueryForStrings(demandCriteria.getDemandId()) + ")");
-			addToPreparedStatement(preparedStatementValues, demandCriteria.getDemandId());
+			demandQuery.append("dmd.id = ANY(?)");
+			addArrayToPreparedStatement(preparedStatementValues, demandCriteria.getDemandId());
 		}
 		if (!CollectionUtils.isEmpty(demandCriteria.getPayer())) {
 			addAndClause(demandQuery);
-			demandQuery.append("dmd.payer IN (" + getIdQueryForStrings(demandCriteria.getPayer()) + ")");
-			addToPreparedStatement(preparedStatementValues, demandCriteria.getPayer());
+			demandQuery.append("dmd.payer = ANY(?)");
+			addArrayToPreparedStatement(preparedStatementValues, demandCriteria.getPayer());
 		}
 		if (demandCriteria.getBusinessService() != null) {
 			addAndClause(demandQuery);
@@ -212,27 +301,27 @@ public class DemandQueryBuilder {
 		
 		if (demandCriteria.getConsumerCode() != null && !demandCriteria.getConsumerCode().isEmpty()) {
 			addAndClause(demandQuery);
-			demandQuery.append("dmd.consumercode IN ("
-			+ getIdQueryForStrings(demandCriteria.getConsumerCode()) + ")");
-			addToPreparedStatement(preparedStatementValues, demandCriteria.getConsumerCode());
+			demandQuery.append("dmd.consumercode = ANY(?)");
+			addArrayToPreparedStatement(preparedStatementValues, demandCriteria.getConsumerCode());
 		}
 
-		addOrderByClause(demandQuery, DEMAND_QUERY_ORDER_BY_CLAUSE);
-		addPagingClause(demandQuery, preparedStatementValues);
-
-		log.info("the query String for demand : " + demandQuery.toString());
-		return demandQuery.toString();
+		if (demandCriteria.getLastTaxPeriodFrom() != null && demandCriteria.getLastDemandId() != null) {
+			addAndClause(demandQuery);
+			demandQuery.append(DEMAND_QUERY_KEYSET_CLAUSE);
+			preparedStatementValues.add(demandCriteria.getLastTaxPeriodFrom());
+			preparedStatementValues.add(demandCriteria.getLastDemandId());
+		}
 	}
 	
 	private static void addOrderByClause(StringBuilder demandQueryBuilder,String columnName) {
 		demandQueryBuilder.append(" ORDER BY " + columnName);
 	}
 
-	private static void addPagingClause(StringBuilder demandQueryBuilder, List<Object> preparedStatementValues) {
+	private void addPagingClause(StringBuilder demandQueryBuilder, List<Object> preparedStatementValues, Integer limit) {
+
+		Integer maxLimit = applicationProperties.getDemandSearchMaxLimit();
 		demandQueryBuilder.append(" LIMIT ?");
-		preparedStatementValues.add(500);
-		demandQueryBuilder.append(" OFFSET ?");
-		preparedStatementValues.add(0);
+		preparedStatementValues.add(null != limit && limit > 0 ? Math.min(limit, maxLimit) : maxLimit);
 	}
 
 	private static boolean addAndClause(StringBuilder queryString) {
@@ -240,19 +329,18 @@ public class DemandQueryBuilder {
 		return true;
 	}
 	
-	private static String getIdQueryForStrings(Set<String> idList) {
+	/**
+	 * Adds the values as a single varchar array parameter, to be used with = ANY(?)
+	 */
+	static void addArrayToPreparedStatement(List<Object> preparedStmtList, Collection<String> values) {
 
-		StringBuilder builder = new StringBuilder();
-		int length = idList.size();
-		for( int i = 0; i< length; i++){
-			builder.append(" ? ");
-			if(i != length -1) builder.append(",");
-		}
-		return builder.toString();
-	}
+		String[] array = values.toArray(new String[0]);
+		preparedStmtList.add(new AbstractSqlTypeValue() {
 
-	private void addToPreparedStatement(List<Object> preparedStmtList, Collection<String> ids)
-	{
-		ids.forEach(id ->{ preparedStmtList.add(id);});
+			@Override
+			protected Object createTypeValue(Connection connection, int sqlType, String typeName) throws SQLException {
+				return connection.createArrayOf("varchar", array);
+			}
+		});
 	}
 }
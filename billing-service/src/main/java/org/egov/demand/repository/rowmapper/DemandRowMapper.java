@@ -80,60 +80,75 @@ public class DemandRowMapper implements ResultSetExtractor<List<Demand>> {
 
 			if (demand == null) {
 
-				demand = new Demand();
-				demand.setId(demandId);
-				demand.setBusinessService(rs.getString("dbusinessservice"));
-				demand.setConsumerCode(rs.getString("dconsumerCode"));
-				demand.setConsumerType(rs.getString("dconsumerType"));
-				demand.setTaxPeriodFrom(rs.getLong("dtaxPeriodFrom"));
-				demand.setTaxPeriodTo(rs.getLong("dtaxPeriodTo"));
-				demand.setTenantId(rs.getString("dtenantid"));
-				demand.setBillExpiryTime(rs.getLong("dbillexpirytime"));
-				demand.setStatus(StatusEnum.fromValue(rs.getString("status")));
-				demand.setIsPaymentCompleted(rs.getBoolean("ispaymentcompleted"));
-				demand.setMinimumAmountPayable(rs.getBigDecimal("dminimumAmountPayable"));
-				
-				PGobject adDetail = (PGobject) rs.getObject("demandadditionaldetails");	
-				JsonNode json = util.getJsonValue(adDetail);
-				demand.setAdditionalDetails(json);
-				
-				String payerId = rs.getString("payer");
-				if (null != payerId) {
-					demand.setPayer(User.builder().uuid(payerId).build());
-				}
-
-				AuditDetails auditDetail = new AuditDetails();
-				auditDetail.setCreatedBy(rs.getString("dcreatedby"));
-				auditDetail.setLastModifiedBy(rs.getString("dlastModifiedby"));
-				auditDetail.setCreatedTime(rs.getLong("dcreatedtime"));
-				auditDetail.setLastModifiedTime(rs.getLong("dlastModifiedtime"));
-				demand.setAuditDetails(auditDetail);
-
-				demand.setDemandDetails(new ArrayList<>());
+				demand = mapDemand(rs);
 				demandMap.put(demand.getId(), demand);
 			}
 
-			DemandDetail demandDetail = new DemandDetail();
-			demandDetail.setId(rs.getString("dlid"));
-			demandDetail.setDemandId(rs.getString("dldemandid"));
-
-			demandDetail.setTaxHeadMasterCode(rs.getString("dltaxheadcode"));
-			;
-			demandDetail.setTenantId(rs.getString("dltenantid"));
-			demandDetail.setTaxAmount(rs.getBigDecimal("dltaxamount"));
-			demandDetail.setCollectionAmount(rs.getBigDecimal("dlcollectionamount"));
-
-			AuditDetails dlauditDetail = new AuditDetails();
-			dlauditDetail.setCreatedBy(rs.getString("dlcreatedby"));
-			dlauditDetail.setCreatedTime(rs.getLong("dlcreatedtime"));
-			dlauditDetail.setLastModifiedBy(rs.getString("dllastModifiedby"));
-			dlauditDetail.setLastModifiedTime(rs.getLong("dllastModifiedtime"));
-			demandDetail.setAuditDetails(dlauditDetail);
-
+			DemandDetail demandDetail = mapDemandDetail(rs);
 			if (demand.getId().equals(demandDetail.getDemandId()))
 				demand.getDemandDetails().add(demandDetail);
 		}
 		return new ArrayList<>(demandMap.values());
 	}
+
+	/**
+	 * Maps the demand columns of the current row, the demand details are left empty
+	 */
+	public Demand mapDemand(ResultSet rs) throws SQLException {
+
+		Demand demand = new Demand();
+		demand.setId(rs.getString("did"));
+		demand.setBusinessService(rs.getString("dbusinessservice"));
+		demand.setConsumerCode(rs.getString("dconsumerCode"));
+		demand.setConsumerType(rs.getString("dconsumerType"));
+		demand.setTaxPeriodFrom(rs.getLong("dtaxPeriodFrom"));
+		demand.setTaxPeriodTo(rs.getLong("dtaxPeriodTo"));
+		demand.setTenantId(rs.getString("dtenantid"));
+		demand.setBillExpiryTime(rs.getLong("dbillexpirytime"));
+		demand.setStatus(StatusEnum.fromValue(rs.getString("status")));
+		demand.setIsPaymentCompleted(rs.getBoolean("ispaymentcompleted"));
+		demand.setMinimumAmountPayable(rs.getBigDecimal("dminimumAmountPayable"));
+		
+		PGobject adDetail = (PGobject) rs.getObject("demandadditionaldetails");	
+		JsonNode json = util.getJsonValue(adDetail);
+		demand.setAdditionalDetails(json);
+		
+		String payerId = rs.getString("payer");
+		if (null != payerId) {
+			demand.setPayer(User.builder().uuid(payerId).build());
+		}
+
+		AuditDetails auditDetail = new AuditDetails();
+		auditDetail.setCreatedBy(rs.getString("dcreatedby"));
+		auditDetail.setLastModifiedBy(rs.getString("dlastModifiedby"));
+		auditDetail.setCreatedTime(rs.getLong("dcreatedtime"));
+		auditDetail.setLastModifiedTime(rs.getLong("dlastModifiedtime"));
+		demand.setAuditDetails(auditDetail);
+
+		demand.setDemandDetails(new ArrayList<>());
+		return demand;
+	}
+
+	/**
+	 * Maps the demand detail columns of the current row
+	 */
+	public DemandDetail mapDemandDetail(ResultSet rs) throws SQLException {
+
+		DemandDetail demandDetail = new DemandDetail();
+		demandDetail.setId(rs.getString("dlid"));
+		demandDetail.setDemandId(rs.getString("dldemandid"));
+		demandDetail.setTaxHeadMasterCode(rs.getString("dltaxheadcode"));
+		demandDetail.setTenantId(rs.getString("dltenantid"));
+		demandDetail.setTaxAmount(rs.getBigDecimal("dltaxamount"));
+		demandDetail.setCollectionAmount(rs.getBigDecimal("dlcollectionamount"));
+
+		AuditDetails dlauditDetail = new AuditDetails();
+		dlauditDetail.setCreatedBy(rs.getString("dlcreatedby"));
+		dlauditDetail.setCreatedTime(rs.getLong("dlcreatedtime"));
+		dlauditDetail.setLastModifiedBy(rs.getString("dllastModifiedby"));
+		dlauditDetail.setLastModifiedTime(rs.getLong("dllastModifiedtime"));
+		demandDetail.setAuditDetails(dlauditDetail);
+		return demandDetail;
+	}
 	
-}
\ No newline at end of file
+}
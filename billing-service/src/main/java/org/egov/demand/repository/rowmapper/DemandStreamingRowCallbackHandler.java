@@ -0,0 +1,100 @@
+/*
+ * eGov suite of products aim to improve the internal efficiency,transparency,
+ *    accountability and the service delivery of the government  organizations.
+ *
+ *     Copyright (C) <2015>  eGovernments Foundation
+ *
+ *     The updated version of eGov suite of products as by eGovernments Foundation
+ *     is available at http://www.egovernments.org
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program. If not, see http://www.gnu.org/licenses/ or
+ *     http://www.gnu.org/licenses/gpl.html .
+ *
+ *     In addition to the terms of the GPL license to be adhered to in using this
+ *     program, the following additional terms are to be complied with:
+ *
+ *         1) All versions of this program, verbatim or modified must carry this
+ *            Legal Notice.
+ *
+ *         2) Any misrepresentation of the origin of the material is prohibited. It
+ *            is required that all modified versions of this material be marked in
+ *            reasonable ways as different from the original version.
+ *
+ *         3) This license does not grant any rights to any user of the program
+ *            with regards to rights under trademark law for use of the trade names
+ *            or trademarks of eGovernments Foundation.
+ *
+ *   In case of any queries, you can reach eGovernments Foundation at contact@egovernments.org.
+ */
+package org.egov.demand.repository.rowmapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+import org.egov.demand.model.Demand;
+import org.egov.demand.model.DemandDetail;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * Row call back handler which hands over each demand to the consumer as soon as
+ * all of its details are read, the rows are expected to be ordered on the demand
+ * 
+ * complete() has to be called after the query to emit the last demand
+ */
+public class DemandStreamingRowCallbackHandler implements RowCallbackHandler {
+
+	private DemandRowMapper demandRowMapper;
+
+	private Consumer<Demand> demandConsumer;
+
+	private Demand currentDemand;
+
+	private long demandCount;
+
+	public DemandStreamingRowCallbackHandler(DemandRowMapper demandRowMapper, Consumer<Demand> demandConsumer) {
+		this.demandRowMapper = demandRowMapper;
+		this.demandConsumer = demandConsumer;
+	}
+
+	@Override
+	public void processRow(ResultSet rs) throws SQLException {
+
+		String demandId = rs.getString("did");
+		if (currentDemand == null || !currentDemand.getId().equals(demandId)) {
+			complete();
+			currentDemand = demandRowMapper.mapDemand(rs);
+		}
+
+		DemandDetail demandDetail = demandRowMapper.mapDemandDetail(rs);
+		if (currentDemand.getId().equals(demandDetail.getDemandId()))
+			currentDemand.getDemandDetails().add(demandDetail);
+	}
+
+	/**
+	 * Emits the demand being read, if any
+	 */
+	public void complete() {
+
+		if (currentDemand != null) {
+			demandConsumer.accept(currentDemand);
+			currentDemand = null;
+			demandCount++;
+		}
+	}
+
+	public long getDemandCount() {
+		return demandCount;
+	}
+}
@@ -78,8 +78,8 @@ import org.egov.demand.model.TaxHeadMaster;
 import org.egov.demand.model.TaxHeadMasterCriteria;
 import org.egov.demand.model.enums.DemandStatus;
 import org.egov.demand.repository.BillRepository;
-import org.egov.demand.repository.IdGenRepo;
 import org.egov.demand.repository.ServiceRequestRepository;
+import org.egov.demand.util.IdBlockAllocator;
 import org.egov.demand.util.Util;
 import org.egov.demand.web.contract.BillRequest;
 import org.egov.demand.web.contract.BillResponse;
@@ -130,7 +130,7 @@ public class BillService {
 	private ServiceRequestRepository restRepository;
 	
 	@Autowired
-	private IdGenRepo idGenRepo;
+	private IdBlockAllocator idBlockAllocator;
 	
 	@Value("${kafka.topics.billgen.topic.name}")
 	private String notifTopicName;
@@ -388,7 +388,7 @@ public class BillService {
 		else
 			billNumberFormat = billNumberFormat.replace(appProps.getTenantIdReplaceString(), "");
 
-		return idGenRepo.getId(requestInfo, tenantId, "billnumberid", billNumberFormat, count);
+		return idBlockAllocator.getIds(requestInfo, tenantId, "billnumberid", billNumberFormat, count);
 	}
 
 	/**
@@ -55,14 +55,27 @@ import java.util.Calendar;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import org.egov.common.contract.request.RequestInfo;
 import org.egov.demand.config.ApplicationProperties;
 import org.egov.demand.model.BillAccountDetailV2;
@@ -70,6 +83,8 @@ import org.egov.demand.model.BillDetailV2;
 import org.egov.demand.model.BillSearchCriteria;
 import org.egov.demand.model.BillV2;
 import org.egov.demand.model.BillV2.BillStatus;
+import org.egov.demand.model.BulkBillCriteria;
+import org.egov.demand.model.BulkBillJob;
 import org.egov.demand.model.BusinessServiceDetail;
 import org.egov.demand.model.Demand;
 import org.egov.demand.model.DemandCriteria;
@@ -80,8 +95,9 @@ import org.egov.demand.model.TaxHeadMasterCriteria;
 import org.egov.demand.model.UpdateBillCriteria;
 import org.egov.demand.model.UpdateBillRequest;
 import org.egov.demand.repository.BillRepositoryV2;
-import org.egov.demand.repository.IdGenRepo;
+import org.egov.demand.repository.BulkBillJobRepository;
 import org.egov.demand.repository.ServiceRequestRepository;
+import org.egov.demand.util.IdBlockAllocator;
 import org.egov.demand.util.Util;
 import org.egov.demand.web.contract.BillRequestV2;
 import org.egov.demand.web.contract.BillResponseV2;
@@ -99,6 +115,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestTemplate;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -118,6 +135,9 @@ public class BillServicev2 {
 	@Autowired
 	private BillRepositoryV2 billRepository;
 
+	@Autowired
+	private BulkBillJobRepository bulkBillJobRepository;
+
 	@Autowired
 	private DemandService demandService;
 
@@ -134,7 +154,7 @@ public class BillServicev2 {
 	private ServiceRequestRepository restRepository;
 	
 	@Autowired
-	private IdGenRepo idGenRepo;
+	private IdBlockAllocator idBlockAllocator;
 	
 	@Autowired
 	private BillValidator billValidator;
@@ -142,6 +162,27 @@ public class BillServicev2 {
 	@Value("${kafka.topics.billgen.topic.name}")
 	private String notifTopicName;
 	
+	private ExecutorService demandUpdateExecutor;
+
+	private RestTemplate demandUpdateRestTemplate;
+	
+	/**
+	 * The demand update calls run on a bounded pool with a bounded queue, and time out on
+	 * their own since cancelling a call which is no longer waited upon does not interrupt it
+	 */
+	@PostConstruct
+	public void initDemandUpdateExecutor() {
+		demandUpdateExecutor = new ThreadPoolExecutor(appProps.getDemandUpdatePoolSize(), appProps.getDemandUpdatePoolSize(),
+				0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(appProps.getDemandUpdateQueueSize()));
+		demandUpdateRestTemplate = restRepository.getRestTemplate(appProps.getDemandUpdateConnectTimeout(),
+				appProps.getDemandUpdateTimeout().intValue());
+	}
+	
+	@PreDestroy
+	public void shutdownDemandUpdateExecutor() {
+		demandUpdateExecutor.shutdown();
+	}
+	
 	/**
 	 * Cancell bill operation can be carried by this method, based on consumerCodes
 	 * and businessService.
@@ -245,21 +286,24 @@ public class BillServicev2 {
 			
 			billCriteria.getConsumerCode().retainAll(cosnumerCodesToBeExpired);
 			billCriteria.getConsumerCode().addAll(cosnumerCodesNotFoundInBill);
-			updateDemandsForexpiredBillDetails(billCriteria.getBusinessService(), billCriteria.getConsumerCode(), billCriteria.getTenantId(), requestInfoWrapper);
-			
-			billRepository.updateBillStatus(
-					UpdateBillCriteria.builder()
-					.statusToBeUpdated(BillStatus.EXPIRED)
-					.businessService(billCriteria.getBusinessService())
-					.consumerCodes(cosnumerCodesToBeExpired)
-					.tenantId(billCriteria.getTenantId())
-					.build()
-					);
-			BillResponseV2 finalResponse = generateBill(billCriteria, requestInfo);
-			// gen bill returns immutable empty list incase of zero bills
-			billsToBeReturned.addAll(finalResponse.getBill());
-			finalResponse.setBill(billsToBeReturned);
-			return finalResponse;
+
+			/*
+			 * grouping the consumer codes by the business service of their bills to update the demands
+			 */
+			Map<String, Set<String>> serviceAndConsumerCodesMap = new HashMap<>();
+			for (String consumerCode : billCriteria.getConsumerCode()) {
+
+				BillV2 bill = consumerCodeAndBillMap.get(consumerCode);
+				String businessService = null != bill ? bill.getBusinessService() : billCriteria.getBusinessService();
+				serviceAndConsumerCodesMap.computeIfAbsent(businessService, key -> new HashSet<>()).add(consumerCode);
+			}
+			updateDemandsForexpiredBillDetails(serviceAndConsumerCodesMap, billCriteria.getTenantId(), requestInfoWrapper);
+
+			Map<String, BillV2> expiredBillMap = new HashMap<>();
+			cosnumerCodesToBeExpired.forEach(consumerCode -> expiredBillMap.put(consumerCode, consumerCodeAndBillMap.get(consumerCode)));
+
+			billsToBeReturned.addAll(regenerateBills(billCriteria, expiredBillMap, requestInfo));
+			return getBillResponse(billsToBeReturned);
 		}
 	}
 
@@ -267,20 +311,29 @@ public class BillServicev2 {
 	 * To make calls to respective service which updates the demands belonging to
 	 * the arguments passed
 	 * 
+	 * calls for different business services are made in parallel and waited upon
+	 * for the configured time, the bill generation fails in case of time out since
+	 * a bill must not be generated from the demands before the update
+	 * 
 	 * @param serviceAndConsumerCodeListMap
 	 * @param tenantId
 	 */
-	private void updateDemandsForexpiredBillDetails(String businessService, Set<String> consumerCodesTobeUpdated, String tenantId, RequestInfoWrapper requestInfoWrapper) {
+	private void updateDemandsForexpiredBillDetails(Map<String, Set<String>> serviceAndConsumerCodesMap, String tenantId, RequestInfoWrapper requestInfoWrapper) {
 
 		Map<String, String> serviceUrlMap = appProps.getBusinessCodeAndDemandUpdateUrlMap();
+		List<CompletableFuture<Void>> demandUpdateCalls = new ArrayList<>();
+
+		for (Entry<String, Set<String>> serviceAndConsumerCodes : serviceAndConsumerCodesMap.entrySet()) {
 
+			String businessService = serviceAndConsumerCodes.getKey();
+			Set<String> consumerCodesTobeUpdated = serviceAndConsumerCodes.getValue();
 
 			String url = serviceUrlMap.get(businessService);
 			if (StringUtils.isEmpty(url)) {
 				
 				log.info(URL_NOT_CONFIGURED_FOR_DEMAND_UPDATE_KEY, URL_NOT_CONFIGURED_FOR_DEMAND_UPDATE_MSG
 						.replace(URL_NOT_CONFIGURED_REPLACE_TEXT, businessService));
-				return;
+				continue;
 			}
 
 			StringBuilder completeUrl = new StringBuilder(url)
@@ -289,7 +342,191 @@ public class BillServicev2 {
 
 			completeUrl.append(URL_PARAM_SEPERATOR).append(BUSINESS_SERVICE_URL_PARAMETER).append(businessService);
 			log.info("the url : " + completeUrl);
-			restRepository.fetchResult(completeUrl.toString(), requestInfoWrapper);
+			try {
+				demandUpdateCalls.add(CompletableFuture.runAsync(() -> restRepository
+						.fetchResult(demandUpdateRestTemplate, completeUrl.toString(), requestInfoWrapper), demandUpdateExecutor));
+			} catch (RejectedExecutionException e) {
+				demandUpdateCalls.forEach(call -> call.cancel(true));
+				throw new CustomException("EG_BS_DEMAND_UPDATE_BUSY",
+						"Too many demand updates are in progress for the expired bills, please retry");
+			}
+		}
+
+		if (demandUpdateCalls.isEmpty())
+			return;
+
+		try {
+			CompletableFuture.allOf(demandUpdateCalls.toArray(new CompletableFuture[0]))
+					.get(appProps.getDemandUpdateTimeout(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			// skips the calls still queued, the running ones end at the read timeout of the rest template
+			demandUpdateCalls.forEach(call -> call.cancel(true));
+			log.error("Demand update calls did not complete in {} ms for consumer codes : {}",
+					appProps.getDemandUpdateTimeout(), serviceAndConsumerCodesMap);
+			throw new CustomException("EG_BS_DEMAND_UPDATE_TIMEOUT", "Demand update did not complete in "
+					+ appProps.getDemandUpdateTimeout() + " ms for the expired bills, please retry");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CustomException("EG_BS_DEMAND_UPDATE_ERROR", "Demand update interrupted for the expired bills");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new CustomException("EG_BS_DEMAND_UPDATE_ERROR", e.getMessage());
+		}
+	}
+
+	/**
+	 * Generates new bills for the consumer codes of the expired bills and the consumer codes without bills
+	 * 
+	 * bill details of the expired bills which are still valid and whose demands were not modified after the 
+	 * bill creation are carried forward as they are, only the rest are recomputed from the demands.
+	 * 
+	 * The expired bills are expired and the new bills are saved in a single transaction.
+	 * 
+	 * @param billCriteria
+	 * @param expiredBillMap map of consumer code and its expired bill
+	 * @param requestInfo
+	 * @return
+	 */
+	private List<BillV2> regenerateBills(GenerateBillCriteria billCriteria, Map<String, BillV2> expiredBillMap, RequestInfo requestInfo) {
+
+		List<Demand> demands = demandService.getDemands(getDemandCriteria(billCriteria), requestInfo);
+		List<BillV2> bills = new ArrayList<>();
+		long currentTime = System.currentTimeMillis();
+
+		Map<String, BillDetailV2> demandIdAndBillDetailMap = new HashMap<>();
+		expiredBillMap.values().forEach(bill -> bill.getBillDetails()
+				.forEach(billDetail -> demandIdAndBillDetailMap.put(billDetail.getDemandId(), billDetail)));
+
+		Map<String, List<Demand>> tenatIdDemandsList = demands.stream().collect(Collectors.groupingBy(Demand::getTenantId));
+		for (Entry<String, List<Demand>> demandTenantEntry : tenatIdDemandsList.entrySet()) {
+
+			String tenantId = demandTenantEntry.getKey();
+			List<Demand> demandForOneTenant = demandTenantEntry.getValue();
+
+			/*
+			 * Tax-heads are needed only for the demands whose bill details have to be recomputed
+			 */
+			Set<String> taxHeadCodes = new HashSet<>();
+			for (Demand demand : demandForOneTenant) {
+
+				BillV2 expiredBill = expiredBillMap.get(demand.getConsumerCode());
+				if (!isBillDetailReusable(demandIdAndBillDetailMap.get(demand.getId()), demand, expiredBill, currentTime))
+					demand.getDemandDetails().forEach(detail -> taxHeadCodes.add(detail.getTaxHeadMasterCode()));
+			}
+
+			Map<String, TaxHeadMaster> taxHeadMap = taxHeadCodes.isEmpty() ? Collections.emptyMap()
+					: getTaxHeadMaster(taxHeadCodes, tenantId, requestInfo);
+
+			Map<String, List<Demand>> consumerCodeAndDemandsMap = demandForOneTenant.stream().collect(Collectors.groupingBy(Demand::getConsumerCode));
+			Iterator<String> billNumbers = getBillNumbers(requestInfo, tenantId,
+					demandForOneTenant.get(0).getBusinessService(), consumerCodeAndDemandsMap.size()).iterator();
+
+			for (Entry<String, List<Demand>> consumerCodeAndDemands : consumerCodeAndDemandsMap.entrySet()) {
+
+				String consumerCode = consumerCodeAndDemands.getKey();
+				List<Demand> demandsForSingleCode = consumerCodeAndDemands.getValue();
+				BillV2 expiredBill = expiredBillMap.get(consumerCode);
+				User payer = null != demandsForSingleCode.get(0).getPayer() ? demandsForSingleCode.get(0).getPayer() : new User();
+
+				String billId = UUID.randomUUID().toString();
+				String billNumber = billNumbers.next();
+				BigDecimal billAmount = BigDecimal.ZERO;
+				List<BillDetailV2> billDetails = new ArrayList<>();
+
+				for (Demand demand : demandsForSingleCode) {
+
+					String billDetailId = UUID.randomUUID().toString();
+					BillDetailV2 existingBillDetail = demandIdAndBillDetailMap.get(demand.getId());
+					BillDetailV2 billDetail;
+
+					if (isBillDetailReusable(existingBillDetail, demand, expiredBill, currentTime))
+						billDetail = copyBillDetail(existingBillDetail, billDetailId);
+					else
+						billDetail = getBillDetailForDemand(demand, taxHeadMap, billDetailId);
+
+					billDetail.setBillId(billId);
+					billDetail.setId(billDetailId);
+					billDetails.add(billDetail);
+					billAmount = billAmount.add(billDetail.getAmount());
+				}
+
+				if (billAmount.compareTo(BigDecimal.ZERO) >= 0) {
+
+					BillV2 bill = BillV2.builder()
+						.auditDetails(util.getAuditDetail(requestInfo))
+						.payerAddress(payer.getPermanentAddress())
+						.mobileNumber(payer.getMobileNumber())
+						.billDate(System.currentTimeMillis())
+						.businessService(demandsForSingleCode.get(0).getBusinessService())
+						.payerName(payer.getName())
+						.consumerCode(consumerCode)
+						.status(BillStatus.ACTIVE)
+						.billDetails(billDetails)
+						.totalAmount(billAmount)
+						.billNumber(billNumber)
+						.tenantId(tenantId)
+						.id(billId)
+						.build();
+
+					bills.add(bill);
+				}
+			}
+		}
+
+		BillRequestV2 billRequest = BillRequestV2.builder().bills(bills).requestInfo(requestInfo).build();
+		billRepository.expireAndSaveBills(billRequest, billCriteria.getTenantId(), billCriteria.getBusinessService(),
+				expiredBillMap.keySet());
+		return bills;
+	}
+
+	/**
+	 * A bill detail of the expired bill can be carried forward if it is not expired itself and
+	 * its demand has not been modified after the bill was created
+	 */
+	private boolean isBillDetailReusable(BillDetailV2 billDetail, Demand demand, BillV2 bill, long currentTime) {
+
+		if (null == billDetail || null == bill || null == bill.getAuditDetails()
+				|| null == bill.getAuditDetails().getCreatedTime() || billDetail.getExpiryDate() < currentTime)
+			return false;
+
+		long demandLastModifiedTime = demand.getAuditDetails().getLastModifiedTime();
+		for (DemandDetail demandDetail : demand.getDemandDetails())
+			demandLastModifiedTime = Math.max(demandLastModifiedTime, demandDetail.getAuditDetails().getLastModifiedTime());
+
+		return demandLastModifiedTime <= bill.getAuditDetails().getCreatedTime();
+	}
+
+	/**
+	 * Copies the bill detail of an expired bill in to a new bill detail with new ids
+	 */
+	private BillDetailV2 copyBillDetail(BillDetailV2 billDetail, String billDetailId) {
+
+		List<BillAccountDetailV2> billAccountDetails = new ArrayList<>();
+		for (BillAccountDetailV2 accountDetail : billDetail.getBillAccountDetails()) {
+
+			billAccountDetails.add(BillAccountDetailV2.builder()
+					.demandDetailId(accountDetail.getDemandDetailId())
+					.taxHeadCode(accountDetail.getTaxHeadCode())
+					.tenantId(accountDetail.getTenantId())
+					.amount(accountDetail.getAmount())
+					.order(accountDetail.getOrder())
+					.id(UUID.randomUUID().toString())
+					.adjustedAmount(BigDecimal.ZERO)
+					.billDetailId(billDetailId)
+					.build());
+		}
+
+		return BillDetailV2.builder()
+				.additionalDetails(billDetail.getAdditionalDetails())
+				.billAccountDetails(billAccountDetails)
+				.expiryDate(billDetail.getExpiryDate())
+				.fromPeriod(billDetail.getFromPeriod())
+				.tenantId(billDetail.getTenantId())
+				.demandId(billDetail.getDemandId())
+				.toPeriod(billDetail.getToPeriod())
+				.amount(billDetail.getAmount())
+				.build();
 	}
 
 
@@ -317,6 +554,29 @@ public class BillServicev2 {
 	 */
 	public BillResponseV2 generateBill(GenerateBillCriteria billCriteria, RequestInfo requestInfo) {
 
+		/* Fetching demands for the given bill search criteria */
+		List<Demand> demands = demandService.getDemands(getDemandCriteria(billCriteria), requestInfo);
+
+		List<BillV2> bills;
+
+		if (!demands.isEmpty())
+			bills = prepareBill(demands, requestInfo);
+		else
+			return getBillResponse(Collections.emptyList());
+
+		BillRequestV2 billRequest = BillRequestV2.builder().bills(bills).requestInfo(requestInfo).build();
+		//kafkaTemplate.send(notifTopicName, null, billRequest);
+		return create(billRequest);
+	}
+
+	/**
+	 * Converts the bill generate criteria to criteria for searching the active unpaid demands
+	 * 
+	 * @param billCriteria
+	 * @return
+	 */
+	private DemandCriteria getDemandCriteria(GenerateBillCriteria billCriteria) {
+
 		Set<String> demandIds = new HashSet<>();
 		Set<String> consumerCodes = new HashSet<>();
 
@@ -326,7 +586,7 @@ public class BillServicev2 {
 		if (billCriteria.getConsumerCode() != null)
 			consumerCodes.addAll(billCriteria.getConsumerCode());
 
-		DemandCriteria demandCriteria = DemandCriteria.builder()
+		return DemandCriteria.builder()
 				.status(org.egov.demand.model.Demand.StatusEnum.ACTIVE.toString())
 				.businessService(billCriteria.getBusinessService())
 				.mobileNumber(billCriteria.getMobileNumber())
@@ -337,20 +597,106 @@ public class BillServicev2 {
 				.receiptRequired(false)
 				.demandId(demandIds)
 				.build();
+	}
 
-		/* Fetching demands for the given bill search criteria */
-		List<Demand> demands = demandService.getDemands(demandCriteria, requestInfo);
+	/**
+	 * Generates bills in bulk for the consumer-codes of a bulk bill job
+	 * 
+	 * The consumer-codes are processed in chunks in their order, for each chunk the demands are fetched in a
+	 * single query, bill numbers are reserved in a single id-gen call and the bills are persisted in batches.
+	 * 
+	 * If no consumer-codes are given, all the consumer-codes having active unpaid demands are 
+	 * paged from the DB on the consumer-code.
+	 * 
+	 * The checkpoint of the job is saved after every chunk and the job resumes after it, a chunk whose
+	 * checkpoint was not saved is generated again, which expires the bills generated for it before.
+	 * 
+	 * @param job the job to be run, its checkpoint is updated in place
+	 */
+	public void generateBulkBill(BulkBillJob job) {
 
-		List<BillV2> bills;
+		RequestInfo requestInfo = job.getRequestInfo();
+		BulkBillCriteria criteria = job.getCriteria();
+		String tenantId = job.getTenantId();
+		String businessService = job.getBusinessService();
+		
+		Integer chunkSize = appProps.getBulkBillChunkSize();
+		if (null != criteria.getChunkSize() && criteria.getChunkSize() > 0)
+			chunkSize = Math.min(criteria.getChunkSize(), appProps.getBulkBillMaxChunkSize());
 
-		if (!demands.isEmpty())
-			bills = prepareBill(demands, requestInfo);
-		else
-			return getBillResponse(Collections.emptyList());
+		Map<String, Map<String, TaxHeadMaster>> tenantTaxHeadMap = new HashMap<>();
+		Map<String, Map<String, BusinessServiceDetail>> tenantBusinessMap = new HashMap<>();
+		String lastConsumerCode = null == job.getLastConsumerCode() ? "" : job.getLastConsumerCode();
 
-		BillRequestV2 billRequest = BillRequestV2.builder().bills(bills).requestInfo(requestInfo).build();
-		//kafkaTemplate.send(notifTopicName, null, billRequest);
-		return create(billRequest);
+		if (!CollectionUtils.isEmpty(criteria.getConsumerCodes())) {
+
+			List<String> consumerCodes = new ArrayList<>(new TreeSet<>(criteria.getConsumerCodes()).tailSet(lastConsumerCode, false));
+			for (int i = 0; i < consumerCodes.size(); i += chunkSize) {
+
+				List<String> chunk = consumerCodes.subList(i, Math.min(i + chunkSize, consumerCodes.size()));
+				generateBillsForChunk(chunk, job, requestInfo, tenantTaxHeadMap, tenantBusinessMap);
+			}
+		} else {
+
+			List<String> chunk;
+			do {
+				chunk = demandService.getConsumerCodesForBulkBill(tenantId, businessService, lastConsumerCode, chunkSize);
+				if (chunk.isEmpty())
+					break;
+
+				generateBillsForChunk(chunk, job, requestInfo, tenantTaxHeadMap, tenantBusinessMap);
+				lastConsumerCode = chunk.get(chunk.size() - 1);
+			} while (chunk.size() == chunkSize);
+		}
+
+		job.setStatus(BulkBillJob.STATUS_COMPLETED);
+		bulkBillJobRepository.saveCheckpoint(job);
+
+		log.info("Bulk bill generation job : {} completed for tenant : {}, businessService : {}, consumer-codes processed : {}, "
+				+ "bills generated : {}, failed consumer-codes : {}, time taken : {} ms", job.getId(), tenantId, businessService,
+				job.getConsumerCodesProcessed(), job.getBillsGenerated(), job.getFailedConsumerCodesCount(), job.getTimeTaken());
+	}
+
+	/**
+	 * Generates and persists the bills for one chunk of consumer-codes and saves the checkpoint of the job
+	 * 
+	 * consumer-codes of a failed chunk are recorded along with the checkpoint and do not stop the bulk run
+	 */
+	private void generateBillsForChunk(List<String> chunk, BulkBillJob job, RequestInfo requestInfo,
+			Map<String, Map<String, TaxHeadMaster>> tenantTaxHeadMap,
+			Map<String, Map<String, BusinessServiceDetail>> tenantBusinessMap) {
+
+		long startTime = System.currentTimeMillis();
+		Set<String> consumerCodes = new HashSet<>(chunk);
+		Set<String> failedConsumerCodes = Collections.emptySet();
+		try {
+
+			List<Demand> demands = demandService.getDemandsForBulkBill(job.getTenantId(), job.getBusinessService(),
+					consumerCodes, requestInfo);
+			if (!demands.isEmpty()) {
+
+				List<BillV2> bills = prepareBill(demands, requestInfo, tenantTaxHeadMap, tenantBusinessMap);
+				Set<String> billedConsumerCodes = bills.stream().map(BillV2::getConsumerCode).collect(Collectors.toSet());
+				billRepository.expireAndSaveBills(BillRequestV2.builder().bills(bills).requestInfo(requestInfo).build(),
+						job.getTenantId(), job.getBusinessService(), billedConsumerCodes);
+				job.setBillsGenerated(job.getBillsGenerated() + bills.size());
+			}
+		} catch (Exception e) {
+
+			log.error("Bill generation failed for the chunk of consumer-codes : {}", consumerCodes, e);
+			failedConsumerCodes = consumerCodes;
+		}
+
+		job.setLastConsumerCode(chunk.get(chunk.size() - 1));
+		job.setConsumerCodesProcessed(job.getConsumerCodesProcessed() + consumerCodes.size());
+		job.setChunksProcessed(job.getChunksProcessed() + 1);
+		job.setTimeTaken(job.getTimeTaken() + System.currentTimeMillis() - startTime);
+		bulkBillJobRepository.saveCheckpoint(job, failedConsumerCodes);
+
+		log.info("Bulk bill generation progress of job : {}, chunk : {}, consumer-codes processed : {}, "
+				+ "bills generated : {}, throughput : {} bills/sec", job.getId(), job.getChunksProcessed(),
+				job.getConsumerCodesProcessed(), job.getBillsGenerated(),
+				job.getBillsGenerated() * 1000 / Math.max(job.getTimeTaken(), 1));
 	}
 
 	/**
@@ -361,10 +707,26 @@ public class BillServicev2 {
 	 * @return
 	 */
 	private List<BillV2> prepareBill(List<Demand> demands, RequestInfo requestInfo) {
+		return prepareBill(demands, requestInfo, new HashMap<>(), new HashMap<>());
+	}
+
+	/**
+	 * Prepares the bill object from the list of given demands
+	 * 
+	 * the master data fetched is kept in the given maps against the tenant-id,
+	 * so the bulk generation does not search them again for every chunk
+	 * 
+	 * @param demands demands for which bill should be generated
+	 * @param requestInfo
+	 * @param tenantTaxHeadMap tax-heads already fetched for each tenant
+	 * @param tenantBusinessMap business-service details already fetched for each tenant
+	 * @return
+	 */
+	private List<BillV2> prepareBill(List<Demand> demands, RequestInfo requestInfo,
+			Map<String, Map<String, TaxHeadMaster>> tenantTaxHeadMap,
+			Map<String, Map<String, BusinessServiceDetail>> tenantBusinessMap) {
 
-		
 		List<BillV2> bills = new ArrayList<>();
-		User payer = null != demands.get(0).getPayer() ?  demands.get(0).getPayer() : new User();
 
 		Map<String, List<Demand>> tenatIdDemandsList = demands.stream().collect(Collectors.groupingBy(Demand::getTenantId));
 		for (Entry<String, List<Demand>> demandTenantEntry : tenatIdDemandsList.entrySet()) {
@@ -383,8 +745,15 @@ public class BillServicev2 {
 				demand.getDemandDetails().forEach(detail -> taxHeadCodes.add(detail.getTaxHeadMasterCode()));
 			}
 			
-			Map<String, TaxHeadMaster> taxHeadMap = getTaxHeadMaster(taxHeadCodes, tenantId, requestInfo);
-			Map<String, BusinessServiceDetail> businessMap = getBusinessService(businessCodes, tenantId, requestInfo);
+			Map<String, TaxHeadMaster> taxHeadMap = tenantTaxHeadMap.computeIfAbsent(tenantId, key -> new HashMap<>());
+			taxHeadCodes.removeAll(taxHeadMap.keySet());
+			if (!taxHeadCodes.isEmpty())
+				taxHeadMap.putAll(getTaxHeadMaster(taxHeadCodes, tenantId, requestInfo));
+
+			Map<String, BusinessServiceDetail> businessMap = tenantBusinessMap.computeIfAbsent(tenantId, key -> new HashMap<>());
+			businessCodes.removeAll(businessMap.keySet());
+			if (!businessCodes.isEmpty())
+				businessMap.putAll(getBusinessService(businessCodes, tenantId, requestInfo));
 			
 			
 			/*
@@ -392,6 +761,12 @@ public class BillServicev2 {
 			 */
 			Map<String, List<Demand>> consumerCodeAndDemandsMap = demandForOneTenant.stream().collect(Collectors.groupingBy(Demand::getConsumerCode));
 			
+			/*
+			 * bill numbers for all the consumer codes of the tenant are reserved in a single id-gen call
+			 */
+			Iterator<String> billNumbers = getBillNumbers(requestInfo, tenantId,
+					demandForOneTenant.get(0).getBusinessService(), consumerCodeAndDemandsMap.size()).iterator();
+			
 			for (Entry<String, List<Demand>> consumerCodeAndDemands : consumerCodeAndDemandsMap.entrySet()) {
 				
 				BigDecimal billAmount = BigDecimal.ZERO;
@@ -401,9 +776,10 @@ public class BillServicev2 {
 				BigDecimal minimumAmtPayableForBill = BigDecimal.ZERO;
 				List<Demand> demandsForSingleCode = consumerCodeAndDemands.getValue();
 				BusinessServiceDetail business = businessMap.get(demandsForSingleCode.get(0).getBusinessService());
+				User payer = null != demandsForSingleCode.get(0).getPayer() ? demandsForSingleCode.get(0).getPayer() : new User();
 				
 				String billId = UUID.randomUUID().toString();
-				String billNumber = getBillNumbers(requestInfo, tenantId, demandForOneTenant.get(0).getBusinessService(), 1).get(0);
+				String billNumber = billNumbers.next();
 				
 				for (Demand demand : demandsForSingleCode) {
 
@@ -452,7 +828,7 @@ public class BillServicev2 {
 		else
 			billNumberFormat = billNumberFormat.replace(appProps.getTenantIdReplaceString(), "");
 
-		return idGenRepo.getId(requestInfo, tenantId, "billnumberid", billNumberFormat, count);
+		return idBlockAllocator.getIds(requestInfo, tenantId, "billnumberid", billNumberFormat, count);
 	}
 
 
@@ -0,0 +1,155 @@
+package org.egov.demand.service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.demand.config.ApplicationProperties;
+import org.egov.demand.model.BulkBillCriteria;
+import org.egov.demand.model.BulkBillJob;
+import org.egov.demand.repository.BulkBillJobRepository;
+import org.egov.demand.web.contract.BulkBillRequest;
+import org.egov.demand.web.contract.BulkBillResponse;
+import org.egov.demand.web.contract.factory.ResponseFactory;
+import org.egov.demand.web.validator.BillValidator;
+import org.egov.tracer.model.CustomException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk bill generation jobs
+ * 
+ * a job is persisted when submitted and run in the background by whichever instance claims it,
+ * jobs of an instance are run one after the other. The checkpoint saved after every chunk renews
+ * the lease of the job, a job whose instance stopped is resumed from its checkpoint once the lease expires.
+ */
+@Service
+@Slf4j
+public class BulkBillJobService {
+
+	private static final int JOBS_PER_POLL = 10;
+
+	@Autowired
+	private BulkBillJobRepository bulkBillJobRepository;
+
+	@Autowired
+	private BillServicev2 billService;
+
+	@Autowired
+	private ApplicationProperties appProps;
+
+	@Autowired
+	private ResponseFactory responseFactory;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Autowired
+	private BillValidator billValidator;
+
+	/**
+	 * Queues a bulk bill generation job
+	 * 
+	 * @param bulkBillRequest
+	 * @return the queued job
+	 */
+	public BulkBillResponse submit(BulkBillRequest bulkBillRequest) {
+
+		BulkBillCriteria criteria = bulkBillRequest.getBulkBillCriteria();
+		long now = System.currentTimeMillis();
+
+		// the auth token of the request is not persisted, the job only makes internal calls
+		RequestInfo requestInfo = null;
+		if (null != bulkBillRequest.getRequestInfo()) {
+			requestInfo = mapper.convertValue(bulkBillRequest.getRequestInfo(), RequestInfo.class);
+			requestInfo.setAuthToken(null);
+		}
+
+		BulkBillJob job = BulkBillJob.builder()
+				.id(UUID.randomUUID().toString())
+				.tenantId(criteria.getTenantId())
+				.businessService(criteria.getBusinessService())
+				.criteria(criteria)
+				.requestInfo(requestInfo)
+				.status(BulkBillJob.STATUS_QUEUED)
+				.createdTime(now)
+				.lastModifiedTime(now)
+				.build();
+		bulkBillJobRepository.saveJob(job);
+		log.info("Bulk bill generation job : {} queued for tenant : {}, businessService : {}", job.getId(),
+				job.getTenantId(), job.getBusinessService());
+
+		return getResponse(job, bulkBillRequest.getRequestInfo());
+	}
+
+	/**
+	 * Returns the status and progress of a bulk bill generation job, with
+	 * at most the configured number of its failed consumer-codes
+	 * 
+	 * @param jobId
+	 * @param requestInfo
+	 */
+	public BulkBillResponse getJob(String jobId, RequestInfo requestInfo) {
+
+		BulkBillJob job = bulkBillJobRepository.getJob(jobId);
+		if (null == job)
+			throw new CustomException("EG_BS_BULK_BILL_JOB_NOT_FOUND", "No bulk bill generation job found for id : " + jobId);
+		billValidator.validateBulkBillRequest(job.getTenantId(), requestInfo);
+		return getResponse(job, requestInfo);
+	}
+
+	/**
+	 * Runs the queued jobs and resumes the ones left by a stopped instance
+	 */
+	@Scheduled(fixedDelayString = "${bs.bulk.bill.job.poll.interval.ms}",
+			initialDelayString = "${bs.bulk.bill.job.poll.interval.ms}")
+	public void runJobs() {
+
+		long leaseExpiry = System.currentTimeMillis() - appProps.getBulkBillJobLease();
+		List<String> jobIds = bulkBillJobRepository.getRunnableJobIds(leaseExpiry, JOBS_PER_POLL);
+
+		for (String jobId : jobIds) {
+
+			if (!bulkBillJobRepository.claimJob(jobId, leaseExpiry))
+				continue;
+
+			BulkBillJob job = bulkBillJobRepository.getJob(jobId);
+			log.info("Bulk bill generation job : {} started after consumer-code : '{}'", jobId, job.getLastConsumerCode());
+			try {
+				billService.generateBulkBill(job);
+			} catch (Exception e) {
+				log.error("Bulk bill generation job : {} failed, it will be resumed from the last checkpoint", jobId, e);
+			}
+		}
+	}
+
+	private BulkBillResponse getResponse(BulkBillJob job, RequestInfo requestInfo) {
+
+		Set<String> failedConsumerCodes = job.getFailedConsumerCodesCount() > 0
+				? bulkBillJobRepository.getFailedConsumerCodes(job.getId(), appProps.getBulkBillJobStatusFailedMax())
+				: new HashSet<>();
+
+		return BulkBillResponse.builder()
+				.responseInfo(responseFactory.getResponseInfo(requestInfo, HttpStatus.OK))
+				.jobId(job.getId())
+				.status(job.getStatus())
+				.tenantId(job.getTenantId())
+				.businessService(job.getBusinessService())
+				.consumerCodesProcessed(job.getConsumerCodesProcessed())
+				.billsGenerated(job.getBillsGenerated())
+				.chunksProcessed(job.getChunksProcessed())
+				.failedConsumerCodes(failedConsumerCodes)
+				.failedConsumerCodesCount(job.getFailedConsumerCodesCount())
+				.timeTakenInMillis(job.getTimeTaken())
+				.billsPerSecond(job.getBillsGenerated() * 1000.0 / Math.max(job.getTimeTaken(), 1))
+				.build();
+	}
+}
@@ -39,7 +39,6 @@
  */
 package org.egov.demand.service;
 
-import static org.egov.demand.util.Constants.ADVANCE_TAXHEAD_JSONPATH_CODE;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -61,6 +60,7 @@ import org.egov.demand.config.ApplicationProperties;
 import org.egov.demand.model.ApportionDemandResponse;
 import org.egov.demand.model.AuditDetails;
 import org.egov.demand.model.BillV2.BillStatus;
+import org.egov.demand.model.BillingMasterData;
 import org.egov.demand.model.Demand;
 import org.egov.demand.model.DemandApportionRequest;
 import org.egov.demand.model.DemandCriteria;
@@ -72,6 +72,7 @@ import org.egov.demand.repository.BillRepositoryV2;
 import org.egov.demand.repository.DemandRepository;
 import org.egov.demand.repository.ServiceRequestRepository;
 import org.egov.demand.util.DemandEnrichmentUtil;
+import org.egov.demand.util.MasterDataCache;
 import org.egov.demand.util.Util;
 import org.egov.demand.web.contract.DemandRequest;
 import org.egov.demand.web.contract.DemandResponse;
@@ -85,7 +86,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
-import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -123,6 +123,9 @@ public class DemandService {
 	
 	@Autowired
 	private Util util;
+	
+	@Autowired
+	private MasterDataCache masterDataCache;
 
 	@Autowired
 	private DemandValidatorV1 demandValidatorV1;
@@ -137,8 +140,9 @@ public class DemandService {
 	 */
 	public DemandResponse create(DemandRequest demandRequest) {
 
-		DocumentContext mdmsData = util.getMDMSData(demandRequest.getRequestInfo(),
+		BillingMasterData masterData = masterDataCache.getMasterData(demandRequest.getRequestInfo(),
 				demandRequest.getDemands().get(0).getTenantId());
+		DocumentContext mdmsData = masterData.getMdmsData();
 
 		demandValidatorV1.validatedemandForCreate(demandRequest, true, mdmsData);
 
@@ -155,10 +159,12 @@ public class DemandService {
 		List<Demand> demandToBeUpdated = new ArrayList<>();
 
 		String businessService = demandRequest.getDemands().get(0).getBusinessService();
-		Boolean isAdvanceAllowed = util.getIsAdvanceAllowed(businessService, mdmsData);
+		Boolean isAdvanceAllowed = masterData.getAdvanceAllowedMap().get(businessService);
+		if (null == isAdvanceAllowed)
+			throw new CustomException("BUSINESSSERVICE_ERROR","Failed to fetch isAdvanceAllowed for businessService: "+businessService);
 
 		if(isAdvanceAllowed){
-			apportionAdvanceIfExist(demandRequest,mdmsData,demandsToBeCreated,demandToBeUpdated);
+			apportionAdvanceIfExist(demandRequest,masterData,demandsToBeCreated,demandToBeUpdated);
 		}
 		else {
 			demandsToBeCreated.addAll(demandRequest.getDemands());
@@ -222,9 +228,25 @@ public class DemandService {
 	 */
 	public DemandResponse updateAsync(DemandRequest demandRequest, PaymentBackUpdateAudit paymentBackUpdateAudit) {
 
+		return updateAsync(demandRequest, null != paymentBackUpdateAudit
+				? Collections.singletonList(paymentBackUpdateAudit) : Collections.emptyList());
+	}
+
+	/**
+	 * Update method for demand flow, used for the demands updated by one or more payments
+	 * 
+	 * the back-update logs of all the payments are saved along with the demands
+	 * 
+	 * @param demandRequest demand request object to be updated
+	 * @param paymentBackUpdateAudits back-update logs of the payments, empty if not an update from payment
+	 * @return
+	 */
+	public DemandResponse updateAsync(DemandRequest demandRequest, List<PaymentBackUpdateAudit> paymentBackUpdateAudits) {
+
 		log.debug("the demand service : " + demandRequest);
-		DocumentContext mdmsData = util.getMDMSData(demandRequest.getRequestInfo(),
-				demandRequest.getDemands().get(0).getTenantId());
+		boolean isUpdateFromPayment = !CollectionUtils.isEmpty(paymentBackUpdateAudits);
+		DocumentContext mdmsData = masterDataCache.getMasterData(demandRequest.getRequestInfo(),
+				demandRequest.getDemands().get(0).getTenantId()).getMdmsData();
 
 		demandValidatorV1.validateForUpdate(demandRequest, mdmsData);
 
@@ -260,28 +282,28 @@ public class DemandService {
 					detail.setTenantId(demand.getTenantId());
 				}
 			}
-			util.updateDemandPaymentStatus(demand, null != paymentBackUpdateAudit);
+			util.updateDemandPaymentStatus(demand, isUpdateFromPayment);
 		}
 
 		generateAndSetIdsForNewDemands(newDemands, auditDetail);
 
-		update(demandRequest, paymentBackUpdateAudit);
-		String businessService = demands.get(0).getBusinessService();
+		demandRepository.update(demandRequest, paymentBackUpdateAudits);
 		String tenantId = demands.get(0).getTenantId();
-		
-		UpdateBillCriteria updateBillCriteria = UpdateBillCriteria.builder()
-				.consumerCodes(demands.stream().map(Demand::getConsumerCode).collect(Collectors.toSet()))
-				.businessService(businessService)
-				.tenantId(tenantId)
-				.build();
-		
-		if (ObjectUtils.isEmpty(paymentBackUpdateAudit)) {
-			
-			updateBillCriteria.setStatusToBeUpdated(BillStatus.EXPIRED);
-			billRepoV2.updateBillStatus(updateBillCriteria);
-		} else {
-			
-			updateBillCriteria.setStatusToBeUpdated(BillStatus.PAID);
+
+		/*
+		 * demands updated from a batch of payments can belong to more than one business service
+		 */
+		Map<String, Set<String>> businessConsumerCodeMap = demands.stream().collect(Collectors.groupingBy(
+				Demand::getBusinessService, Collectors.mapping(Demand::getConsumerCode, Collectors.toSet())));
+
+		for (Map.Entry<String, Set<String>> entry : businessConsumerCodeMap.entrySet()) {
+
+			UpdateBillCriteria updateBillCriteria = UpdateBillCriteria.builder()
+					.consumerCodes(entry.getValue())
+					.businessService(entry.getKey())
+					.tenantId(tenantId)
+					.statusToBeUpdated(isUpdateFromPayment ? BillStatus.PAID : BillStatus.EXPIRED)
+					.build();
 			billRepoV2.updateBillStatus(updateBillCriteria);
 		}
 		// producer.push(applicationProperties.getDemandIndexTopic(), demandRequest);
@@ -336,27 +358,79 @@ public class DemandService {
 			 * If no payer related data given then search demand first then enrich payer(user) data
 			 */
 			demands = demandRepository.getDemands(demandCriteria);
-			if (!demands.isEmpty()) {
+			payers = searchPayersOfDemands(demands, requestInfo);
+		}
+		
+		if (!CollectionUtils.isEmpty(demands) && !CollectionUtils.isEmpty(payers))
+			demands = demandEnrichmentUtil.enrichPayer(demands, payers);
 
-				Set<String> payerUuids = demands.stream().filter(demand -> null != demand.getPayer())
-						.map(demand -> demand.getPayer().getUuid()).collect(Collectors.toSet());
+		return demands;
+	}
 
-				if (!CollectionUtils.isEmpty(payerUuids)) {
+	/**
+	 * Fetches the active unpaid demands of a chunk of consumer-codes for bulk bill generation
+	 * 
+	 * and enriches them with the payer details in one user search for the whole chunk
+	 * 
+	 * @param tenantId
+	 * @param businessService
+	 * @param consumerCodes
+	 * @param requestInfo
+	 * @return
+	 */
+	public List<Demand> getDemandsForBulkBill(String tenantId, String businessService, Set<String> consumerCodes,
+			RequestInfo requestInfo) {
 
-					userSearchRequest = UserSearchRequest.builder().requestInfo(requestInfo).uuid(payerUuids).build();
+		List<Demand> demands = demandRepository.getDemandsForBulkBill(tenantId, businessService, consumerCodes);
+		List<User> payers = searchPayersOfDemands(demands, requestInfo);
 
-					payers = mapper.convertValue(serviceRequestRepository.fetchResult(userUri, userSearchRequest),
-							UserResponse.class).getUser();
-				}
-			}
-		}
-		
 		if (!CollectionUtils.isEmpty(demands) && !CollectionUtils.isEmpty(payers))
 			demands = demandEnrichmentUtil.enrichPayer(demands, payers);
 
 		return demands;
 	}
 
+	/**
+	 * Fetches the next page of consumer-codes having active unpaid demands for bulk bill generation
+	 * 
+	 * @param tenantId
+	 * @param businessService
+	 * @param lastConsumerCode
+	 * @param limit
+	 * @return
+	 */
+	public List<String> getConsumerCodesForBulkBill(String tenantId, String businessService, String lastConsumerCode,
+			Integer limit) {
+		return demandRepository.getConsumerCodesForBulkBill(tenantId, businessService, lastConsumerCode, limit);
+	}
+
+	/**
+	 * Searches the payers of the given demands from user service
+	 * 
+	 * @param demands
+	 * @param requestInfo
+	 * @return
+	 */
+	private List<User> searchPayersOfDemands(List<Demand> demands, RequestInfo requestInfo) {
+
+		if (CollectionUtils.isEmpty(demands))
+			return null;
+
+		Set<String> payerUuids = demands.stream().filter(demand -> null != demand.getPayer())
+				.map(demand -> demand.getPayer().getUuid()).collect(Collectors.toSet());
+
+		if (CollectionUtils.isEmpty(payerUuids))
+			return null;
+
+		String userUri = applicationProperties.getUserServiceHostName()
+				.concat(applicationProperties.getUserServiceSearchPath());
+		UserSearchRequest userSearchRequest = UserSearchRequest.builder().requestInfo(requestInfo).uuid(payerUuids)
+				.build();
+
+		return mapper.convertValue(serviceRequestRepository.fetchResult(userUri, userSearchRequest),
+				UserResponse.class).getUser();
+	}
+
 	public void save(DemandRequest demandRequest) {
 		demandRepository.save(demandRequest);
 	}
@@ -369,11 +443,11 @@ public class DemandService {
 	/**
 	 * Calls the demand apportion API if any advance amoount is available for that comsumer code
 	 * @param demandRequest The demand request for create
-	 * @param mdmsData The master data for billing service
+	 * @param masterData The master data for billing service
 	 * @param demandToBeCreated The list which maintains the demand that has to be created in the system
 	 * @param demandToBeUpdated The list which maintains the demand that has to be updated in the system
 	 */
-	private void apportionAdvanceIfExist(DemandRequest demandRequest, DocumentContext mdmsData,List<Demand> demandToBeCreated,List<Demand> demandToBeUpdated){
+	private void apportionAdvanceIfExist(DemandRequest demandRequest, BillingMasterData masterData,List<Demand> demandToBeCreated,List<Demand> demandToBeUpdated){
 		List<Demand> demands = demandRequest.getDemands();
 		RequestInfo requestInfo = demandRequest.getRequestInfo();
 
@@ -393,7 +467,7 @@ public class DemandService {
 			}
 
 			// Fetch the demands containing advance amount
-			List<Demand> demandsToBeApportioned = getDemandsContainingAdvance(demandsFromSearch, mdmsData);
+			List<Demand> demandsToBeApportioned = getDemandsContainingAdvance(demandsFromSearch, masterData);
 
 			// If no demand is found with advance amount the code continues to next demand and adds the current demand for creation
 			if(CollectionUtils.isEmpty(demandsToBeApportioned)){
@@ -423,26 +497,20 @@ public class DemandService {
 	/**
 	 * Returns demands which has advance amount avaialable for apportion
 	 * @param demands List of demands from which demands with advance has to be picked
-	 * @param mdmsData Master Data for billing service
+	 * @param masterData Master Data for billing service
 	 * @return
 	 */
-	private List<Demand> getDemandsContainingAdvance(List<Demand> demands,DocumentContext mdmsData){
+	private List<Demand> getDemandsContainingAdvance(List<Demand> demands,BillingMasterData masterData){
 
 		Set<Demand> demandsWithAdvance = new HashSet<>();
 
-		// Create the jsonPath to fetch the advance taxhead for the given businessService
+		// Fetch the advance taxhead for the given businessService from the pre-parsed master data
 		String businessService = demands.get(0).getBusinessService();
-		String jsonpath = ADVANCE_TAXHEAD_JSONPATH_CODE;
-		jsonpath = jsonpath.replace("{}",businessService);
+		String advanceTaxHeadCode = masterData.getAdvanceTaxHeadMap().get(businessService);
 
-		// Apply the jsonPath on the master Data to fetch the value. The output will be an array with single element
-		List<String> taxHeads = mdmsData.read(jsonpath);
-
-		if(CollectionUtils.isEmpty(taxHeads))
+		if(null == advanceTaxHeadCode)
 			throw new CustomException("NO TAXHEAD FOUND","No Advance taxHead found for businessService: "+businessService);
 
-		String advanceTaxHeadCode =  taxHeads.get(0);
-
 		/*
 		* Loop through each demand and each demandDetail to find the demandDetail for which advance amount is available
 		* */
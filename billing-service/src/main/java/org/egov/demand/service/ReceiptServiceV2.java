@@ -1,14 +1,9 @@
 package org.egov.demand.service;
 
-import static org.egov.demand.util.Constants.ADVANCE_TAXHEAD_JSONPATH_CODE;
-import static org.egov.demand.util.Constants.MDMS_CODE_FILTER;
-import static org.egov.demand.util.Constants.MODULE_NAME;
-import static org.egov.demand.util.Constants.TAXHEAD_MASTERNAME;
-
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -20,22 +15,22 @@ import org.egov.common.contract.request.RequestInfo;
 import org.egov.demand.model.BillAccountDetailV2;
 import org.egov.demand.model.BillDetailV2;
 import org.egov.demand.model.BillV2;
+import org.egov.demand.model.BillingMasterData;
 import org.egov.demand.model.Demand;
 import org.egov.demand.model.DemandCriteria;
 import org.egov.demand.model.DemandDetail;
 import org.egov.demand.model.PaymentBackUpdateAudit;
 import org.egov.demand.util.Constants;
+import org.egov.demand.util.MasterDataCache;
 import org.egov.demand.util.Util;
 import org.egov.demand.web.contract.BillRequestV2;
 import org.egov.demand.web.contract.DemandRequest;
 import org.egov.demand.web.validator.DemandValidatorV1;
-import org.egov.mdms.model.MdmsCriteriaReq;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
-import com.jayway.jsonpath.DocumentContext;
-
 import lombok.extern.slf4j.Slf4j;
 
 @Service
@@ -50,6 +45,9 @@ public class ReceiptServiceV2 {
 	
 	@Autowired
 	private Util util;
+	
+	@Autowired
+	private MasterDataCache masterDataCache;
 
 
 	public void updateDemandFromReceipt(BillRequestV2 billReq, Boolean isReceiptCancellation) {
@@ -85,36 +83,96 @@ public class ReceiptServiceV2 {
 		List<BillV2> bills = billRequest.getBills();
 		String tenantId = bills.get(0).getTenantId();
 		RequestInfo requestInfo = billRequest.getRequestInfo();
-		Map<String, String> mapOfBillIdAndStatus = new HashMap<>();
 
 		DemandCriteria demandCriteria = DemandCriteria.builder().demandId(demandIds).tenantId(tenantId).build();
 		List<Demand> demandsToBeUpdated = demandService.getDemands(demandCriteria, requestInfo);
 		Map<String, Demand> demandIdMap = demandsToBeUpdated.stream().collect(Collectors.toMap(Demand::getId, Function.identity()));
-		DocumentContext mdmsData = getTaxHeadMaster(tenantId,billRequest.getRequestInfo());
+		BillingMasterData masterData = masterDataCache.getMasterData(requestInfo, tenantId);
+
+		updateDemandsFromBills(bills, demandIdMap, isReceiptCancellation, masterData);
+
+		PaymentBackUpdateAudit paymentBackUpdateAudit = getPaymentBackUpdateAudit(bills, isReceiptCancellation);
+		
+		DemandRequest demandRequest = DemandRequest.builder()
+				.requestInfo(billRequest.getRequestInfo())
+				.demands(demandsToBeUpdated)
+				.build();
+		
+		demandService.updateAsync(demandRequest, paymentBackUpdateAudit);
+
+	}
+
+	/**
+	 * Updates the demands from a batch of payments of the same tenant in one go
+	 * 
+	 * the demands are searched once, the payments are applied one after the other on the same
+	 * demand objects, so the payments touching the same demand are merged in to a single update.
+	 * The demands and the back-update logs of all the payments are saved in a single transaction.
+	 * 
+	 * @param billRequests bill requests prepared from the payments, one per payment
+	 * @param isReceiptCancellation
+	 */
+	@Transactional
+	public void updateDemandsFromPayments(List<BillRequestV2> billRequests, Boolean isReceiptCancellation) {
+
+		List<BillRequestV2> validBillRequests = billRequests.stream()
+				.filter(billReq -> !CollectionUtils.isEmpty(billReq.getBills()))
+				.collect(Collectors.toList());
+		if (CollectionUtils.isEmpty(validBillRequests))
+			return;
+
+		String tenantId = validBillRequests.get(0).getBills().get(0).getTenantId();
+		RequestInfo requestInfo = validBillRequests.get(0).getRequestInfo();
+
+		Set<String> demandIds = new HashSet<>();
+		validBillRequests.forEach(billReq -> billReq.getBills().forEach(
+				bill -> bill.getBillDetails().forEach(billDetail -> demandIds.add(billDetail.getDemandId()))));
+
+		DemandCriteria demandCriteria = DemandCriteria.builder().demandId(demandIds).tenantId(tenantId).build();
+		List<Demand> demandsToBeUpdated = demandService.getDemands(demandCriteria, requestInfo);
+		Map<String, Demand> demandIdMap = demandsToBeUpdated.stream().collect(Collectors.toMap(Demand::getId, Function.identity()));
+		BillingMasterData masterData = masterDataCache.getMasterData(requestInfo, tenantId);
+
+		List<PaymentBackUpdateAudit> paymentBackUpdateAudits = new ArrayList<>();
+		for (BillRequestV2 billReq : validBillRequests) {
+
+			updateDemandsFromBills(billReq.getBills(), demandIdMap, isReceiptCancellation, masterData);
+			paymentBackUpdateAudits.add(getPaymentBackUpdateAudit(billReq.getBills(), isReceiptCancellation));
+		}
+
+		DemandRequest demandRequest = DemandRequest.builder()
+				.requestInfo(requestInfo)
+				.demands(demandsToBeUpdated)
+				.build();
+
+		demandService.updateAsync(demandRequest, paymentBackUpdateAudits);
+		log.info("Demands updated for {} payments with {} demands in tenant : {}", paymentBackUpdateAudits.size(),
+				demandsToBeUpdated.size(), tenantId);
+	}
+
+	private void updateDemandsFromBills(List<BillV2> bills, Map<String, Demand> demandIdMap,
+			Boolean isReceiptCancellation, BillingMasterData masterData) {
 
 		for (BillV2 bill : bills) {
-			String advanceTaxhead = getAdvanceTaxhead(bill.getBusinessService(), mdmsData);
-			mapOfBillIdAndStatus.put(bill.getId(), bill.getStatus().toString());
+			String advanceTaxhead = masterData.getAdvanceTaxHeadMap().get(bill.getBusinessService());
 			for (BillDetailV2 billDetail : bill.getBillDetails())
 				updateDemandFromBillDetail(billDetail, demandIdMap.get(billDetail.getDemandId()), isReceiptCancellation,advanceTaxhead);
 		}
+	}
+
+	/*
+	 * payment id is set in the additional details of the first bill
+	 */
+	private PaymentBackUpdateAudit getPaymentBackUpdateAudit(List<BillV2> bills, Boolean isReceiptCancellation) {
 
 		String paymentId = util.getValueFromAdditionalDetailsForKey(bills.get(0).getAdditionalDetails(),
 				Constants.PAYMENT_ID_KEY);
 
-		PaymentBackUpdateAudit paymentBackUpdateAudit = PaymentBackUpdateAudit.builder()
+		return PaymentBackUpdateAudit.builder()
 				.isReceiptCancellation(isReceiptCancellation)
 				.isBackUpdateSucces(true)
 				.paymentId(paymentId)
 				.build();
-		
-		DemandRequest demandRequest = DemandRequest.builder()
-				.requestInfo(billRequest.getRequestInfo())
-				.demands(demandsToBeUpdated)
-				.build();
-		
-		demandService.updateAsync(demandRequest, paymentBackUpdateAudit);
-
 	}
 
 	/**
@@ -316,36 +374,4 @@ public class ReceiptServiceV2 {
 		}
 	}
 
-
-	/**
-	 * Fetches the required master data from MDMS service
-	 * @return
-	 */
-	private DocumentContext getTaxHeadMaster(String tenantId, RequestInfo requestInfo){
-		/*
-		 * Preparing the mdms request with billing service master and calling the mdms search API
-		 */
-		MdmsCriteriaReq mdmsReq = util.prepareMdMsRequest(tenantId, MODULE_NAME, Collections.singletonList(TAXHEAD_MASTERNAME), MDMS_CODE_FILTER,
-				requestInfo);
-		DocumentContext mdmsData = util.getAttributeValues(mdmsReq);
-
-		return mdmsData;
-	}
-
-
-	private String getAdvanceTaxhead(String businessService, DocumentContext mdmsData){
-		// Create the jsonPath to fetch the advance taxhead for the given businessService
-		String jsonpath = ADVANCE_TAXHEAD_JSONPATH_CODE;
-		jsonpath = jsonpath.replace("{}",businessService);
-
-		List<String> taxHeads = mdmsData.read(jsonpath);
-
-		if(CollectionUtils.isEmpty(taxHeads))
-			return null;
-
-		String advanceTaxHeadCode =  taxHeads.get(0);
-
-		return advanceTaxHeadCode;
-	}
-
 }
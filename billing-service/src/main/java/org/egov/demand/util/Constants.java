@@ -132,9 +132,6 @@ public class Constants {
 	public static final String BUSINESSSERVICE_SERVICES_FILTER = "@.code in [VAL]";
 	public static final String MDMS_NO_FILTER_BUSINESSSERVICE = "$.MdmsRes.BillingService.BusinessService.*";
 
-	public static final String ADVANCE_TAXHEAD_JSONPATH_CODE = "$.MdmsRes.BillingService.TaxHeadMaster[?(@.category=='ADVANCE_COLLECTION' && @.service==\"{}\")].code";
-	public static final String ADVANCE_BUSINESSSERVICE_JSONPATH_CODE = "$.MdmsRes.BillingService.BusinessService[?(@.code==\"{}\")].isAdvanceAllowed";
-
 	public static final String RECEIPTNUMBER_KEY = "receiptNumber";
 	public static final String PAYMENT_ID_KEY = "paymentId";
 
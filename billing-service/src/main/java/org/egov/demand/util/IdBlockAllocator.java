@@ -0,0 +1,121 @@
+package org.egov.demand.util;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PreDestroy;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.demand.config.ApplicationProperties;
+import org.egov.demand.repository.IdGenRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves ids from blocks leased from the id-gen service
+ * 
+ * ids are reserved per tenant, id name and format in blocks of bs.idgen.block.size and handed
+ * out from memory, so a bill generation only calls id-gen when the block of its key runs out.
+ * A block is given up once its lease expires or the day changes, so formats with date
+ * components do not carry stale dates. Id-gen sequences cannot be given back, the ids left
+ * in a dropped block are logged so the gaps in numbering can be accounted for.
+ */
+@Slf4j
+@Component
+public class IdBlockAllocator {
+
+	@Autowired
+	private IdGenRepo idGenRepo;
+
+	@Autowired
+	private ApplicationProperties appProps;
+
+	private final Map<String, IdBlock> blocks = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the requested number of ids, from the leased block when block allocation is enabled
+	 * 
+	 * @param requestInfo
+	 * @param tenantId
+	 * @param name id name of the id-gen format
+	 * @param format id-gen format
+	 * @param count number of ids required
+	 * @return ids in the order of allocation
+	 */
+	public List<String> getIds(RequestInfo requestInfo, String tenantId, String name, String format, int count) {
+
+		if (!appProps.getIdGenBlockEnabled() || count <= 0)
+			return idGenRepo.getId(requestInfo, tenantId, name, format, count);
+
+		String key = String.join(":", tenantId, name, String.valueOf(format));
+		IdBlock block = blocks.computeIfAbsent(key, k -> new IdBlock());
+
+		/*
+		 * lock per key, concurrent requests of the same key wait for the single refill
+		 * while other tenants and formats are served in parallel
+		 */
+		synchronized (block) {
+
+			if (block.isStale(System.currentTimeMillis()))
+				block.release(key, "lease expired");
+
+			List<String> ids = new ArrayList<>(count);
+			while (ids.size() < count && !block.ids.isEmpty())
+				ids.add(block.ids.poll());
+
+			int required = count - ids.size();
+			if (required > 0) {
+
+				int blockSize = Math.max(required, appProps.getIdGenBlockSize());
+				List<String> leased = idGenRepo.getId(requestInfo, tenantId, name, format, blockSize);
+				ids.addAll(leased.subList(0, required));
+				block.lease(leased.subList(required, leased.size()), appProps.getIdGenBlockLeaseTime());
+				log.debug("Leased {} ids for {}", leased.size(), key);
+			}
+			return ids;
+		}
+	}
+
+	@PreDestroy
+	public void releaseAll() {
+		blocks.forEach((key, block) -> {
+			synchronized (block) {
+				block.release(key, "shutdown");
+			}
+		});
+	}
+
+	private static class IdBlock {
+
+		private final Deque<String> ids = new ArrayDeque<>();
+
+		private long leaseExpiry;
+
+		private LocalDate leaseDate;
+
+		private void lease(List<String> leased, long leaseTime) {
+			ids.addAll(leased);
+			leaseExpiry = System.currentTimeMillis() + leaseTime;
+			leaseDate = LocalDate.now();
+		}
+
+		private boolean isStale(long now) {
+			return !ids.isEmpty() && (now > leaseExpiry || !LocalDate.now().equals(leaseDate));
+		}
+
+		private void release(String key, String reason) {
+			if (ids.isEmpty())
+				return;
+			log.info("Releasing {} unused ids for {} on {}, from {} to {}", ids.size(), key, reason,
+					ids.peekFirst(), ids.peekLast());
+			ids.clear();
+		}
+	}
+}
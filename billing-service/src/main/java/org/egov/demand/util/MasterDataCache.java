@@ -0,0 +1,216 @@
+package org.egov.demand.util;
+
+import static org.egov.demand.util.Constants.BUSINESSSERVICE_MODULE_PATH;
+import static org.egov.demand.util.Constants.MODULE_NAME;
+import static org.egov.demand.util.Constants.TAXHEADMASTER_PATH_CODE;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.demand.config.ApplicationProperties;
+import org.egov.demand.model.BillingMasterData;
+import org.egov.demand.model.BusinessServiceDetail;
+import org.egov.demand.model.TaxHeadMaster;
+import org.egov.demand.model.enums.Category;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.DocumentContext;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tenant and module keyed cache of the billing service master data
+ * 
+ * entries expire after bs.mdms.cache.ttl.ms and can be evicted on demand through
+ * the invalidation topic, concurrent misses on the same key share a single MDMS call
+ */
+@Slf4j
+@Component
+public class MasterDataCache {
+
+	@Autowired
+	private Util util;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Autowired
+	private ApplicationProperties appProps;
+
+	private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Returns the billing service master data of the tenant, loading it from MDMS
+	 * if not present or expired
+	 * 
+	 * @param requestInfo
+	 * @param tenantId
+	 * @return
+	 */
+	public BillingMasterData getMasterData(RequestInfo requestInfo, String tenantId) {
+
+		String key = getKey(tenantId, MODULE_NAME);
+		CacheEntry entry = cache.get(key);
+		if (null != entry && !entry.isExpired()) {
+			hits.increment();
+			return entry.get();
+		}
+
+		misses.increment();
+		CacheEntry newEntry = new CacheEntry(System.currentTimeMillis() + appProps.getMdmsCacheTtl());
+		CacheEntry currentEntry = cache.compute(key,
+				(k, existing) -> null != existing && !existing.isExpired() ? existing : newEntry);
+
+		/*
+		 * only the thread which placed the entry calls MDMS, others wait on its result
+		 */
+		if (currentEntry == newEntry) {
+			try {
+				newEntry.future.complete(load(requestInfo, tenantId));
+			} catch (RuntimeException e) {
+				cache.remove(key, newEntry);
+				newEntry.future.completeExceptionally(e);
+				throw e;
+			}
+			evictIfFull();
+			logStats();
+		}
+		return currentEntry.get();
+	}
+
+	/**
+	 * Evicts the master data of the given tenant, all the entries in case of null
+	 */
+	public void evict(String tenantId) {
+
+		if (null == tenantId) {
+			cache.clear();
+			log.info("Evicted the master data cache of all tenants");
+		} else {
+			cache.keySet().removeIf(key -> key.startsWith(tenantId + ":"));
+			log.info("Evicted the master data cache of tenant : {}", tenantId);
+		}
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public double getHitRate() {
+
+		long hitCount = hits.sum();
+		long total = hitCount + misses.sum();
+		return total == 0 ? 0.0 : (double) hitCount / total;
+	}
+
+	private BillingMasterData load(RequestInfo requestInfo, String tenantId) {
+
+		DocumentContext mdmsData = util.getMDMSData(requestInfo, tenantId);
+
+		List<TaxHeadMaster> taxHeads = Arrays
+				.asList(mapper.convertValue(mdmsData.read(TAXHEADMASTER_PATH_CODE), TaxHeadMaster[].class));
+		List<BusinessServiceDetail> businessServices = Arrays
+				.asList(mapper.convertValue(mdmsData.read(BUSINESSSERVICE_MODULE_PATH), BusinessServiceDetail[].class));
+
+		Map<String, Integer> taxHeadOrderMap = new HashMap<>();
+		Map<String, String> advanceTaxHeadMap = new HashMap<>();
+		for (TaxHeadMaster taxHead : taxHeads) {
+
+			if (null != taxHead.getOrder())
+				taxHeadOrderMap.put(taxHead.getCode(), taxHead.getOrder());
+			if (Category.ADVANCE_COLLECTION.equals(taxHead.getCategory()) && null != taxHead.getService())
+				advanceTaxHeadMap.putIfAbsent(taxHead.getService(), taxHead.getCode());
+		}
+
+		Map<String, Boolean> advanceAllowedMap = new HashMap<>();
+		businessServices.stream().filter(business -> null != business.getIsAdvanceAllowed())
+				.forEach(business -> advanceAllowedMap.putIfAbsent(business.getCode(), business.getIsAdvanceAllowed()));
+
+		Set<String> businessServiceCodes = businessServices.stream().map(BusinessServiceDetail::getCode)
+				.filter(Objects::nonNull).collect(Collectors.toSet());
+
+		return BillingMasterData.builder()
+				.tenantId(tenantId)
+				.mdmsData(mdmsData)
+				.taxHeads(Collections.unmodifiableList(taxHeads))
+				.businessServiceCodes(Collections.unmodifiableSet(businessServiceCodes))
+				.taxHeadOrderMap(Collections.unmodifiableMap(taxHeadOrderMap))
+				.advanceTaxHeadMap(Collections.unmodifiableMap(advanceTaxHeadMap))
+				.advanceAllowedMap(Collections.unmodifiableMap(advanceAllowedMap))
+				.loadedTime(System.currentTimeMillis())
+				.build();
+	}
+
+	/*
+	 * removes the entries closest to expiry once the cache grows beyond the configured size
+	 */
+	private void evictIfFull() {
+
+		int overflow = cache.size() - appProps.getMdmsCacheMaxSize();
+		if (overflow <= 0)
+			return;
+
+		cache.entrySet().stream()
+			.sorted(Comparator.comparingLong(e -> e.getValue().expiryTime))
+			.limit(overflow)
+			.map(Map.Entry::getKey)
+			.collect(Collectors.toList())
+			.forEach(cache::remove);
+	}
+
+	private void logStats() {
+		log.info("Master data cache hit rate : {}, hits : {}, misses : {}, entries : {}", getHitRate(), hits.sum(),
+				misses.sum(), cache.size());
+	}
+
+	private static String getKey(String tenantId, String moduleName) {
+		return tenantId + ":" + moduleName;
+	}
+
+	private static class CacheEntry {
+
+		private final CompletableFuture<BillingMasterData> future = new CompletableFuture<>();
+
+		private final long expiryTime;
+
+		private CacheEntry(long expiryTime) {
+			this.expiryTime = expiryTime;
+		}
+
+		private boolean isExpired() {
+			return System.currentTimeMillis() > expiryTime;
+		}
+
+		private BillingMasterData get() {
+			try {
+				return future.join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof RuntimeException)
+					throw (RuntimeException) e.getCause();
+				throw e;
+			}
+		}
+	}
+}
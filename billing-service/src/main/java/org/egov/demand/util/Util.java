@@ -1,7 +1,6 @@
 package org.egov.demand.util;
 
 import static java.util.Objects.isNull;
-import static org.egov.demand.util.Constants.ADVANCE_BUSINESSSERVICE_JSONPATH_CODE;
 import static org.egov.demand.util.Constants.INVALID_TENANT_ID_MDMS_KEY;
 import static org.egov.demand.util.Constants.INVALID_TENANT_ID_MDMS_MSG;
 import static org.egov.demand.util.Constants.MDMS_CODE_FILTER;
@@ -36,7 +35,6 @@ import org.egov.tracer.model.CustomException;
 import org.postgresql.util.PGobject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.util.CollectionUtils;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -176,24 +174,6 @@ public class Util {
 		return builder.toString();
 	}
 
-	/**
-	 * Fetches the isAdvanceAllowed flag for the given businessService
-	 * @param businessService
-	 * @param mdmsData
-	 * @return
-	 */
-	public Boolean getIsAdvanceAllowed(String businessService, DocumentContext mdmsData){
-		String jsonpath = ADVANCE_BUSINESSSERVICE_JSONPATH_CODE;
-		jsonpath = jsonpath.replace("{}",businessService);
-
-		List<Boolean> isAdvanceAllowed = mdmsData.read(jsonpath);
-
-		if(CollectionUtils.isEmpty(isAdvanceAllowed))
-			throw new CustomException("BUSINESSSERVICE_ERROR","Failed to fetch isAdvanceAllowed for businessService: "+businessService);
-
-		return isAdvanceAllowed.get(0);
-	}
-	
 	public String getValueFromAdditionalDetailsForKey (Object additionalDetails, String key) {
 		
 		@SuppressWarnings("unchecked")
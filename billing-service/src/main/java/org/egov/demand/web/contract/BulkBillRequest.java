@@ -0,0 +1,29 @@
+package org.egov.demand.web.contract;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.demand.model.BulkBillCriteria;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkBillRequest {
+
+	@JsonProperty("RequestInfo")
+	private RequestInfo requestInfo;
+
+	@Valid
+	@NotNull
+	@JsonProperty("BulkBillCriteria")
+	private BulkBillCriteria bulkBillCriteria;
+}
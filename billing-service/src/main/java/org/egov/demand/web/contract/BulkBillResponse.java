@@ -0,0 +1,65 @@
+package org.egov.demand.web.contract;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.egov.common.contract.response.ResponseInfo;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Builder.Default;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkBillResponse {
+
+	@JsonProperty("ResponseInfo")
+	private ResponseInfo responseInfo;
+
+	@JsonProperty("jobId")
+	private String jobId;
+
+	@JsonProperty("status")
+	private String status;
+
+	@JsonProperty("tenantId")
+	private String tenantId;
+
+	@JsonProperty("businessService")
+	private String businessService;
+
+	@Default
+	@JsonProperty("consumerCodesProcessed")
+	private Long consumerCodesProcessed = 0L;
+
+	@Default
+	@JsonProperty("billsGenerated")
+	private Long billsGenerated = 0L;
+
+	@Default
+	@JsonProperty("chunksProcessed")
+	private Integer chunksProcessed = 0;
+
+	/*
+	 * first of the failed consumer-codes, failedConsumerCodesCount has the number of all of them
+	 */
+	@Default
+	@JsonProperty("failedConsumerCodes")
+	private Set<String> failedConsumerCodes = new HashSet<>();
+
+	@Default
+	@JsonProperty("failedConsumerCodesCount")
+	private Long failedConsumerCodesCount = 0L;
+
+	@JsonProperty("timeTakenInMillis")
+	private Long timeTakenInMillis;
+
+	@JsonProperty("billsPerSecond")
+	private Double billsPerSecond;
+}
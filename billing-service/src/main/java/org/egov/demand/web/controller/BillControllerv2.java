@@ -12,9 +12,12 @@ import org.egov.demand.model.BillSearchCriteria;
 import org.egov.demand.model.GenerateBillCriteria;
 import org.egov.demand.model.UpdateBillRequest;
 import org.egov.demand.service.BillServicev2;
+import org.egov.demand.service.BulkBillJobService;
 import org.egov.demand.util.Constants;
 import org.egov.demand.web.contract.BillRequestV2;
 import org.egov.demand.web.contract.BillResponseV2;
+import org.egov.demand.web.contract.BulkBillRequest;
+import org.egov.demand.web.contract.BulkBillResponse;
 import org.egov.demand.web.contract.RequestInfoWrapper;
 import org.egov.demand.web.contract.factory.ResponseFactory;
 import org.egov.demand.web.validator.BillValidator;
@@ -27,6 +30,7 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -36,6 +40,9 @@ public class BillControllerv2 {
 	
 	@Autowired
 	private BillServicev2 billService;
+
+	@Autowired
+	private BulkBillJobService bulkBillJobService;
 	
 	@Autowired
 	private ResponseFactory responseFactory;
@@ -67,6 +74,25 @@ public class BillControllerv2 {
 	}
 	
 	
+	@PostMapping("_bulkgenerate")
+	@ResponseBody
+	public ResponseEntity<?> bulkGenerate(@RequestBody @Valid BulkBillRequest bulkBillRequest) {
+
+		billValidator.validateBulkBillRequest(bulkBillRequest.getBulkBillCriteria().getTenantId(),
+				bulkBillRequest.getRequestInfo());
+		BulkBillResponse bulkBillResponse = bulkBillJobService.submit(bulkBillRequest);
+		return new ResponseEntity<>(bulkBillResponse, HttpStatus.ACCEPTED);
+	}
+
+	@PostMapping("_bulkgenerate/_status")
+	@ResponseBody
+	public ResponseEntity<?> bulkGenerateStatus(@RequestBody RequestInfoWrapper requestInfoWrapper,
+			@RequestParam String jobId) {
+
+		BulkBillResponse bulkBillResponse = bulkBillJobService.getJob(jobId, requestInfoWrapper.getRequestInfo());
+		return new ResponseEntity<>(bulkBillResponse, HttpStatus.OK);
+	}
+	
 	@PostMapping("_generate")
 	@ResponseBody
 	public ResponseEntity<?> genrateBill(@RequestBody RequestInfoWrapper requestInfoWrapper,
@@ -1,7 +1,6 @@
 package org.egov.demand.web.validator;
 
 import static org.egov.demand.util.Constants.BUSINESSSERVICE_MODULE_PATH;
-import static org.egov.demand.util.Constants.TAXHEADMASTER_PATH_CODE;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
@@ -26,6 +25,7 @@ import org.egov.demand.amendment.model.AmendmentUpdateRequest;
 import org.egov.demand.amendment.model.ProcessInstance;
 import org.egov.demand.amendment.model.enums.AmendmentStatus;
 import org.egov.demand.config.ApplicationProperties;
+import org.egov.demand.model.BillingMasterData;
 import org.egov.demand.model.BusinessServiceDetail;
 import org.egov.demand.model.Demand;
 import org.egov.demand.model.DemandCriteria;
@@ -35,6 +35,7 @@ import org.egov.demand.repository.AmendmentRepository;
 import org.egov.demand.repository.IdGenRepo;
 import org.egov.demand.service.DemandService;
 import org.egov.demand.util.Constants;
+import org.egov.demand.util.MasterDataCache;
 import org.egov.demand.util.Util;
 import org.egov.tracer.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -66,6 +67,9 @@ public class AmendmentValidator {
 	@Autowired
 	private AmendmentRepository amendmentRepository;
 	
+	@Autowired
+	private MasterDataCache masterDataCache;
+	
 	
 	/**
 	 * Validate amendment request for create
@@ -80,12 +84,13 @@ public class AmendmentValidator {
 		 * 
 		 * Validating the master data fields - business-service and tax-heads
 		 */
-		DocumentContext mdmsData = util.getMDMSData(amendmentRequest.getRequestInfo(), amendmentRequest.getAmendment().getTenantId());
+		BillingMasterData masterData = masterDataCache.getMasterData(amendmentRequest.getRequestInfo(), amendmentRequest.getAmendment().getTenantId());
+		DocumentContext mdmsData = masterData.getMdmsData();
 		List<BusinessServiceDetail> businessServices = Arrays.asList(mapper.convertValue(mdmsData.read(BUSINESSSERVICE_MODULE_PATH), BusinessServiceDetail[].class));
 		Map<String, BusinessServiceDetail> businessMasterMap = businessServices.stream()
 				.collect(Collectors.toMap(BusinessServiceDetail::getCode, Function.identity()));
 		
-		List<TaxHeadMaster> taxHeads = Arrays.asList(mapper.convertValue(mdmsData.read(TAXHEADMASTER_PATH_CODE), TaxHeadMaster[].class));
+		List<TaxHeadMaster> taxHeads = masterData.getTaxHeads();
 		Map<String, Set<String>> businessTaxCodeSet = taxHeads.stream().collect(Collectors.groupingBy(
 				TaxHeadMaster::getService, Collectors.mapping(TaxHeadMaster::getCode, Collectors.toSet())));
 		
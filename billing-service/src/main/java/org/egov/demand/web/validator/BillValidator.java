@@ -2,6 +2,7 @@ package org.egov.demand.web.validator;
 
 import static org.egov.demand.util.Constants.BILL_GEN_MANDATORY_FIELDS_MISSING_KEY;
 import static org.egov.demand.util.Constants.BILL_GEN_MANDATORY_FIELDS_MISSING_MSG;
+import static org.egov.demand.util.Constants.EMPLOYEE_TYPE_CODE;
 
 import org.egov.common.contract.request.RequestInfo;
 import org.egov.demand.model.BillSearchCriteria;
@@ -41,6 +42,24 @@ public class BillValidator {
 
 	}
 
+	/**
+	 * validates the caller of the bulk bill generation and its status, only employees
+	 * of a city can generate bills in bulk
+	 * 
+	 * @param tenantId tenant of the bulk bill generation job
+	 * @param requestInfo
+	 */
+	public void validateBulkBillRequest(String tenantId, RequestInfo requestInfo) {
+
+		if (null == requestInfo || null == requestInfo.getUserInfo())
+			throw new CustomException("EG_BS_BULK_BILL_REQUESTINFO_ERROR", "RequestInfo with the UserInfo of the caller is mandatory");
+
+		if (!EMPLOYEE_TYPE_CODE.equalsIgnoreCase(requestInfo.getUserInfo().getType()))
+			throw new CustomException("EG_BS_BULK_BILL_UNAUTHORIZED", "Only employees can generate bills in bulk");
+
+		util.validateTenantIdForUserType(tenantId, requestInfo);
+	}
+
 	public void validateBillSearchCriteria(BillSearchCriteria billCriteria, RequestInfo requestInfo) {
 
 		util.validateTenantIdForUserType(billCriteria.getTenantId(), requestInfo);
@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS idx_egbs_demand_v1_tenantid_taxperiodfrom_id ON egbs_demand_v1 (tenantid, taxperiodfrom, id);
@@ -0,0 +1,19 @@
+CREATE TABLE IF NOT EXISTS egbs_bulkbill_job (
+    id character varying(64) NOT NULL,
+    tenantid character varying(256) NOT NULL,
+    businessservice character varying(256) NOT NULL,
+    criteria jsonb NOT NULL,
+    requestinfo jsonb,
+    status character varying(64) NOT NULL,
+    lastconsumercode character varying(256),
+    consumercodesprocessed bigint NOT NULL DEFAULT 0,
+    billsgenerated bigint NOT NULL DEFAULT 0,
+    chunksprocessed integer NOT NULL DEFAULT 0,
+    failedconsumercodes jsonb,
+    timetaken bigint NOT NULL DEFAULT 0,
+    createdtime bigint NOT NULL,
+    lastmodifiedtime bigint NOT NULL,
+    CONSTRAINT pk_egbs_bulkbill_job PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_egbs_bulkbill_job_status ON egbs_bulkbill_job (status, lastmodifiedtime);
@@ -0,0 +1,18 @@
+CREATE TABLE IF NOT EXISTS egbs_bulkbill_job_failure (
+    jobid character varying(64) NOT NULL,
+    consumercode character varying(256) NOT NULL,
+    createdtime bigint NOT NULL,
+    CONSTRAINT pk_egbs_bulkbill_job_failure PRIMARY KEY (jobid, consumercode),
+    CONSTRAINT fk_egbs_bulkbill_job_failure FOREIGN KEY (jobid) REFERENCES egbs_bulkbill_job (id)
+);
+
+ALTER TABLE egbs_bulkbill_job ADD COLUMN IF NOT EXISTS failedconsumercodescount bigint NOT NULL DEFAULT 0;
+
+INSERT INTO egbs_bulkbill_job_failure (jobid, consumercode, createdtime)
+SELECT id, jsonb_array_elements_text(failedconsumercodes), lastmodifiedtime FROM egbs_bulkbill_job
+WHERE jsonb_typeof(failedconsumercodes) = 'array' ON CONFLICT DO NOTHING;
+
+UPDATE egbs_bulkbill_job job SET failedconsumercodescount =
+(SELECT count(*) FROM egbs_bulkbill_job_failure failure WHERE failure.jobid = job.id);
+
+ALTER TABLE egbs_bulkbill_job DROP COLUMN IF EXISTS failedconsumercodes;
@@ -0,0 +1,84 @@
+package org.egov.demand.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.egov.demand.model.BulkBillJob;
+import org.egov.demand.repository.querybuilder.BillQueryBuilder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BulkBillJobRepositoryTest {
+
+	@InjectMocks
+	private BulkBillJobRepository bulkBillJobRepository;
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	public void testCheckpointCountsOnlyNewlyRecordedFailures() throws SQLException {
+		BulkBillJob job = job(3L);
+		when(jdbcTemplate.update(any(PreparedStatementCreator.class))).thenReturn(1);
+
+		bulkBillJobRepository.saveCheckpoint(job, Arrays.asList("PT-7", "PT-8"));
+
+		assertEquals(Long.valueOf(4L), job.getFailedConsumerCodesCount());
+		verifyCheckpoint(4L);
+
+		ArgumentCaptor<PreparedStatementCreator> creator = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+		verify(jdbcTemplate).update(creator.capture());
+		Connection connection = mock(Connection.class);
+		PreparedStatement ps = mock(PreparedStatement.class);
+		Array consumerCodes = mock(Array.class);
+		when(connection.prepareStatement(BillQueryBuilder.INSERT_BULK_BILL_JOB_FAILURE_QUERY)).thenReturn(ps);
+		when(connection.createArrayOf("varchar", new String[] { "PT-7", "PT-8" })).thenReturn(consumerCodes);
+
+		creator.getValue().createPreparedStatement(connection);
+
+		verify(ps).setString(1, "job-1");
+		verify(ps).setArray(2, consumerCodes);
+	}
+
+	@Test
+	public void testCheckpointWithoutFailuresRecordsNothing() {
+		BulkBillJob job = job(3L);
+
+		bulkBillJobRepository.saveCheckpoint(job, Collections.emptySet());
+
+		verify(jdbcTemplate, never()).update(any(PreparedStatementCreator.class));
+		verifyCheckpoint(3L);
+	}
+
+	private void verifyCheckpoint(long failedConsumerCodesCount) {
+		verify(jdbcTemplate).update(eq(BillQueryBuilder.BULK_BILL_JOB_CHECKPOINT_QUERY), eq(BulkBillJob.STATUS_IN_PROGRESS),
+				eq("PT-8"), eq(8L), eq(5L), eq(4), eq(failedConsumerCodesCount), eq(1200L), anyLong(), eq("job-1"));
+	}
+
+	private static BulkBillJob job(Long failedConsumerCodesCount) {
+		return BulkBillJob.builder().id("job-1").status(BulkBillJob.STATUS_IN_PROGRESS).lastConsumerCode("PT-8")
+				.consumerCodesProcessed(8L).billsGenerated(5L).chunksProcessed(4)
+				.failedConsumerCodesCount(failedConsumerCodesCount).timeTaken(1200L).build();
+	}
+
+}
@@ -0,0 +1,130 @@
+package org.egov.demand.repository;
+
+import static org.egov.demand.repository.rowmapper.DemandStreamingRowCallbackHandlerTest.demandRow;
+import static org.egov.demand.repository.rowmapper.DemandStreamingRowCallbackHandlerTest.demandRowMapper;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.egov.demand.config.ApplicationProperties;
+import org.egov.demand.model.Demand;
+import org.egov.demand.model.DemandCriteria;
+import org.egov.demand.repository.querybuilder.DemandQueryBuilder;
+import org.egov.demand.repository.rowmapper.DemandRowMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DemandRepositoryTest {
+
+	private static final String STREAM_QUERY = "demand stream";
+
+	@InjectMocks
+	private DemandRepository demandRepository;
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	@Mock
+	private DemandQueryBuilder demandQueryBuilder;
+
+	@Mock
+	private ApplicationProperties applicationProperties;
+
+	@Spy
+	private DemandRowMapper demandRowMapper = demandRowMapper();
+
+	private DemandCriteria demandCriteria;
+
+	@Before
+	public void setup() {
+		demandCriteria = DemandCriteria.builder().tenantId("pb.amritsar").build();
+		doAnswer(invocation -> {
+			List<Object> preparedStatementValues = invocation.getArgument(1);
+			preparedStatementValues.add("pb.amritsar");
+			return STREAM_QUERY;
+		}).when(demandQueryBuilder).getDemandStreamQuery(any(DemandCriteria.class), anyList());
+	}
+
+	@Test
+	public void testStreamDemandsReadsThroughAFetchSizeBoundCursor() throws SQLException {
+		when(applicationProperties.getDemandStreamFetchSize()).thenReturn(1000);
+		Connection connection = mock(Connection.class);
+		PreparedStatement ps = mock(PreparedStatement.class);
+		when(connection.prepareStatement(STREAM_QUERY, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))
+				.thenReturn(ps);
+
+		demandRepository.streamDemands(demandCriteria, demand -> {});
+
+		ArgumentCaptor<PreparedStatementCreator> creator = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+		verify(jdbcTemplate).query(creator.capture(), any(RowCallbackHandler.class));
+		assertSame(ps, creator.getValue().createPreparedStatement(connection));
+		verify(ps).setFetchSize(1000);
+		verify(ps).setString(1, "pb.amritsar");
+	}
+
+	@Test
+	public void testStreamDemandsHandsOverEachDemandWhileReading() {
+		List<Demand> demands = new ArrayList<>();
+		List<Integer> demandsSeenPerRow = new ArrayList<>();
+		givenRows(demands, demandsSeenPerRow,
+				demandRow("demand-1", "detail-1"),
+				demandRow("demand-1", "detail-2"),
+				demandRow("demand-2", "detail-3"),
+				demandRow("demand-3", "detail-4"));
+
+		long count = demandRepository.streamDemands(demandCriteria, demands::add);
+
+		assertEquals(3, count);
+		assertEquals(Arrays.asList(0, 0, 1, 2), demandsSeenPerRow);
+		assertEquals("demand-3", demands.get(2).getId());
+		assertEquals(2, demands.get(0).getDemandDetails().size());
+	}
+
+	@Test
+	public void testStreamDemandsWithoutRowsEmitsNothing() {
+		List<Demand> demands = new ArrayList<>();
+		givenRows(demands, new ArrayList<>());
+
+		assertEquals(0, demandRepository.streamDemands(demandCriteria, demands::add));
+		assertTrue(demands.isEmpty());
+	}
+
+	/**
+	 * Feeds the rows to the handler, recording the demands emitted after each row
+	 */
+	private void givenRows(List<Demand> demands, List<Integer> demandsSeenPerRow, ResultSet... rows) {
+		doAnswer(invocation -> {
+			RowCallbackHandler handler = invocation.getArgument(1);
+			for (ResultSet rs : rows) {
+				handler.processRow(rs);
+				demandsSeenPerRow.add(demands.size());
+			}
+			return null;
+		}).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+	}
+
+}
@@ -0,0 +1,149 @@
+package org.egov.demand.repository.rowmapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.egov.demand.model.Demand;
+import org.egov.demand.util.Util;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class DemandStreamingRowCallbackHandlerTest {
+
+	private List<Demand> demands;
+
+	private DemandStreamingRowCallbackHandler handler;
+
+	@Before
+	public void setup() {
+		demands = new ArrayList<>();
+		handler = new DemandStreamingRowCallbackHandler(demandRowMapper(), demands::add);
+	}
+
+	@Test
+	public void testRowsOfADemandAreGroupedIntoOneDemand() throws SQLException {
+		handler.processRow(demandRow("demand-1", "detail-1"));
+		handler.processRow(demandRow("demand-1", "detail-2"));
+		handler.processRow(demandRow("demand-2", "detail-3"));
+		handler.complete();
+
+		assertEquals(2, demands.size());
+		assertEquals(2, handler.getDemandCount());
+		assertEquals("demand-1", demands.get(0).getId());
+		assertEquals("detail-1", demands.get(0).getDemandDetails().get(0).getId());
+		assertEquals("detail-2", demands.get(0).getDemandDetails().get(1).getId());
+		assertEquals(new BigDecimal("100.00"), demands.get(0).getDemandDetails().get(0).getTaxAmount());
+		assertEquals(1, demands.get(1).getDemandDetails().size());
+		assertEquals("detail-3", demands.get(1).getDemandDetails().get(0).getId());
+	}
+
+	@Test
+	public void testDemandIsEmittedOnceTheNextDemandStarts() throws SQLException {
+		handler.processRow(demandRow("demand-1", "detail-1"));
+		handler.processRow(demandRow("demand-1", "detail-2"));
+
+		assertTrue(demands.isEmpty());
+
+		handler.processRow(demandRow("demand-2", "detail-3"));
+
+		assertEquals(1, demands.size());
+		assertEquals(2, demands.get(0).getDemandDetails().size());
+	}
+
+	@Test
+	public void testCompleteEmitsTheLastDemandOnlyOnce() throws SQLException {
+		handler.processRow(demandRow("demand-1", "detail-1"));
+		handler.complete();
+		handler.complete();
+
+		assertEquals(1, demands.size());
+		assertEquals(1, handler.getDemandCount());
+	}
+
+	@Test
+	public void testCompleteWithoutRowsEmitsNothing() {
+		handler.complete();
+
+		assertTrue(demands.isEmpty());
+		assertEquals(0, handler.getDemandCount());
+	}
+
+	@Test
+	public void testDetailOfAnotherDemandIsNotAttached() throws SQLException {
+		Map<String, Object> columns = demandColumns("demand-1", "detail-1");
+		columns.put("dldemandid", "demand-9");
+
+		handler.processRow(row(columns));
+		handler.complete();
+
+		assertEquals(1, demands.size());
+		assertTrue(demands.get(0).getDemandDetails().isEmpty());
+	}
+
+	/**
+	 * Row mapper with a util which does not need the object mapper, the additional details are not part of the rows
+	 */
+	static DemandRowMapper demandRowMapper() {
+		DemandRowMapper demandRowMapper = new DemandRowMapper();
+		ReflectionTestUtils.setField(demandRowMapper, "util", mock(Util.class));
+		return demandRowMapper;
+	}
+
+	static ResultSet demandRow(String demandId, String detailId) {
+		return row(demandColumns(demandId, detailId));
+	}
+
+	private static Map<String, Object> demandColumns(String demandId, String detailId) {
+		Map<String, Object> columns = new HashMap<>();
+		columns.put("did", demandId);
+		columns.put("dbusinessservice", "PT");
+		columns.put("dconsumerCode", "PT-107-001");
+		columns.put("dtenantid", "pb.amritsar");
+		columns.put("dtaxPeriodFrom", 1554076800000L);
+		columns.put("dtaxPeriodTo", 1585699199000L);
+		columns.put("status", "ACTIVE");
+		columns.put("dminimumAmountPayable", BigDecimal.ZERO);
+		columns.put("dlid", detailId);
+		columns.put("dldemandid", demandId);
+		columns.put("dltaxheadcode", "PT_TAX");
+		columns.put("dltenantid", "pb.amritsar");
+		columns.put("dltaxamount", new BigDecimal("100.00"));
+		columns.put("dlcollectionamount", BigDecimal.ZERO);
+		return columns;
+	}
+
+	/**
+	 * ResultSet positioned on a row of the given columns, getters read null columns the way the driver does.
+	 */
+	private static ResultSet row(Map<String, Object> columns) {
+		return mock(ResultSet.class, invocation -> {
+			if (invocation.getArguments().length != 1)
+				return null;
+			Object value = columns.get(invocation.getArguments()[0]);
+			switch (invocation.getMethod().getName()) {
+				case "getString":
+					return null == value ? null : value.toString();
+				case "getLong":
+					return null == value ? 0L : ((Number) value).longValue();
+				case "getBoolean":
+					return Boolean.TRUE.equals(value);
+				case "getBigDecimal":
+				case "getObject":
+					return value;
+				default:
+					return null;
+			}
+		});
+	}
+
+}
@@ -0,0 +1,362 @@
+package org.egov.demand.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.demand.config.ApplicationProperties;
+import org.egov.demand.model.AuditDetails;
+import org.egov.demand.model.BillAccountDetailV2;
+import org.egov.demand.model.BillDetailV2;
+import org.egov.demand.model.BillSearchCriteria;
+import org.egov.demand.model.BillV2;
+import org.egov.demand.model.BulkBillCriteria;
+import org.egov.demand.model.BulkBillJob;
+import org.egov.demand.model.Demand;
+import org.egov.demand.model.DemandCriteria;
+import org.egov.demand.model.DemandDetail;
+import org.egov.demand.model.GenerateBillCriteria;
+import org.egov.demand.model.TaxHeadMaster;
+import org.egov.demand.model.TaxHeadMasterCriteria;
+import org.egov.demand.repository.BillRepositoryV2;
+import org.egov.demand.repository.BulkBillJobRepository;
+import org.egov.demand.repository.ServiceRequestRepository;
+import org.egov.demand.util.IdBlockAllocator;
+import org.egov.demand.util.Util;
+import org.egov.demand.web.contract.BillRequestV2;
+import org.egov.demand.web.contract.RequestInfoWrapper;
+import org.egov.demand.web.contract.TaxHeadMasterResponse;
+import org.egov.demand.web.contract.factory.ResponseFactory;
+import org.egov.demand.web.validator.BillValidator;
+import org.egov.tracer.model.CustomException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BillServicev2Test {
+
+	private static final String TENANT_ID = "pb.amritsar";
+
+	private static final long DAY = 24 * 60 * 60 * 1000L;
+
+	@InjectMocks
+	private BillServicev2 billService;
+
+	@Mock
+	private ApplicationProperties appProps;
+
+	@Mock
+	private BillRepositoryV2 billRepository;
+
+	@Mock
+	private BulkBillJobRepository bulkBillJobRepository;
+
+	@Mock
+	private DemandService demandService;
+
+	@Mock
+	private TaxHeadMasterService taxHeadService;
+
+	@Mock
+	private Util util;
+
+	@Mock
+	private ServiceRequestRepository restRepository;
+
+	@Mock
+	private IdBlockAllocator idBlockAllocator;
+
+	@Mock
+	private BillValidator billValidator;
+
+	@Mock
+	private ResponseFactory responseFactory;
+
+	private final long now = System.currentTimeMillis();
+
+	/*
+	 * released at the end of each test, holds the demand update calls which should time out
+	 */
+	private final CountDownLatch demandUpdateLatch = new CountDownLatch(1);
+
+	@Before
+	public void setup() {
+		Map<String, String> demandUpdateUrls = new HashMap<>();
+		demandUpdateUrls.put("PT", "http://pt-calculator-v2:8080/pt-calculator-v2/propertytax/_updatedemand");
+
+		when(appProps.getDemandUpdatePoolSize()).thenReturn(2);
+		when(appProps.getDemandUpdateQueueSize()).thenReturn(10);
+		when(appProps.getDemandUpdateConnectTimeout()).thenReturn(1000);
+		when(appProps.getDemandUpdateTimeout()).thenReturn(2000L);
+		lenient().when(appProps.getBusinessCodeAndDemandUpdateUrlMap()).thenReturn(demandUpdateUrls);
+		lenient().when(appProps.getBillNumberFormat()).thenReturn("PB-BN-{module}{tenantid}");
+		lenient().when(appProps.getModuleReplaceStirng()).thenReturn("{module}");
+		lenient().when(appProps.getTenantIdReplaceString()).thenReturn("{tenantid}");
+		lenient().when(appProps.getIsTenantLevelBillNumberingEnabled()).thenReturn(false);
+		lenient().when(util.getAuditDetail(any())).thenReturn(new AuditDetails("user-1", "user-1", now, now));
+		lenient().when(idBlockAllocator.getIds(any(), anyString(), anyString(), anyString(), anyInt())).thenAnswer(invocation -> {
+			int count = invocation.getArgument(4);
+			List<String> billNumbers = new ArrayList<>();
+			for (int i = 1; i <= count; i++)
+				billNumbers.add("PB-BN-PT-" + i);
+			return billNumbers;
+		});
+		lenient().when(taxHeadService.getTaxHeads(any(TaxHeadMasterCriteria.class), any()))
+				.thenReturn(TaxHeadMasterResponse.builder().taxHeadMasters(Arrays.asList(taxHead("PT_TAX", 1), taxHead("PT_INTEREST", 2))).build());
+
+		billService.initDemandUpdateExecutor();
+	}
+
+	@After
+	public void tearDown() {
+		demandUpdateLatch.countDown();
+		billService.shutdownDemandUpdateExecutor();
+	}
+
+	@Test
+	public void testExpiredBillIsRegeneratedFromTheUpdatedDemand() {
+		BillV2 expiredBill = bill("PT-1", now - 2 * DAY, billDetail("demand-1", now - DAY, "100"));
+		givenBills(expiredBill);
+		givenDemands(demand("demand-1", "PT-1", now - DAY / 2, "PT_TAX", "150"));
+
+		List<BillV2> bills = billService.fetchBill(criteria("PT-1"), requestInfoWrapper()).getBill();
+
+		assertEquals(1, bills.size());
+		BillV2 bill = bills.get(0);
+		assertEquals("PT-1", bill.getConsumerCode());
+		assertNotEquals(expiredBill.getId(), bill.getId());
+		assertEquals("PB-BN-PT-1", bill.getBillNumber());
+		assertEquals(0, new BigDecimal("150").compareTo(bill.getTotalAmount()));
+		assertEquals(Collections.singletonList("PT-1"), demandUpdateConsumerCodes());
+		verify(billRepository).expireAndSaveBills(any(BillRequestV2.class), eq(TENANT_ID), eq("PT"),
+				eq(Collections.singleton("PT-1")));
+	}
+
+	@Test
+	public void testOnlyExpiredBillsAreRegeneratedAndValidDetailsCarriedForward() {
+		BillV2 validBill = bill("PT-1", now - 2 * DAY, billDetail("demand-1", now + DAY, "100"));
+		BillV2 expiredBill = bill("PT-2", now - 2 * DAY, billDetail("demand-2", now - DAY, "200"),
+				billDetail("demand-3", now + DAY, "80"));
+		givenBills(validBill, expiredBill);
+		givenDemands(demand("demand-2", "PT-2", now - DAY / 2, "PT_TAX", "250"),
+				demand("demand-3", "PT-2", now - 3 * DAY, "PT_INTEREST", "999"));
+
+		List<BillV2> bills = billService.fetchBill(criteria("PT-1", "PT-2"), requestInfoWrapper()).getBill();
+
+		assertEquals(2, bills.size());
+		assertSame(validBill, bills.get(0));
+		BillV2 regenerated = bills.get(1);
+		assertEquals("PT-2", regenerated.getConsumerCode());
+		assertEquals(0, new BigDecimal("330").compareTo(regenerated.getTotalAmount()));
+		assertEquals(Collections.singletonList("PT-2"), demandUpdateConsumerCodes());
+
+		ArgumentCaptor<TaxHeadMasterCriteria> taxHeadCriteria = ArgumentCaptor.forClass(TaxHeadMasterCriteria.class);
+		verify(taxHeadService).getTaxHeads(taxHeadCriteria.capture(), any());
+		assertEquals(Collections.singleton("PT_TAX"), taxHeadCriteria.getValue().getCode());
+		verify(billRepository).expireAndSaveBills(any(BillRequestV2.class), eq(TENANT_ID), eq("PT"),
+				eq(Collections.singleton("PT-2")));
+	}
+
+	@Test
+	public void testBillIsNotRegeneratedWhenDemandUpdateTimesOut() {
+		when(appProps.getDemandUpdateTimeout()).thenReturn(200L);
+		billService.shutdownDemandUpdateExecutor();
+		billService.initDemandUpdateExecutor();
+		givenBills(bill("PT-1", now - 2 * DAY, billDetail("demand-1", now - DAY, "100")));
+		doAnswer(invocation -> {
+			demandUpdateLatch.await();
+			return null;
+		}).when(restRepository).fetchResult(any(), anyString(), any());
+
+		try {
+			billService.fetchBill(criteria("PT-1"), requestInfoWrapper());
+			fail("Bill should not be generated before the demands are updated");
+		} catch (CustomException e) {
+			assertEquals("EG_BS_DEMAND_UPDATE_TIMEOUT", e.getCode());
+		}
+
+		verify(demandService, never()).getDemands(any(DemandCriteria.class), any());
+		verify(billRepository, never()).expireAndSaveBills(any(), anyString(), anyString(), any());
+	}
+
+	@Test
+	public void testBulkBillResumesAfterTheCheckpointOfTheGivenConsumerCodes() {
+		when(appProps.getBulkBillChunkSize()).thenReturn(1000);
+		when(appProps.getBulkBillMaxChunkSize()).thenReturn(5000);
+		when(demandService.getDemandsForBulkBill(eq(TENANT_ID), eq("PT"), any(), any())).thenReturn(Collections.emptyList());
+		BulkBillJob job = bulkBillJob(bulkBillCriteria(2, "PT-5", "PT-1", "PT-3", "PT-2", "PT-4"), "PT-2");
+		List<String> checkpoints = recordCheckpoints();
+
+		billService.generateBulkBill(job);
+
+		verify(demandService).getDemandsForBulkBill(eq(TENANT_ID), eq("PT"), eq(new HashSet<>(Arrays.asList("PT-3", "PT-4"))), any());
+		verify(demandService).getDemandsForBulkBill(eq(TENANT_ID), eq("PT"), eq(Collections.singleton("PT-5")), any());
+		assertEquals(Arrays.asList("PT-4:[]", "PT-5:[]"), checkpoints);
+		assertCompleted(job, 5L, 3);
+	}
+
+	@Test
+	public void testBulkBillResumesAfterTheCheckpointOfTheDemandConsumerCodes() {
+		when(appProps.getBulkBillChunkSize()).thenReturn(2);
+		when(demandService.getConsumerCodesForBulkBill(TENANT_ID, "PT", "PT-2", 2)).thenReturn(Arrays.asList("PT-3", "PT-4"));
+		when(demandService.getConsumerCodesForBulkBill(TENANT_ID, "PT", "PT-4", 2)).thenReturn(Collections.singletonList("PT-5"));
+		when(demandService.getDemandsForBulkBill(eq(TENANT_ID), eq("PT"), any(), any())).thenReturn(Collections.emptyList());
+		BulkBillJob job = bulkBillJob(bulkBillCriteria(null), "PT-2");
+		List<String> checkpoints = recordCheckpoints();
+
+		billService.generateBulkBill(job);
+
+		assertEquals(Arrays.asList("PT-4:[]", "PT-5:[]"), checkpoints);
+		verify(demandService, never()).getConsumerCodesForBulkBill(TENANT_ID, "PT", "PT-5", 2);
+		assertCompleted(job, 5L, 3);
+	}
+
+	@Test
+	public void testFailedChunkIsRecordedWithItsCheckpointAndTheRunGoesOn() {
+		when(appProps.getBulkBillChunkSize()).thenReturn(2);
+		when(demandService.getDemandsForBulkBill(eq(TENANT_ID), eq("PT"), eq(new HashSet<>(Arrays.asList("PT-1", "PT-2"))), any()))
+				.thenThrow(new CustomException("EG_BS_TAXHEADCODE_EMPTY", "No taxhead masters found for the given codes"));
+		when(demandService.getDemandsForBulkBill(eq(TENANT_ID), eq("PT"), eq(new HashSet<>(Arrays.asList("PT-3", "PT-4"))), any()))
+				.thenReturn(Collections.emptyList());
+		BulkBillJob job = bulkBillJob(bulkBillCriteria(null, "PT-1", "PT-2", "PT-3", "PT-4"), null);
+		List<String> checkpoints = recordCheckpoints();
+
+		billService.generateBulkBill(job);
+
+		assertEquals(Arrays.asList("PT-2:[PT-1, PT-2]", "PT-4:[]"), checkpoints);
+		assertCompleted(job, 4L, 2);
+	}
+
+	/**
+	 * Records the last consumer-code and the sorted failed consumer-codes of each chunk checkpoint
+	 */
+	private List<String> recordCheckpoints() {
+		List<String> checkpoints = new ArrayList<>();
+		doAnswer(invocation -> {
+			BulkBillJob job = invocation.getArgument(0);
+			Collection<String> failedConsumerCodes = invocation.getArgument(1);
+			checkpoints.add(job.getLastConsumerCode() + ":" + new TreeSet<>(failedConsumerCodes));
+			return null;
+		}).when(bulkBillJobRepository).saveCheckpoint(any(BulkBillJob.class), any());
+		return checkpoints;
+	}
+
+	private void assertCompleted(BulkBillJob job, Long consumerCodesProcessed, Integer chunksProcessed) {
+		verify(bulkBillJobRepository).saveCheckpoint(job);
+		assertEquals(BulkBillJob.STATUS_COMPLETED, job.getStatus());
+		assertEquals(consumerCodesProcessed, job.getConsumerCodesProcessed());
+		assertEquals(chunksProcessed, job.getChunksProcessed());
+		verify(billRepository, never()).expireAndSaveBills(any(), anyString(), anyString(), any());
+	}
+
+	private static BulkBillCriteria bulkBillCriteria(Integer chunkSize, String... consumerCodes) {
+		return BulkBillCriteria.builder().tenantId(TENANT_ID).businessService("PT").chunkSize(chunkSize)
+				.consumerCodes(consumerCodes.length == 0 ? null : new HashSet<>(Arrays.asList(consumerCodes))).build();
+	}
+
+	/**
+	 * Job as read back from its checkpoint, after the chunks up to the given consumer-code
+	 */
+	private static BulkBillJob bulkBillJob(BulkBillCriteria criteria, String lastConsumerCode) {
+		boolean resumed = null != lastConsumerCode;
+		return BulkBillJob.builder().id("job-1").tenantId(TENANT_ID).businessService("PT").criteria(criteria)
+				.requestInfo(new RequestInfo()).status(BulkBillJob.STATUS_IN_PROGRESS).lastConsumerCode(lastConsumerCode)
+				.consumerCodesProcessed(resumed ? 2L : 0L).chunksProcessed(resumed ? 1 : 0).build();
+	}
+
+	private void givenBills(BillV2... bills) {
+		when(billRepository.findBill(any(BillSearchCriteria.class))).thenReturn(new ArrayList<>(Arrays.asList(bills)));
+	}
+
+	private void givenDemands(Demand... demands) {
+		when(demandService.getDemands(any(DemandCriteria.class), any())).thenReturn(Arrays.asList(demands));
+	}
+
+	/**
+	 * Consumer codes sent to the demand update url, in the order of the calls
+	 */
+	private List<String> demandUpdateConsumerCodes() {
+		ArgumentCaptor<String> url = ArgumentCaptor.forClass(String.class);
+		verify(restRepository).fetchResult(any(), url.capture(), any());
+		List<String> consumerCodes = new ArrayList<>();
+		for (String callUrl : url.getAllValues()) {
+			String consumerCodesParam = callUrl.substring(callUrl.indexOf("consumerCodes=") + "consumerCodes=".length());
+			consumerCodes.add(consumerCodesParam.substring(0, consumerCodesParam.indexOf('&')));
+		}
+		return consumerCodes;
+	}
+
+	private GenerateBillCriteria criteria(String... consumerCodes) {
+		return GenerateBillCriteria.builder().tenantId(TENANT_ID).businessService("PT")
+				.consumerCode(new HashSet<>(Arrays.asList(consumerCodes))).build();
+	}
+
+	private static RequestInfoWrapper requestInfoWrapper() {
+		RequestInfoWrapper requestInfoWrapper = new RequestInfoWrapper();
+		requestInfoWrapper.setRequestInfo(new RequestInfo());
+		return requestInfoWrapper;
+	}
+
+	private BillV2 bill(String consumerCode, long createdTime, BillDetailV2... billDetails) {
+		BigDecimal totalAmount = BigDecimal.ZERO;
+		for (BillDetailV2 billDetail : billDetails)
+			totalAmount = totalAmount.add(billDetail.getAmount());
+		return BillV2.builder().id("bill-" + consumerCode).consumerCode(consumerCode).tenantId(TENANT_ID)
+				.businessService("PT").totalAmount(totalAmount).billDetails(Arrays.asList(billDetails))
+				.auditDetails(new AuditDetails("user-1", "user-1", createdTime, createdTime)).build();
+	}
+
+	private static BillDetailV2 billDetail(String demandId, long expiryDate, String amount) {
+		BillAccountDetailV2 accountDetail = BillAccountDetailV2.builder().id("bad-" + demandId).tenantId(TENANT_ID)
+				.taxHeadCode("PT_TAX").amount(new BigDecimal(amount)).adjustedAmount(BigDecimal.ZERO).order(1).build();
+		return BillDetailV2.builder().id("bd-" + demandId).tenantId(TENANT_ID).demandId(demandId).expiryDate(expiryDate)
+				.amount(new BigDecimal(amount)).billAccountDetails(Collections.singletonList(accountDetail)).build();
+	}
+
+	private static Demand demand(String id, String consumerCode, long lastModifiedTime, String taxHeadCode, String taxAmount) {
+		AuditDetails auditDetails = new AuditDetails("user-1", "user-1", lastModifiedTime, lastModifiedTime);
+		DemandDetail demandDetail = DemandDetail.builder().id("dd-" + id).demandId(id).tenantId(TENANT_ID)
+				.taxHeadMasterCode(taxHeadCode).taxAmount(new BigDecimal(taxAmount)).collectionAmount(BigDecimal.ZERO)
+				.auditDetails(auditDetails).build();
+		return Demand.builder().id(id).tenantId(TENANT_ID).consumerCode(consumerCode).businessService("PT")
+				.taxPeriodFrom(1554076800000L).taxPeriodTo(1585699199000L).billExpiryTime(DAY)
+				.demandDetails(new ArrayList<>(Collections.singletonList(demandDetail))).auditDetails(auditDetails).build();
+	}
+
+	private static TaxHeadMaster taxHead(String code, int order) {
+		TaxHeadMaster taxHead = new TaxHeadMaster();
+		taxHead.setCode(code);
+		taxHead.setOrder(order);
+		return taxHead;
+	}
+
+}
@@ -0,0 +1,63 @@
+package org.egov.demand.web.validator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.verify;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.common.contract.request.User;
+import org.egov.demand.util.Util;
+import org.egov.tracer.model.CustomException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BillValidatorTest {
+
+	@InjectMocks
+	private BillValidator billValidator;
+
+	@Mock
+	private Util util;
+
+	@Test
+	public void testBulkBillRequestOfEmployeeValidatesTheTenant() {
+		RequestInfo requestInfo = requestInfo("EMPLOYEE");
+
+		billValidator.validateBulkBillRequest("pb.amritsar", requestInfo);
+
+		verify(util).validateTenantIdForUserType("pb.amritsar", requestInfo);
+	}
+
+	@Test
+	public void testBulkBillRequestOfCitizenIsRejected() {
+		assertRejected(requestInfo("CITIZEN"), "EG_BS_BULK_BILL_UNAUTHORIZED");
+	}
+
+	@Test
+	public void testBulkBillRequestWithoutUserInfoIsRejected() {
+		assertRejected(new RequestInfo(), "EG_BS_BULK_BILL_REQUESTINFO_ERROR");
+		assertRejected(null, "EG_BS_BULK_BILL_REQUESTINFO_ERROR");
+	}
+
+	private void assertRejected(RequestInfo requestInfo, String code) {
+		try {
+			billValidator.validateBulkBillRequest("pb.amritsar", requestInfo);
+			fail("Bulk bill request should have been rejected");
+		} catch (CustomException e) {
+			assertEquals(code, e.getCode());
+		}
+	}
+
+	private static RequestInfo requestInfo(String userType) {
+		User user = new User();
+		user.setType(userType);
+		RequestInfo requestInfo = new RequestInfo();
+		requestInfo.setUserInfo(user);
+		return requestInfo;
+	}
+
+}
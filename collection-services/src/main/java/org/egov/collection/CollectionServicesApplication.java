@@ -43,6 +43,8 @@ package org.egov.collection;
 import java.text.SimpleDateFormat;
 import java.util.Locale;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.annotation.PostConstruct;
 
@@ -50,9 +52,13 @@ import org.egov.tracer.config.TracerConfiguration;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
@@ -62,6 +68,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 @SpringBootApplication
 @Component
 @Import(TracerConfiguration.class)
+@EnableScheduling
 public class CollectionServicesApplication {
 
 
@@ -87,6 +94,37 @@ public class CollectionServicesApplication {
         return objectMapper;
     }
 
+	/**
+	 * Pool for the independent remote lookups of payment creation
+	 */
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService paymentLookupExecutor(@Value("${collection.payment.lookup.pool.size}") Integer poolSize) {
+		return Executors.newFixedThreadPool(poolSize);
+	}
+
+	/**
+	 * Pool for the master data and bill lookups of payment enrichment. Enrichment runs
+	 * on the lookup pool for bulk creates and waits on these lookups, so they get a
+	 * pool of their own that never waits on another task
+	 */
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService paymentEnrichExecutor(@Value("${collection.payment.enrich.pool.size}") Integer poolSize) {
+		return Executors.newFixedThreadPool(poolSize);
+	}
+
+	/**
+	 * Listener container factory delivering each poll as one batch, for listeners
+	 * that work on records in bulk
+	 */
+	@Bean
+	public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+			ConcurrentKafkaListenerContainerFactoryConfigurer configurer, ConsumerFactory<Object, Object> consumerFactory) {
+		ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+		configurer.configure(factory, consumerFactory);
+		factory.setBatchListener(true);
+		return factory;
+	}
+
 	@Bean
 	public MappingJackson2HttpMessageConverter jacksonConverter() {
 		MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
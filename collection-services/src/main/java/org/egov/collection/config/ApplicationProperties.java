@@ -261,5 +261,56 @@ public class ApplicationProperties {
     @Value("${egov.razorpay.url}")
     private String razorPayUrl;
 
+    @Value("${collection.payment.duplicate.check.cache.ttl.ms}")
+    private Long duplicateCheckCacheTtl;
+
+    @Value("${collection.payment.duplicate.check.cache.size.max}")
+    private Integer duplicateCheckCacheMaxSize;
+
+    @Value("${collection.ifsc.cache.size.max}")
+    private Integer ifscCacheMaxSize;
+
+    @Value("${collection.ifsc.cache.expiry.ms}")
+    private Long ifscCacheExpiry;
+
+    @Value("${collection.ifsc.cache.refresh.batch.size}")
+    private Integer ifscCacheRefreshBatchSize;
+
+    @Value("${collection.ifsc.cache.file}")
+    private String ifscCacheFile;
+
+    @Value("${collection.bankdetail.backfill.chunk.size}")
+    private Integer bankDetailBackfillChunkSize;
+
+    @Value("${collection.bankdetail.backfill.chunk.pause.ms}")
+    private Long bankDetailBackfillChunkPause;
+
+    @Value("${collection.migration.worker.pool.size}")
+    private Integer migrationWorkerPoolSize;
+
+    @Value("${collection.localization.cache.expiry.ms}")
+    private Long localizationCacheExpiry;
+
+    @Value("${collection.notification.url.shortener.pool.size}")
+    private Integer urlShortenerPoolSize;
+
+    @Value("${collection.notification.url.shortener.timeout.ms}")
+    private Long urlShortenerTimeout;
+
+    @Value("${collection.mdms.cache.expiry.ms}")
+    private Long mdmsCacheExpiry;
+
+    @Value("${collection.payment.bulk.create.max}")
+    private Integer bulkCreateMaxPayments;
+
+    @Value("${collection.payment.lookup.timeout.ms}")
+    private Long paymentLookupTimeout;
+
+    @Value("${collection.payment.count.reconcile.interval.ms}")
+    private Long paymentCountReconcileInterval;
+
+    @Value("${collection.payment.copy.persist.min.payments}")
+    private Integer copyPersistMinPayments;
+
 
 }
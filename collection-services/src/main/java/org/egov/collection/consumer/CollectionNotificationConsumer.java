@@ -4,27 +4,35 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.egov.collection.model.Payment;
 import org.egov.collection.model.PaymentDetail;
 import org.egov.collection.model.PaymentRequest;
 import org.egov.collection.producer.CollectionProducer;
+import org.egov.collection.service.LocalizationService;
 import org.egov.collection.web.contract.Bill;
 import org.egov.common.contract.request.RequestInfo;
 import org.egov.collection.config.ApplicationProperties;
 
-import org.egov.tracer.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.util.CollectionUtils;
 import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.jayway.jsonpath.JsonPath;
 
+import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import net.logstash.logback.encoder.org.apache.commons.lang.StringUtils;
 
@@ -46,114 +54,153 @@ public class CollectionNotificationConsumer{
     @Autowired
     private RestTemplate restTemplate;
 
-    @KafkaListener(topics = { "${kafka.topics.payment.create.name}", "${kafka.topics.payment.receiptlink.name}" })
-    public void listen(HashMap<String, Object> record, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic){
-        try{
-            PaymentRequest req = objectMapper.convertValue(record, PaymentRequest.class);
-            sendNotification(req);
-        }catch(Exception e){
-            log.error("Exception while reading from the queue: ", e);
+    @Autowired
+    private LocalizationService localizationService;
+
+    private ExecutorService urlShortenerExecutor;
+
+    @PostConstruct
+    public void initialize() {
+        urlShortenerExecutor = Executors.newFixedThreadPool(applicationProperties.getUrlShortenerPoolSize());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        urlShortenerExecutor.shutdown();
+    }
+
+    /**
+     * Builds the notifications of all payments in the poll, shortens their receipt
+     * links together and then pushes the sms
+     */
+    @KafkaListener(topics = { "${kafka.topics.payment.create.name}", "${kafka.topics.payment.receiptlink.name}" },
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void listen(List<HashMap<String, Object>> records){
+        List<Notification> notifications = new ArrayList<>();
+        for (HashMap<String, Object> record : records) {
+            try{
+                PaymentRequest req = objectMapper.convertValue(record, PaymentRequest.class);
+                notifications.addAll(buildNotifications(req));
+            }catch(Exception e){
+                log.error("Exception while reading from the queue: ", e);
+            }
+        }
+
+        if (notifications.isEmpty())
+            return;
+
+        Map<String, String> shortenedUrls = getShortenedUrls(notifications.stream()
+                .map(Notification::getReceiptLink).collect(Collectors.toSet()));
+
+        for (Notification notification : notifications) {
+            HashMap<String, Object> request = new HashMap<>();
+            request.put("mobileNumber", notification.getMobileNumber());
+            request.put("message", notification.getContent().replaceAll("<rcpt_link>",
+                    shortenedUrls.getOrDefault(notification.getReceiptLink(), notification.getReceiptLink())));
+            producer.producer(applicationProperties.getSmsTopic(), request);
         }
     }
 
-    private void sendNotification(PaymentRequest paymentRequest){
+    private List<Notification> buildNotifications(PaymentRequest paymentRequest){
+        List<Notification> notifications = new ArrayList<>();
         Payment payment = paymentRequest.getPayment();
         for (PaymentDetail paymentDetail : payment.getPaymentDetails()) {
             String mobNo = payment.getMobileNumber();
             String paymentStatus = (payment.getPaymentStatus().toString() == null ? "NEW" : payment.getPaymentStatus().toString());
             Bill bill = paymentDetail.getBill();
-            String message = buildSmsBody(bill, paymentDetail, paymentRequest.getRequestInfo(), paymentStatus);
-            if (!StringUtils.isEmpty(message)) {
-                HashMap<String, Object> request = new HashMap<>();
-                request.put("mobileNumber", mobNo);
-                request.put("message", message);
-                producer.producer(applicationProperties.getSmsTopic(), request);
+            Notification notification = buildSmsBody(bill, paymentDetail, paymentRequest.getRequestInfo(), paymentStatus);
+            if (notification != null) {
+                notification.setMobileNumber(mobNo);
+                notifications.add(notification);
             } else {
                 log.error("Message not configured! No notification will be sent.");
             }
         }
-
+        return notifications;
     }
 
-    private String buildSmsBody(Bill bill, PaymentDetail paymentDetail, RequestInfo requestInfo, String paymentStatus){
-        String message = null;
+    /**
+     * Builds the sms of the payment detail, the receipt link is left as
+     * <rcpt_link> in the content until it is shortened
+     */
+    private Notification buildSmsBody(Bill bill, PaymentDetail paymentDetail, RequestInfo requestInfo, String paymentStatus){
         String content = null;
         switch(paymentStatus.toUpperCase()){
             case "NEW":
-                content = fetchContentFromLocalization(requestInfo, paymentDetail.getTenantId(), COLLECTION_LOCALIZATION_MODULE, WF_MT_STATUS_OPEN_CODE);
+                content = localizationService.getMessage(requestInfo, paymentDetail.getTenantId(), COLLECTION_LOCALIZATION_MODULE, WF_MT_STATUS_OPEN_CODE);
                 break;
             case "DEPOSITED":
-                content = fetchContentFromLocalization(requestInfo, paymentDetail.getTenantId(), COLLECTION_LOCALIZATION_MODULE, WF_MT_STATUS_DEPOSITED_CODE);
+                content = localizationService.getMessage(requestInfo, paymentDetail.getTenantId(), COLLECTION_LOCALIZATION_MODULE, WF_MT_STATUS_DEPOSITED_CODE);
                 break;
             case "CANCELLED":
-                content = fetchContentFromLocalization(requestInfo, paymentDetail.getTenantId(), COLLECTION_LOCALIZATION_MODULE, WF_MT_STATUS_CANCELLED_CODE);
+                content = localizationService.getMessage(requestInfo, paymentDetail.getTenantId(), COLLECTION_LOCALIZATION_MODULE, WF_MT_STATUS_CANCELLED_CODE);
                 break;
             case "DISHONOURED":
-                content = fetchContentFromLocalization(requestInfo, paymentDetail.getTenantId(), COLLECTION_LOCALIZATION_MODULE, WF_MT_STATUS_DISHONOURED_CODE);
+                content = localizationService.getMessage(requestInfo, paymentDetail.getTenantId(), COLLECTION_LOCALIZATION_MODULE, WF_MT_STATUS_DISHONOURED_CODE);
                 break;
             default:
                 break;
         }
-        if(!StringUtils.isEmpty(content)){
-            StringBuilder link = new StringBuilder();
-            link.append(applicationProperties.getUiHost() + "/citizen").append("/otpLogin?mobileNo=").append(bill.getMobileNumber()).append("&redirectTo=")
-                    .append(applicationProperties.getUiRedirectUrl()).append("&params=").append(paymentDetail.getTenantId() + "," + paymentDetail.getReceiptNumber());
+        if(StringUtils.isEmpty(content))
+            return null;
 
-            String receiptLink = getShortenedUrl(link.toString());
+        StringBuilder link = new StringBuilder();
+        link.append(applicationProperties.getUiHost() + "/citizen").append("/otpLogin?mobileNo=").append(bill.getMobileNumber()).append("&redirectTo=")
+                .append(applicationProperties.getUiRedirectUrl()).append("&params=").append(paymentDetail.getTenantId() + "," + paymentDetail.getReceiptNumber());
 
-            content = content.replaceAll("<rcpt_link>", receiptLink);
+        String moduleName = localizationService.getMessage(requestInfo, paymentDetail.getTenantId(),
+                BUSINESSSERVICE_LOCALIZATION_MODULE, formatCodes(paymentDetail.getBusinessService()));
 
-            String moduleName = fetchContentFromLocalization(requestInfo, paymentDetail.getTenantId(),
-                    BUSINESSSERVICE_LOCALIZATION_MODULE, formatCodes(paymentDetail.getBusinessService()));
+        if(StringUtils.isEmpty(moduleName))
+            moduleName = "Adhoc Tax";
 
-            if(StringUtils.isEmpty(moduleName))
-                moduleName = "Adhoc Tax";
+        content = content.replaceAll("<owner_name>", bill.getPayerName());
 
-            content = content.replaceAll("<owner_name>", bill.getPayerName());
+        if(content.contains("<amount_paid>"))
+            content = content.replaceAll("<amount_paid>", paymentDetail.getTotalAmountPaid().toString());
 
-            if(content.contains("<amount_paid>"))
-                content = content.replaceAll("<amount_paid>", paymentDetail.getTotalAmountPaid().toString());
+        content = content.replaceAll("<rcpt_no>", paymentDetail.getReceiptNumber());
+        content = content.replaceAll("<mod_name>", moduleName);
+        content = content.replaceAll("<unique_id>", bill.getConsumerCode());
 
-            content = content.replaceAll("<rcpt_no>", paymentDetail.getReceiptNumber());
-            content = content.replaceAll("<mod_name>", moduleName);
-            content = content.replaceAll("<unique_id>", bill.getConsumerCode());
-            message = content;
-        }
-        return message;
+        Notification notification = new Notification();
+        notification.setContent(content);
+        notification.setReceiptLink(link.toString());
+        return notification;
     }
 
-    private String fetchContentFromLocalization(RequestInfo requestInfo, String tenantId, String module, String code){
-        String message = null;
-        List<String> codes = new ArrayList<>();
-        List<String> messages = new ArrayList<>();
-        Object result = null;
-        String locale = "";
-        if(requestInfo.getMsgId().contains("|"))
-            locale = requestInfo.getMsgId().split("[\\|]")[1];
-        if(StringUtils.isEmpty(locale))
-            locale = applicationProperties.getFallBackLocale();
-        StringBuilder uri = new StringBuilder();
-        uri.append(applicationProperties.getLocalizationHost()).append(applicationProperties.getLocalizationEndpoint());
-        uri.append("?tenantId=").append(tenantId.split("\\.")[0]).append("&locale=").append(locale).append("&module=").append(module);
-
-        Map<String, Object> request = new HashMap<>();
-        request.put("RequestInfo", requestInfo);
-        try {
-            result = restTemplate.postForObject(uri.toString(), request, Map.class);
-            codes = JsonPath.read(result, LOCALIZATION_CODES_JSONPATH);
-            messages = JsonPath.read(result, LOCALIZATION_MSGS_JSONPATH);
-        } catch (Exception e) {
-            log.error("Exception while fetching from localization: " + e);
-        }
-        if(CollectionUtils.isEmpty(messages)){
-            throw new CustomException("LOCALIZATION_NOT_FOUND", "Localization not found for the code: " + code);
+    /**
+     * Shortens the urls in parallel, urls which fail or are not shortened
+     * within the timeout are returned as is
+     *
+     * @param urls Urls to be shortened
+     * @return url to shortened url
+     */
+    private Map<String, String> getShortenedUrls(Set<String> urls){
+        Map<String, CompletableFuture<String>> futures = new HashMap<>();
+        for (String url : urls) {
+            futures.put(url, CompletableFuture.supplyAsync(() -> getShortenedUrl(url), urlShortenerExecutor)
+                    .exceptionally(e -> {
+                        log.error("Unable to shorten url: " + url, e);
+                        return url;
+                    }));
         }
-        for(int index = 0; index < codes.size(); index++){
-            if(codes.get(index).equals(code)){
-                message = messages.get(index);
+
+        long deadline = System.currentTimeMillis() + applicationProperties.getUrlShortenerTimeout();
+        Map<String, String> shortenedUrls = new HashMap<>();
+        futures.forEach((url, future) -> {
+            try {
+                long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                shortenedUrls.put(url, future.get(remaining, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                shortenedUrls.put(url, url);
+            } catch (ExecutionException | TimeoutException e) {
+                log.error("Url shortening timed out for: " + url);
+                shortenedUrls.put(url, url);
             }
-        }
-        return message;
+        });
+        return shortenedUrls;
     }
 
     private String formatCodes(String code){
@@ -183,4 +230,14 @@ public class CollectionNotificationConsumer{
         }
         else return res;
     }
+
+    @Data
+    private static class Notification {
+
+        private String mobileNumber;
+
+        private String content;
+
+        private String receiptLink;
+    }
 }
@@ -0,0 +1,37 @@
+package org.egov.collection.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Builder.Default;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BackfillCheckpoint {
+
+    public static final String STATUS_IN_PROGRESS = "IN_PROGRESS";
+
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    private String jobName;
+
+    /*
+     * Id of the last payment processed, payments are processed in the order of id
+     */
+    @Default
+    private String lastId = "";
+
+    @Default
+    private Long processedCount = 0L;
+
+    @Default
+    private Long updatedCount = 0L;
+
+    private String status;
+
+    private Long lastModifiedTime;
+
+}
@@ -0,0 +1,38 @@
+package org.egov.collection.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MigrationProgress {
+
+    private Boolean running;
+
+    private Long startTime;
+
+    private Integer tenantsTotal;
+
+    private Integer tenantsCompleted;
+
+    private Integer tenantsFailed;
+
+    /*
+     * Legacy receipts of the tenants being migrated, and how many of them are migrated including earlier runs
+     */
+    private Long receiptsTotal;
+
+    private Long receiptsMigrated;
+
+    private Double receiptsPerSecond;
+
+    /*
+     * Estimated time to complete in seconds, based on the throughput of the current run
+     */
+    private Long etaSeconds;
+
+}
@@ -1,5 +1,6 @@
 package org.egov.collection.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -21,4 +22,16 @@ public class PaymentResponse {
     @JsonProperty("Payments")
     private List<Payment> payments;
 
+    /*
+     * Token to fetch the next page, absent on the last page
+     */
+    @JsonProperty("nextContinuationToken")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextContinuationToken;
+
+    public PaymentResponse(ResponseInfo responseInfo, List<Payment> payments) {
+        this.responseInfo = responseInfo;
+        this.payments = payments;
+    }
+
 }
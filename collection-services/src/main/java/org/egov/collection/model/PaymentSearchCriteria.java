@@ -51,6 +51,23 @@ public class PaymentSearchCriteria {
     private Integer offset;
 
     private Integer limit;
+
+    /*
+     * Keyset of the last payment of the previous page, payments are ordered by transactionDate and id descending
+     */
+    private Long lastTransactionDate;
+
+    private String lastPaymentId;
+
+    /*
+     * Keyset of the last payment of the previous plain search page, payments are ordered by createdTime and id
+     */
+    private Long lastCreatedTime;
+
+    /*
+     * Opaque token returned with the previous page, takes precedence over offset
+     */
+    private String continuationToken;
     
     @Default
     private Boolean isCountRequest = false;
@@ -0,0 +1,25 @@
+package org.egov.collection.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Page of the plain search, the ids of its payments split in slices which are read one at a time
+ */
+@Data
+@AllArgsConstructor
+public class PlainSearchPage {
+
+    /*
+     * Payment ids of the page in the order of creation, each slice at most the max search limit
+     */
+    private List<List<String>> idSlices;
+
+    /*
+     * Token of the next page, null on the last page
+     */
+    private String nextContinuationToken;
+
+}
@@ -104,4 +104,9 @@ public class ReceiptSearchCriteria_v1 {
 
     private Integer limit;
 
+    /*
+     * Id of the last receipt of the previous page, receipts are paged in the order of id when set
+     */
+    private String lastId;
+
 }
@@ -5,6 +5,7 @@ import org.egov.collection.config.ApplicationProperties;
 import org.egov.collection.model.IdGenerationRequest;
 import org.egov.collection.model.IdGenerationResponse;
 import org.egov.collection.model.IdRequest;
+import org.egov.collection.model.IdResponse;
 import org.egov.common.contract.request.RequestInfo;
 import org.egov.tracer.model.ServiceCallException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,6 +16,7 @@ import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.egov.collection.config.CollectionServiceConstants.*;
 
@@ -40,6 +42,19 @@ public class IdGenRepository {
      * @return
      */
 	public String generateReceiptNumber(RequestInfo requestInfo, String businessService ,String tenantId) {
+        return generateReceiptNumbers(requestInfo, businessService, tenantId, 1).get(0);
+	}
+
+    /**
+     * Generates receipt numbers in a single id gen call, as generateReceiptNumber
+     *
+     * @param requestInfo
+     * @param businessService
+     * @param tenantId
+     * @param count number of receipt numbers
+     * @return
+     */
+	public List<String> generateReceiptNumbers(RequestInfo requestInfo, String businessService ,String tenantId, int count) {
         String idName = "";
         String format = null;
 	    log.debug("Attempting to generate Receipt Number from ID Gen");
@@ -51,21 +66,25 @@ public class IdGenRepository {
             format = applicationProperties.getReceiptNumberStateLevelFormat();
         }
 
-        return getId(requestInfo, tenantId, idName, format, 1);
+        return getIds(requestInfo, tenantId, idName, format, count);
 	}
 
     public String generateTransactionNumber(RequestInfo requestInfo, String tenantId) {
+        return generateTransactionNumbers(requestInfo, tenantId, 1).get(0);
+    }
+
+    public List<String> generateTransactionNumbers(RequestInfo requestInfo, String tenantId, int count) {
         log.debug("Attempting to generate Transaction Number from ID Gen");
 
         String splitTenant = tenantId.contains(".") ? tenantId.split("\\.")[1] : tenantId;
         String tenantFormat = COLL_TRANSACTION_FORMAT.replace("{tenant}", splitTenant);
 
 
-        return getId(requestInfo, tenantId, COLL_TRANSACTION_ID_NAME, tenantFormat, 1);
+        return getIds(requestInfo, tenantId, COLL_TRANSACTION_ID_NAME, tenantFormat, count);
 
     }
 
-    private String getId(RequestInfo requestInfo, String tenantId, String name, String format, int count) {
+    private List<String> getIds(RequestInfo requestInfo, String tenantId, String name, String format, int count) {
 
         List<IdRequest> reqList = new ArrayList<>();
         for (int i = 0; i < count; i++) {
@@ -80,7 +99,7 @@ public class IdGenRepository {
         try {
             IdGenerationResponse idGenerationResponse = restTemplate.postForObject(uri, req,
                     IdGenerationResponse.class);
-            return idGenerationResponse.getIdResponses().get(0).getId();
+            return idGenerationResponse.getIdResponses().stream().map(IdResponse::getId).collect(Collectors.toList());
         } catch (HttpClientErrorException e) {
             log.error("ID Gen Service failure ", e);
             throw new ServiceCallException(e.getResponseBodyAsString());
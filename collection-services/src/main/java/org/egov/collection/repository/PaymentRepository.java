@@ -1,30 +1,40 @@
 package org.egov.collection.repository;
 
-import static java.util.Collections.reverseOrder;
 import static org.egov.collection.config.CollectionServiceConstants.KEY_FILESTOREID;
 import static org.egov.collection.config.CollectionServiceConstants.KEY_ID;
 import static org.egov.collection.repository.querybuilder.PaymentQueryBuilder.*;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
+import org.apache.commons.lang3.tuple.Pair;
+import org.egov.collection.model.BackfillCheckpoint;
 import org.egov.collection.model.Payment;
 import org.egov.collection.model.PaymentDetail;
 import org.egov.collection.model.PaymentSearchCriteria;
 import org.egov.collection.repository.querybuilder.PaymentQueryBuilder;
 import org.egov.collection.repository.rowmapper.BillRowMapper;
 import org.egov.collection.repository.rowmapper.PaymentRowMapper;
-import org.egov.collection.web.contract.Bill;
+import org.egov.collection.repository.rowmapper.PaymentStreamingRowCallbackHandler;
 import org.egov.tracer.model.CustomException;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.util.PGobject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.SingleColumnRowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.CollectionUtils;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -32,6 +42,7 @@ import lombok.extern.slf4j.Slf4j;
 @Repository
 public class PaymentRepository {
 
+    private static final String PAYMENT_COUNT_RECONCILE_JOB = "PAYMENT_COUNT_RECONCILE";
 
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
@@ -41,13 +52,16 @@ public class PaymentRepository {
     
     private BillRowMapper billRowMapper;
 
+    private ObjectMapper objectMapper;
+
     @Autowired
     public PaymentRepository(NamedParameterJdbcTemplate namedParameterJdbcTemplate, PaymentQueryBuilder paymentQueryBuilder, 
-    		PaymentRowMapper paymentRowMapper, BillRowMapper billRowMapper) {
+    		PaymentRowMapper paymentRowMapper, BillRowMapper billRowMapper, ObjectMapper objectMapper) {
         this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
         this.paymentQueryBuilder = paymentQueryBuilder;
         this.paymentRowMapper = paymentRowMapper;
         this.billRowMapper = billRowMapper;
+        this.objectMapper = objectMapper;
     }
 
 
@@ -55,29 +69,39 @@ public class PaymentRepository {
 
     @Transactional
     public void savePayment(Payment payment){
-        try {
-
-            List<MapSqlParameterSource> paymentDetailSource = new ArrayList<>();
-            List<MapSqlParameterSource> billSource = new ArrayList<>();
-            List<MapSqlParameterSource> billDetailSource = new ArrayList<>();
-            List<MapSqlParameterSource> billAccountDetailSource = new ArrayList<>();
+        savePayments(Collections.singletonList(payment));
+    }
 
-            for (PaymentDetail paymentDetail : payment.getPaymentDetails()) {
-                paymentDetailSource.add(getParametersForPaymentDetailCreate(payment.getId(), paymentDetail));
-                billSource.add(getParamtersForBillCreate(paymentDetail.getBill()));
-                paymentDetail.getBill().getBillDetails().forEach(billDetail -> {
-                    billDetailSource.add(getParamtersForBillDetailCreate(billDetail));
-                    billDetail.getBillAccountDetails().forEach(billAccountDetail -> {
-                        billAccountDetailSource.add(getParametersForBillAccountDetailCreate(billAccountDetail));
-                    });
-                });
+    /**
+     * Saves the payments with COPY once there are at least copyMinPayments of them,
+     * with batched inserts otherwise
+     *
+     * @param payments Payments to be saved
+     * @param copyMinPayments Minimum number of payments saved with COPY
+     */
+    @Transactional
+    public void persistPayments(List<Payment> payments, int copyMinPayments){
+        if (payments.size() >= copyMinPayments)
+            copyPayments(payments);
+        else
+            savePayments(payments);
+    }
 
-            }
-            namedParameterJdbcTemplate.update(INSERT_PAYMENT_SQL, getParametersForPaymentCreate(payment));
-            namedParameterJdbcTemplate.batchUpdate(INSERT_PAYMENTDETAIL_SQL, paymentDetailSource.toArray(new MapSqlParameterSource[0]));
-            namedParameterJdbcTemplate.batchUpdate(INSERT_BILL_SQL, billSource.toArray(new MapSqlParameterSource[0]));
-            namedParameterJdbcTemplate.batchUpdate(INSERT_BILLDETAIL_SQL, billDetailSource.toArray(new MapSqlParameterSource[0]));
-            namedParameterJdbcTemplate.batchUpdate(INSERT_BILLACCOUNTDETAIL_SQL,  billAccountDetailSource.toArray(new MapSqlParameterSource[0]));
+    /**
+     * Inserts the payments with one batch per table for all of them
+     *
+     * @param payments Payments to be saved
+     */
+    @Transactional
+    public void savePayments(List<Payment> payments){
+        try {
+            PaymentGraphSource source = new PaymentGraphSource(payments);
+            namedParameterJdbcTemplate.batchUpdate(INSERT_PAYMENT_SQL, source.paymentSource.toArray(new MapSqlParameterSource[0]));
+            namedParameterJdbcTemplate.batchUpdate(INSERT_PAYMENTDETAIL_SQL, source.paymentDetailSource.toArray(new MapSqlParameterSource[0]));
+            namedParameterJdbcTemplate.batchUpdate(INSERT_BILL_SQL, source.billSource.toArray(new MapSqlParameterSource[0]));
+            namedParameterJdbcTemplate.batchUpdate(INSERT_BILLDETAIL_SQL, source.billDetailSource.toArray(new MapSqlParameterSource[0]));
+            namedParameterJdbcTemplate.batchUpdate(INSERT_BILLACCOUNTDETAIL_SQL,  source.billAccountDetailSource.toArray(new MapSqlParameterSource[0]));
+            incrementPaymentCounts(payments);
 
         }catch (Exception e){
             log.error("Failed to persist payment to database", e);
@@ -85,83 +109,260 @@ public class PaymentRepository {
         }
     }
 
+    /**
+     * Loads the payments with one COPY per table, meant for large sets of payments
+     * where the round trips of the batched inserts dominate
+     *
+     * @param payments Payments to be saved
+     */
+    @Transactional
+    public void copyPayments(List<Payment> payments){
+        try {
+            PaymentGraphSource source = new PaymentGraphSource(payments);
+            copyIn("egcl_payment", PAYMENT_COPY_COLUMNS, source.paymentSource);
+            copyIn("egcl_paymentdetail", PAYMENTDETAIL_COPY_COLUMNS, source.paymentDetailSource);
+            copyIn("egcl_bill", BILL_COPY_COLUMNS, source.billSource);
+            copyIn("egcl_billdetial", BILLDETAIL_COPY_COLUMNS, source.billDetailSource);
+            copyIn("egcl_billaccountdetail", BILLACCOUNTDETAIL_COPY_COLUMNS, source.billAccountDetailSource);
+            incrementPaymentCounts(payments);
 
-    public List<Payment> fetchPayments(PaymentSearchCriteria paymentSearchCriteria) {
-        Map<String, Object> preparedStatementValues = new HashMap<>();
+        }catch (Exception e){
+            log.error("Failed to copy payments to database", e);
+            throw new CustomException("PAYMENT_CREATION_FAILED", e.getMessage());
+        }
+    }
 
-        List<String> ids = fetchPaymentIdsByCriteria(paymentSearchCriteria);
+    /**
+     * Adds the payments to the counts of the tenants and business services of their
+     * paymentDetails, a payment counts once per tenant and business service
+     */
+    private void incrementPaymentCounts(List<Payment> payments) {
+        // sorted so that concurrent saves lock the count rows in the same order
+        Map<Pair<String, String>, Long> counts = new TreeMap<>();
+        for (Payment payment : payments) {
+            payment.getPaymentDetails().stream()
+                    .map(paymentDetail -> Pair.of(paymentDetail.getTenantId(), paymentDetail.getBusinessService()))
+                    .distinct()
+                    .forEach(key -> counts.merge(key, 1L, Long::sum));
+        }
 
-        if(CollectionUtils.isEmpty(ids))
-            return new LinkedList<>();
+        long now = System.currentTimeMillis();
+        List<MapSqlParameterSource> countSource = new ArrayList<>();
+        counts.forEach((key, count) -> countSource.add(new MapSqlParameterSource()
+                .addValue("tenantid", key.getLeft())
+                .addValue("businessservice", key.getRight())
+                .addValue("paymentcount", count)
+                .addValue("lastmodifiedtime", now)));
+        namedParameterJdbcTemplate.batchUpdate(INCREMENT_PAYMENT_COUNT_SQL, countSource.toArray(new MapSqlParameterSource[0]));
+    }
 
-        String query = paymentQueryBuilder.getPaymentSearchQuery(ids, preparedStatementValues);
-        log.info("Query: " + query);
-        log.info("preparedStatementValues: " + preparedStatementValues);
-        List<Payment> payments = namedParameterJdbcTemplate.query(query, preparedStatementValues, paymentRowMapper);
-        if (!CollectionUtils.isEmpty(payments)) {
-            Set<String> billIds = new HashSet<>();
-            for (Payment payment : payments) {
-                billIds.addAll(payment.getPaymentDetails().stream().map(detail -> detail.getBillId()).collect(Collectors.toSet()));
-            }
-            Map<String, Bill> billMap = getBills(billIds);
-            for (Payment payment : payments) {
-                payment.getPaymentDetails().forEach(detail -> {
-                    detail.setBill(billMap.get(detail.getBillId()));
-                });
+    /**
+     * Corrects the payment counts of all tenants and business services by their difference
+     * from the payment details. Runs under an advisory lock, so on one instance at a time,
+     * and is skipped if any instance completed it within the interval
+     *
+     * @param interval minimum time between two reconciles
+     * @return number of counts corrected, null if skipped
+     */
+    @Transactional
+    public Integer reconcilePaymentCounts(long interval) {
+        if (!Boolean.TRUE.equals(namedParameterJdbcTemplate.queryForObject(PAYMENT_COUNT_RECONCILE_LOCK_SQL,
+                new MapSqlParameterSource(), Boolean.class)))
+            return null;
+
+        BackfillCheckpoint checkpoint = getBackfillCheckpoint(PAYMENT_COUNT_RECONCILE_JOB);
+        if (checkpoint != null && System.currentTimeMillis() - checkpoint.getLastModifiedTime() < interval)
+            return null;
+
+        int corrected = namedParameterJdbcTemplate.update(RECONCILE_PAYMENT_COUNT_SQL,
+                new MapSqlParameterSource("lastmodifiedtime", System.currentTimeMillis()));
+        if (checkpoint == null)
+            checkpoint = BackfillCheckpoint.builder().jobName(PAYMENT_COUNT_RECONCILE_JOB).build();
+        checkpoint.setProcessedCount(checkpoint.getProcessedCount() + 1);
+        checkpoint.setUpdatedCount(checkpoint.getUpdatedCount() + corrected);
+        checkpoint.setStatus(BackfillCheckpoint.STATUS_COMPLETED);
+        saveBackfillCheckpoint(checkpoint);
+        return corrected;
+    }
+
+    /**
+     * Copies the current rows of the payments, their paymentDetails, bills and
+     * billDetails to the audit tables, one statement per table
+     *
+     * @param payments Payments to be audited
+     * @param includeBillDetails whether billDetails are copied as well
+     */
+    public void copyPaymentsToAudit(List<Payment> payments, boolean includeBillDetails){
+        List<String> paymentIds = new ArrayList<>();
+        List<String> paymentDetailIds = new ArrayList<>();
+        List<String> billIds = new ArrayList<>();
+        List<String> billDetailIds = new ArrayList<>();
+
+        for (Payment payment : payments) {
+            paymentIds.add(payment.getId());
+            for (PaymentDetail paymentDetail : payment.getPaymentDetails()) {
+                paymentDetailIds.add(paymentDetail.getId());
+                billIds.add(paymentDetail.getBill().getId());
+                if (includeBillDetails)
+                    paymentDetail.getBill().getBillDetails().forEach(billDetail -> billDetailIds.add(billDetail.getId()));
             }
-            payments.sort(reverseOrder(Comparator.comparingLong(Payment::getTransactionDate)));
         }
 
-        return payments;
+        copyToAudit(COPY_PAYMENT_SQL, paymentIds);
+        copyToAudit(COPY_PAYMENTDETAIL_SQL, paymentDetailIds);
+        copyToAudit(COPY_BILL_SQL, billIds);
+        if (includeBillDetails)
+            copyToAudit(COPY_BILLDETAIL_SQL, billDetailIds);
     }
-    
-    public Long getPaymentsCount (String tenantId, String businessService) {
-    	
-    	Map<String, Object> preparedStatementValues = new HashMap<>();
-    	String query = paymentQueryBuilder.getPaymentCountQuery(tenantId, businessService, preparedStatementValues);
-    	return namedParameterJdbcTemplate.queryForObject(query, preparedStatementValues, Long.class);
+
+    private void copyToAudit(String query, List<String> ids) {
+        if (ids.isEmpty())
+            return;
+        // bound as a single text array, the id list is not expanded into one placeholder per id
+        namedParameterJdbcTemplate.update(query, new MapSqlParameterSource("ids", ids.toArray(new String[0])));
     }
 
-    public List<Payment> fetchPaymentsForPlainSearch(PaymentSearchCriteria paymentSearchCriteria) {
-        Map<String, Object> preparedStatementValues = new HashMap<>();
-        String query = paymentQueryBuilder.getPaymentSearchQueryForPlainSearch(paymentSearchCriteria, preparedStatementValues);
-        log.info("Query: " + query);
-        log.info("preparedStatementValues: " + preparedStatementValues);
-        List<Payment> payments = namedParameterJdbcTemplate.query(query, preparedStatementValues, paymentRowMapper);
-        if (!CollectionUtils.isEmpty(payments)) {
-            Set<String> billIds = new HashSet<>();
-            for (Payment payment : payments) {
-                billIds.addAll(payment.getPaymentDetails().stream().map(detail -> detail.getBillId()).collect(Collectors.toSet()));
+    private void copyIn(String table, String[] columns, List<MapSqlParameterSource> rows) {
+        if (rows.isEmpty())
+            return;
+
+        String csv = toCsv(columns, rows);
+        String query = getCopyInQuery(table, columns);
+        namedParameterJdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Long>) connection -> {
+            try {
+                CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+                return copyManager.copyIn(query, new StringReader(csv));
+            } catch (IOException e) {
+                throw new SQLException("Failed to copy rows into " + table, e);
+            }
+        });
+    }
+
+    /**
+     * Writes the given columns of the rows as COPY csv, a line per row
+     *
+     * @param columns Columns in the order of the COPY statement
+     * @param rows Parameters of the rows
+     * @return csv of the rows
+     */
+    static String toCsv(String[] columns, List<MapSqlParameterSource> rows) {
+        StringBuilder csv = new StringBuilder();
+        for (MapSqlParameterSource row : rows) {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0)
+                    csv.append(',');
+                appendCsvValue(csv, row.getValue(columns[i]));
             }
-            Map<String, Bill> billMap = getBills(billIds);
+            csv.append('\n');
+        }
+        return csv.toString();
+    }
+
+    /*
+     * Unquoted empty values are read as null by COPY csv, every other value is quoted
+     */
+    private static void appendCsvValue(StringBuilder csv, Object value) {
+        if (value == null)
+            return;
+
+        String text;
+        if (value instanceof PGobject)
+            text = ((PGobject) value).getValue();
+        else if (value instanceof BigDecimal)
+            text = ((BigDecimal) value).toPlainString();
+        else
+            text = value.toString();
+
+        if (text == null)
+            return;
+        csv.append('"').append(text.replace("\"", "\"\"")).append('"');
+    }
+
+    /**
+     * Insert parameters of the payments and of their paymentDetails, bills, billDetails and billAccountDetails
+     */
+    private static class PaymentGraphSource {
+
+        private final List<MapSqlParameterSource> paymentSource = new ArrayList<>();
+        private final List<MapSqlParameterSource> paymentDetailSource = new ArrayList<>();
+        private final List<MapSqlParameterSource> billSource = new ArrayList<>();
+        private final List<MapSqlParameterSource> billDetailSource = new ArrayList<>();
+        private final List<MapSqlParameterSource> billAccountDetailSource = new ArrayList<>();
+
+        private PaymentGraphSource(List<Payment> payments) {
             for (Payment payment : payments) {
-                payment.getPaymentDetails().forEach(detail -> {
-                    detail.setBill(billMap.get(detail.getBillId()));
-                });
+                paymentSource.add(getParametersForPaymentCreate(payment));
+                for (PaymentDetail paymentDetail : payment.getPaymentDetails()) {
+                    paymentDetailSource.add(getParametersForPaymentDetailCreate(payment.getId(), paymentDetail));
+                    billSource.add(getParamtersForBillCreate(paymentDetail.getBill()));
+                    paymentDetail.getBill().getBillDetails().forEach(billDetail -> {
+                        billDetailSource.add(getParamtersForBillDetailCreate(billDetail));
+                        billDetail.getBillAccountDetails().forEach(billAccountDetail -> {
+                            billAccountDetailSource.add(getParametersForBillAccountDetailCreate(billAccountDetail));
+                        });
+                    });
+                }
             }
-            payments.sort(reverseOrder(Comparator.comparingLong(Payment::getTransactionDate)));
         }
+    }
+
 
+    public List<Payment> fetchPayments(PaymentSearchCriteria paymentSearchCriteria) {
+        List<Payment> payments = new ArrayList<>();
+        streamPayments(paymentSearchCriteria, payments::add);
         return payments;
     }
 
+    /**
+     * Searches payments with their paymentDetails and bills in a single statement and hands
+     * every payment to the consumer as soon as its rows are read, latest transaction first
+     *
+     * @param paymentSearchCriteria The payment search criteria
+     * @param consumer Consumer of the payments
+     * @return Number of payments found
+     */
+    public long streamPayments(PaymentSearchCriteria paymentSearchCriteria, Consumer<Payment> consumer) {
+        Map<String, Object> preparedStatementValues = new HashMap<>();
+        String query = paymentQueryBuilder.getPaymentGraphSearchQuery(paymentSearchCriteria, preparedStatementValues);
+        log.info("Query: " + query);
+        log.info("preparedStatementValues: " + preparedStatementValues);
 
+        PaymentStreamingRowCallbackHandler handler = new PaymentStreamingRowCallbackHandler(paymentRowMapper, billRowMapper, consumer);
+        namedParameterJdbcTemplate.query(query, preparedStatementValues, handler);
+        handler.complete();
+        return handler.getPaymentCount();
+    }
     
-    private Map<String, Bill> getBills(Set<String> ids){
-    	Map<String, Bill> mapOfIdAndBills = new HashMap<>();
+    /**
+     * Checks whether any of the given bills has a payment in one of the given instrument statuses
+     *
+     * @param tenantId TenantId of the payments
+     * @param billIds Ids of the bills
+     * @param instrumentStatuses Instrument statuses to be matched
+     * @return true if such a payment exists
+     */
+    public boolean isPaymentPresentForBills(String tenantId, Set<String> billIds, Set<String> instrumentStatuses) {
         Map<String, Object> preparedStatementValues = new HashMap<>();
-        preparedStatementValues.put("id", ids);
-        String query = paymentQueryBuilder.getBillQuery();
-        List<Bill> bills = namedParameterJdbcTemplate.query(query, preparedStatementValues, billRowMapper);
-        bills.forEach(bill -> {
-        	mapOfIdAndBills.put(bill.getId(), bill);
-        });
-        
-        return mapOfIdAndBills;
-
+        preparedStatementValues.put("tenantId", tenantId);
+        preparedStatementValues.put("billIds", billIds);
+        preparedStatementValues.put("instrumentStatus", instrumentStatuses);
+        return namedParameterJdbcTemplate.queryForObject(BILL_PAYMENT_EXISTS_QUERY, preparedStatementValues, Boolean.class);
+    }
+    
+    /**
+     * Returns the maintained count of payments of the tenant and business service
+     *
+     * @param tenantId TenantId of the paymentDetails
+     * @param businessService Business service of the paymentDetails
+     * @return count of payments, 0 if none were made
+     */
+    public Long getPaymentsCount (String tenantId, String businessService) {
+    	
+    	Map<String, Object> preparedStatementValues = new HashMap<>();
+    	String query = paymentQueryBuilder.getPaymentCountQuery(tenantId, businessService, preparedStatementValues);
+    	List<Long> counts = namedParameterJdbcTemplate.queryForList(query, preparedStatementValues, Long.class);
+    	return counts.isEmpty() ? 0L : counts.get(0);
     }
-
-
 
     public void updateStatus(List<Payment> payments){
         List<MapSqlParameterSource> paymentSource = new ArrayList<>();
@@ -177,9 +378,7 @@ public class PaymentRepository {
                 }
             }
 
-            namedParameterJdbcTemplate.batchUpdate(COPY_PAYMENT_SQL, paymentSource.toArray(new MapSqlParameterSource[0]));
-            namedParameterJdbcTemplate.batchUpdate(COPY_PAYMENTDETAIL_SQL, paymentDetailSource.toArray(new MapSqlParameterSource[0]));
-            namedParameterJdbcTemplate.batchUpdate(COPY_BILL_SQL, billSource.toArray(new MapSqlParameterSource[0]));
+            copyPaymentsToAudit(payments, false);
             namedParameterJdbcTemplate.batchUpdate(STATUS_UPDATE_PAYMENT_SQL, paymentSource.toArray(new MapSqlParameterSource[0]));
             namedParameterJdbcTemplate.batchUpdate(STATUS_UPDATE_PAYMENTDETAIL_SQL, paymentDetailSource.toArray(new MapSqlParameterSource[0]));
             namedParameterJdbcTemplate.batchUpdate(STATUS_UPDATE_BILL_SQL, billSource.toArray(new MapSqlParameterSource[0]));
@@ -215,10 +414,7 @@ public class PaymentRepository {
             namedParameterJdbcTemplate.batchUpdate(UPDATE_PAYMENTDETAIL_SQL, paymentDetailSource.toArray(new MapSqlParameterSource[0]));
             namedParameterJdbcTemplate.batchUpdate(UPDATE_BILL_SQL, billSource.toArray(new MapSqlParameterSource[0]));
             namedParameterJdbcTemplate.batchUpdate(UPDATE_BILLDETAIL_SQL, billDetailSource.toArray(new MapSqlParameterSource[0]));
-            namedParameterJdbcTemplate.batchUpdate(COPY_PAYMENT_SQL, paymentSource.toArray(new MapSqlParameterSource[0]));
-            namedParameterJdbcTemplate.batchUpdate(COPY_PAYMENTDETAIL_SQL, paymentDetailSource.toArray(new MapSqlParameterSource[0]));
-            namedParameterJdbcTemplate.batchUpdate(COPY_BILL_SQL, billSource.toArray(new MapSqlParameterSource[0]));
-            namedParameterJdbcTemplate.batchUpdate(COPY_BILLDETAIL_SQL, billDetailSource.toArray(new MapSqlParameterSource[0]));
+            copyPaymentsToAudit(payments, true);
         }catch (Exception e){
             log.error("Failed to update receipt to database", e);
             throw new CustomException("RECEIPT_UPDATION_FAILED", "Unable to update receipt");
@@ -241,22 +437,24 @@ public class PaymentRepository {
 
     }
 
-    public List<String> fetchPaymentIds(PaymentSearchCriteria paymentSearchCriteria) {
+    /**
+     * Fetches the ids of a page of payments in the order of creation
+     *
+     * @param paymentSearchCriteria criteria with the keyset or offset and the limit of the page
+     * @return ids of the page mapped to their createdTime, in order
+     */
+    public LinkedHashMap<String, Long> fetchPaymentIds(PaymentSearchCriteria paymentSearchCriteria) {
 
         Map<String, Object> preparedStatementValues = new HashMap<>();
-        preparedStatementValues.put("offset", paymentSearchCriteria.getOffset());
-        preparedStatementValues.put("limit", paymentSearchCriteria.getLimit());
-
-        return namedParameterJdbcTemplate.query("SELECT id from egcl_payment ORDER BY createdtime offset " + ":offset " + "limit :limit", preparedStatementValues, new SingleColumnRowMapper<>(String.class));
+        String query = getPaymentIdsQueryForPlainSearch(paymentSearchCriteria, preparedStatementValues);
 
+        LinkedHashMap<String, Long> idToCreatedTime = new LinkedHashMap<>();
+        namedParameterJdbcTemplate.query(query, preparedStatementValues, (RowCallbackHandler) rs -> {
+            idToCreatedTime.put(rs.getString("id"), rs.getLong("createdtime"));
+        });
+        return idToCreatedTime;
     }
 
-    public List<String> fetchPaymentIdsByCriteria(PaymentSearchCriteria paymentSearchCriteria) {
-        Map<String, Object> preparedStatementValues = new HashMap<>();
-        String query = paymentQueryBuilder.getIdQuery(paymentSearchCriteria, preparedStatementValues);
-        return namedParameterJdbcTemplate.query(query, preparedStatementValues, new SingleColumnRowMapper<>(String.class));
-	}
-
 	/**
 	 * API is to get the distinct ifsccode from payment
 	 * 
@@ -269,46 +467,101 @@ public class PaymentRepository {
 
 	}
 
+	/**
+	 * API is to get the distinct ifsccode from payment along with the bank
+	 * details already stored for it
+	 * 
+	 * @return ifsccode to bankdetails, null bankdetails when none are stored
+	 */
+	public Map<String, JsonNode> fetchIfscBankDetails() {
+
+		Map<String, JsonNode> ifscBankDetails = new HashMap<>();
+		namedParameterJdbcTemplate.query(IFSC_BANKDETAIL_QUERY, (RowCallbackHandler) rs -> {
+			String bankDetails = rs.getString("bankdetails");
+			try {
+				ifscBankDetails.put(rs.getString("ifsccode"),
+						bankDetails == null ? null : objectMapper.readTree(bankDetails));
+			} catch (IOException e) {
+				ifscBankDetails.put(rs.getString("ifsccode"), null);
+			}
+		});
+		return ifscBankDetails;
+	}
+
 	/**
 	 * API, All payments with @param ifsccode, additional details updated
-	 * with @param additionaldetails
+	 * with @param additionaldetails in a single statement. Payments already
+	 * carrying the bankdetails are not rewritten
 	 * 
 	 * @param additionaldetails
 	 * @param ifsccode
 	 */
+	public void updatePaymentBankDetail(JsonNode additionaldetails, String ifsccode) {
+		namedParameterJdbcTemplate.update(UPDATE_PAYMENT_BANKDETAIL_SQL,
+				getParametersForBankDetailUpdate(additionaldetails, ifsccode));
+	}
 
+	/**
+	 * Replaces the staged ifsccode to bankdetails rows used by the bulk backfill
+	 * 
+	 * @param bankDetails ifsccode to bankdetails
+	 */
 	@Transactional
-	public void updatePaymentBankDetail(JsonNode additionaldetails, String ifsccode) {
+	public void stageIfscBankDetails(Map<String, JsonNode> bankDetails) {
+		namedParameterJdbcTemplate.getJdbcTemplate().execute(TRUNCATE_IFSC_BANKDETAIL_STAGE_SQL);
+
 		List<MapSqlParameterSource> parameterSource = new ArrayList<>();
-		parameterSource.add(getParametersForBankDetailUpdate(additionaldetails, ifsccode));
-
-		/**
-		 * UPDATE_PAYMENT_BANKDETAIL_SQL query adds the bankdetails data to
-		 * existing object type additionaldetails ex: object type
-		 * additionaldetails data {"isWhatsapp": false }
-		 */
-		namedParameterJdbcTemplate.batchUpdate(UPDATE_PAYMENT_BANKDETAIL_SQL,
+		bankDetails.forEach((ifsccode, details) -> parameterSource.add(getParametersForBankDetailUpdate(details, ifsccode)));
+		namedParameterJdbcTemplate.batchUpdate(INSERT_IFSC_BANKDETAIL_STAGE_SQL,
 				parameterSource.toArray(new MapSqlParameterSource[0]));
+	}
+
+	public BackfillCheckpoint getBackfillCheckpoint(String jobName) {
+		List<BackfillCheckpoint> checkpoints = namedParameterJdbcTemplate.query(BACKFILL_CHECKPOINT_QUERY,
+				Collections.singletonMap("jobName", jobName), (rs, rowNum) -> BackfillCheckpoint.builder()
+						.jobName(rs.getString("jobname"))
+						.lastId(rs.getString("lastid"))
+						.processedCount(rs.getLong("processedcount"))
+						.updatedCount(rs.getLong("updatedcount"))
+						.status(rs.getString("status"))
+						.lastModifiedTime(rs.getLong("lastmodifiedtime"))
+						.build());
+		return checkpoints.isEmpty() ? null : checkpoints.get(0);
+	}
 
-		List<MapSqlParameterSource> emptyAddtlParameterSource = new ArrayList<>();
-		emptyAddtlParameterSource.add(getParametersEmptyDtlBankDetailUpdate(additionaldetails, ifsccode));
-		/**
-		 * UPDATE_PAYMENT_BANKDETAIL_EMPTYADDTL_SQL query update the bankdetails
-		 * to empty/null additionaldetails. ex: empty or 'null'
-		 * additionaldetails data.
-		 */
-		namedParameterJdbcTemplate.batchUpdate(UPDATE_PAYMENT_BANKDETAIL_EMPTYADDTL_SQL,
-				emptyAddtlParameterSource.toArray(new MapSqlParameterSource[0]));
-
-		/**
-		 * UPDATE_PAYMENT_BANKDETAIL_ARRAYADDTL_SQL query adds bankdetails data
-		 * to existing array type additionaldetails. ex: array additional data
-		 * :[{"bankName": "State Bank of India", "branchName": "Chandigarh Main
-		 * Branch"}]
-		 * 
-		 */
-		namedParameterJdbcTemplate.batchUpdate(UPDATE_PAYMENT_BANKDETAIL_ARRAYADDTL_SQL,
-				emptyAddtlParameterSource.toArray(new MapSqlParameterSource[0]));
+	public void saveBackfillCheckpoint(BackfillCheckpoint checkpoint) {
+		checkpoint.setLastModifiedTime(System.currentTimeMillis());
+		namedParameterJdbcTemplate.update(UPSERT_BACKFILL_CHECKPOINT_SQL, getParametersForBackfillCheckpoint(checkpoint));
+	}
 
+	/**
+	 * Applies the staged bankdetails to the next chunk of payments after the
+	 * checkpoint and advances the checkpoint in the same transaction
+	 * 
+	 * @param checkpoint Checkpoint of the backfill, updated in place
+	 * @param chunkSize Maximum number of payments in the chunk
+	 * @return false if no payments are left after the checkpoint
+	 */
+	@Transactional
+	public boolean backfillBankDetailChunk(BackfillCheckpoint checkpoint, int chunkSize) {
+		Map<String, Object> chunkParams = new HashMap<>();
+		chunkParams.put("lastId", checkpoint.getLastId());
+		chunkParams.put("chunkSize", chunkSize);
+		Pair<String, Long> chunk = namedParameterJdbcTemplate.queryForObject(BANKDETAIL_BACKFILL_CHUNK_QUERY, chunkParams,
+				(rs, rowNum) -> Pair.of(rs.getString("upperid"), rs.getLong("chunksize")));
+
+		if (chunk == null || chunk.getLeft() == null)
+			return false;
+
+		Map<String, Object> updateParams = new HashMap<>();
+		updateParams.put("lastId", checkpoint.getLastId());
+		updateParams.put("upperId", chunk.getLeft());
+		int updated = namedParameterJdbcTemplate.update(BULK_UPDATE_PAYMENT_BANKDETAIL_SQL, updateParams);
+
+		checkpoint.setLastId(chunk.getLeft());
+		checkpoint.setProcessedCount(checkpoint.getProcessedCount() + chunk.getRight());
+		checkpoint.setUpdatedCount(checkpoint.getUpdatedCount() + updated);
+		saveBackfillCheckpoint(checkpoint);
+		return true;
 	}
 }
\ No newline at end of file
@@ -12,6 +12,7 @@ import java.util.Objects;
 
 import org.apache.commons.lang3.StringUtils;
 import org.egov.collection.config.ApplicationProperties;
+import org.egov.collection.model.BackfillCheckpoint;
 import org.egov.collection.model.Payment;
 import org.egov.collection.model.PaymentDetail;
 import org.egov.collection.model.PaymentSearchCriteria;
@@ -26,8 +27,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 
 @Service
 public class PaymentQueryBuilder {
@@ -35,35 +34,89 @@ public class PaymentQueryBuilder {
     @Autowired
     private ApplicationProperties config;
 
-    public static final String SELECT_PAYMENT_SQL = "SELECT py.*,pyd.*," +
+    private static final String PAYMENT_SELECT_COLUMNS = "SELECT py.*,pyd.*," +
             "py.id as py_id,py.tenantId as py_tenantId,py.totalAmountPaid as py_totalAmountPaid,py.createdBy as py_createdBy,py.createdtime as py_createdtime," +
             "py.lastModifiedBy as py_lastModifiedBy,py.lastmodifiedtime as py_lastmodifiedtime,py.additionalDetails as py_additionalDetails," +
             "pyd.id as pyd_id, pyd.tenantId as pyd_tenantId, pyd.manualreceiptnumber as manualreceiptnumber,pyd.manualreceiptdate as manualreceiptdate, pyd.createdBy as pyd_createdBy,pyd.createdtime as pyd_createdtime,pyd.lastModifiedBy as pyd_lastModifiedBy," +
-            "pyd.lastmodifiedtime as pyd_lastmodifiedtime,pyd.additionalDetails as pyd_additionalDetails" +
+            "pyd.lastmodifiedtime as pyd_lastmodifiedtime,pyd.additionalDetails as pyd_additionalDetails";
+
+    public static final String SELECT_PAYMENT_SQL = PAYMENT_SELECT_COLUMNS +
             " FROM egcl_payment py  " +
             " INNER JOIN egcl_paymentdetail pyd ON pyd.paymentid = py.id ";
     
-    public static final String SELECT_COUNT_PAYMENT_SQL = "SELECT count(distinct(py.id)) FROM egcl_payment py "
-    		+ "INNER JOIN egcl_paymentdetail pyd ON pyd.paymentid = py.id where pyd.businessservice= :businessservice and pyd.tenantid= :tenantid ";
+    public static final String SELECT_COUNT_PAYMENT_SQL = "SELECT paymentcount FROM egcl_payment_count "
+    		+ "WHERE businessservice= :businessservice AND tenantid= :tenantid ";
 
-    /*public static final String ID_QUERY = "SELECT DISTINCT py.id as id,py.transactiondate as date " +
-            " FROM egcl_payment py  " +
+    /*
+     * Payment counts per tenant and business service, incremented along with the payments saved
+     * and recomputed from the payment details by the reconciliation
+     */
+    public static final String INCREMENT_PAYMENT_COUNT_SQL = "INSERT INTO egcl_payment_count (tenantid, businessservice, paymentcount, lastmodifiedtime) "
+    		+ "VALUES (:tenantid, :businessservice, :paymentcount, :lastmodifiedtime) "
+    		+ "ON CONFLICT (tenantid, businessservice) DO UPDATE SET paymentcount = egcl_payment_count.paymentcount + EXCLUDED.paymentcount, "
+    		+ "lastmodifiedtime = EXCLUDED.lastmodifiedtime";
+
+    /*
+     * The payments and the counts are read in one snapshot and only the difference is added, so
+     * increments committed by payments saved while the statement runs are kept
+     */
+    public static final String RECONCILE_PAYMENT_COUNT_SQL = "WITH actual AS ("
+    		+ "SELECT pyd.tenantid, pyd.businessservice, count(distinct(pyd.paymentid)) AS paymentcount FROM egcl_paymentdetail pyd "
+    		+ "GROUP BY pyd.tenantid, pyd.businessservice), "
+    		+ "delta AS (SELECT COALESCE(actual.tenantid, cnt.tenantid) AS tenantid, COALESCE(actual.businessservice, cnt.businessservice) AS businessservice, "
+    		+ "COALESCE(actual.paymentcount, 0) - COALESCE(cnt.paymentcount, 0) AS paymentcount FROM actual "
+    		+ "FULL OUTER JOIN egcl_payment_count cnt ON cnt.tenantid = actual.tenantid AND cnt.businessservice = actual.businessservice) "
+    		+ "INSERT INTO egcl_payment_count (tenantid, businessservice, paymentcount, lastmodifiedtime) "
+    		+ "SELECT tenantid, businessservice, paymentcount, :lastmodifiedtime FROM delta WHERE paymentcount <> 0 "
+    		+ "ON CONFLICT (tenantid, businessservice) DO UPDATE SET paymentcount = egcl_payment_count.paymentcount + EXCLUDED.paymentcount, "
+    		+ "lastmodifiedtime = EXCLUDED.lastmodifiedtime";
+
+    /*
+     * Held till the end of the transaction, so the reconcile runs on one instance at a time
+     */
+    public static final String PAYMENT_COUNT_RECONCILE_LOCK_SQL = "SELECT pg_try_advisory_xact_lock(hashtext('egcl_payment_count_reconcile'))";
+
+    /*
+     * Searches a page of payments along with their paymentDetails and bills in one statement,
+     * the page is selected on egcl_payment alone and ordered by (transactiondate, id) so the
+     * rows of every payment are contiguous. The billAccountDetails of a billDetail are
+     * aggregated into one json array, so there is a row per billDetail and not per account detail
+     */
+    public static final String PAYMENT_GRAPH_SEARCH_QUERY = "WITH py_page AS (" +
+            "SELECT py_inner.id, py_inner.transactiondate FROM egcl_payment AS py_inner {{WHERE_CLAUSE}} ) " +
+            PAYMENT_SELECT_COLUMNS + ", {{BILL_COLUMNS}} " +
+            " FROM py_page " +
+            " INNER JOIN egcl_payment py ON py.id = py_page.id " +
             " INNER JOIN egcl_paymentdetail pyd ON pyd.paymentid = py.id " +
-            " INNER JOIN egcl_bill bill ON bill.id = pyd.billid " +
-            " INNER JOIN egcl_billdetial bd ON bd.billid = bill.id " ;*/
+            " LEFT OUTER JOIN egcl_bill b ON b.id = pyd.billid " +
+            " LEFT OUTER JOIN egcl_billdetial bd ON b.id = bd.billid AND b.tenantid = bd.tenantid " +
+            " LEFT OUTER JOIN LATERAL (SELECT json_agg(json_build_object('id', ad.id, 'tenantId', ad.tenantid, " +
+            "'billDetailId', ad.billdetailid, 'order', ad.order, 'amount', ad.amount, 'adjustedAmount', ad.adjustedamount, " +
+            "'taxHeadCode', ad.taxheadcode, 'demandDetailId', ad.demanddetailid, 'additionalDetails', ad.additionaldetails) " +
+            "ORDER BY ad.order) AS billaccountdetails FROM egcl_billaccountdetail ad " +
+            "WHERE ad.billdetailid = bd.id AND ad.tenantid = bd.tenantid) ad ON true " +
+            " ORDER BY py_page.transactiondate DESC, py_page.id DESC ";
+
+    private static final String PAYMENT_KEYSET_CLAUSE = " (py_inner.transactiondate, py_inner.id) < (:lastTransactionDate, :lastPaymentId) ";
+
+    private static final String PAYMENT_KEYSET_ORDER_BY_CLAUSE = " ORDER BY py_inner.transactiondate DESC, py_inner.id DESC ";
 
-    public static final String ID_QUERY = "WITH py_filtered as (" +
-            "select id from egcl_payment as py_inner {{WHERE_CLAUSE}} ) " +
-            " SELECT py.id as id FROM py_filtered as py " +
-            " INNER JOIN egcl_paymentdetail as pyd ON pyd.paymentid = py.id and pyd.tenantid {{operator}} :tenantId " +
-            " INNER JOIN egcl_bill bill ON bill.id = pyd.billid " +
-            " INNER JOIN egcl_billdetial bd ON bd.billid = bill.id and bd.tenantid {{operator}} :tenantId; ";
+    /*
+     * Checks if any of the bills has a payment in the given instrument statuses,
+     * served from the (billid, paymentid) index on paymentdetail
+     */
+    public static final String BILL_PAYMENT_EXISTS_QUERY = "SELECT EXISTS (SELECT 1 FROM egcl_paymentdetail pyd " +
+            " INNER JOIN egcl_payment py ON py.id = pyd.paymentid " +
+            " WHERE pyd.billid IN (:billIds) AND py.tenantid = :tenantId AND UPPER(py.instrumentstatus) IN (:instrumentStatus))";
+
+    /*
+     * Ids of all payments in the order of creation, for the plain search
+     */
+    private static final String PLAIN_SEARCH_ID_QUERY = "SELECT id, createdtime FROM egcl_payment ";
+
+    private static final String PLAIN_SEARCH_KEYSET_CLAUSE = " WHERE (createdtime, id) > (:lastCreatedTime, :lastPaymentId) ";
 
-    private static final String PAGINATION_WRAPPER = "SELECT * FROM " +
-            "(SELECT *, DENSE_RANK() OVER (ORDER BY py_id) offset_ FROM " +
-            "({baseQuery})" +
-            " result) result_offset " +
-            "WHERE offset_ > :offset AND offset_ <= :limit";
+    private static final String PLAIN_SEARCH_ORDER_BY_CLAUSE = " ORDER BY createdtime, id OFFSET :offset LIMIT :limit";
 
 
     public static final String INSERT_PAYMENT_SQL = "INSERT INTO egcl_payment(" +
@@ -132,15 +185,39 @@ public class PaymentQueryBuilder {
             "   SET  status= :status, iscancelled= :iscancelled, additionaldetails= :additionaldetails, lastmodifiedby= :lastmodifiedby, lastmodifiedtime=:lastmodifiedtime" +
             "   WHERE id=:id;";
 
-    public static final String COPY_PAYMENT_SQL = "INSERT INTO egcl_payment_audit SELECT * FROM egcl_payment WHERE id = :id;";
+    // Audit copies, each copies the rows of all the given ids in one statement
+
+    public static final String COPY_PAYMENT_SQL = "INSERT INTO egcl_payment_audit SELECT * FROM egcl_payment WHERE id = ANY(:ids);";
 
     public static final String COPY_PAYMENTDETAIL_SQL = "INSERT INTO egcl_paymentdetail_audit SELECT id, tenantid, paymentid, due, amountpaid, receiptnumber, "
     		+ "businessservice, billid, additionaldetails,  createdby, createdtime, lastmodifiedby, lastmodifiedtime, manualreceiptnumber, "
-    		+ "manualreceiptdate, receiptdate, receipttype FROM egcl_paymentdetail WHERE id = :id ;";
+    		+ "manualreceiptdate, receiptdate, receipttype FROM egcl_paymentdetail WHERE id = ANY(:ids);";
+
+    public static final String COPY_BILL_SQL = "INSERT INTO egcl_bill_audit SELECT * FROM egcl_bill WHERE id = ANY(:ids);";
 
-    public static final String COPY_BILL_SQL = "INSERT INTO egcl_bill_audit SELECT * FROM egcl_bill WHERE id = :id;";
+    public static final String COPY_BILLDETAIL_SQL = "INSERT INTO egcl_billdetial_audit SELECT * FROM egcl_billdetial WHERE id = ANY(:ids);";
 
-    public static final String COPY_BILLDETAIL_SQL = "INSERT INTO egcl_billdetial_audit SELECT * FROM egcl_billdetial WHERE id = :id;";
+    // COPY columns of the payment tables, same as the inserts above and named as their parameters
+
+    public static final String[] PAYMENT_COPY_COLUMNS = {"id", "tenantid", "totaldue", "totalamountpaid", "transactionnumber",
+            "transactiondate", "paymentmode", "instrumentdate", "instrumentnumber", "instrumentStatus", "ifsccode", "additionaldetails",
+            "paidby", "mobilenumber", "payername", "payeraddress", "payeremail", "payerid", "paymentstatus", "createdby", "createdtime",
+            "lastmodifiedby", "lastmodifiedtime"};
+
+    public static final String[] PAYMENTDETAIL_COPY_COLUMNS = {"id", "tenantid", "paymentid", "due", "amountpaid", "receiptnumber",
+            "businessservice", "billid", "additionaldetails", "receiptdate", "receipttype", "manualreceiptnumber", "manualreceiptdate",
+            "createdby", "createdtime", "lastmodifiedby", "lastmodifiedtime"};
+
+    public static final String[] BILL_COPY_COLUMNS = {"id", "status", "iscancelled", "additionaldetails", "tenantid",
+            "collectionmodesnotallowed", "partpaymentallowed", "isadvanceallowed", "minimumamounttobepaid", "businessservice",
+            "totalamount", "consumercode", "billnumber", "billdate", "createdby", "createdtime", "lastmodifiedby", "lastmodifiedtime"};
+
+    public static final String[] BILLDETAIL_COPY_COLUMNS = {"id", "tenantid", "demandid", "billid", "amount", "amountpaid",
+            "fromperiod", "toperiod", "additionaldetails", "channel", "voucherheader", "boundary", "collectiontype",
+            "billdescription", "expirydate", "displaymessage", "callbackforapportioning", "cancellationremarks"};
+
+    public static final String[] BILLACCOUNTDETAIL_COPY_COLUMNS = {"id", "tenantid", "billdetailid", "demanddetailid", "order",
+            "amount", "adjustedamount", "isactualdemand", "taxheadcode", "additionaldetails"};
 
     public static final String FILESTOREID_UPDATE_PAYMENT_SQL = "UPDATE egcl_payment SET filestoreid=:filestoreid WHERE id=:id;";
 
@@ -164,25 +241,98 @@ public class PaymentQueryBuilder {
             "createdby=:createdby, createdtime=:createdtime, lastmodifiedby=:lastmodifiedby,lastmodifiedtime=:lastmodifiedtime WHERE id=:id ";
     
     
-	public static final String BILL_BASE_QUERY = "SELECT b.id AS b_id, b.tenantid AS b_tenantid, b.iscancelled AS b_iscancelled, b.businessservice AS b_businessservice, "
+	private static final String BILL_AND_DETAIL_SELECT_COLUMNS = "b.id AS b_id, b.tenantid AS b_tenantid, b.iscancelled AS b_iscancelled, b.businessservice AS b_businessservice, "
 			+ "b.billnumber AS b_billnumber, b.billdate AS b_billdate, b.consumercode AS b_consumercode, b.createdby AS b_createdby, b.status as b_status, b.minimumamounttobepaid AS b_minimumamounttobepaid, "
 			+ "b.totalamount AS b_totalamount, b.partpaymentallowed AS b_partpaymentallowed, b.isadvanceallowed as b_isadvanceallowed, "
 			+ "b.collectionmodesnotallowed AS b_collectionmodesnotallowed, b.createdtime AS b_createdtime, b.lastmodifiedby AS b_lastmodifiedby, "
 			+ "b.lastmodifiedtime AS b_lastmodifiedtime, bd.id AS bd_id, bd.billid AS bd_billid, bd.tenantid AS bd_tenantid, bd.demandid, "
 			+ "bd.fromperiod, bd.toperiod, bd.billdescription AS bd_billdescription, bd.displaymessage AS bd_displaymessage, bd.amount AS bd_amount, bd.amountpaid AS bd_amountpaid, "
-			+ "bd.callbackforapportioning AS bd_callbackforapportioning, bd.expirydate AS bd_expirydate, ad.id AS ad_id, ad.tenantid AS ad_tenantid, "
+			+ "bd.callbackforapportioning AS bd_callbackforapportioning, bd.expirydate AS bd_expirydate, b.additionaldetails as b_additionaldetails,  "
+			+ "bd.additionaldetails as bd_additionaldetails, ";
+
+	private static final String BILL_SELECT_COLUMNS = BILL_AND_DETAIL_SELECT_COLUMNS
+			+ "ad.id AS ad_id, ad.tenantid AS ad_tenantid, "
 			+ "ad.billdetailid AS ad_billdetailid, ad.order AS ad_order, ad.amount AS ad_amount, ad.adjustedamount AS ad_adjustedamount, "
-			+ "ad.taxheadcode AS ad_taxheadcode, ad.demanddetailid as ad_demanddetailid, ad.isactualdemand AS ad_isactualdemand, b.additionaldetails as b_additionaldetails,  "
-			+ "bd.additionaldetails as bd_additionaldetails,  ad.additionaldetails as ad_additionaldetails "
+			+ "ad.taxheadcode AS ad_taxheadcode, ad.demanddetailid as ad_demanddetailid, ad.isactualdemand AS ad_isactualdemand, "
+			+ "ad.additionaldetails as ad_additionaldetails ";
+
+	/*
+	 * Bill columns of the payment graph search, the billAccountDetails coming as one json array per billDetail
+	 */
+	private static final String BILL_GRAPH_SELECT_COLUMNS = BILL_AND_DETAIL_SELECT_COLUMNS
+			+ "ad.billaccountdetails AS ad_billaccountdetails ";
+
+	public static final String BILL_BASE_QUERY = "SELECT " + BILL_SELECT_COLUMNS
 			+ "FROM egcl_bill b LEFT OUTER JOIN egcl_billdetial bd ON b.id = bd.billid AND b.tenantid = bd.tenantid "
 			+ "LEFT OUTER JOIN egcl_billaccountdetail ad ON bd.id = ad.billdetailid AND bd.tenantid = ad.tenantid "
 			+ "WHERE b.id IN (:id);"; 
 
 
-	public static final String UPDATE_PAYMENT_BANKDETAIL_SQL = "UPDATE egcl_payment SET additionaldetails = jsonb_set(additionaldetails, '{bankDetails}', :additionaldetails, true) WHERE length(additionaldetails :: text) is not null and length(additionaldetails :: text) > 4  and jsonb_typeof( additionaldetails ::jsonb ) ='object' and ifsccode=:ifsccode ";
-	public static final String UPDATE_PAYMENT_BANKDETAIL_EMPTYADDTL_SQL = "UPDATE egcl_payment SET additionaldetails = :additionaldetails ::jsonb WHERE (length(additionaldetails :: text) is null or length(additionaldetails :: text) = 4) and ifsccode=:ifsccode ";
-	public static final String UPDATE_PAYMENT_BANKDETAIL_ARRAYADDTL_SQL = "UPDATE egcl_payment SET additionaldetails =  additionaldetails || :additionaldetails ::jsonb WHERE length(additionaldetails :: text) is not null and length(additionaldetails :: text) > 4  and jsonb_typeof(additionaldetails ::jsonb) ='array' and ifsccode=:ifsccode ";
+	public static final String IFSC_BANKDETAIL_QUERY = "SELECT DISTINCT ON (ifsccode) ifsccode, "
+			+ " CASE WHEN jsonb_typeof(additionaldetails) = 'object' THEN additionaldetails -> 'bankDetails' END AS bankdetails "
+			+ " FROM egcl_payment WHERE ifsccode IS NOT NULL "
+			+ " ORDER BY ifsccode, (jsonb_typeof(additionaldetails) = 'object' AND additionaldetails ? 'bankDetails') DESC ";
+	/*
+	 * Adds the bankdetails to the additionaldetails of the payment: as the bankDetails key of
+	 * object additionaldetails, as a new object for empty/null ones and as an appended element of
+	 * array ones. Rows already carrying the bankdetails are left untouched, so re-runs write nothing.
+	 */
+	private static final String BANKDETAIL_SET_CLAUSE = " SET additionaldetails = CASE "
+			+ " WHEN py.additionaldetails IS NULL OR jsonb_typeof(py.additionaldetails) = 'null' "
+			+ "   THEN jsonb_build_object('bankDetails', {{BANKDETAILS}}) "
+			+ " WHEN jsonb_typeof(py.additionaldetails) = 'object' "
+			+ "   THEN jsonb_set(py.additionaldetails, '{bankDetails}', {{BANKDETAILS}}, true) "
+			+ " ELSE py.additionaldetails || jsonb_build_object('bankDetails', {{BANKDETAILS}}) END ";
+
+	private static final String BANKDETAIL_CHANGED_CLAUSE = " AND ( py.additionaldetails IS NULL OR jsonb_typeof(py.additionaldetails) = 'null' "
+			+ " OR (jsonb_typeof(py.additionaldetails) = 'object' AND (py.additionaldetails -> 'bankDetails') IS DISTINCT FROM {{BANKDETAILS}}) "
+			+ " OR (jsonb_typeof(py.additionaldetails) = 'array' AND NOT py.additionaldetails @> jsonb_build_array(jsonb_build_object('bankDetails', {{BANKDETAILS}}))) ) ";
+
+	public static final String UPDATE_PAYMENT_BANKDETAIL_SQL = ("UPDATE egcl_payment py " + BANKDETAIL_SET_CLAUSE
+			+ " WHERE py.ifsccode = :ifsccode " + BANKDETAIL_CHANGED_CLAUSE).replace("{{BANKDETAILS}}", ":additionaldetails");
+
+	public static final String TRUNCATE_IFSC_BANKDETAIL_STAGE_SQL = "TRUNCATE egcl_ifsc_bankdetail_stage";
+
+	public static final String INSERT_IFSC_BANKDETAIL_STAGE_SQL = "INSERT INTO egcl_ifsc_bankdetail_stage (ifsccode, bankdetails) "
+			+ " VALUES (:ifsccode, :additionaldetails) ON CONFLICT (ifsccode) DO UPDATE SET bankdetails = EXCLUDED.bankdetails";
+
+	/*
+	 * Upper bound id and size of the next chunk of payments with an ifsccode
+	 */
+	public static final String BANKDETAIL_BACKFILL_CHUNK_QUERY = "SELECT max(id) AS upperid, count(*) AS chunksize FROM "
+			+ " (SELECT id FROM egcl_payment WHERE ifsccode IS NOT NULL AND id > :lastId ORDER BY id LIMIT :chunkSize) chunk";
+
+	public static final String BULK_UPDATE_PAYMENT_BANKDETAIL_SQL = ("UPDATE egcl_payment py " + BANKDETAIL_SET_CLAUSE
+			+ " FROM egcl_ifsc_bankdetail_stage stage "
+			+ " WHERE py.ifsccode = stage.ifsccode AND py.id > :lastId AND py.id <= :upperId "
+			+ BANKDETAIL_CHANGED_CLAUSE).replace("{{BANKDETAILS}}", "stage.bankdetails");
+
+	public static final String BACKFILL_CHECKPOINT_QUERY = "SELECT jobname, lastid, processedcount, updatedcount, status, lastmodifiedtime "
+			+ " FROM egcl_backfill_checkpoint WHERE jobname = :jobName";
+
+	public static final String UPSERT_BACKFILL_CHECKPOINT_SQL = "INSERT INTO egcl_backfill_checkpoint "
+			+ " (jobname, lastid, processedcount, updatedcount, status, lastmodifiedtime) "
+			+ " VALUES (:jobname, :lastid, :processedcount, :updatedcount, :status, :lastmodifiedtime) "
+			+ " ON CONFLICT (jobname) DO UPDATE SET lastid = EXCLUDED.lastid, processedcount = EXCLUDED.processedcount, "
+			+ " updatedcount = EXCLUDED.updatedcount, status = EXCLUDED.status, lastmodifiedtime = EXCLUDED.lastmodifiedtime";
 	
+	/**
+	 * Builds the COPY statement loading the table from csv rows
+	 *
+	 * @param table Table to be loaded
+	 * @param columns Columns of the rows, in order
+	 * @return COPY statement reading from STDIN
+	 */
+	public static String getCopyInQuery(String table, String[] columns) {
+		StringBuilder query = new StringBuilder("COPY ").append(table).append(" (");
+		for (int i = 0; i < columns.length; i++) {
+			if (i > 0)
+				query.append(", ");
+			query.append('"').append(columns[i].toLowerCase()).append('"');
+		}
+		return query.append(") FROM STDIN WITH (FORMAT csv)").toString();
+	}
+
 	public static String getBillQuery() {
 		return BILL_BASE_QUERY;
 	}
@@ -331,53 +481,73 @@ public class PaymentQueryBuilder {
     }
 
 
-    public String getPaymentSearchQuery(List<String> ids,
-                                               Map<String, Object> preparedStatementValues) {
-        StringBuilder selectQuery = new StringBuilder(SELECT_PAYMENT_SQL);
-        addClauseIfRequired(preparedStatementValues, selectQuery);
-        selectQuery.append(" py.id IN (:id)  ");
-        preparedStatementValues.put("id", ids);
-        return addOrderByClause(selectQuery);
-    }
+    /**
+     * Builds the single statement search of payments with their paymentDetails and bills
+     *
+     * Pages at the payment level, either by offset or after the payment given by
+     * lastTransactionDate and lastPaymentId of the criteria
+     *
+     * @param searchCriteria The payment search criteria
+     * @param preparedStatementValues The named parameters of the query
+     * @return The search query
+     */
+    public String getPaymentGraphSearchQuery(PaymentSearchCriteria searchCriteria, Map<String, Object> preparedStatementValues) {
+        StringBuilder whereClause = new StringBuilder();
+        addWhereClause(whereClause, preparedStatementValues, searchCriteria);
 
+        if (searchCriteria.getLastTransactionDate() != null && searchCriteria.getLastPaymentId() != null) {
+            addClauseIfRequired(preparedStatementValues, whereClause);
+            whereClause.append(PAYMENT_KEYSET_CLAUSE);
+            preparedStatementValues.put("lastTransactionDate", searchCriteria.getLastTransactionDate());
+            preparedStatementValues.put("lastPaymentId", searchCriteria.getLastPaymentId());
+        }
 
-    public static String getPaymentSearchQueryForPlainSearch(PaymentSearchCriteria searchCriteria,
-                                                             Map<String, Object> preparedStatementValues) {
-        StringBuilder selectQuery = new StringBuilder(SELECT_PAYMENT_SQL);
+        whereClause.append(PAYMENT_KEYSET_ORDER_BY_CLAUSE);
+        addPagination(whereClause, preparedStatementValues, searchCriteria);
 
-        addWhereClauseForPlainSearch(selectQuery, preparedStatementValues, searchCriteria);
+        return PAYMENT_GRAPH_SEARCH_QUERY.replace("{{WHERE_CLAUSE}}", whereClause.toString())
+                .replace("{{BILL_COLUMNS}}", BILL_GRAPH_SELECT_COLUMNS);
+    }
 
 
-        return addOrderByClause(selectQuery);
+    /**
+     * Builds the query for the ids of a page of the plain search, after the keyset of the
+     * criteria when present, else at the offset of the criteria
+     *
+     * @param searchCriteria The plain search criteria
+     * @param preparedStatementValues The named parameters of the query
+     * @return The id query
+     */
+    public static String getPaymentIdsQueryForPlainSearch(PaymentSearchCriteria searchCriteria,
+                                                          Map<String, Object> preparedStatementValues) {
+        StringBuilder query = new StringBuilder(PLAIN_SEARCH_ID_QUERY);
+
+        if (searchCriteria.getLastCreatedTime() != null && searchCriteria.getLastPaymentId() != null) {
+            query.append(PLAIN_SEARCH_KEYSET_CLAUSE);
+            preparedStatementValues.put("lastCreatedTime", searchCriteria.getLastCreatedTime());
+            preparedStatementValues.put("lastPaymentId", searchCriteria.getLastPaymentId());
+        }
 
+        query.append(PLAIN_SEARCH_ORDER_BY_CLAUSE);
+        preparedStatementValues.put("offset", searchCriteria.getOffset());
+        preparedStatementValues.put("limit", searchCriteria.getLimit());
+        return query.toString();
     }
 
 
+    public static String getPaymentSearchQueryForPlainSearch(PaymentSearchCriteria searchCriteria,
+                                                             Map<String, Object> preparedStatementValues) {
+        StringBuilder selectQuery = new StringBuilder(SELECT_PAYMENT_SQL);
 
-    public String getIdQuery(PaymentSearchCriteria searchCriteria, Map<String, Object> preparedStatementValues){
-        StringBuilder whereClause = new StringBuilder();
-        addWhereClause(whereClause, preparedStatementValues, searchCriteria);
-        whereClause.append(" ORDER BY py_inner.transactiondate DESC ").toString();
-        addPagination(whereClause,preparedStatementValues,searchCriteria);
-        String query = ID_QUERY.replace("{{WHERE_CLAUSE}}",whereClause.toString());
-        if(searchCriteria.getTenantId().split("\\.").length > 1){
-            query = query.replace("{{operator}}", "=");
-        }
-        else
-            query = query.replace("{{operator}}", "LIKE");
-
-        return query;
-    }
+        addWhereClauseForPlainSearch(selectQuery, preparedStatementValues, searchCriteria);
 
-    private StringBuilder addWrapperQuery(StringBuilder builder){
-        String wrapper = "select id from ( {{PLACEHOLDER}} ) t ORDER BY date DESC";
-        wrapper = wrapper.replace("{{PLACEHOLDER}}", builder.toString());
 
-        return new StringBuilder(wrapper);
+        return addOrderByClause(selectQuery);
 
     }
 
 
+
     private static void addWhereClause(StringBuilder selectQuery, Map<String, Object> preparedStatementValues,
                                        PaymentSearchCriteria searchCriteria) {
 
@@ -825,14 +995,14 @@ public class PaymentQueryBuilder {
 
 	}
 
-	public static MapSqlParameterSource getParametersEmptyDtlBankDetailUpdate(JsonNode additionalDetails,
-			String ifsccode) {
+	public static MapSqlParameterSource getParametersForBackfillCheckpoint(BackfillCheckpoint checkpoint) {
 		MapSqlParameterSource sqlParameterSource = new MapSqlParameterSource();
-		ObjectMapper mapper = new ObjectMapper();
-		ObjectNode objectNode = mapper.createObjectNode();
-		objectNode.set("bankDetails", additionalDetails);
-		sqlParameterSource.addValue("additionaldetails", getJsonb(objectNode));
-		sqlParameterSource.addValue("ifsccode", ifsccode);
+		sqlParameterSource.addValue("jobname", checkpoint.getJobName());
+		sqlParameterSource.addValue("lastid", checkpoint.getLastId());
+		sqlParameterSource.addValue("processedcount", checkpoint.getProcessedCount());
+		sqlParameterSource.addValue("updatedcount", checkpoint.getUpdatedCount());
+		sqlParameterSource.addValue("status", checkpoint.getStatus());
+		sqlParameterSource.addValue("lastmodifiedtime", checkpoint.getLastModifiedTime());
 		return sqlParameterSource;
 
 	}
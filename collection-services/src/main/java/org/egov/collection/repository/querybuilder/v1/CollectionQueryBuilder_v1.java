@@ -225,7 +225,14 @@ public class CollectionQueryBuilder_v1 {
     private static void addPaginationClause(StringBuilder selectQuery, Map<String, Object> preparedStatementValues,
                                               ReceiptSearchCriteria_v1 criteria) {
 
-		if (criteria.getLimit() != null && criteria.getLimit() != 0) {
+		if (criteria.getLimit() != null && criteria.getLimit() != 0 && criteria.getLastId() != null) {
+			addClauseIfRequired(preparedStatementValues, selectQuery);
+			selectQuery.append(
+					" rh.id in (select id from egcl_receiptheader_v1 where tenantid = :keysetTenantId and id > :lastId order by id limit :limit)");
+			preparedStatementValues.put("keysetTenantId", criteria.getTenantId());
+			preparedStatementValues.put("lastId", criteria.getLastId());
+			preparedStatementValues.put("limit", criteria.getLimit());
+		} else if (criteria.getLimit() != null && criteria.getLimit() != 0) {
 			addClauseIfRequired(preparedStatementValues, selectQuery);
 			selectQuery.append(
 					" rh.id in (select id from egcl_receiptheader_v1 where tenantid = :tenantId order by createddate offset :offset limit :limit)");
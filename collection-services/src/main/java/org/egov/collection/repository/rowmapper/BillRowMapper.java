@@ -6,6 +6,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -23,6 +24,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.stereotype.Component;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -45,29 +47,7 @@ public class BillRowMapper implements ResultSetExtractor<List<Bill>> {
 
 			if (bill == null) {
 
-				AuditDetails auditDetails = new AuditDetails();
-				auditDetails.setCreatedBy(rs.getString("b_createdby"));
-				auditDetails.setCreatedTime((Long) rs.getObject("b_createdtime"));
-				auditDetails.setLastModifiedBy(rs.getString("b_lastmodifiedby"));
-				auditDetails.setLastModifiedTime((Long) rs.getObject("b_lastmodifiedtime"));
-
-				bill = Bill.builder().id(billId).totalAmount(BigDecimal.ZERO).tenantId(rs.getString("b_tenantid"))
-						.status(StatusEnum.fromValue(rs.getString("b_status")))
-						.businessService(rs.getString("b_businessService"))
-						.billNumber(rs.getString("b_billnumber"))
-						.billDate(rs.getLong("b_billdate"))
-						.consumerCode(rs.getString("b_consumerCode"))
-						.partPaymentAllowed(rs.getBoolean("b_partpaymentallowed"))
-						.isAdvanceAllowed(rs.getBoolean("b_isadvanceallowed"))
-						.auditDetails(auditDetails).build();
-				
-				if(null != rs.getString("b_collectionmodesnotallowed")) {
-					bill.setCollectionModesNotAllowed(
-							Arrays.asList(rs.getString("b_collectionmodesnotallowed").split(",")));
-				}
-
-				PGobject obj = (PGobject) rs.getObject("b_additionalDetails");
-				bill.setAdditionalDetails(getJsonValue(obj));
+				bill = mapBill(rs);
 
 				billMap.put(bill.getId(), bill);
 				billDetailMap.clear();
@@ -78,14 +58,7 @@ public class BillRowMapper implements ResultSetExtractor<List<Bill>> {
 
 			if (billDetail == null) {
 
-				billDetail = BillDetail.builder().id(detailId).tenantId(rs.getString("bd_tenantid"))
-						.billId(rs.getString("bd_billid")).demandId(rs.getString("demandid"))
-						.fromPeriod(rs.getLong("fromperiod")).toPeriod(rs.getLong("toperiod"))
-						.amount(rs.getBigDecimal("bd_amount")).amountPaid(rs.getBigDecimal("bd_amountpaid"))
-						.expiryDate(rs.getLong("bd_expirydate")).build();
-				
-				PGobject obj = (PGobject) rs.getObject("bd_additionalDetails");
-				billDetail.setAdditionalDetails(getJsonValue(obj));
+				billDetail = mapBillDetail(rs);
 
 				billDetailMap.put(billDetail.getId(), billDetail);
 
@@ -95,14 +68,7 @@ public class BillRowMapper implements ResultSetExtractor<List<Bill>> {
 				}
 			}
 
-			BillAccountDetail billAccDetail = BillAccountDetail.builder().id(rs.getString("ad_id"))
-					.tenantId(rs.getString("ad_tenantid")).billDetailId(rs.getString("ad_billdetailid"))
-					.order(rs.getInt("ad_order")).amount(rs.getBigDecimal("ad_amount"))
-					.adjustedAmount(rs.getBigDecimal("ad_adjustedamount")).taxHeadCode(rs.getString("ad_taxheadcode"))
-					.demandDetailId(rs.getString("ad_demanddetailid")).build();
-			
-			PGobject obj = (PGobject) rs.getObject("ad_additionalDetails");
-			billAccDetail.setAdditionalDetails(getJsonValue(obj));
+			BillAccountDetail billAccDetail = mapBillAccountDetail(rs);
 
 			if (billDetail.getId().equals(billAccDetail.getBillDetailId()))
 				billDetail.addBillAccountDetail(billAccDetail);
@@ -112,6 +78,97 @@ public class BillRowMapper implements ResultSetExtractor<List<Bill>> {
 		return new ArrayList<>(billMap.values());
 	}
 
+	/**
+	 * Maps the bill columns of the current row, prefixed b_
+	 * 
+	 * @param rs ResultSet positioned on a bill row
+	 * @return Bill without billDetails and with zero totalAmount
+	 */
+	public Bill mapBill(ResultSet rs) throws SQLException {
+
+		AuditDetails auditDetails = new AuditDetails();
+		auditDetails.setCreatedBy(rs.getString("b_createdby"));
+		auditDetails.setCreatedTime((Long) rs.getObject("b_createdtime"));
+		auditDetails.setLastModifiedBy(rs.getString("b_lastmodifiedby"));
+		auditDetails.setLastModifiedTime((Long) rs.getObject("b_lastmodifiedtime"));
+
+		Bill bill = Bill.builder().id(rs.getString("b_id")).totalAmount(BigDecimal.ZERO).tenantId(rs.getString("b_tenantid"))
+				.status(StatusEnum.fromValue(rs.getString("b_status")))
+				.businessService(rs.getString("b_businessService"))
+				.billNumber(rs.getString("b_billnumber"))
+				.billDate(rs.getLong("b_billdate"))
+				.consumerCode(rs.getString("b_consumerCode"))
+				.partPaymentAllowed(rs.getBoolean("b_partpaymentallowed"))
+				.isAdvanceAllowed(rs.getBoolean("b_isadvanceallowed"))
+				.auditDetails(auditDetails).build();
+
+		if(null != rs.getString("b_collectionmodesnotallowed")) {
+			bill.setCollectionModesNotAllowed(
+					Arrays.asList(rs.getString("b_collectionmodesnotallowed").split(",")));
+		}
+
+		PGobject obj = (PGobject) rs.getObject("b_additionalDetails");
+		bill.setAdditionalDetails(getJsonValue(obj));
+		return bill;
+	}
+
+	/**
+	 * Maps the billDetail columns of the current row, prefixed bd_
+	 * 
+	 * @param rs ResultSet positioned on a billDetail row
+	 * @return BillDetail without billAccountDetails
+	 */
+	public BillDetail mapBillDetail(ResultSet rs) throws SQLException {
+
+		BillDetail billDetail = BillDetail.builder().id(rs.getString("bd_id")).tenantId(rs.getString("bd_tenantid"))
+				.billId(rs.getString("bd_billid")).demandId(rs.getString("demandid"))
+				.fromPeriod(rs.getLong("fromperiod")).toPeriod(rs.getLong("toperiod"))
+				.amount(rs.getBigDecimal("bd_amount")).amountPaid(rs.getBigDecimal("bd_amountpaid"))
+				.expiryDate(rs.getLong("bd_expirydate")).build();
+
+		PGobject obj = (PGobject) rs.getObject("bd_additionalDetails");
+		billDetail.setAdditionalDetails(getJsonValue(obj));
+		return billDetail;
+	}
+
+	/**
+	 * Maps the billAccountDetail columns of the current row, prefixed ad_
+	 * 
+	 * @param rs ResultSet positioned on a billAccountDetail row
+	 * @return BillAccountDetail
+	 */
+	public BillAccountDetail mapBillAccountDetail(ResultSet rs) throws SQLException {
+
+		BillAccountDetail billAccDetail = BillAccountDetail.builder().id(rs.getString("ad_id"))
+				.tenantId(rs.getString("ad_tenantid")).billDetailId(rs.getString("ad_billdetailid"))
+				.order(rs.getInt("ad_order")).amount(rs.getBigDecimal("ad_amount"))
+				.adjustedAmount(rs.getBigDecimal("ad_adjustedamount")).taxHeadCode(rs.getString("ad_taxheadcode"))
+				.demandDetailId(rs.getString("ad_demanddetailid")).build();
+
+		PGobject obj = (PGobject) rs.getObject("ad_additionalDetails");
+		billAccDetail.setAdditionalDetails(getJsonValue(obj));
+		return billAccDetail;
+	}
+
+	/**
+	 * Maps the billAccountDetails of the current row, aggregated as a json array in ad_billaccountdetails
+	 * 
+	 * @param rs ResultSet positioned on a billDetail row
+	 * @return BillAccountDetails of the billDetail, empty if it has none
+	 */
+	public List<BillAccountDetail> mapBillAccountDetails(ResultSet rs) throws SQLException {
+
+		String billAccountDetails = rs.getString("ad_billaccountdetails");
+		if (Objects.isNull(billAccountDetails))
+			return Collections.emptyList();
+		try {
+			return mapper.readValue(billAccountDetails, new TypeReference<List<BillAccountDetail>>() {});
+		} catch (IOException e) {
+			throw new CustomException("SERVER_ERROR",
+					"Exception occurred while parsing the billAccountDetails json : " + e.getMessage());
+		}
+	}
+
 	private JsonNode getJsonValue(PGobject pGobject) {
 		try {
 			if (Objects.isNull(pGobject) || Objects.isNull(pGobject.getValue()))
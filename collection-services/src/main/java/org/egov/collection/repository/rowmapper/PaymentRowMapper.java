@@ -49,67 +49,7 @@ public class PaymentRowMapper implements ResultSetExtractor<List<Payment>> {
                 currentPayment = idToPaymentMap.get(id);
             else{
 
-                String tenantId = rs.getString("py_tenantId");
-                BigDecimal totalDue = rs.getBigDecimal("totalDue");
-                BigDecimal totalAmountPaid = rs.getBigDecimal("py_totalAmountPaid");
-                String transactionNumber = rs.getString("transactionNumber");
-                Long transactionDate = rs.getLong("transactionDate");
-                String paymentMode = rs.getString("paymentMode");
-
-                Long instrumentDate = rs.getLong("instrumentDate");
-                if(rs.wasNull()){instrumentDate = null;}
-
-                String instrumentNumber = rs.getString("instrumentNumber");
-                String instrumentStatus = rs.getString("instrumentStatus");
-                String ifscCode = rs.getString("ifscCode");
-                String paidBy = rs.getString("paidBy");
-                String mobileNumber = rs.getString("mobileNumber");
-                String payerName = rs.getString("payerName");
-                String payerAddress = rs.getString("payerAddress");
-                String payerEmail = rs.getString("payerEmail");
-                String payerId = rs.getString("payerId");
-                String paymentStatus = rs.getString("paymentStatus");
-                String filesoreId = rs.getString("filestoreid");
-                String createdBy = rs.getString("py_createdBy");
-
-                Long createdDate = rs.getLong("py_createdTime");
-                if(rs.wasNull()){createdDate = null;}
-
-                String lastModifiedBy = rs.getString("py_lastModifiedBy");
-
-                Long lastModifiedTime = rs.getLong("py_lastModifiedTime");
-                if(rs.wasNull()){lastModifiedTime = null;}
-
-
-                AuditDetails auditDetails = AuditDetails.builder().createdBy(createdBy).createdTime(createdDate)
-                        .lastModifiedBy(lastModifiedBy).lastModifiedTime(lastModifiedTime).build();
-
-                currentPayment = Payment.builder()
-                        .id(id)
-                        .tenantId(tenantId)
-                        .totalDue(totalDue)
-                        .totalAmountPaid(totalAmountPaid)
-                        .transactionNumber(transactionNumber)
-                        .transactionDate(transactionDate)
-                        .paymentMode(PaymentModeEnum.fromValue(paymentMode))
-                        .instrumentDate(instrumentDate)
-                        .instrumentNumber(instrumentNumber)
-                        .instrumentStatus(InstrumentStatusEnum.fromValue(instrumentStatus))
-                        .ifscCode(ifscCode)
-                        .paidBy(paidBy)
-                        .mobileNumber(mobileNumber)
-                        .payerName(payerName)
-                        .payerAddress(payerAddress)
-                        .payerEmail(payerEmail)
-                        .payerId(payerId)
-                        .paymentStatus(PaymentStatusEnum.fromValue(paymentStatus))
-                        .fileStoreId(filesoreId)
-                        .auditDetails(auditDetails)
-                        .build();
-
-
-                PGobject obj = (PGobject) rs.getObject("py_additionalDetails");
-                currentPayment.setAdditionalDetails(getJsonValue(obj));
+                currentPayment = mapPayment(rs);
                 idToPaymentMap.put(currentPayment.getId(),currentPayment);
             }
 
@@ -123,6 +63,80 @@ public class PaymentRowMapper implements ResultSetExtractor<List<Payment>> {
 
 
 
+    /**
+     * Maps the payment columns of the current row, prefixed py_
+     *
+     * @param rs ResultSet positioned on a payment row
+     * @return Payment without paymentDetails
+     */
+    public Payment mapPayment(ResultSet rs) throws SQLException {
+
+        String id = rs.getString("py_id");
+        String tenantId = rs.getString("py_tenantId");
+        BigDecimal totalDue = rs.getBigDecimal("totalDue");
+        BigDecimal totalAmountPaid = rs.getBigDecimal("py_totalAmountPaid");
+        String transactionNumber = rs.getString("transactionNumber");
+        Long transactionDate = rs.getLong("transactionDate");
+        String paymentMode = rs.getString("paymentMode");
+
+        Long instrumentDate = rs.getLong("instrumentDate");
+        if(rs.wasNull()){instrumentDate = null;}
+
+        String instrumentNumber = rs.getString("instrumentNumber");
+        String instrumentStatus = rs.getString("instrumentStatus");
+        String ifscCode = rs.getString("ifscCode");
+        String paidBy = rs.getString("paidBy");
+        String mobileNumber = rs.getString("mobileNumber");
+        String payerName = rs.getString("payerName");
+        String payerAddress = rs.getString("payerAddress");
+        String payerEmail = rs.getString("payerEmail");
+        String payerId = rs.getString("payerId");
+        String paymentStatus = rs.getString("paymentStatus");
+        String filesoreId = rs.getString("filestoreid");
+        String createdBy = rs.getString("py_createdBy");
+
+        Long createdDate = rs.getLong("py_createdTime");
+        if(rs.wasNull()){createdDate = null;}
+
+        String lastModifiedBy = rs.getString("py_lastModifiedBy");
+
+        Long lastModifiedTime = rs.getLong("py_lastModifiedTime");
+        if(rs.wasNull()){lastModifiedTime = null;}
+
+
+        AuditDetails auditDetails = AuditDetails.builder().createdBy(createdBy).createdTime(createdDate)
+                .lastModifiedBy(lastModifiedBy).lastModifiedTime(lastModifiedTime).build();
+
+        Payment payment = Payment.builder()
+                .id(id)
+                .tenantId(tenantId)
+                .totalDue(totalDue)
+                .totalAmountPaid(totalAmountPaid)
+                .transactionNumber(transactionNumber)
+                .transactionDate(transactionDate)
+                .paymentMode(PaymentModeEnum.fromValue(paymentMode))
+                .instrumentDate(instrumentDate)
+                .instrumentNumber(instrumentNumber)
+                .instrumentStatus(InstrumentStatusEnum.fromValue(instrumentStatus))
+                .ifscCode(ifscCode)
+                .paidBy(paidBy)
+                .mobileNumber(mobileNumber)
+                .payerName(payerName)
+                .payerAddress(payerAddress)
+                .payerEmail(payerEmail)
+                .payerId(payerId)
+                .paymentStatus(PaymentStatusEnum.fromValue(paymentStatus))
+                .fileStoreId(filesoreId)
+                .auditDetails(auditDetails)
+                .build();
+
+
+        PGobject obj = (PGobject) rs.getObject("py_additionalDetails");
+        payment.setAdditionalDetails(getJsonValue(obj));
+        return payment;
+    }
+
+
     private void addChildrenToPayment(ResultSet rs, Payment payment) throws SQLException{
 
         PaymentDetail paymentDetail = null;
@@ -140,42 +154,7 @@ public class PaymentRowMapper implements ResultSetExtractor<List<Payment>> {
 
         if(paymentDetail == null){
 
-            String id = rs.getString("pyd_id");
-            String tenantId = rs.getString("pyd_tenantId");
-            BigDecimal due  = rs.getBigDecimal("due");
-            BigDecimal amountPaid = rs.getBigDecimal("amountPaid");
-            String receiptNumber = rs.getString("receiptNumber");
-            Long receiptDate = rs.getLong("receiptdate");
-            String receiptType = rs.getString("receipttype");
-            String businessService = rs.getString("businessService");
-            String manualReceiptNo = rs.getString("manualreceiptnumber");
-            Long manualReceiptDate = rs.getLong("manualreceiptdate");
-            String billId = rs.getString("billId");
-            PGobject obj = (PGobject) rs.getObject("pyd_additionalDetails");
-            String createdBy = rs.getString("pyd_createdBy");
-            Long createdTime =  rs.getLong("pyd_createdTime");
-            String lastModifiedBy = rs.getString("pyd_lastModifiedBy");
-            Long lastModifiedTime = rs.getLong("pyd_lastModifiedTime");
-
-            AuditDetails auditDetails = AuditDetails.builder().createdBy(createdBy).createdTime(createdTime)
-                    .lastModifiedBy(lastModifiedBy).lastModifiedTime(lastModifiedTime).build();
-
-            paymentDetail = PaymentDetail.builder()
-                    .id(id)
-                    .tenantId(tenantId)
-                    .totalDue(due)
-                    .totalAmountPaid(amountPaid)
-                    .receiptNumber(receiptNumber)
-                    .businessService(businessService)
-                    .billId(billId)
-                    .receiptDate(receiptDate)
-                    .manualReceiptDate(manualReceiptDate)
-                    .manualReceiptNumber(manualReceiptNo)
-                    .receiptType(receiptType)
-                    .additionalDetails(getJsonValue(obj))
-
-                    .auditDetails(auditDetails)
-                    .build();
+            paymentDetail = mapPaymentDetail(rs);
 
             /*Long billDate = rs.getLong("billdate");
             if(rs.wasNull()){billDate = null;}
@@ -253,6 +232,54 @@ public class PaymentRowMapper implements ResultSetExtractor<List<Payment>> {
     }
 
 
+    /**
+     * Maps the paymentDetail columns of the current row, prefixed pyd_
+     *
+     * @param rs ResultSet positioned on a paymentDetail row
+     * @return PaymentDetail without bill
+     */
+    public PaymentDetail mapPaymentDetail(ResultSet rs) throws SQLException {
+
+        String id = rs.getString("pyd_id");
+        String tenantId = rs.getString("pyd_tenantId");
+        BigDecimal due  = rs.getBigDecimal("due");
+        BigDecimal amountPaid = rs.getBigDecimal("amountPaid");
+        String receiptNumber = rs.getString("receiptNumber");
+        Long receiptDate = rs.getLong("receiptdate");
+        String receiptType = rs.getString("receipttype");
+        String businessService = rs.getString("businessService");
+        String manualReceiptNo = rs.getString("manualreceiptnumber");
+        Long manualReceiptDate = rs.getLong("manualreceiptdate");
+        String billId = rs.getString("billId");
+        PGobject obj = (PGobject) rs.getObject("pyd_additionalDetails");
+        String createdBy = rs.getString("pyd_createdBy");
+        Long createdTime =  rs.getLong("pyd_createdTime");
+        String lastModifiedBy = rs.getString("pyd_lastModifiedBy");
+        Long lastModifiedTime = rs.getLong("pyd_lastModifiedTime");
+
+        AuditDetails auditDetails = AuditDetails.builder().createdBy(createdBy).createdTime(createdTime)
+                .lastModifiedBy(lastModifiedBy).lastModifiedTime(lastModifiedTime).build();
+
+        PaymentDetail paymentDetail = PaymentDetail.builder()
+                .id(id)
+                .tenantId(tenantId)
+                .totalDue(due)
+                .totalAmountPaid(amountPaid)
+                .receiptNumber(receiptNumber)
+                .businessService(businessService)
+                .billId(billId)
+                .receiptDate(receiptDate)
+                .manualReceiptDate(manualReceiptDate)
+                .manualReceiptNumber(manualReceiptNo)
+                .receiptType(receiptType)
+                .additionalDetails(getJsonValue(obj))
+
+                .auditDetails(auditDetails)
+                .build();
+        return paymentDetail;
+    }
+
+
     private JsonNode getJsonValue(PGobject pGobject){
         try {
             if(Objects.isNull(pGobject) || Objects.isNull(pGobject.getValue()))
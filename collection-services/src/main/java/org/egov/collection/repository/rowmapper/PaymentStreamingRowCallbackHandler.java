@@ -0,0 +1,111 @@
+package org.egov.collection.repository.rowmapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.egov.collection.model.Payment;
+import org.egov.collection.model.PaymentDetail;
+import org.egov.collection.web.contract.Bill;
+import org.egov.collection.web.contract.BillAccountDetail;
+import org.egov.collection.web.contract.BillDetail;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * Builds payments with their paymentDetails and bills from the rows of the single statement
+ * payment search and hands each payment to the consumer as soon as it is complete
+ *
+ * Rows are expected to be ordered by payment, the rows of a payment being contiguous, so only
+ * the payment being built is held in memory. complete() has to be called after the query to
+ * emit the last payment.
+ */
+public class PaymentStreamingRowCallbackHandler implements RowCallbackHandler {
+
+    private final PaymentRowMapper paymentRowMapper;
+
+    private final BillRowMapper billRowMapper;
+
+    private final Consumer<Payment> consumer;
+
+    private Payment currentPayment;
+
+    private final Map<String, PaymentDetail> paymentDetailMap = new HashMap<>();
+
+    private final Map<String, Bill> billMap = new HashMap<>();
+
+    private final Map<String, BillDetail> billDetailMap = new HashMap<>();
+
+    private long paymentCount;
+
+    public PaymentStreamingRowCallbackHandler(PaymentRowMapper paymentRowMapper, BillRowMapper billRowMapper,
+                                              Consumer<Payment> consumer) {
+        this.paymentRowMapper = paymentRowMapper;
+        this.billRowMapper = billRowMapper;
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+
+        String paymentId = rs.getString("py_id");
+
+        if (currentPayment == null || !currentPayment.getId().equals(paymentId)) {
+            complete();
+            currentPayment = paymentRowMapper.mapPayment(rs);
+        }
+
+        String paymentDetailId = rs.getString("pyd_id");
+        PaymentDetail paymentDetail = paymentDetailMap.get(paymentDetailId);
+        if (paymentDetail == null) {
+            paymentDetail = paymentRowMapper.mapPaymentDetail(rs);
+            paymentDetailMap.put(paymentDetailId, paymentDetail);
+            currentPayment.addpaymentDetailsItem(paymentDetail);
+        }
+
+        String billId = rs.getString("b_id");
+        if (billId == null)
+            return;
+
+        Bill bill = billMap.get(billId);
+        if (bill == null) {
+            bill = billRowMapper.mapBill(rs);
+            billMap.put(billId, bill);
+        }
+        if (paymentDetail.getBill() == null && billId.equals(paymentDetail.getBillId()))
+            paymentDetail.setBill(bill);
+
+        String billDetailId = rs.getString("bd_id");
+        if (billDetailId == null)
+            return;
+
+        BillDetail billDetail = billDetailMap.get(billDetailId);
+        if (billDetail == null) {
+            billDetail = billRowMapper.mapBillDetail(rs);
+            billDetailMap.put(billDetailId, billDetail);
+            bill.addBillDetail(billDetail);
+            bill.setTotalAmount(bill.getTotalAmount().add(billDetail.getAmount()));
+            for (BillAccountDetail billAccountDetail : billRowMapper.mapBillAccountDetails(rs))
+                billDetail.addBillAccountDetail(billAccountDetail);
+        }
+    }
+
+    /**
+     * Emits the payment being built, to be called once all rows are processed
+     */
+    public void complete() {
+        if (currentPayment != null) {
+            consumer.accept(currentPayment);
+            paymentCount++;
+        }
+        currentPayment = null;
+        paymentDetailMap.clear();
+        billMap.clear();
+        billDetailMap.clear();
+    }
+
+    public long getPaymentCount() {
+        return paymentCount;
+    }
+}
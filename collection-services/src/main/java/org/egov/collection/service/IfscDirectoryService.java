@@ -0,0 +1,261 @@
+package org.egov.collection.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.StringUtils;
+import org.egov.collection.config.ApplicationProperties;
+import org.egov.collection.repository.PaymentRepository;
+import org.egov.collection.repository.ServiceRequestRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Directory of bank branch details keyed by IFSC code
+ *
+ * Lookups are served from memory only. Codes not yet known are fetched from the
+ * IFSC endpoint by the background refresh, which also re-fetches expired entries,
+ * backfills the payments created while the code was unknown and writes the
+ * directory to the local fallback file.
+ */
+@Slf4j
+@Service
+public class IfscDirectoryService {
+
+    private ApplicationProperties applicationProperties;
+
+    private PaymentRepository paymentRepository;
+
+    private ServiceRequestRepository serviceRequestRepository;
+
+    private ObjectMapper mapper;
+
+    /*
+     * Access ordered, the least recently used entry is dropped once the directory is full
+     */
+    private final Map<String, IfscEntry> directory;
+
+    /*
+     * Codes looked up while unknown, to be fetched and backfilled on the next refresh
+     */
+    private final Set<String> pendingCodes = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean seeded = false;
+
+    private volatile boolean modified = false;
+
+
+    @Autowired
+    public IfscDirectoryService(ApplicationProperties applicationProperties, PaymentRepository paymentRepository,
+                                ServiceRequestRepository serviceRequestRepository, ObjectMapper mapper) {
+        this.applicationProperties = applicationProperties;
+        this.paymentRepository = paymentRepository;
+        this.serviceRequestRepository = serviceRequestRepository;
+        this.mapper = mapper;
+
+        int maxSize = applicationProperties.getIfscCacheMaxSize();
+        this.directory = Collections.synchronizedMap(new LinkedHashMap<String, IfscEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IfscEntry> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * Returns the bank details of the IFSC code if known, never calls out to the IFSC endpoint.
+     * Unknown codes are queued for the next refresh
+     *
+     * @param ifscCode IFSC code of the branch
+     * @return bank details, null if the code is not known yet
+     */
+    public JsonNode getBankDetails(String ifscCode) {
+
+        if (StringUtils.isEmpty(ifscCode))
+            return null;
+
+        String code = ifscCode.toUpperCase();
+        IfscEntry entry = directory.get(code);
+        if (entry == null) {
+            pendingCodes.add(code);
+            return null;
+        }
+        return entry.getBankDetails();
+    }
+
+    /**
+     * Loads the directory from the local fallback file, if present
+     */
+    @PostConstruct
+    public void loadFromFile() {
+
+        File file = getFallbackFile();
+        if (file == null || !file.exists())
+            return;
+
+        try {
+            Map<String, IfscEntry> entries = mapper.readValue(file, new TypeReference<Map<String, IfscEntry>>() {});
+            directory.putAll(entries);
+            log.info("Loaded {} ifsc codes from {}", entries.size(), file.getPath());
+        } catch (IOException e) {
+            log.error("Failed to load ifsc directory from {}", file.getPath(), e);
+        }
+    }
+
+    /**
+     * Seeds the directory on the first run, then fetches pending and expired codes,
+     * backfills payments of newly fetched codes and persists the directory
+     */
+    @Scheduled(initialDelayString = "${collection.ifsc.cache.refresh.initial.delay.ms}",
+            fixedDelayString = "${collection.ifsc.cache.refresh.interval.ms}")
+    public void refresh() {
+
+        if (!seeded)
+            seed();
+
+        List<String> codes = new ArrayList<>(pendingCodes);
+        codes.addAll(getExpiredCodes());
+        int batchSize = applicationProperties.getIfscCacheRefreshBatchSize();
+        if (codes.size() > batchSize)
+            codes = codes.subList(0, batchSize);
+
+        for (String code : codes) {
+            boolean wasPending = pendingCodes.remove(code);
+            IfscEntry previous = directory.get(code);
+            JsonNode bankDetails = fetchBankDetails(code);
+
+            if (bankDetails == null) {
+                // keep the last known details when the endpoint is unavailable, unknown
+                // codes are queued again by their next lookup
+                if (previous == null)
+                    continue;
+                bankDetails = previous.getBankDetails();
+            }
+            directory.put(code, new IfscEntry(bankDetails, System.currentTimeMillis()));
+            modified = true;
+
+            if (wasPending && bankDetails != null)
+                paymentRepository.updatePaymentBankDetail(bankDetails, code);
+        }
+
+        persist();
+    }
+
+    @PreDestroy
+    public void persist() {
+
+        File file = getFallbackFile();
+        if (file == null || !modified)
+            return;
+
+        Map<String, IfscEntry> snapshot;
+        synchronized (directory) {
+            snapshot = new HashMap<>(directory);
+        }
+
+        try {
+            Path target = file.toPath();
+            Path parent = target.toAbsolutePath().getParent();
+            if (parent != null)
+                Files.createDirectories(parent);
+            Path temp = Paths.get(target.toString() + ".tmp");
+            mapper.writeValue(temp.toFile(), snapshot);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            modified = false;
+        } catch (IOException e) {
+            log.error("Failed to write ifsc directory to {}", file.getPath(), e);
+        }
+    }
+
+    /**
+     * Seeds the directory with the bank details already stored on payments. Codes
+     * found without stored details are fetched by the refresh
+     */
+    private void seed() {
+
+        try {
+            Map<String, JsonNode> storedDetails = paymentRepository.fetchIfscBankDetails();
+            long now = System.currentTimeMillis();
+            storedDetails.forEach((code, bankDetails) -> {
+                String key = code.toUpperCase();
+                if (directory.containsKey(key))
+                    return;
+                if (bankDetails == null || bankDetails.isNull())
+                    pendingCodes.add(key);
+                else
+                    directory.put(key, new IfscEntry(bankDetails, now));
+            });
+            seeded = true;
+            modified = true;
+            log.info("Seeded ifsc directory with {} codes, {} pending", directory.size(), pendingCodes.size());
+        } catch (Exception e) {
+            log.error("Failed to seed ifsc directory, will retry on next refresh", e);
+        }
+    }
+
+    private List<String> getExpiredCodes() {
+
+        long expiredBefore = System.currentTimeMillis() - applicationProperties.getIfscCacheExpiry();
+        List<String> expired = new ArrayList<>();
+        synchronized (directory) {
+            directory.forEach((code, entry) -> {
+                if (entry.getFetchedTime() < expiredBefore)
+                    expired.add(code);
+            });
+        }
+        return expired;
+    }
+
+    private JsonNode fetchBankDetails(String code) {
+
+        try {
+            String response = serviceRequestRepository.fetchGetResult(applicationProperties.getRazorPayUrl() + code);
+            if (StringUtils.isNotEmpty(response))
+                return mapper.readTree(response);
+        } catch (Exception e) {
+            log.error("Failed to fetch bank details for ifsc code: {}", code, e);
+        }
+        return null;
+    }
+
+    private File getFallbackFile() {
+        String path = applicationProperties.getIfscCacheFile();
+        return StringUtils.isEmpty(path) ? null : new File(path);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class IfscEntry {
+
+        private JsonNode bankDetails;
+
+        private long fetchedTime;
+    }
+
+}
@@ -0,0 +1,134 @@
+package org.egov.collection.service;
+
+import static org.egov.collection.config.CollectionServiceConstants.LOCALIZATION_CODES_JSONPATH;
+import static org.egov.collection.config.CollectionServiceConstants.LOCALIZATION_MSGS_JSONPATH;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.egov.collection.config.ApplicationProperties;
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.tracer.model.CustomException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.jayway.jsonpath.JsonPath;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Localization messages cached per state tenant, locale and module
+ *
+ * A module is loaded as a whole on the first lookup of any of its codes and is
+ * reloaded once expired. If a reload fails, the expired messages are served.
+ */
+@Slf4j
+@Service
+public class LocalizationService {
+
+    private ApplicationProperties applicationProperties;
+
+    private RestTemplate restTemplate;
+
+    private final Map<String, ModuleMessages> moduleMessages = new ConcurrentHashMap<>();
+
+
+    @Autowired
+    public LocalizationService(ApplicationProperties applicationProperties, RestTemplate restTemplate) {
+        this.applicationProperties = applicationProperties;
+        this.restTemplate = restTemplate;
+    }
+
+    /**
+     * Returns the localized message of the code in the locale of the request
+     *
+     * @param requestInfo RequestInfo of the request, the locale is read from its msgId
+     * @param tenantId TenantId, messages are looked up for its state
+     * @param module Localization module
+     * @param code Localization code
+     * @return message, null if the code is not in the module
+     */
+    public String getMessage(RequestInfo requestInfo, String tenantId, String module, String code) {
+        return getMessages(requestInfo, tenantId, module).get(code);
+    }
+
+    /**
+     * Returns all messages of the module in the locale of the request
+     *
+     * @param requestInfo RequestInfo of the request, the locale is read from its msgId
+     * @param tenantId TenantId, messages are looked up for its state
+     * @param module Localization module
+     * @return code to message map of the module
+     */
+    public Map<String, String> getMessages(RequestInfo requestInfo, String tenantId, String module) {
+
+        String stateTenantId = tenantId.split("\\.")[0];
+        String locale = getLocale(requestInfo);
+        String key = stateTenantId + "|" + locale + "|" + module;
+
+        ModuleMessages cached = moduleMessages.get(key);
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.getLoadedTime() < applicationProperties.getLocalizationCacheExpiry())
+            return cached.getMessages();
+
+        Map<String, String> messages = fetchMessages(requestInfo, stateTenantId, locale, module);
+        if (CollectionUtils.isEmpty(messages)) {
+            if (cached != null)
+                return cached.getMessages();
+            throw new CustomException("LOCALIZATION_NOT_FOUND", "Localization not found for the module: " + module);
+        }
+
+        moduleMessages.put(key, new ModuleMessages(messages, now));
+        return messages;
+    }
+
+    private String getLocale(RequestInfo requestInfo) {
+        String locale = "";
+        if (requestInfo.getMsgId() != null && requestInfo.getMsgId().contains("|"))
+            locale = requestInfo.getMsgId().split("[\\|]")[1];
+        if (StringUtils.isEmpty(locale))
+            locale = applicationProperties.getFallBackLocale();
+        return locale;
+    }
+
+    private Map<String, String> fetchMessages(RequestInfo requestInfo, String stateTenantId, String locale, String module) {
+
+        StringBuilder uri = new StringBuilder();
+        uri.append(applicationProperties.getLocalizationHost()).append(applicationProperties.getLocalizationEndpoint());
+        uri.append("?tenantId=").append(stateTenantId).append("&locale=").append(locale).append("&module=").append(module);
+
+        Map<String, Object> request = new HashMap<>();
+        request.put("RequestInfo", requestInfo);
+        try {
+            Object result = restTemplate.postForObject(uri.toString(), request, Map.class);
+            List<String> codes = JsonPath.read(result, LOCALIZATION_CODES_JSONPATH);
+            List<String> messages = JsonPath.read(result, LOCALIZATION_MSGS_JSONPATH);
+
+            Map<String, String> codeToMessage = new HashMap<>();
+            for (int index = 0; index < codes.size(); index++)
+                codeToMessage.put(codes.get(index), messages.get(index));
+            return Collections.unmodifiableMap(codeToMessage);
+        } catch (Exception e) {
+            log.error("Exception while fetching from localization: " + e);
+            return Collections.emptyMap();
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class ModuleMessages {
+
+        private Map<String, String> messages;
+
+        private long loadedTime;
+    }
+
+}
@@ -11,13 +11,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import com.jayway.jsonpath.JsonPath;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.egov.collection.config.CollectionServiceConstants.BILLING_MASTER_CODE;
 import static org.egov.collection.config.CollectionServiceConstants.BILLING_MODULE_NAME;
+import static org.egov.collection.config.CollectionServiceConstants.MASTER_BUSINESSSERVICE_KEY;
+import static org.egov.collection.config.CollectionServiceConstants.MDMS_BUSINESSSERVICE_PATH;
 
 @Service
 public class MDMSService {
@@ -27,6 +36,7 @@ public class MDMSService {
 
     private ServiceRequestRepository serviceRequestRepository;
 
+    private final Map<String, BusinessServiceSnapshot> businessServiceSnapshots = new ConcurrentHashMap<>();
 
     @Autowired
     public MDMSService(ApplicationProperties applicationProperties, ServiceRequestRepository serviceRequestRepository) {
@@ -34,6 +44,30 @@ public class MDMSService {
         this.serviceRequestRepository = serviceRequestRepository;
     }
 
+    /**
+     * Returns the billing business service masters of the tenant by code. The
+     * masters are fetched once per tenant and cached until they expire
+     *
+     * @param requestInfo The RequestInfo of the Payment
+     * @param tenantId The tenantId of the Payment
+     * @return business service code to its master
+     */
+    public Map<String, Map> getBusinessServiceMasters(RequestInfo requestInfo, String tenantId) {
+
+        long now = System.currentTimeMillis();
+        BusinessServiceSnapshot snapshot = businessServiceSnapshots.get(tenantId);
+        if (snapshot != null && now - snapshot.getLoadedTime() < applicationProperties.getMdmsCacheExpiry())
+            return snapshot.getCodeToBusinessService();
+
+        List<Map> businessServices = JsonPath.read(mDMSCall(requestInfo, tenantId), MDMS_BUSINESSSERVICE_PATH);
+        Map<String, Map> codeToBusinessService = new HashMap<>();
+        businessServices.forEach(businessService ->
+                codeToBusinessService.put(businessService.get(MASTER_BUSINESSSERVICE_KEY).toString(), businessService));
+
+        businessServiceSnapshots.put(tenantId, new BusinessServiceSnapshot(Collections.unmodifiableMap(codeToBusinessService), now));
+        return codeToBusinessService;
+    }
+
     public Object mDMSCall(RequestInfo requestInfo, String tenantId){
         MdmsCriteriaReq mdmsCriteriaReq = getMDMSRequest(requestInfo,tenantId);
         StringBuilder url = getMdmsSearchUrl();
@@ -77,5 +111,13 @@ public class MDMSService {
         return new StringBuilder().append(applicationProperties.getMdmsHost()).append(applicationProperties.getMdmsSearchEndpoint());
     }
 
+    @Getter
+    @AllArgsConstructor
+    private static class BusinessServiceSnapshot {
+
+        private Map<String, Map> codeToBusinessService;
+
+        private long loadedTime;
+    }
 
 }
@@ -7,17 +7,27 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.egov.collection.config.ApplicationProperties;
 import org.egov.collection.model.AuditDetails;
+import org.egov.collection.model.BackfillCheckpoint;
+import org.egov.collection.model.MigrationProgress;
 import org.egov.collection.model.Payment;
 import org.egov.collection.model.PaymentDetail;
 import org.egov.collection.model.PaymentResponse;
@@ -33,6 +43,7 @@ import org.egov.collection.model.v1.Bill_v1;
 import org.egov.collection.model.v1.ReceiptSearchCriteria_v1;
 import org.egov.collection.model.v1.Receipt_v1;
 import org.egov.collection.producer.CollectionProducer;
+import org.egov.collection.repository.PaymentRepository;
 import org.egov.collection.repository.ServiceRequestRepository;
 import org.egov.collection.service.v1.CollectionService_v1;
 import org.egov.collection.web.contract.Bill;
@@ -44,10 +55,10 @@ import org.egov.common.contract.request.RequestInfo;
 import org.egov.common.contract.response.ResponseInfo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -69,6 +80,9 @@ public class MigrationService {
 
     @Autowired
     private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
     
     @Autowired
     private ObjectMapper mapper;
@@ -82,38 +96,156 @@ public class MigrationService {
 
     public static final String TENANT_QUERY = "select distinct tenantid from egcl_receiptheader_v1 order by tenantid;";
 
-    public void migrate(RequestInfo requestInfo, Integer offsetFromApi,  Integer batchSize, String tenantId) throws JsonProcessingException {
-    	
-        List<String> tenantIdList =jdbcTemplate.queryForList(TENANT_QUERY,String.class);
-        for(String tenantIdEntry : tenantIdList){
-        
-        	Integer offset = offsetFromApi;
-        	
-			if (tenantId != null && !tenantIdEntry.equalsIgnoreCase(tenantId)) {
-				continue;
-			} else {
-				tenantId = null;
-				offsetFromApi = 0;
-			}
-        	
-                while(true){
-                    long startTime = System.currentTimeMillis();
-                    ReceiptSearchCriteria_v1 criteria_v1 = ReceiptSearchCriteria_v1.builder()
-                            .offset(offset).limit(batchSize).tenantId(tenantIdEntry).build();
-                    List<Receipt_v1> receipts = collectionService.fetchReceipts(criteria_v1);
-                    if(CollectionUtils.isEmpty(receipts))
-                        break;
-                    migrateReceipt(requestInfo, receipts);
-                    
-                    log.info("Total receipts migrated: " + offset + "for tenantId : " + tenantIdEntry);
-                    offset += batchSize;
-                    
-                    long endtime = System.currentTimeMillis();
-                    long elapsetime = endtime - startTime;
-                    System.out.println("\n\nBatch Elapsed Time--->"+elapsetime+"\n\n");
-                }
+    public static final String TENANT_RECEIPT_COUNT_QUERY = "select tenantid, count(*) as receipts from egcl_receiptheader_v1 group by tenantid;";
+
+    private static final String MIGRATION_JOB_PREFIX = "RECEIPT_MIGRATION:";
+
+    private final AtomicBoolean migrationRunning = new AtomicBoolean(false);
+
+    private final AtomicLong receiptsMigrated = new AtomicLong();
+
+    private final AtomicLong receiptsMigratedInRun = new AtomicLong();
+
+    private final AtomicInteger tenantsCompleted = new AtomicInteger();
+
+    private final AtomicInteger tenantsFailed = new AtomicInteger();
+
+    private volatile long receiptsTotal;
+
+    private volatile int tenantsTotal;
+
+    private volatile long migrationStartTime;
+
+    /**
+     * Starts the migration of legacy receipts in the background. Tenants are
+     * migrated in parallel on a bounded worker pool, each one paged in the order
+     * of receipt id and resumed from its checkpoint
+     *
+     * @param requestInfo RequestInfo of the migration request
+     * @param batchSize Receipts per page
+     * @param tenantId Tenant to start from, tenants before it are skipped
+     * @param restart true to migrate completed tenants again
+     * @return false if a migration is already running
+     */
+    public boolean migrate(RequestInfo requestInfo, Integer batchSize, String tenantId, boolean restart) {
+
+        if (!migrationRunning.compareAndSet(false, true))
+            return false;
+
+        try {
+            List<String> allTenantIds = jdbcTemplate.queryForList(TENANT_QUERY, String.class);
+            int startIndex = tenantId == null ? 0 : IntStream.range(0, allTenantIds.size())
+                    .filter(i -> allTenantIds.get(i).equalsIgnoreCase(tenantId))
+                    .findFirst().orElse(allTenantIds.size());
+            List<String> tenantIdList = allTenantIds.subList(startIndex, allTenantIds.size());
+
+            Map<String, Long> receiptCounts = new HashMap<>();
+            jdbcTemplate.query(TENANT_RECEIPT_COUNT_QUERY,
+                    (RowCallbackHandler) rs -> receiptCounts.put(rs.getString("tenantid"), rs.getLong("receipts")));
+
+            receiptsTotal = tenantIdList.stream().mapToLong(tenant -> receiptCounts.getOrDefault(tenant, 0L)).sum();
+            tenantsTotal = tenantIdList.size();
+            receiptsMigrated.set(0);
+            receiptsMigratedInRun.set(0);
+            tenantsCompleted.set(0);
+            tenantsFailed.set(0);
+            migrationStartTime = System.currentTimeMillis();
+
+            int poolSize = Math.max(1, Math.min(properties.getMigrationWorkerPoolSize(), tenantIdList.size()));
+            ExecutorService migrationExecutor = Executors.newFixedThreadPool(poolSize);
+
+            CompletableFuture<?>[] tenantMigrations = tenantIdList.stream()
+                    .map(tenant -> CompletableFuture.runAsync(
+                            () -> migrateTenant(requestInfo, tenant, batchSize, restart), migrationExecutor))
+                    .toArray(CompletableFuture[]::new);
+
+            CompletableFuture.allOf(tenantMigrations).whenComplete((result, e) -> {
+                migrationExecutor.shutdown();
+                migrationRunning.set(false);
+                log.info("Receipt migration finished, progress: {}", getMigrationProgress());
+            });
+        } catch (RuntimeException e) {
+            migrationRunning.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Migrates the receipts of the tenant page by page, checkpointing the last
+     * receipt id of every page. A failed tenant is resumed from its checkpoint
+     * by the next run
+     */
+    private void migrateTenant(RequestInfo requestInfo, String tenantId, Integer batchSize, boolean restart) {
+
+        String jobName = MIGRATION_JOB_PREFIX + tenantId;
+        BackfillCheckpoint checkpoint = paymentRepository.getBackfillCheckpoint(jobName);
+
+        if (checkpoint != null && !restart) {
+            receiptsMigrated.addAndGet(checkpoint.getProcessedCount());
+            if (BackfillCheckpoint.STATUS_COMPLETED.equals(checkpoint.getStatus())) {
+                tenantsCompleted.incrementAndGet();
+                return;
+            }
+        } else {
+            checkpoint = BackfillCheckpoint.builder().jobName(jobName).build();
+        }
+
+        try {
+            checkpoint.setStatus(BackfillCheckpoint.STATUS_IN_PROGRESS);
+            while (true) {
+                long startTime = System.currentTimeMillis();
+                ReceiptSearchCriteria_v1 criteria_v1 = ReceiptSearchCriteria_v1.builder()
+                        .lastId(checkpoint.getLastId()).limit(batchSize).tenantId(tenantId).build();
+                List<Receipt_v1> receipts = collectionService.fetchReceipts(criteria_v1);
+                if (CollectionUtils.isEmpty(receipts))
+                    break;
+                migrateReceipt(requestInfo, receipts);
+
+                String lastId = receipts.stream().map(receipt -> receipt.getBill().get(0).getId())
+                        .max(Comparator.naturalOrder()).get();
+                checkpoint.setLastId(lastId);
+                checkpoint.setProcessedCount(checkpoint.getProcessedCount() + receipts.size());
+                paymentRepository.saveBackfillCheckpoint(checkpoint);
+
+                receiptsMigrated.addAndGet(receipts.size());
+                receiptsMigratedInRun.addAndGet(receipts.size());
+                log.info("Total receipts migrated: {} for tenantId : {}, batch elapsed time : {} ms",
+                        checkpoint.getProcessedCount(), tenantId, System.currentTimeMillis() - startTime);
+            }
+
+            checkpoint.setStatus(BackfillCheckpoint.STATUS_COMPLETED);
+            paymentRepository.saveBackfillCheckpoint(checkpoint);
+            tenantsCompleted.incrementAndGet();
+        } catch (Exception e) {
+            tenantsFailed.incrementAndGet();
+            log.error("Receipt migration failed for tenantId : {} after receipt id '{}'", tenantId, checkpoint.getLastId(), e);
         }
+    }
 
+    /**
+     * Returns the progress of the current or last migration run
+     */
+    public MigrationProgress getMigrationProgress() {
+
+        long migrated = receiptsMigrated.get();
+        long elapsedMillis = Math.max(1, System.currentTimeMillis() - migrationStartTime);
+        double receiptsPerSecond = receiptsMigratedInRun.get() * 1000.0 / elapsedMillis;
+        Long etaSeconds = receiptsPerSecond > 0
+                ? (long) (Math.max(0, receiptsTotal - migrated) / receiptsPerSecond)
+                : null;
+
+        return MigrationProgress.builder()
+                .running(migrationRunning.get())
+                .startTime(migrationStartTime)
+                .tenantsTotal(tenantsTotal)
+                .tenantsCompleted(tenantsCompleted.get())
+                .tenantsFailed(tenantsFailed.get())
+                .receiptsTotal(receiptsTotal)
+                .receiptsMigrated(migrated)
+                .receiptsPerSecond(receiptsPerSecond)
+                .etaSeconds(etaSeconds)
+                .build();
     }
 
     public void migrateReceipt(RequestInfo requestInfo, List<Receipt_v1> receipts){
@@ -1,27 +1,44 @@
 package org.egov.collection.service;
 
 import static java.util.Objects.isNull;
+import static org.egov.collection.util.PaymentStageMetrics.*;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.egov.collection.config.ApplicationProperties;
 import org.egov.collection.model.Payment;
+import org.egov.collection.model.PaymentBulkRequest;
+import org.egov.collection.model.PaymentDetail;
 import org.egov.collection.model.PaymentRequest;
+import org.egov.collection.model.PaymentResponse;
 import org.egov.collection.model.PaymentSearchCriteria;
+import org.egov.collection.model.PlainSearchPage;
 import org.egov.collection.producer.CollectionProducer;
 import org.egov.collection.repository.PaymentRepository;
 import org.egov.collection.util.PaymentEnricher;
+import org.egov.collection.util.PaymentStageMetrics;
 import org.egov.collection.util.PaymentValidator;
+import org.egov.collection.util.Utils;
 import org.egov.collection.web.contract.Bill;
 import org.egov.common.contract.request.RequestInfo;
 import org.egov.tracer.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
+import lombok.extern.slf4j.Slf4j;
 
+
+@Slf4j
 @Service
 public class PaymentService {
 
@@ -39,10 +56,15 @@ public class PaymentService {
 
     private CollectionProducer producer;
 
+    private ExecutorService paymentLookupExecutor;
+
+    private PaymentStageMetrics stageMetrics;
+
 
     @Autowired
     public PaymentService(ApportionerService apportionerService, PaymentEnricher paymentEnricher, ApplicationProperties applicationProperties,
-                          UserService userService, PaymentValidator paymentValidator, PaymentRepository paymentRepository, CollectionProducer producer) {
+                          UserService userService, PaymentValidator paymentValidator, PaymentRepository paymentRepository, CollectionProducer producer,
+                          @Qualifier("paymentLookupExecutor") ExecutorService paymentLookupExecutor, PaymentStageMetrics stageMetrics) {
         this.apportionerService = apportionerService;
         this.paymentEnricher = paymentEnricher;
         this.applicationProperties = applicationProperties;
@@ -50,6 +72,8 @@ public class PaymentService {
         this.paymentValidator = paymentValidator;
         this.paymentRepository = paymentRepository;
         this.producer = producer;
+        this.paymentLookupExecutor = paymentLookupExecutor;
+        this.stageMetrics = stageMetrics;
     }
 
 
@@ -72,6 +96,14 @@ public class PaymentService {
             paymentSearchCriteria.setOffset(0);
             paymentSearchCriteria.setLimit(applicationProperties.getReceiptsSearchDefaultLimit());
         }
+
+        // Continuation token pages by keyset, independent of the depth of the page
+        if (StringUtils.isNotBlank(paymentSearchCriteria.getContinuationToken())) {
+            Pair<Long, String> keyset = Utils.decodeContinuationToken(paymentSearchCriteria.getContinuationToken());
+            paymentSearchCriteria.setLastTransactionDate(keyset.getLeft());
+            paymentSearchCriteria.setLastPaymentId(keyset.getRight());
+            paymentSearchCriteria.setOffset(0);
+        }
         /*if(requestInfo.getUserInfo().getType().equals("CITIZEN")) {
             List<String> payerIds = new ArrayList<>();
             payerIds.add(requestInfo.getUserInfo().getUuid());
@@ -81,12 +113,46 @@ public class PaymentService {
 
         return payments;
     }
+
+    /**
+     * Returns the continuation token for the page after the given page of search results
+     *
+     * @param payments Page of payments returned by getPayments
+     * @param paymentSearchCriteria Criteria of the search
+     * @return Continuation token, null if the page is the last one
+     */
+    public String getNextContinuationToken(List<Payment> payments, PaymentSearchCriteria paymentSearchCriteria) {
+        if (payments.isEmpty() || payments.size() < getPageSize(paymentSearchCriteria))
+            return null;
+
+        Payment lastPayment = payments.get(payments.size() - 1);
+        return Utils.encodeContinuationToken(lastPayment.getTransactionDate(), lastPayment.getId());
+    }
     
     public Long getpaymentcountForBusiness (String tenantId, String businessService) {
     	
     	return paymentRepository.getPaymentsCount(tenantId, businessService);
     }
 
+    /**
+     * Corrects the maintained payment counts against the payments in the database,
+     * covering payments persisted without going through this service. Only one
+     * instance reconciles per interval
+     */
+    @Scheduled(initialDelayString = "${collection.payment.count.reconcile.initial.delay.ms}",
+            fixedDelayString = "${collection.payment.count.reconcile.interval.ms}")
+    public void reconcilePaymentCounts() {
+        try {
+            Integer corrected = paymentRepository.reconcilePaymentCounts(applicationProperties.getPaymentCountReconcileInterval());
+            if (corrected == null)
+                log.info("Payment counts already reconciled by another instance");
+            else
+                log.info("Reconciled payment counts, {} counts corrected", corrected);
+        } catch (Exception e) {
+            log.error("Failed to reconcile payment counts", e);
+        }
+    }
+
 
     
     
@@ -100,27 +166,116 @@ public class PaymentService {
      */
     @Transactional
     public Payment createPayment(PaymentRequest paymentRequest) {
-    	
-        paymentEnricher.enrichPaymentPreValidate(paymentRequest);
-        paymentValidator.validatePaymentForCreate(paymentRequest);
-        paymentEnricher.enrichPaymentPostValidate(paymentRequest);
+
+        long startTime = System.currentTimeMillis();
+        stageMetrics.time(STAGE_ENRICH, () -> paymentEnricher.enrichPaymentPreValidate(paymentRequest));
+        stageMetrics.time(STAGE_VALIDATE, () -> paymentValidator.validatePaymentForCreate(paymentRequest));
+        stageMetrics.time(STAGE_ID_GEN, () -> paymentEnricher.enrichPaymentPostValidate(paymentRequest));
 
         Payment payment = paymentRequest.getPayment();
-        Map<String, Bill> billIdToApportionedBill = apportionerService.apportionBill(paymentRequest);
+
+        Map<String, Bill> billIdToApportionedBill = stageMetrics.time(STAGE_APPORTION,
+                () -> apportionerService.apportionBill(paymentRequest));
         paymentEnricher.enrichAdvanceTaxHead(new LinkedList<>(billIdToApportionedBill.values()));
         setApportionedBillsToPayment(billIdToApportionedBill,payment);
 
-        String payerId = createUser(paymentRequest);
+        // the payer is created only once apportioning has succeeded, a failed apportion leaves no user behind
+        String payerId = stageMetrics.time(STAGE_USER, () -> createUser(paymentRequest));
         if(!StringUtils.isEmpty(payerId))
             payment.setPayerId(payerId);
-        paymentRepository.savePayment(payment);
-
-        producer.producer(applicationProperties.getCreatePaymentTopicName(), paymentRequest);
+        stageMetrics.time(STAGE_SAVE, () -> paymentRepository.savePayment(payment));
+        paymentValidator.evictBillsWithoutPayment(payment.getTenantId(),
+                payment.getPaymentDetails().stream().map(PaymentDetail::getBillId).collect(Collectors.toSet()));
 
+        stageMetrics.time(STAGE_PUBLISH, () -> producer.producer(applicationProperties.getCreatePaymentTopicName(), paymentRequest));
+        stageMetrics.record(STAGE_TOTAL, System.currentTimeMillis() - startTime);
 
         return payment;
     }
 
+    /**
+     * Creates many payments at once, as createPayment. Payments are enriched and
+     * validated concurrently, receipt numbers are generated with one id gen call
+     * per tenant and business service and the bills of each tenant are apportioned
+     * in a single call. The payments are created all or none.
+     *
+     * @param paymentBulkRequest payments to be created
+     * @return Created payments
+     */
+    @Transactional
+    public List<Payment> createPayments(PaymentBulkRequest paymentBulkRequest) {
+
+        long startTime = System.currentTimeMillis();
+        RequestInfo requestInfo = paymentBulkRequest.getRequestInfo();
+        List<Payment> payments = paymentBulkRequest.getPayments();
+
+        if (payments.size() > applicationProperties.getBulkCreateMaxPayments())
+            throw new CustomException("INVALID_BULK_REQUEST",
+                    "Not more than " + applicationProperties.getBulkCreateMaxPayments() + " payments can be created at once");
+
+        Set<String> billIds = new HashSet<>();
+        payments.forEach(payment -> payment.getPaymentDetails().forEach(paymentDetail -> {
+            if (!billIds.add(paymentDetail.getBillId()))
+                throw new CustomException("DUPLICATE_BILLID", "The Bill id " + paymentDetail.getBillId() + " is repeated across payments");
+        }));
+
+        List<PaymentRequest> paymentRequests = payments.stream()
+                .map(payment -> new PaymentRequest(requestInfo, payment)).collect(Collectors.toList());
+
+        List<CompletableFuture<Void>> validations = paymentRequests.stream()
+                .map(paymentRequest -> Utils.supplyAsync(() -> {
+                    stageMetrics.time(STAGE_ENRICH, () -> paymentEnricher.enrichPaymentPreValidate(paymentRequest));
+                    stageMetrics.time(STAGE_VALIDATE, () -> paymentValidator.validatePaymentForCreate(paymentRequest));
+                    return (Void) null;
+                }, paymentLookupExecutor))
+                .collect(Collectors.toList());
+        validations.forEach(validation -> Utils.join(validation, applicationProperties.getPaymentLookupTimeout()));
+
+        stageMetrics.time(STAGE_ID_GEN, () -> paymentEnricher.enrichPaymentsPostValidate(requestInfo, payments));
+
+        Map<String, List<Bill>> billsByTenant = payments.stream()
+                .flatMap(payment -> payment.getPaymentDetails().stream().map(PaymentDetail::getBill))
+                .collect(Collectors.groupingBy(Bill::getTenantId));
+        Map<String, Bill> billIdToApportionedBill = new HashMap<>();
+        stageMetrics.time(STAGE_APPORTION, () -> billsByTenant.forEach((tenantId, bills) ->
+                billIdToApportionedBill.putAll(apportionerService.apportionBills(requestInfo, tenantId, bills))));
+        paymentEnricher.enrichAdvanceTaxHead(new LinkedList<>(billIdToApportionedBill.values()));
+
+        // payers are created only once all bills are apportioned, each payer is looked up (or created) once
+        // and the lookups of different payers run together
+        Map<String, CompletableFuture<String>> payerIdFutures = new HashMap<>();
+        paymentRequests.forEach(paymentRequest -> payerIdFutures.computeIfAbsent(getPayerKey(paymentRequest.getPayment()),
+                payerKey -> Utils.supplyAsync(() -> stageMetrics.time(STAGE_USER, () -> createUser(paymentRequest)),
+                        paymentLookupExecutor)));
+
+        for (PaymentRequest paymentRequest : paymentRequests) {
+            Payment payment = paymentRequest.getPayment();
+            setApportionedBillsToPayment(billIdToApportionedBill, payment);
+
+            String payerId = Utils.join(payerIdFutures.get(getPayerKey(payment)), applicationProperties.getPaymentLookupTimeout());
+            if(!StringUtils.isEmpty(payerId))
+                payment.setPayerId(payerId);
+        }
+
+        stageMetrics.time(STAGE_SAVE, () -> paymentRepository.persistPayments(payments,
+                applicationProperties.getCopyPersistMinPayments()));
+        payments.forEach(payment -> paymentValidator.evictBillsWithoutPayment(payment.getTenantId(),
+                payment.getPaymentDetails().stream().map(PaymentDetail::getBillId).collect(Collectors.toSet())));
+
+        stageMetrics.time(STAGE_PUBLISH, () -> paymentRequests.forEach(paymentRequest ->
+                producer.producer(applicationProperties.getCreatePaymentTopicName(), paymentRequest)));
+        stageMetrics.record(STAGE_TOTAL, System.currentTimeMillis() - startTime);
+
+        return payments;
+    }
+
+    /**
+     * Latency histograms of the stages of payment creation
+     */
+    public Map<String, Map<String, Object>> getCreateStageMetrics() {
+        return stageMetrics.getSnapshot();
+    }
+
 
     /**
      * If Citizen is paying, the id of the logged in user becomes payer id.
@@ -151,6 +306,20 @@ public class PaymentService {
     }
 
 
+    /**
+     * Payments of the same mobile number in a tenant belong to the same payer,
+     * payments without a mobile number are resolved on their own
+     * 
+     * @param payment
+     * @return key identifying the payer of the payment
+     */
+    private String getPayerKey(Payment payment) {
+        if (StringUtils.isEmpty(payment.getMobileNumber()))
+            return payment.getId();
+        return payment.getTenantId() + ":" + payment.getMobileNumber();
+    }
+
+
     private void setApportionedBillsToPayment(Map<String, Bill> billIdToApportionedBill,Payment payment){
         Map<String,String> errorMap = new HashMap<>();
         payment.getPaymentDetails().forEach(paymentDetail -> {
@@ -186,12 +355,20 @@ public class PaymentService {
     @Transactional
     public Payment vaidateProvisonalPayment(PaymentRequest paymentRequest) {
         paymentEnricher.enrichPaymentPreValidate(paymentRequest);
-        paymentValidator.validatePaymentForCreate(paymentRequest);
+        paymentValidator.validateProvisionalPayment(paymentRequest);
         
         return paymentRequest.getPayment();
     }
 
-    public List<Payment> plainSearch(PaymentSearchCriteria paymentSearchCriteria) {
+    /**
+     * Finds the payments of a page of all payments in the order of creation. The ids are
+     * split in slices of at most the max search limit, the payments of a slice are read
+     * with fetchPlainSearchSlice or streamPlainSearchSlice, latest transaction first
+     *
+     * @param paymentSearchCriteria Criteria with the continuation token or offset and the limit
+     * @return Page with the id slices and the token of the next page
+     */
+    public PlainSearchPage getPlainSearchPage(PaymentSearchCriteria paymentSearchCriteria) {
         PaymentSearchCriteria searchCriteria = new PaymentSearchCriteria();
 
         if (applicationProperties.isPaymentsSearchPaginationEnabled()) {
@@ -202,12 +379,62 @@ public class PaymentService {
             searchCriteria.setLimit(applicationProperties.getReceiptsSearchDefaultLimit());
         }
 
-        List<String> ids = paymentRepository.fetchPaymentIds(searchCriteria);
-        if (ids.isEmpty())
-            return Collections.emptyList();
+        if (StringUtils.isNotBlank(paymentSearchCriteria.getContinuationToken())) {
+            Pair<Long, String> keyset = Utils.decodeContinuationToken(paymentSearchCriteria.getContinuationToken());
+            searchCriteria.setLastCreatedTime(keyset.getLeft());
+            searchCriteria.setLastPaymentId(keyset.getRight());
+            searchCriteria.setOffset(0);
+        }
+
+        LinkedHashMap<String, Long> idToCreatedTime = paymentRepository.fetchPaymentIds(searchCriteria);
+        if (idToCreatedTime.isEmpty())
+            return new PlainSearchPage(Collections.emptyList(), null);
+
+        String nextContinuationToken = null;
+        if (idToCreatedTime.size() >= searchCriteria.getLimit()) {
+            Map.Entry<String, Long> last = null;
+            for (Map.Entry<String, Long> entry : idToCreatedTime.entrySet())
+                last = entry;
+            nextContinuationToken = Utils.encodeContinuationToken(last.getValue(), last.getKey());
+        }
+
+        List<String> ids = new ArrayList<>(idToCreatedTime.keySet());
+        List<List<String>> idSlices = new ArrayList<>();
+        int sliceSize = applicationProperties.getMaxSearchLimit();
+        for (int from = 0; from < ids.size(); from += sliceSize)
+            idSlices.add(ids.subList(from, Math.min(from + sliceSize, ids.size())));
+        return new PlainSearchPage(idSlices, nextContinuationToken);
+    }
+
+    /**
+     * Reads the payments of a slice of the plain search page
+     *
+     * @param idSlice Ids of the payments of the slice
+     * @return Payments of the slice
+     */
+    public List<Payment> fetchPlainSearchSlice(List<String> idSlice) {
+        return paymentRepository.fetchPayments(getSliceCriteria(idSlice));
+    }
+
+    /**
+     * Streams the payments of a slice of the plain search page to the consumer, each payment
+     * being handed over as soon as its rows are read
+     *
+     * @param idSlice Ids of the payments of the slice
+     * @param consumer Consumer of the payments of the slice
+     */
+    public void streamPlainSearchSlice(List<String> idSlice, Consumer<Payment> consumer) {
+        paymentRepository.streamPayments(getSliceCriteria(idSlice), consumer);
+    }
+
+    private PaymentSearchCriteria getSliceCriteria(List<String> idSlice) {
+        return PaymentSearchCriteria.builder().ids(new HashSet<String>(idSlice)).offset(0).limit(idSlice.size()).build();
+    }
 
-        PaymentSearchCriteria criteria = PaymentSearchCriteria.builder().ids(new HashSet<String>(ids)).build();
-        return paymentRepository.fetchPaymentsForPlainSearch(criteria);
+    private int getPageSize(PaymentSearchCriteria paymentSearchCriteria) {
+        if (paymentSearchCriteria.getLimit() == null)
+            return applicationProperties.getDefaultLimit();
+        return Math.min(paymentSearchCriteria.getLimit(), applicationProperties.getMaxSearchLimit());
     }
 
 
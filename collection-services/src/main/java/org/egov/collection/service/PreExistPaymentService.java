@@ -1,14 +1,22 @@
 package org.egov.collection.service;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
+
 import org.apache.commons.lang3.StringUtils;
 import org.egov.collection.config.ApplicationProperties;
+import org.egov.collection.model.BackfillCheckpoint;
 import org.egov.collection.repository.PaymentRepository;
 import org.egov.tracer.model.CustomException;
 import org.egov.tracer.model.ServiceCallException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
@@ -34,6 +42,15 @@ public class PreExistPaymentService {
 	@Autowired
 	private RestTemplate restTemplate;
 
+	@Autowired
+	private IfscDirectoryService ifscDirectoryService;
+
+	private static final String BANKDETAIL_BACKFILL_JOB = "PAYMENT_BANKDETAIL_BACKFILL";
+
+	private final ExecutorService backfillExecutor = Executors.newSingleThreadExecutor();
+
+	private final AtomicBoolean backfillRunning = new AtomicBoolean(false);
+
 	/**
 	 * Fetch the Bank details from bank ifsccode
 	 * 
@@ -67,16 +84,81 @@ public class PreExistPaymentService {
 	}
 
 	/**
-	 * From the payment ifsccode get bank details from RazorPay api. Persists
-	 * the bankdetails in payment additional details.
+	 * Starts the bulk backfill of bank details in the background, resuming from
+	 * the last checkpoint unless a restart is asked for
 	 * 
-	 * @param ifsccode
+	 * @param restart true to process all payments again
+	 * @return false if a backfill is already running
 	 */
-	@Transactional
-	public void updatePaymentBankDetails(String ifsccode) {
-		JsonNode bankdetails = populateBankBranch(ifsccode);
-		if (null != bankdetails)
-			paymentRepository.updatePaymentBankDetail(bankdetails, ifsccode);
+	public boolean startBankDetailBackfill(boolean restart) {
+		if (!backfillRunning.compareAndSet(false, true))
+			return false;
+
+		backfillExecutor.submit(() -> {
+			try {
+				backfillBankDetails(restart);
+			} catch (Exception e) {
+				log.error("Bank detail backfill failed, will resume from the last checkpoint", e);
+			} finally {
+				backfillRunning.set(false);
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * Stages the bank details of every ifsccode on payments, then applies them
+	 * to the payments chunk by chunk in the order of id. Every chunk commits
+	 * with its checkpoint, so a stopped backfill resumes after the last chunk.
+	 * Chunks are paused between, to keep the load on the database low.
+	 * 
+	 * @param restart true to process all payments again
+	 */
+	private void backfillBankDetails(boolean restart) {
+		BackfillCheckpoint checkpoint = paymentRepository.getBackfillCheckpoint(BANKDETAIL_BACKFILL_JOB);
+		if (checkpoint == null || restart || BackfillCheckpoint.STATUS_COMPLETED.equals(checkpoint.getStatus()))
+			checkpoint = BackfillCheckpoint.builder().jobName(BANKDETAIL_BACKFILL_JOB).build();
+
+		Map<String, JsonNode> bankDetails = new HashMap<>();
+		for (String ifsccode : paymentRepository.fetchIfsccode()) {
+			JsonNode details = ifscDirectoryService.getBankDetails(ifsccode);
+			if (details == null)
+				details = populateBankBranch(ifsccode);
+			if (details != null)
+				bankDetails.put(ifsccode, details);
+		}
+		paymentRepository.stageIfscBankDetails(bankDetails);
+		log.info("Staged bank details of {} ifsc codes, resuming after payment id '{}'", bankDetails.size(),
+				checkpoint.getLastId());
+
+		checkpoint.setStatus(BackfillCheckpoint.STATUS_IN_PROGRESS);
+		paymentRepository.saveBackfillCheckpoint(checkpoint);
+
+		int chunkSize = applicationProperties.getBankDetailBackfillChunkSize();
+		long pause = applicationProperties.getBankDetailBackfillChunkPause();
+		while (paymentRepository.backfillBankDetailChunk(checkpoint, chunkSize)) {
+			log.info("Bank detail backfill processed {} payments, updated {}", checkpoint.getProcessedCount(),
+					checkpoint.getUpdatedCount());
+			if (pause > 0) {
+				try {
+					Thread.sleep(pause);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					log.info("Bank detail backfill interrupted after payment id '{}'", checkpoint.getLastId());
+					return;
+				}
+			}
+		}
+
+		checkpoint.setStatus(BackfillCheckpoint.STATUS_COMPLETED);
+		paymentRepository.saveBackfillCheckpoint(checkpoint);
+		log.info("Bank detail backfill completed, processed {} payments, updated {}", checkpoint.getProcessedCount(),
+				checkpoint.getUpdatedCount());
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		backfillExecutor.shutdownNow();
 	}
 
 }
\ No newline at end of file
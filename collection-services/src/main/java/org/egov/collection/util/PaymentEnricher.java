@@ -1,11 +1,9 @@
 package org.egov.collection.util;
 
 import static java.util.Objects.isNull;
-import static org.egov.collection.config.CollectionServiceConstants.MASTER_BUSINESSSERVICE_KEY;
 import static org.egov.collection.config.CollectionServiceConstants.MASTER_COLLECTIONMODESNOTALLOWED_KEY;
 import static org.egov.collection.config.CollectionServiceConstants.MASTER_ISADVANCEALLOWED_KEY;
 import static org.egov.collection.config.CollectionServiceConstants.MASTER_PARTPAYMENTALLOWED_KEY;
-import static org.egov.collection.config.CollectionServiceConstants.MDMS_BUSINESSSERVICE_PATH;
 import static org.egov.collection.model.enums.InstrumentTypesEnum.CARD;
 import static org.egov.collection.model.enums.InstrumentTypesEnum.CASH;
 import static org.egov.collection.model.enums.InstrumentTypesEnum.ONLINE;
@@ -13,12 +11,17 @@ import static org.egov.collection.model.enums.PaymentModeEnum.ONLINE_NEFT;
 import static org.egov.collection.model.enums.PaymentModeEnum.ONLINE_RTGS;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 import org.egov.collection.model.AuditDetails;
@@ -33,14 +36,15 @@ import org.egov.collection.repository.BillingServiceRepository;
 import org.egov.collection.repository.IdGenRepository;
 import org.egov.collection.service.MDMSService;
 import org.egov.collection.web.contract.Bill;
+import org.egov.common.contract.request.RequestInfo;
 import org.egov.tracer.model.CustomException;
+import org.egov.collection.config.ApplicationProperties;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
-import com.jayway.jsonpath.JsonPath;
-
 import lombok.extern.slf4j.Slf4j;
 
 @Component
@@ -56,6 +60,13 @@ public class PaymentEnricher {
 	@Autowired
 	private MDMSService mdmsService;
 
+	@Autowired
+	private ApplicationProperties applicationProperties;
+
+	@Autowired
+	@Qualifier("paymentEnrichExecutor")
+	private ExecutorService paymentEnrichExecutor;
+
 	public void enrichPaymentPreValidate(PaymentRequest paymentRequest) {
 
 		Payment payment = paymentRequest.getPayment();
@@ -71,18 +82,14 @@ public class PaymentEnricher {
 		if (billIdSet.size() < payment.getPaymentDetails().size())
 			throw new CustomException("DUPLICATE_BILLID", "The Bill ids have been repeated for multiple payment details");
 
-		Object mdmsData = mdmsService.mDMSCall(paymentRequest.getRequestInfo(),tenantId);
-
-		List<Map> businessServices = JsonPath.read(mdmsData,MDMS_BUSINESSSERVICE_PATH);
-
-		Map<String,Map> codeToBusinessService = new HashMap<>();
+		// master data and bills are independent lookups, fetched concurrently
+		CompletableFuture<Map<String, Map>> mdmsFuture = Utils.supplyAsync(
+				() -> mdmsService.getBusinessServiceMasters(paymentRequest.getRequestInfo(), tenantId), paymentEnrichExecutor);
+		CompletableFuture<List<Bill>> billFuture = Utils.supplyAsync(
+				() -> billingRepository.fetchBill(paymentRequest.getRequestInfo(), payment.getTenantId(), billIds), paymentEnrichExecutor);
 
-		businessServices.forEach(businessService -> {
-			codeToBusinessService.put(businessService.get(MASTER_BUSINESSSERVICE_KEY).toString(),businessService);
-		});
-
-		List<Bill> validatedBills = billingRepository.fetchBill(paymentRequest.getRequestInfo(), payment.getTenantId(),
-				billIds);
+		Map<String,Map> codeToBusinessService = Utils.join(mdmsFuture, applicationProperties.getPaymentLookupTimeout());
+		List<Bill> validatedBills = Utils.join(billFuture, applicationProperties.getPaymentLookupTimeout());
 		Map<String, Bill> billIdToBillMap = new HashMap<>();
 		Map<String, String> errorMap = new HashMap<>();
 
@@ -155,46 +162,76 @@ public class PaymentEnricher {
 	 *            paymentRequest to be enriched
 	 */
 	public void enrichPaymentPostValidate(PaymentRequest paymentRequest) {
-		Payment payment = paymentRequest.getPayment();
-		List<PaymentDetail> paymentDetails = payment.getPaymentDetails();
-		String paymentMode = payment.getPaymentMode().toString();
+		enrichPaymentsPostValidate(paymentRequest.getRequestInfo(), Collections.singletonList(paymentRequest.getPayment()));
+	}
 
-		if (paymentMode.equalsIgnoreCase(ONLINE.name()) || paymentMode.equalsIgnoreCase(CARD.name()) ||
-			paymentMode.equalsIgnoreCase(ONLINE_NEFT.name()) || paymentMode.equalsIgnoreCase(ONLINE_RTGS.name()))
-			payment.setPaymentStatus(PaymentStatusEnum.DEPOSITED);
-		else
-			payment.setPaymentStatus(PaymentStatusEnum.NEW);
+	/**
+	 * Enriches the payments as enrichPaymentPostValidate, receipt and transaction
+	 * numbers of all payments are generated with one id gen call per tenant and
+	 * business service
+	 *
+	 * @param requestInfo
+	 *            RequestInfo of the payments
+	 * @param payments
+	 *            payments to be enriched
+	 */
+	public void enrichPaymentsPostValidate(RequestInfo requestInfo, List<Payment> payments) {
 
-		for (PaymentDetail paymentDetail : paymentDetails) {
-			paymentDetail.setId(UUID.randomUUID().toString());
-			String receiptNumber = idGenRepository.generateReceiptNumber(paymentRequest.getRequestInfo(),
-					paymentDetail.getBusinessService(), paymentDetail.getTenantId());
-			paymentDetail.setReceiptNumber(receiptNumber);
-			paymentDetail.getBill().setAmountPaid(paymentDetail.getTotalAmountPaid());
+		Map<String, List<PaymentDetail>> detailsByTenantAndService = new LinkedHashMap<>();
+		for (Payment payment : payments) {
+			String paymentMode = payment.getPaymentMode().toString();
 
+			if (paymentMode.equalsIgnoreCase(ONLINE.name()) || paymentMode.equalsIgnoreCase(CARD.name()) ||
+				paymentMode.equalsIgnoreCase(ONLINE_NEFT.name()) || paymentMode.equalsIgnoreCase(ONLINE_RTGS.name()))
+				payment.setPaymentStatus(PaymentStatusEnum.DEPOSITED);
+			else
+				payment.setPaymentStatus(PaymentStatusEnum.NEW);
+
+			for (PaymentDetail paymentDetail : payment.getPaymentDetails()) {
+				paymentDetail.setId(UUID.randomUUID().toString());
+				paymentDetail.getBill().setAmountPaid(paymentDetail.getTotalAmountPaid());
+				detailsByTenantAndService.computeIfAbsent(paymentDetail.getTenantId() + "|" + paymentDetail.getBusinessService(),
+						key -> new ArrayList<>()).add(paymentDetail);
+			}
 		}
-		enrichInstrument(paymentRequest);
+
+		detailsByTenantAndService.values().forEach(paymentDetails -> {
+			PaymentDetail first = paymentDetails.get(0);
+			List<String> receiptNumbers = idGenRepository.generateReceiptNumbers(requestInfo,
+					first.getBusinessService(), first.getTenantId(), paymentDetails.size());
+			for (int i = 0; i < paymentDetails.size(); i++)
+				paymentDetails.get(i).setReceiptNumber(receiptNumbers.get(i));
+		});
+
+		enrichInstruments(requestInfo, payments);
 	}
 
-	private void enrichInstrument(PaymentRequest paymentRequest) {
-		Payment payment = paymentRequest.getPayment();
-		String paymentMode = payment.getPaymentMode().toString();
+	private void enrichInstruments(RequestInfo requestInfo, List<Payment> payments) {
 
-		if (paymentMode.equalsIgnoreCase(CASH.name())) {
-			String transactionId = idGenRepository.generateTransactionNumber(paymentRequest.getRequestInfo(),
-					payment.getTenantId());
-			payment.setTransactionNumber(transactionId);
-		}
-		if (paymentMode.equalsIgnoreCase(ONLINE.name()) || paymentMode.equalsIgnoreCase(CARD.name()) ||
-				paymentMode.equalsIgnoreCase(ONLINE_NEFT.name()) || paymentMode.equalsIgnoreCase(ONLINE_RTGS.name()))
-			payment.setInstrumentStatus(InstrumentStatusEnum.REMITTED);
-		else
-			payment.setInstrumentStatus(InstrumentStatusEnum.APPROVED);
+		Map<String, List<Payment>> cashPaymentsByTenant = payments.stream()
+				.filter(payment -> payment.getPaymentMode().toString().equalsIgnoreCase(CASH.name()))
+				.collect(Collectors.groupingBy(Payment::getTenantId, LinkedHashMap::new, Collectors.toList()));
+
+		cashPaymentsByTenant.forEach((tenantId, cashPayments) -> {
+			List<String> transactionIds = idGenRepository.generateTransactionNumbers(requestInfo, tenantId, cashPayments.size());
+			for (int i = 0; i < cashPayments.size(); i++)
+				cashPayments.get(i).setTransactionNumber(transactionIds.get(i));
+		});
+
+		for (Payment payment : payments) {
+			String paymentMode = payment.getPaymentMode().toString();
+
+			if (paymentMode.equalsIgnoreCase(ONLINE.name()) || paymentMode.equalsIgnoreCase(CARD.name()) ||
+					paymentMode.equalsIgnoreCase(ONLINE_NEFT.name()) || paymentMode.equalsIgnoreCase(ONLINE_RTGS.name()))
+				payment.setInstrumentStatus(InstrumentStatusEnum.REMITTED);
+			else
+				payment.setInstrumentStatus(InstrumentStatusEnum.APPROVED);
 
-		payment.setTransactionDate(new Date().getTime());
-		if(paymentMode.equalsIgnoreCase(CASH.name()) || paymentMode.equalsIgnoreCase(CARD.name()) || paymentMode.equalsIgnoreCase(ONLINE.name())
-				|| paymentMode.equalsIgnoreCase(ONLINE_NEFT.name()) || paymentMode.equalsIgnoreCase(ONLINE_RTGS.name())) {
-			payment.setInstrumentDate(payment.getTransactionDate());
+			payment.setTransactionDate(new Date().getTime());
+			if(paymentMode.equalsIgnoreCase(CASH.name()) || paymentMode.equalsIgnoreCase(CARD.name()) || paymentMode.equalsIgnoreCase(ONLINE.name())
+					|| paymentMode.equalsIgnoreCase(ONLINE_NEFT.name()) || paymentMode.equalsIgnoreCase(ONLINE_RTGS.name())) {
+				payment.setInstrumentDate(payment.getTransactionDate());
+			}
 		}
 
 	}
@@ -0,0 +1,111 @@
+package org.egov.collection.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Latency histograms of the stages of payment creation, kept in memory since the start of the instance
+ */
+@Component
+public class PaymentStageMetrics {
+
+    public static final String STAGE_ENRICH = "enrich";
+
+    public static final String STAGE_VALIDATE = "validate";
+
+    public static final String STAGE_ID_GEN = "idGen";
+
+    public static final String STAGE_APPORTION = "apportion";
+
+    public static final String STAGE_USER = "user";
+
+    public static final String STAGE_SAVE = "save";
+
+    public static final String STAGE_PUBLISH = "publish";
+
+    public static final String STAGE_TOTAL = "total";
+
+    /*
+     * Upper bounds of the buckets in milliseconds, the last bucket is unbounded
+     */
+    private static final long[] BUCKET_BOUNDS = { 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000 };
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public <T> T time(String stage, Supplier<T> supplier) {
+        long startTime = System.currentTimeMillis();
+        try {
+            return supplier.get();
+        } finally {
+            record(stage, System.currentTimeMillis() - startTime);
+        }
+    }
+
+    public void time(String stage, Runnable runnable) {
+        time(stage, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    public void record(String stage, long millis) {
+        histograms.computeIfAbsent(stage, key -> new Histogram()).record(millis);
+    }
+
+    /**
+     * Returns count, sum, max and bucket counts of every stage
+     */
+    public Map<String, Map<String, Object>> getSnapshot() {
+        Map<String, Map<String, Object>> snapshot = new TreeMap<>();
+        histograms.forEach((stage, histogram) -> snapshot.put(stage, histogram.snapshot()));
+        return snapshot;
+    }
+
+    private static class Histogram {
+
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS.length + 1];
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder sum = new LongAdder();
+
+        private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++)
+                buckets[i] = new LongAdder();
+        }
+
+        void record(long millis) {
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS.length && millis > BUCKET_BOUNDS[bucket])
+                bucket++;
+            buckets[bucket].increment();
+            count.increment();
+            sum.add(millis);
+            max.accumulate(millis);
+        }
+
+        Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("count", count.sum());
+            snapshot.put("sumMs", sum.sum());
+            snapshot.put("maxMs", max.get());
+
+            Map<String, Long> bucketCounts = new LinkedHashMap<>();
+            for (int i = 0; i < BUCKET_BOUNDS.length; i++)
+                bucketCounts.put("le" + BUCKET_BOUNDS[i] + "ms", buckets[i].sum());
+            bucketCounts.put("gt" + BUCKET_BOUNDS[BUCKET_BOUNDS.length - 1] + "ms", buckets[BUCKET_BOUNDS.length].sum());
+            snapshot.put("buckets", bucketCounts);
+            return snapshot;
+        }
+    }
+
+}
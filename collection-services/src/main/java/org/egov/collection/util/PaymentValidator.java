@@ -24,6 +24,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -40,7 +41,7 @@ import org.egov.collection.model.enums.InstrumentTypesEnum;
 import org.egov.collection.model.enums.PaymentModeEnum;
 import org.egov.collection.model.enums.PaymentStatusEnum;
 import org.egov.collection.repository.PaymentRepository;
-import org.egov.collection.repository.ServiceRequestRepository;
+import org.egov.collection.service.IfscDirectoryService;
 import org.egov.collection.service.PaymentWorkflowService;
 import org.egov.collection.web.contract.Bill;
 import org.egov.collection.web.contract.BillDetail;
@@ -50,9 +51,10 @@ import org.joda.time.DateTime;
 import org.joda.time.Days;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.CollectionUtils;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -70,34 +72,57 @@ public class PaymentValidator {
 
     private ApplicationProperties applicationProperties;
     
-    private ServiceRequestRepository serviceRequestRepository;
+    private IfscDirectoryService ifscDirectoryService;
+
+    private ObjectMapper mapper;
+
+    private static final Set<String> BLOCKING_INSTRUMENT_STATUSES = Stream.of(APPROVED, APPROVAL_PENDING, REMITTED)
+            .map(status -> status.toString().toUpperCase())
+            .collect(Collectors.toSet());
+
+    /*
+     * tenantId:billId of bills recently found without a payment, to the expiry time of the entry,
+     * read only when validating provisional payments
+     */
+    private final Map<String, Long> billsWithoutPayment = new ConcurrentHashMap<>();
 
 
     @Autowired
     public PaymentValidator(PaymentRepository paymentRepository, PaymentWorkflowService paymentWorkflowService,
-                            ApplicationProperties applicationProperties,ServiceRequestRepository serviceRequestRepository) {
+                            ApplicationProperties applicationProperties, IfscDirectoryService ifscDirectoryService,
+                            ObjectMapper mapper) {
         this.paymentRepository = paymentRepository;
         this.paymentWorkflowService = paymentWorkflowService;
         this.applicationProperties = applicationProperties;
-        this.serviceRequestRepository=serviceRequestRepository;
+        this.ifscDirectoryService = ifscDirectoryService;
+        this.mapper = mapper;
     }
 
 
     public Payment validatePaymentForCreate(PaymentRequest paymentRequest) {
+        return validatePayment(paymentRequest, false);
+    }
+
+    /**
+     * Validates a payment which is not created yet, as validatePaymentForCreate but
+     * bills recently found without a payment are not probed again
+     *
+     * @param paymentRequest payment to be validated
+     * @return the validated payment
+     */
+    public Payment validateProvisionalPayment(PaymentRequest paymentRequest) {
+        return validatePayment(paymentRequest, true);
+    }
+
+    private Payment validatePayment(PaymentRequest paymentRequest, boolean useBillCache) {
         Map<String, String> errorMap = new HashMap<>();
         Payment payment = paymentRequest.getPayment();
         List<PaymentDetail> paymentDetails = paymentRequest.getPayment().getPaymentDetails();
         validateUserInfo(paymentRequest.getRequestInfo(), errorMap);
         validateInstrument(paymentRequest.getPayment(),errorMap);
         Set<String> billIds = payment.getPaymentDetails().stream().map(PaymentDetail :: getBillId).collect(Collectors.toSet());
-        
-        PaymentSearchCriteria criteria = PaymentSearchCriteria.builder().tenantId(payment.getTenantId())
-                .offset(0).limit(applicationProperties.getReceiptsSearchDefaultLimit()).billIds(billIds).build();
 
-        List<Payment> payments = paymentRepository.fetchPayments(criteria);
-        if (!payments.isEmpty()) {
-            validateIPaymentForBillPresent(payments,errorMap);
-        }
+        validateIfPaymentForBillPresent(payment.getTenantId(), billIds, useBillCache, errorMap);
 
         validateIFSCCode(paymentRequest);
         // Loop through all bill details [one for each service], and perform various
@@ -137,24 +162,71 @@ public class PaymentValidator {
     /**
      * Validations if no transaction exists for this bill No existing receipt should
      * be in approved or pending status
-     * <p>
-     * If not, proceed with validateIfReceiptForBillAbsent validations *
      *
-     *  @param payments   List of payment Details
-     * @param errorMap   Map of errors occurred during validations
+     * Bills found without such a payment are remembered for a short while, so repeated
+     * provisional validations do not probe the database each time. The cache is local
+     * to the instance and may miss a payment created elsewhere, so it is never read
+     * while creating a payment, the probe always runs there.
+     *
+     * @param tenantId TenantId of the payment
+     * @param billIds Ids of the bills being paid
+     * @param useBillCache whether bills recently found without a payment can skip the probe
+     * @param errorMap Map of errors
      */
-    private void validateIPaymentForBillPresent(List<Payment> payments, Map<String, String> errorMap) {
-        log.info("receipt present");
-        for (Payment payment : payments) {
-            String paymentStatus = payment.getInstrumentStatus().toString();
-            if (paymentStatus.equalsIgnoreCase(APPROVED.toString())
-                    || paymentStatus.equalsIgnoreCase(APPROVAL_PENDING.toString())
-                    || paymentStatus.equalsIgnoreCase(REMITTED.toString())) {
-                errorMap.put("BILL_ALREADY_PAID", "Bill has already been paid or is in pending state");
-                return;
-            }
+    private void validateIfPaymentForBillPresent(String tenantId, Set<String> billIds, boolean useBillCache,
+                                                 Map<String, String> errorMap) {
+
+        long now = System.currentTimeMillis();
+        Set<String> billIdsToProbe = !useBillCache ? billIds : billIds.stream()
+                .filter(billId -> {
+                    Long expiry = billsWithoutPayment.get(getBillCacheKey(tenantId, billId));
+                    return expiry == null || expiry < now;
+                })
+                .collect(Collectors.toSet());
+
+        if (billIdsToProbe.isEmpty())
+            return;
+
+        if (paymentRepository.isPaymentPresentForBills(tenantId, billIdsToProbe, BLOCKING_INSTRUMENT_STATUSES)) {
+            log.info("receipt present");
+            errorMap.put("BILL_ALREADY_PAID", "Bill has already been paid or is in pending state");
+            return;
+        }
+
+        long ttl = applicationProperties.getDuplicateCheckCacheTtl();
+        if (!useBillCache || ttl <= 0)
+            return;
+
+        if (billsWithoutPayment.size() >= applicationProperties.getDuplicateCheckCacheMaxSize())
+            billsWithoutPayment.values().removeIf(expiry -> expiry < now);
+        if (billsWithoutPayment.size() < applicationProperties.getDuplicateCheckCacheMaxSize())
+            billIdsToProbe.forEach(billId -> billsWithoutPayment.put(getBillCacheKey(tenantId, billId), now + ttl));
+    }
+
+    /**
+     * Forgets the bills remembered as having no payment, to be called once a payment is created for them.
+     * Within a transaction the bills are forgotten after it commits, so a validation running
+     * before the commit cannot remember them again as having no payment
+     *
+     * @param tenantId TenantId of the payment
+     * @param billIds Ids of the paid bills
+     */
+    public void evictBillsWithoutPayment(String tenantId, Set<String> billIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            billIds.forEach(billId -> billsWithoutPayment.remove(getBillCacheKey(tenantId, billId)));
+            return;
         }
-        // validateIfReceiptForBillAbsent(errorMap, billDetail);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                billIds.forEach(billId -> billsWithoutPayment.remove(getBillCacheKey(tenantId, billId)));
+            }
+        });
+    }
+
+    private String getBillCacheKey(String tenantId, String billId) {
+        return tenantId + ":" + billId;
     }
 
 
@@ -483,38 +555,30 @@ public class PaymentValidator {
 		}
     }
     
-    /***
-	 * This method will validate the ifsc code and fetch the bank details and add
-	 * those details in payment additionaldetails
+    /**
+	 * Adds the bank details of the ifsc code to the payment additionaldetails.
+	 * Details are served from the ifsc directory, payments of codes not yet in
+	 * the directory are backfilled once the code is fetched
 	 * 
-	 * @param payments
-	 * @param errorMap
+	 * @param paymentRequest
 	 */
-
 	private void validateIFSCCode(PaymentRequest paymentRequest) {
-		// TODO Auto-generated method stub
-		JsonNode razorPayIfscSearchResponse = null;
-		if (paymentRequest.getPayment().getIfscCode() != null) {
-
-			String response = serviceRequestRepository
-					.fetchGetResult(applicationProperties.getRazorPayUrl() + paymentRequest.getPayment().getIfscCode());
-			ObjectNode objectNode = (ObjectNode) paymentRequest.getPayment().getAdditionalDetails();
-			if (objectNode == null) {
-				ObjectMapper mapper = new ObjectMapper();
-				objectNode = mapper.createObjectNode();
-				
-					try {
-						razorPayIfscSearchResponse = mapper.readTree(response);
-					} catch (JsonProcessingException e) {
-						throw new CustomException("INVALID_PROCESS_EXCEPTION", e.getMessage());
-
-				} 
-				objectNode.set("bankDetails", razorPayIfscSearchResponse);
-				paymentRequest.getPayment().setAdditionalDetails(objectNode);
-			}
-
+		Payment payment = paymentRequest.getPayment();
+		if (payment.getIfscCode() == null)
+			return;
+
+		JsonNode bankDetails = ifscDirectoryService.getBankDetails(payment.getIfscCode());
+		if (bankDetails == null)
+			return;
+
+		JsonNode additionalDetails = payment.getAdditionalDetails();
+		if (additionalDetails == null || additionalDetails.isNull()) {
+			ObjectNode objectNode = mapper.createObjectNode();
+			objectNode.set("bankDetails", bankDetails.deepCopy());
+			payment.setAdditionalDetails(objectNode);
+		} else if (additionalDetails.isObject()) {
+			((ObjectNode) additionalDetails).set("bankDetails", bankDetails.deepCopy());
 		}
-
 	}
 
 }
@@ -3,7 +3,21 @@ package org.egov.collection.util;
 import static java.util.Objects.isNull;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.egov.tracer.model.CustomException;
+import org.slf4j.MDC;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -45,4 +59,90 @@ public class Utils {
 		return bd.compareTo(BigDecimal.ZERO) >= 0
 				&& (bd.signum() == 0 || bd.scale() <= 0 || bd.stripTrailingZeros().scale() <= 0);
 	}
+
+	/**
+	 * Encodes the sort key and id of the last record of a page into an opaque continuation token
+	 * 
+	 * @param sortKey sort key of the last record
+	 * @param id id of the last record
+	 * @return continuation token
+	 */
+	public static String encodeContinuationToken(Long sortKey, String id) {
+		String keyset = sortKey + ":" + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(keyset.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Decodes a continuation token created by encodeContinuationToken
+	 * 
+	 * @param token continuation token
+	 * @return sort key and id of the last record of the previous page
+	 */
+	public static Pair<Long, String> decodeContinuationToken(String token) {
+		try {
+			String keyset = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separator = keyset.indexOf(':');
+			if (separator < 1 || separator == keyset.length() - 1)
+				throw new IllegalArgumentException("Invalid keyset");
+			return Pair.of(Long.valueOf(keyset.substring(0, separator)), keyset.substring(separator + 1));
+		} catch (IllegalArgumentException e) {
+			throw new CustomException("EGCL_INVALID_CONTINUATION_TOKEN", "The continuation token is invalid: " + token);
+		}
+	}
+
+    /**
+     * Runs the supplier on the executor with the logging context of the calling
+     * thread, so the correlation id travels with remote calls made by the task
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        return CompletableFuture.supplyAsync(() -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            if (context != null)
+                MDC.setContextMap(context);
+            try {
+                return supplier.get();
+            } finally {
+                if (previous == null)
+                    MDC.clear();
+                else
+                    MDC.setContextMap(previous);
+            }
+        }, executor);
+    }
+
+    /**
+     * Waits for the future and rethrows the exception it failed with, so error
+     * codes of CustomExceptions are kept
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits at most the timeout for the future, as join. On timeout the future is
+     * cancelled and a CustomException is thrown
+     */
+    public static <T> T join(CompletableFuture<T> future, long timeoutMs) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new CustomException("LOOKUP_TIMEOUT", "Remote lookup did not complete within " + timeoutMs + " ms");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("LOOKUP_INTERRUPTED", "Interrupted while waiting for remote lookup");
+        }
+    }
+
 }
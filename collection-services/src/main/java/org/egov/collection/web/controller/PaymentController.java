@@ -40,17 +40,23 @@
 
 package org.egov.collection.web.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
+import org.egov.collection.model.MigrationProgress;
 import org.egov.collection.model.Payment;
+import org.egov.collection.model.PaymentBulkRequest;
 import org.egov.collection.model.PaymentRequest;
 import org.egov.collection.model.PaymentResponse;
 import org.egov.collection.model.PaymentSearchCriteria;
+import org.egov.collection.model.PlainSearchPage;
 import org.egov.collection.service.MigrationService;
 import org.egov.collection.service.PaymentService;
 import org.egov.collection.service.PaymentWorkflowService;
@@ -62,7 +68,9 @@ import org.egov.common.contract.response.ResponseInfo;
 import org.egov.tracer.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.lang.Nullable;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
@@ -75,7 +83,8 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
+
 
 @RestController
 @RequestMapping("/payments")
@@ -90,6 +99,14 @@ public class PaymentController {
     @Autowired
     private MigrationService migrationService;
 
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonConverter;
+
+    /**
+     * Searches payments, the page is built in memory and written at once. Unlike /_plainsearch
+     * it is not streamed: the page is capped at the max search limit, so its size is bounded,
+     * and the continuation token of the next page is taken from the last payment of the page
+     */
     @RequestMapping(path = {"/_search","/{moduleName}/_search"}, method = RequestMethod.POST)
     @ResponseBody
     public ResponseEntity<?> search(@ModelAttribute PaymentSearchCriteria paymentSearchCriteria,
@@ -117,7 +134,9 @@ public class PaymentController {
 			return new ResponseEntity<>(responseMap, HttpStatus.OK);
 		} else {
 			List<Payment> payments = paymentService.getPayments(requestInfo, paymentSearchCriteria, moduleName);
-			return getSuccessResponse(payments, requestInfo);
+			ResponseEntity<PaymentResponse> response = getSuccessResponse(payments, requestInfo);
+			response.getBody().setNextContinuationToken(paymentService.getNextContinuationToken(payments, paymentSearchCriteria));
+			return response;
 		}
     }
 
@@ -130,6 +149,21 @@ public class PaymentController {
 
     }
 
+    @RequestMapping(value = "/_bulkcreate", method = RequestMethod.POST)
+    @ResponseBody
+    public ResponseEntity<PaymentResponse> bulkCreate(@RequestBody @Valid PaymentBulkRequest paymentBulkRequest) {
+
+        List<Payment> payments = paymentService.createPayments(paymentBulkRequest);
+        return getSuccessResponse(payments, paymentBulkRequest.getRequestInfo());
+
+    }
+
+    @RequestMapping(value = "/_createmetrics", method = RequestMethod.POST)
+    @ResponseBody
+    public ResponseEntity<Map<String, Map<String, Object>>> createMetrics(@RequestBody @Valid RequestInfoWrapper requestInfoWrapper) {
+        return new ResponseEntity<>(paymentService.getCreateStageMetrics(), HttpStatus.OK);
+    }
+
 
    @RequestMapping(value = "/{moduleName}/_workflow", method = RequestMethod.POST)
    @ResponseBody
@@ -166,27 +200,71 @@ public class PaymentController {
 
     @RequestMapping(value = "/_migrate", method = RequestMethod.POST)
     @ResponseBody
-    public ResponseEntity<?> workflow(@RequestBody @Valid RequestInfoWrapper requestInfoWrapper,@RequestParam(required = false) Integer offset,
-                                      @RequestParam(required = false) String tenantId, @RequestParam(required = true) Integer batchSize) throws JsonProcessingException {
+    public ResponseEntity<?> workflow(@RequestBody @Valid RequestInfoWrapper requestInfoWrapper,
+                                      @RequestParam(required = false) String tenantId, @RequestParam(required = true) Integer batchSize,
+                                      @RequestParam(required = false, defaultValue = "false") Boolean restart) {
 
-        if(null == offset)
-            offset = 0;
+        if (!migrationService.migrate(requestInfoWrapper.getRequestInfo(), batchSize, tenantId, restart))
+            return new ResponseEntity<>(migrationService.getMigrationProgress(), HttpStatus.CONFLICT);
+        return new ResponseEntity<>(migrationService.getMigrationProgress(), HttpStatus.ACCEPTED);
 
-        migrationService.migrate(requestInfoWrapper.getRequestInfo(), offset, batchSize, tenantId);
-        return new ResponseEntity<>(HttpStatus.OK );
+    }
 
+    @RequestMapping(value = "/_migrate/_status", method = RequestMethod.POST)
+    @ResponseBody
+    public ResponseEntity<MigrationProgress> migrationStatus(@RequestBody @Valid RequestInfoWrapper requestInfoWrapper) {
+        return new ResponseEntity<>(migrationService.getMigrationProgress(), HttpStatus.OK);
     }
 
+    /**
+     * Writes the page of the plain search as a PaymentResponse, each payment being written to
+     * the response as soon as it is read instead of the whole page being held in memory.
+     *
+     * The first slice of the page is read before anything is written, so a failing search
+     * still gets an error response. A failure on a later slice can no longer change the
+     * status, the response is then left as incomplete JSON rather than closed as a valid one
+     */
     @RequestMapping(value = "/_plainsearch", method = RequestMethod.POST)
-    @ResponseBody
-    public ResponseEntity<PaymentResponse> plainSearch(@ModelAttribute PaymentSearchCriteria paymentSearchCriteria,
-                                                       @RequestBody @Valid final RequestInfoWrapper requestInfoWrapper) {
+    public void plainSearch(@ModelAttribute PaymentSearchCriteria paymentSearchCriteria,
+                            @RequestBody @Valid final RequestInfoWrapper requestInfoWrapper,
+                            HttpServletResponse response) throws IOException {
 
         final RequestInfo requestInfo = requestInfoWrapper.getRequestInfo();
 
-        List<Payment> payments = paymentService.plainSearch(paymentSearchCriteria);
+        final ResponseInfo responseInfo = ResponseInfoFactory.createResponseInfoFromRequestInfo(requestInfo, true);
+        responseInfo.setStatus(HttpStatus.OK.toString());
 
-        return getSuccessResponse(payments, requestInfo);
+        PlainSearchPage page = paymentService.getPlainSearchPage(paymentSearchCriteria);
+        List<List<String>> idSlices = page.getIdSlices();
+        List<Payment> firstSlice = idSlices.isEmpty() ? Collections.emptyList()
+                : paymentService.fetchPlainSearchSlice(idSlices.get(0));
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        try (JsonGenerator generator = jacksonConverter.getObjectMapper().getFactory().createGenerator(response.getOutputStream())) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            generator.writeStartObject();
+            generator.writeObjectField("ResponseInfo", responseInfo);
+            generator.writeArrayFieldStart("Payments");
+            for (Payment payment : firstSlice)
+                generator.writeObject(payment);
+            try {
+                for (List<String> idSlice : idSlices.subList(Math.min(1, idSlices.size()), idSlices.size()))
+                    paymentService.streamPlainSearchSlice(idSlice, payment -> {
+                        try {
+                            generator.writeObject(payment);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.writeEndArray();
+            if (page.getNextContinuationToken() != null)
+                generator.writeStringField("nextContinuationToken", page.getNextContinuationToken());
+            generator.writeEndObject();
+        }
     }
 
 }
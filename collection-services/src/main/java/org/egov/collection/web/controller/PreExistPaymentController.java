@@ -1,12 +1,12 @@
 package org.egov.collection.web.controller;
 
-import java.util.List;
-
-import org.egov.collection.repository.PaymentRepository;
 import org.egov.collection.service.PreExistPaymentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -14,16 +14,14 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/preexistpayments")
 public class PreExistPaymentController {
 
-	@Autowired
-	private PaymentRepository paymentRepository;
-
 	@Autowired
 	private PreExistPaymentService preExistPaymentService;
 
 	@PostMapping(value = "/_update")
 	@ResponseBody
-	public void update() {
-		List<String> ifsccodeList = paymentRepository.fetchIfsccode();
-		ifsccodeList.forEach(ifsccode -> preExistPaymentService.updatePaymentBankDetails(ifsccode));
+	public ResponseEntity<Void> update(@RequestParam(value = "restart", required = false, defaultValue = "false") Boolean restart) {
+		if (!preExistPaymentService.startBankDetailBackfill(restart))
+			return new ResponseEntity<>(HttpStatus.CONFLICT);
+		return new ResponseEntity<>(HttpStatus.ACCEPTED);
 	}
 }
@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS idx_egcl_payment_createdtime_id ON egcl_payment USING btree (createdtime, id);
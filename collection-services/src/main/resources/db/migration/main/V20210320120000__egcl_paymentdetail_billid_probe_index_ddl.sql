@@ -0,0 +1,2 @@
+CREATE INDEX IF NOT EXISTS idx_egcl_paymentdetail_billid_paymentid ON egcl_paymentdetail (billid, paymentid);
+CREATE INDEX IF NOT EXISTS idx_egcl_payment_id_instrumentstatus ON egcl_payment (id, instrumentstatus);
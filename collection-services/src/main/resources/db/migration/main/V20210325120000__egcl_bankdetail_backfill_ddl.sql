@@ -0,0 +1,17 @@
+CREATE UNLOGGED TABLE IF NOT EXISTS egcl_ifsc_bankdetail_stage (
+    ifsccode character varying(64) NOT NULL,
+    bankdetails jsonb NOT NULL,
+    CONSTRAINT pk_egcl_ifsc_bankdetail_stage PRIMARY KEY (ifsccode)
+);
+
+CREATE TABLE IF NOT EXISTS egcl_backfill_checkpoint (
+    jobname character varying(128) NOT NULL,
+    lastid character varying(256) NOT NULL,
+    processedcount bigint NOT NULL,
+    updatedcount bigint NOT NULL,
+    status character varying(64),
+    lastmodifiedtime bigint,
+    CONSTRAINT pk_egcl_backfill_checkpoint PRIMARY KEY (jobname)
+);
+
+CREATE INDEX IF NOT EXISTS idx_egcl_payment_ifsccode ON egcl_payment (ifsccode);
@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS idx_egcl_receiptheader_v1_tenantid_id ON egcl_receiptheader_v1 (tenantid, id);
@@ -0,0 +1,13 @@
+CREATE TABLE IF NOT EXISTS egcl_payment_count (
+    tenantid character varying(256) NOT NULL,
+    businessservice character varying(256) NOT NULL,
+    paymentcount bigint NOT NULL,
+    lastmodifiedtime bigint,
+    CONSTRAINT pk_egcl_payment_count PRIMARY KEY (tenantid, businessservice)
+);
+
+INSERT INTO egcl_payment_count (tenantid, businessservice, paymentcount, lastmodifiedtime)
+SELECT pyd.tenantid, pyd.businessservice, count(distinct(pyd.paymentid)), (extract(epoch from now()) * 1000)::bigint
+FROM egcl_paymentdetail pyd
+GROUP BY pyd.tenantid, pyd.businessservice
+ON CONFLICT (tenantid, businessservice) DO NOTHING;
@@ -0,0 +1,280 @@
+package org.egov.collection.benchmark;
+
+import org.egov.collection.model.AuditDetails;
+import org.egov.collection.model.Payment;
+import org.egov.collection.model.PaymentDetail;
+import org.egov.collection.model.enums.InstrumentStatusEnum;
+import org.egov.collection.model.enums.PaymentModeEnum;
+import org.egov.collection.model.enums.PaymentStatusEnum;
+import org.egov.collection.repository.PaymentRepository;
+import org.egov.collection.web.contract.Bill;
+import org.egov.collection.web.contract.BillAccountDetail;
+import org.egov.collection.web.contract.BillDetail;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks saving 1, 100 and 10k payments with batched inserts and with COPY, and their
+ * audit copies one id at a time and set based
+ *
+ * Needs a scratch database migrated with the flyway scripts of the service, all rows of the
+ * benchmark tenant are deleted after every iteration.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.egov.collection.benchmark.PaymentPersistenceBenchmark
+ *   -Dbenchmark.db.url=jdbc:postgresql://localhost:5432/collections_bench -Dbenchmark.db.username=postgres -Dbenchmark.db.password=postgres
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PaymentPersistenceBenchmark {
+
+    private static final String TENANT_ID = "pb.benchmark";
+
+    private static final int BILL_DETAILS_PER_BILL = 4;
+
+    private static final int ACCOUNT_DETAILS_PER_BILL_DETAIL = 3;
+
+    /*
+     * Audit copies as they were run before, one statement per id
+     */
+    private static final String[] PER_ID_AUDIT_SQLS = {
+            "INSERT INTO egcl_payment_audit SELECT * FROM egcl_payment WHERE id = :id;",
+            "INSERT INTO egcl_paymentdetail_audit SELECT id, tenantid, paymentid, due, amountpaid, receiptnumber, "
+                    + "businessservice, billid, additionaldetails,  createdby, createdtime, lastmodifiedby, lastmodifiedtime, manualreceiptnumber, "
+                    + "manualreceiptdate, receiptdate, receipttype FROM egcl_paymentdetail WHERE id = :id ;",
+            "INSERT INTO egcl_bill_audit SELECT * FROM egcl_bill WHERE id = :id;",
+            "INSERT INTO egcl_billdetial_audit SELECT * FROM egcl_billdetial WHERE id = :id;"};
+
+    private static final String[] CLEANUP_SQLS = {
+            "DELETE FROM egcl_billaccountdetail WHERE tenantid = :tenantid",
+            "DELETE FROM egcl_billdetial WHERE tenantid = :tenantid",
+            "DELETE FROM egcl_bill WHERE tenantid = :tenantid",
+            "DELETE FROM egcl_paymentdetail WHERE tenantid = :tenantid",
+            "DELETE FROM egcl_payment WHERE tenantid = :tenantid",
+            "DELETE FROM egcl_billdetial_audit WHERE tenantid = :tenantid",
+            "DELETE FROM egcl_bill_audit WHERE tenantid = :tenantid",
+            "DELETE FROM egcl_paymentdetail_audit WHERE tenantid = :tenantid",
+            "DELETE FROM egcl_payment_audit WHERE tenantid = :tenantid"};
+
+    @Param({"1", "100", "10000"})
+    private int paymentCount;
+
+    private SingleConnectionDataSource dataSource;
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private PaymentRepository paymentRepository;
+
+    private List<Payment> payments;
+
+    /*
+     * Payments already present in the database, for the audit copies
+     */
+    private List<Payment> savedPayments;
+
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        dataSource = new SingleConnectionDataSource(System.getProperty("benchmark.db.url"),
+                System.getProperty("benchmark.db.username"), System.getProperty("benchmark.db.password"), true);
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        paymentRepository = new PaymentRepository(jdbcTemplate, null, null, null, null);
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        savedPayments = createPayments();
+        paymentRepository.copyPayments(savedPayments);
+    }
+
+    /*
+     * Inserts fail on repeated ids, so fresh payments are built for every invocation
+     */
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        payments = createPayments();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() {
+        MapSqlParameterSource source = new MapSqlParameterSource("tenantid", TENANT_ID);
+        for (String query : CLEANUP_SQLS)
+            jdbcTemplate.update(query, source);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public void savePerPayment() {
+        for (Payment payment : payments)
+            paymentRepository.savePayment(payment);
+    }
+
+    @Benchmark
+    public void saveBatched() {
+        paymentRepository.savePayments(payments);
+    }
+
+    @Benchmark
+    public void saveCopy() {
+        paymentRepository.copyPayments(payments);
+    }
+
+    @Benchmark
+    public void auditPerId() {
+        List<MapSqlParameterSource> paymentIds = new ArrayList<>();
+        List<MapSqlParameterSource> paymentDetailIds = new ArrayList<>();
+        List<MapSqlParameterSource> billIds = new ArrayList<>();
+        List<MapSqlParameterSource> billDetailIds = new ArrayList<>();
+        for (Payment payment : savedPayments) {
+            paymentIds.add(new MapSqlParameterSource("id", payment.getId()));
+            for (PaymentDetail paymentDetail : payment.getPaymentDetails()) {
+                paymentDetailIds.add(new MapSqlParameterSource("id", paymentDetail.getId()));
+                billIds.add(new MapSqlParameterSource("id", paymentDetail.getBill().getId()));
+                paymentDetail.getBill().getBillDetails().forEach(billDetail ->
+                        billDetailIds.add(new MapSqlParameterSource("id", billDetail.getId())));
+            }
+        }
+        jdbcTemplate.batchUpdate(PER_ID_AUDIT_SQLS[0], paymentIds.toArray(new MapSqlParameterSource[0]));
+        jdbcTemplate.batchUpdate(PER_ID_AUDIT_SQLS[1], paymentDetailIds.toArray(new MapSqlParameterSource[0]));
+        jdbcTemplate.batchUpdate(PER_ID_AUDIT_SQLS[2], billIds.toArray(new MapSqlParameterSource[0]));
+        jdbcTemplate.batchUpdate(PER_ID_AUDIT_SQLS[3], billDetailIds.toArray(new MapSqlParameterSource[0]));
+    }
+
+    @Benchmark
+    public void auditSetBased() {
+        paymentRepository.copyPaymentsToAudit(savedPayments, true);
+    }
+
+
+    private List<Payment> createPayments() {
+        List<Payment> created = new ArrayList<>(paymentCount);
+        for (int i = 0; i < paymentCount; i++)
+            created.add(createPayment(i));
+        return created;
+    }
+
+    private Payment createPayment(int index) {
+        AuditDetails auditDetails = AuditDetails.builder()
+                .createdBy("benchmark").createdTime(System.currentTimeMillis())
+                .lastModifiedBy("benchmark").lastModifiedTime(System.currentTimeMillis())
+                .build();
+        String paymentId = UUID.randomUUID().toString();
+        String billId = UUID.randomUUID().toString();
+
+        List<BillDetail> billDetails = new ArrayList<>(BILL_DETAILS_PER_BILL);
+        BigDecimal total = BigDecimal.ZERO;
+        for (int period = 0; period < BILL_DETAILS_PER_BILL; period++) {
+            String billDetailId = UUID.randomUUID().toString();
+            List<BillAccountDetail> accountDetails = new ArrayList<>(ACCOUNT_DETAILS_PER_BILL_DETAIL);
+            BigDecimal amount = BigDecimal.ZERO;
+            for (int order = 0; order < ACCOUNT_DETAILS_PER_BILL_DETAIL; order++) {
+                BigDecimal taxAmount = BigDecimal.valueOf(100 + (index + order * 37) % 900);
+                accountDetails.add(BillAccountDetail.builder()
+                        .id(UUID.randomUUID().toString())
+                        .tenantId(TENANT_ID)
+                        .billDetailId(billDetailId)
+                        .demandDetailId(UUID.randomUUID().toString())
+                        .order(order)
+                        .amount(taxAmount)
+                        .adjustedAmount(taxAmount)
+                        .isActualDemand(true)
+                        .taxHeadCode("PT_TAX_" + order)
+                        .build());
+                amount = amount.add(taxAmount);
+            }
+            billDetails.add(BillDetail.builder()
+                    .id(billDetailId)
+                    .tenantId(TENANT_ID)
+                    .demandId(UUID.randomUUID().toString())
+                    .billId(billId)
+                    .amount(amount)
+                    .amountPaid(amount)
+                    .fromPeriod((long) period)
+                    .toPeriod((long) period + 1)
+                    .expiryDate(Long.MAX_VALUE)
+                    .callBackForApportioning(false)
+                    .billAccountDetails(accountDetails)
+                    .build());
+            total = total.add(amount);
+        }
+
+        Bill bill = Bill.builder()
+                .id(billId)
+                .status(Bill.StatusEnum.PAID)
+                .isCancelled(false)
+                .tenantId(TENANT_ID)
+                .collectionModesNotAllowed(Collections.emptyList())
+                .partPaymentAllowed(true)
+                .isAdvanceAllowed(false)
+                .businessService("PT")
+                .totalAmount(total)
+                .consumerCode("PT-" + index)
+                .billNumber("BILL-" + billId)
+                .billDate(System.currentTimeMillis())
+                .billDetails(billDetails)
+                .auditDetails(auditDetails)
+                .build();
+
+        PaymentDetail paymentDetail = PaymentDetail.builder()
+                .id(UUID.randomUUID().toString())
+                .tenantId(TENANT_ID)
+                .totalDue(total)
+                .totalAmountPaid(total)
+                .receiptNumber("PB/" + paymentId)
+                .receiptDate(System.currentTimeMillis())
+                .receiptType("BILLBASED")
+                .businessService("PT")
+                .billId(billId)
+                .bill(bill)
+                .auditDetails(auditDetails)
+                .build();
+
+        return Payment.builder()
+                .id(paymentId)
+                .tenantId(TENANT_ID)
+                .totalDue(total)
+                .totalAmountPaid(total)
+                .transactionNumber("TXN-" + paymentId)
+                .transactionDate(System.currentTimeMillis())
+                .paymentMode(PaymentModeEnum.CASH)
+                .instrumentStatus(InstrumentStatusEnum.APPROVED)
+                .paymentStatus(PaymentStatusEnum.NEW)
+                .paidBy("benchmark")
+                .mobileNumber("9999999999")
+                .payerName("benchmark")
+                .auditDetails(auditDetails)
+                .paymentDetails(Collections.singletonList(paymentDetail))
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PaymentPersistenceBenchmark.class.getSimpleName())
+                .jvmArgsAppend("-Dbenchmark.db.url=" + System.getProperty("benchmark.db.url"),
+                        "-Dbenchmark.db.username=" + System.getProperty("benchmark.db.username"),
+                        "-Dbenchmark.db.password=" + System.getProperty("benchmark.db.password"))
+                .build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,557 @@
+package org.egov.collection.repository;
+
+import static org.egov.collection.repository.querybuilder.PaymentQueryBuilder.BACKFILL_CHECKPOINT_QUERY;
+import static org.egov.collection.repository.querybuilder.PaymentQueryBuilder.BILLACCOUNTDETAIL_COPY_COLUMNS;
+import static org.egov.collection.repository.querybuilder.PaymentQueryBuilder.BILL_COPY_COLUMNS;
+import static org.egov.collection.repository.querybuilder.PaymentQueryBuilder.INCREMENT_PAYMENT_COUNT_SQL;
+import static org.egov.collection.repository.querybuilder.PaymentQueryBuilder.INSERT_BILLACCOUNTDETAIL_SQL;
+import static org.egov.collection.repository.querybuilder.PaymentQueryBuilder.INSERT_BILLDETAIL_SQL;
+import static org.egov.collection.repository.querybuilder.PaymentQueryBuilder.INSERT_BILL_SQL;
+import static org.egov.collection.repository.querybuilder.PaymentQueryBuilder.INSERT_PAYMENTDETAIL_SQL;
+import static org.egov.collection.repository.querybuilder.PaymentQueryBuilder.INSERT_PAYMENT_SQL;
+import static org.egov.collection.repository.querybuilder.PaymentQueryBuilder.PAYMENTDETAIL_COPY_COLUMNS;
+import static org.egov.collection.repository.querybuilder.PaymentQueryBuilder.PAYMENT_COPY_COLUMNS;
+import static org.egov.collection.repository.querybuilder.PaymentQueryBuilder.PAYMENT_COUNT_RECONCILE_LOCK_SQL;
+import static org.egov.collection.repository.querybuilder.PaymentQueryBuilder.RECONCILE_PAYMENT_COUNT_SQL;
+import static org.egov.collection.repository.querybuilder.PaymentQueryBuilder.UPSERT_BACKFILL_CHECKPOINT_SQL;
+import static org.egov.collection.repository.querybuilder.PaymentQueryBuilder.getCopyInQuery;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.egov.collection.config.ApplicationProperties;
+import org.egov.collection.model.AuditDetails;
+import org.egov.collection.model.BackfillCheckpoint;
+import org.egov.collection.model.Payment;
+import org.egov.collection.model.PaymentDetail;
+import org.egov.collection.model.PaymentSearchCriteria;
+import org.egov.collection.model.enums.InstrumentStatusEnum;
+import org.egov.collection.model.enums.PaymentModeEnum;
+import org.egov.collection.model.enums.PaymentStatusEnum;
+import org.egov.collection.repository.querybuilder.PaymentQueryBuilder;
+import org.egov.collection.repository.rowmapper.BillRowMapper;
+import org.egov.collection.repository.rowmapper.PaymentRowMapper;
+import org.egov.collection.web.contract.Bill;
+import org.egov.collection.web.contract.BillAccountDetail;
+import org.egov.collection.web.contract.BillDetail;
+import org.egov.tracer.model.CustomException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.util.PGobject;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileCopyUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PaymentRepositoryTest {
+
+    private static final String[] COLUMNS = {"id", "value"};
+
+    private static final AuditDetails AUDIT_DETAILS = AuditDetails.builder().createdBy("user-1").createdTime(1588231800123L)
+            .lastModifiedBy("user-1").lastModifiedTime(1588231800123L).build();
+
+    @Mock
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PGConnection pgConnection;
+
+    @Mock
+    private CopyManager copyManager;
+
+    private PaymentRepository repository;
+
+    /*
+     * Rows returned by the statement, the query and parameters it was run with
+     */
+    private final List<ResultSet> rows = new ArrayList<>();
+
+    private String query;
+
+    private Map<String, Object> queryParams;
+
+    /*
+     * Payments handed to the consumer by streamPayments, and how many were handed over once each row was read
+     */
+    private final List<Payment> payments = new ArrayList<>();
+
+    private final List<Integer> emittedAfterRow = new ArrayList<>();
+
+    /*
+     * Parameters of every batch by its statement, and the csv of every COPY by its statement
+     */
+    private final Map<String, SqlParameterSource[]> batches = new LinkedHashMap<>();
+
+    private final Map<String, String> copies = new LinkedHashMap<>();
+
+    @Before
+    public void setup() {
+        ObjectMapper mapper = new ObjectMapper();
+        ApplicationProperties config = new ApplicationProperties();
+        config.setDefaultLimit(100);
+        config.setMaxSearchLimit(500);
+
+        PaymentQueryBuilder queryBuilder = new PaymentQueryBuilder();
+        ReflectionTestUtils.setField(queryBuilder, "config", config);
+        PaymentRowMapper paymentRowMapper = new PaymentRowMapper();
+        ReflectionTestUtils.setField(paymentRowMapper, "mapper", mapper);
+        BillRowMapper billRowMapper = new BillRowMapper();
+        ReflectionTestUtils.setField(billRowMapper, "mapper", mapper);
+
+        repository = new PaymentRepository(namedParameterJdbcTemplate, queryBuilder, paymentRowMapper, billRowMapper, mapper);
+
+        lenient().doAnswer(invocation -> {
+            query = invocation.getArgument(0);
+            queryParams = invocation.getArgument(1);
+            RowCallbackHandler handler = invocation.getArgument(2);
+            for (ResultSet rs : rows) {
+                handler.processRow(rs);
+                emittedAfterRow.add(payments.size());
+            }
+            return null;
+        }).when(namedParameterJdbcTemplate).query(anyString(), anyMap(), any(RowCallbackHandler.class));
+
+        lenient().when(namedParameterJdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class))).thenAnswer(invocation -> {
+            SqlParameterSource[] batch = invocation.getArgument(1);
+            batches.put(invocation.getArgument(0), batch);
+            return new int[batch.length];
+        });
+    }
+
+    @Test
+    public void testPersistPaymentsBelowCopyMinPaymentsInsertsInBatches() {
+        repository.persistPayments(Arrays.asList(payment("payment-1", paymentDetail("pyd-1", "pb.amritsar", "PT")),
+                payment("payment-2", paymentDetail("pyd-2", "pb.amritsar", "PT"))), 3);
+
+        assertEquals(Arrays.asList(INSERT_PAYMENT_SQL, INSERT_PAYMENTDETAIL_SQL, INSERT_BILL_SQL, INSERT_BILLDETAIL_SQL,
+                INSERT_BILLACCOUNTDETAIL_SQL, INCREMENT_PAYMENT_COUNT_SQL), new ArrayList<>(batches.keySet()));
+        assertEquals(2, batches.get(INSERT_PAYMENT_SQL).length);
+        assertEquals("pyd-2", batches.get(INSERT_PAYMENTDETAIL_SQL)[1].getValue("id"));
+        assertEquals("payment-2", batches.get(INSERT_PAYMENTDETAIL_SQL)[1].getValue("paymentid"));
+        assertEquals("ad-pyd-1", batches.get(INSERT_BILLACCOUNTDETAIL_SQL)[0].getValue("id"));
+        verify(namedParameterJdbcTemplate, never()).getJdbcTemplate();
+    }
+
+    @Test
+    public void testPersistPaymentsAtCopyMinPaymentsCopies() throws Exception {
+        givenCopy();
+
+        repository.persistPayments(Arrays.asList(payment("payment-1", paymentDetail("pyd-1", "pb.amritsar", "PT")),
+                payment("payment-2", paymentDetail("pyd-2", "pb.amritsar", "PT"))), 2);
+
+        assertEquals(5, copies.size());
+        String paymentCsv = copies.get(getCopyInQuery("egcl_payment", PAYMENT_COPY_COLUMNS));
+        assertEquals(2, paymentCsv.split("\n").length);
+        assertTrue(paymentCsv.startsWith("\"payment-1\",\"pb.amritsar\","));
+        assertTrue(copies.get(getCopyInQuery("egcl_paymentdetail", PAYMENTDETAIL_COPY_COLUMNS))
+                .startsWith("\"pyd-1\",\"pb.amritsar\",\"payment-1\","));
+        assertTrue(copies.get(getCopyInQuery("egcl_billaccountdetail", BILLACCOUNTDETAIL_COPY_COLUMNS))
+                .startsWith("\"ad-pyd-1\",\"pb.amritsar\",\"bd-pyd-1\","));
+        assertEquals(Collections.singletonList(INCREMENT_PAYMENT_COUNT_SQL), new ArrayList<>(batches.keySet()));
+        assertEquals(2L, batches.get(INCREMENT_PAYMENT_COUNT_SQL)[0].getValue("paymentcount"));
+    }
+
+    @Test
+    public void testCopyPaymentsSkipsTablesWithoutRows() throws Exception {
+        givenCopy();
+        PaymentDetail paymentDetail = paymentDetail("pyd-1", "pb.amritsar", "PT");
+        paymentDetail.getBill().setBillDetails(new ArrayList<>());
+
+        repository.persistPayments(Collections.singletonList(payment("payment-1", paymentDetail)), 1);
+
+        assertEquals(Arrays.asList(getCopyInQuery("egcl_payment", PAYMENT_COPY_COLUMNS),
+                getCopyInQuery("egcl_paymentdetail", PAYMENTDETAIL_COPY_COLUMNS),
+                getCopyInQuery("egcl_bill", BILL_COPY_COLUMNS)), new ArrayList<>(copies.keySet()));
+    }
+
+    @Test
+    public void testSavePaymentsCountsAPaymentOncePerTenantAndBusinessService() {
+        repository.savePayments(Arrays.asList(
+                payment("payment-1", paymentDetail("pyd-1", "pb.jalandhar", "PT"), paymentDetail("pyd-2", "pb.amritsar", "WS"),
+                        paymentDetail("pyd-3", "pb.amritsar", "PT"), paymentDetail("pyd-4", "pb.amritsar", "PT")),
+                payment("payment-2", paymentDetail("pyd-5", "pb.amritsar", "PT"))));
+
+        SqlParameterSource[] counts = batches.get(INCREMENT_PAYMENT_COUNT_SQL);
+        assertEquals(3, counts.length);
+        assertCount(counts[0], "pb.amritsar", "PT", 2L);
+        assertCount(counts[1], "pb.amritsar", "WS", 1L);
+        assertCount(counts[2], "pb.jalandhar", "PT", 1L);
+        assertEquals(counts[0].getValue("lastmodifiedtime"), counts[2].getValue("lastmodifiedtime"));
+    }
+
+    @Test
+    public void testReconcilePaymentCountsSkippedWithoutTheLock() {
+        when(namedParameterJdbcTemplate.queryForObject(eq(PAYMENT_COUNT_RECONCILE_LOCK_SQL), any(SqlParameterSource.class),
+                eq(Boolean.class))).thenReturn(false);
+
+        assertNull(repository.reconcilePaymentCounts(60000L));
+        verify(namedParameterJdbcTemplate, never()).update(eq(RECONCILE_PAYMENT_COUNT_SQL), any(SqlParameterSource.class));
+    }
+
+    @Test
+    public void testReconcilePaymentCountsSkippedWithinTheInterval() {
+        givenReconcileCheckpoint(BackfillCheckpoint.builder().jobName("PAYMENT_COUNT_RECONCILE")
+                .lastModifiedTime(System.currentTimeMillis()).build());
+
+        assertNull(repository.reconcilePaymentCounts(60000L));
+        verify(namedParameterJdbcTemplate, never()).update(eq(RECONCILE_PAYMENT_COUNT_SQL), any(SqlParameterSource.class));
+    }
+
+    @Test
+    public void testReconcilePaymentCountsRecordsTheCorrectionsInTheCheckpoint() {
+        givenReconcileCheckpoint(BackfillCheckpoint.builder().jobName("PAYMENT_COUNT_RECONCILE").processedCount(3L)
+                .updatedCount(5L).status(BackfillCheckpoint.STATUS_COMPLETED).lastModifiedTime(0L).build());
+        when(namedParameterJdbcTemplate.update(eq(RECONCILE_PAYMENT_COUNT_SQL), any(SqlParameterSource.class))).thenReturn(2);
+
+        assertEquals(Integer.valueOf(2), repository.reconcilePaymentCounts(60000L));
+
+        ArgumentCaptor<SqlParameterSource> checkpoint = ArgumentCaptor.forClass(SqlParameterSource.class);
+        verify(namedParameterJdbcTemplate).update(eq(UPSERT_BACKFILL_CHECKPOINT_SQL), checkpoint.capture());
+        assertEquals("PAYMENT_COUNT_RECONCILE", checkpoint.getValue().getValue("jobname"));
+        assertEquals(4L, checkpoint.getValue().getValue("processedcount"));
+        assertEquals(7L, checkpoint.getValue().getValue("updatedcount"));
+        assertEquals(BackfillCheckpoint.STATUS_COMPLETED, checkpoint.getValue().getValue("status"));
+    }
+
+    @Test
+    public void testStreamPaymentsPagesAfterTheKeyset() {
+        PaymentSearchCriteria criteria = PaymentSearchCriteria.builder().tenantId("pb.amritsar")
+                .lastTransactionDate(1588231800123L).lastPaymentId("payment-9").limit(2).build();
+
+        repository.fetchPayments(criteria);
+
+        String page = query.substring(0, query.indexOf(" ) SELECT"));
+        assertTrue(page.contains(" WHERE  py_inner.tenantId =:tenantId AND (py_inner.transactiondate, py_inner.id) "
+                + "< (:lastTransactionDate, :lastPaymentId) "));
+        assertTrue(page.indexOf("ORDER BY py_inner.transactiondate DESC, py_inner.id DESC")
+                < page.indexOf("OFFSET :offset"));
+        assertTrue(query.endsWith(" ORDER BY py_page.transactiondate DESC, py_page.id DESC "));
+        assertTrue(query.contains("ad.billaccountdetails AS ad_billaccountdetails"));
+        assertEquals(1588231800123L, queryParams.get("lastTransactionDate"));
+        assertEquals("payment-9", queryParams.get("lastPaymentId"));
+        assertEquals(0, queryParams.get("offset"));
+        assertEquals(2, queryParams.get("limit"));
+    }
+
+    @Test
+    public void testStreamPaymentsWithoutKeysetPagesByOffset() {
+        repository.fetchPayments(PaymentSearchCriteria.builder().offset(40).limit(1000).build());
+
+        assertFalse(query.contains(":lastTransactionDate"));
+        assertFalse(queryParams.containsKey("lastPaymentId"));
+        assertTrue(query.contains("FROM egcl_payment AS py_inner  ORDER BY py_inner.transactiondate DESC"));
+        assertEquals(40, queryParams.get("offset"));
+        assertEquals(500, queryParams.get("limit"));
+    }
+
+    @Test
+    public void testFetchPaymentIdsPagesAfterTheKeyset() {
+        rows.add(row(columns("id", "payment-10", "createdtime", 1588231800123L)));
+        rows.add(row(columns("id", "payment-11", "createdtime", 1588231800124L)));
+        PaymentSearchCriteria criteria = PaymentSearchCriteria.builder().lastCreatedTime(1588231800123L)
+                .lastPaymentId("payment-9").offset(0).limit(2).build();
+
+        LinkedHashMap<String, Long> ids = repository.fetchPaymentIds(criteria);
+
+        assertEquals("SELECT id, createdtime FROM egcl_payment  WHERE (createdtime, id) > (:lastCreatedTime, :lastPaymentId) "
+                + " ORDER BY createdtime, id OFFSET :offset LIMIT :limit", query);
+        assertEquals(1588231800123L, queryParams.get("lastCreatedTime"));
+        assertEquals("payment-9", queryParams.get("lastPaymentId"));
+        assertEquals(0, queryParams.get("offset"));
+        assertEquals(2, queryParams.get("limit"));
+        assertEquals(Arrays.asList("payment-10", "payment-11"), new ArrayList<>(ids.keySet()));
+        assertEquals(Long.valueOf(1588231800124L), ids.get("payment-11"));
+    }
+
+    @Test
+    public void testFetchPaymentIdsWithoutKeysetPagesByOffset() {
+        repository.fetchPaymentIds(PaymentSearchCriteria.builder().lastPaymentId("payment-9").offset(20).limit(10).build());
+
+        assertEquals("SELECT id, createdtime FROM egcl_payment  ORDER BY createdtime, id OFFSET :offset LIMIT :limit", query);
+        assertFalse(queryParams.containsKey("lastPaymentId"));
+        assertEquals(20, queryParams.get("offset"));
+        assertEquals(10, queryParams.get("limit"));
+    }
+
+    @Test
+    public void testStreamPaymentsAssemblesPaymentGraphFromRows() {
+        String accountDetails = "[{\"id\": \"ad-2\", \"tenantId\": \"pb.amritsar\", \"billDetailId\": \"bd-1\", \"order\": 1, "
+                + "\"amount\": 40.50, \"adjustedAmount\": 40.50, \"taxHeadCode\": \"PT_TAX\", \"demandDetailId\": \"dd-2\", "
+                + "\"additionalDetails\": {\"rebate\": false}}, "
+                + "{\"id\": \"ad-1\", \"tenantId\": \"pb.amritsar\", \"billDetailId\": \"bd-1\", \"order\": 2, "
+                + "\"amount\": 60, \"adjustedAmount\": 0, \"taxHeadCode\": \"PT_CESS\", \"demandDetailId\": \"dd-1\", "
+                + "\"additionalDetails\": null}]";
+        rows.add(paymentRow("payment-1", "pyd-1", "bill-1", "bd-1", new BigDecimal("100.50"), accountDetails));
+        rows.add(paymentRow("payment-1", "pyd-1", "bill-1", "bd-2", new BigDecimal("25"), null));
+        rows.add(paymentRow("payment-1", "pyd-2", "bill-2", null, null, null));
+        rows.add(paymentRow("payment-2", "pyd-3", null, null, null, null));
+
+        long count = repository.streamPayments(PaymentSearchCriteria.builder().build(), payments::add);
+
+        assertEquals(2, count);
+        // a payment is handed over as soon as the rows of the next one start, the last one on completion
+        assertEquals(Arrays.asList(0, 0, 0, 1), emittedAfterRow);
+        assertEquals("payment-1", payments.get(0).getId());
+        assertEquals("payment-2", payments.get(1).getId());
+
+        List<PaymentDetail> paymentDetails = payments.get(0).getPaymentDetails();
+        assertEquals(2, paymentDetails.size());
+        Bill bill = paymentDetails.get(0).getBill();
+        assertEquals("bill-1", bill.getId());
+        assertEquals(new BigDecimal("125.50"), bill.getTotalAmount());
+        assertEquals(2, bill.getBillDetails().size());
+
+        BillDetail billDetail = bill.getBillDetails().get(0);
+        assertEquals("bd-1", billDetail.getId());
+        List<BillAccountDetail> billAccountDetails = billDetail.getBillAccountDetails();
+        assertEquals(2, billAccountDetails.size());
+        assertEquals("ad-2", billAccountDetails.get(0).getId());
+        assertEquals(Integer.valueOf(1), billAccountDetails.get(0).getOrder());
+        assertEquals(new BigDecimal("40.50"), billAccountDetails.get(0).getAmount());
+        assertEquals("PT_TAX", billAccountDetails.get(0).getTaxHeadCode());
+        assertEquals("dd-2", billAccountDetails.get(0).getDemandDetailId());
+        assertFalse(billAccountDetails.get(0).getAdditionalDetails().get("rebate").asBoolean());
+        assertEquals("ad-1", billAccountDetails.get(1).getId());
+        assertEquals(BigDecimal.ZERO, billAccountDetails.get(1).getAdjustedAmount());
+        assertTrue(billAccountDetails.get(1).getAdditionalDetails() == null
+                || billAccountDetails.get(1).getAdditionalDetails().isNull());
+
+        assertNull(bill.getBillDetails().get(1).getBillAccountDetails());
+
+        Bill billWithoutDetails = paymentDetails.get(1).getBill();
+        assertEquals("bill-2", billWithoutDetails.getId());
+        assertNull(billWithoutDetails.getBillDetails());
+        assertEquals(BigDecimal.ZERO, billWithoutDetails.getTotalAmount());
+
+        assertEquals(1, payments.get(1).getPaymentDetails().size());
+        assertNull(payments.get(1).getPaymentDetails().get(0).getBill());
+    }
+
+    @Test
+    public void testStreamPaymentsRejectsMalformedBillAccountDetails() {
+        rows.add(paymentRow("payment-1", "pyd-1", "bill-1", "bd-1", BigDecimal.TEN, "[{\"id\": "));
+
+        try {
+            repository.fetchPayments(PaymentSearchCriteria.builder().build());
+            fail("Malformed billAccountDetails should have been rejected");
+        } catch (CustomException e) {
+            assertEquals("SERVER_ERROR", e.getCode());
+        }
+    }
+
+    @Test
+    public void testToCsvQuotesValues() {
+        assertEquals("\"id-1\",\"REC/2020/01\"\n", csv("id-1", "REC/2020/01"));
+    }
+
+    @Test
+    public void testToCsvWritesNullUnquoted() {
+        assertEquals("\"id-1\",\n", csv("id-1", null));
+    }
+
+    @Test
+    public void testToCsvKeepsEmptyStringDistinctFromNull() {
+        assertEquals("\"id-1\",\"\"\n", csv("id-1", ""));
+    }
+
+    @Test
+    public void testToCsvDoublesEmbeddedQuotes() {
+        assertEquals("\"id-1\",\"Shop \"\"A\"\", Main Road\"\n", csv("id-1", "Shop \"A\", Main Road"));
+    }
+
+    @Test
+    public void testToCsvKeepsLineBreaksInsideQuotes() {
+        assertEquals("\"id-1\",\"line one\nline two\"\n", csv("id-1", "line one\nline two"));
+    }
+
+    @Test
+    public void testToCsvWritesJsonbValue() throws SQLException {
+        assertEquals("\"id-1\",\"{\"\"bankName\"\": \"\"SBI\"\"}\"\n", csv("id-1", jsonb("{\"bankName\": \"SBI\"}")));
+    }
+
+    @Test
+    public void testToCsvWritesNullJsonbUnquoted() throws SQLException {
+        assertEquals("\"id-1\",\n", csv("id-1", jsonb(null)));
+    }
+
+    @Test
+    public void testToCsvWritesBigDecimalWithoutExponent() {
+        assertEquals("\"id-1\",\"1000\"\n", csv("id-1", new BigDecimal("1E+3")));
+        assertEquals("\"id-1\",\"0.0000001\"\n", csv("id-1", new BigDecimal("1E-7")));
+        assertEquals("\"id-1\",\"12.50\"\n", csv("id-1", new BigDecimal("12.50")));
+    }
+
+    @Test
+    public void testToCsvWritesColumnsInOrderAndRowPerLine() throws SQLException {
+        MapSqlParameterSource first = new MapSqlParameterSource();
+        MapSqlParameterSource second = new MapSqlParameterSource();
+        for (String column : BILLACCOUNTDETAIL_COPY_COLUMNS) {
+            first.addValue(column, null);
+            second.addValue(column, null);
+        }
+        first.addValue("id", "bad-1").addValue("tenantid", "pb.amritsar").addValue("order", 1)
+                .addValue("amount", new BigDecimal("250.00")).addValue("adjustedamount", BigDecimal.ZERO)
+                .addValue("isactualdemand", true).addValue("taxheadcode", "PT_TAX").addValue("additionaldetails", jsonb("{}"));
+        second.addValue("id", "bad-2").addValue("tenantid", "pb.amritsar").addValue("order", 2);
+
+        String csv = PaymentRepository.toCsv(BILLACCOUNTDETAIL_COPY_COLUMNS, Arrays.asList(first, second));
+
+        assertEquals("\"bad-1\",\"pb.amritsar\",,,\"1\",\"250.00\",\"0\",\"true\",\"PT_TAX\",\"{}\"\n"
+                + "\"bad-2\",\"pb.amritsar\",,,\"2\",,,,,\n", csv);
+    }
+
+    private void givenCopy() throws Exception {
+        when(namedParameterJdbcTemplate.getJdbcTemplate()).thenReturn(jdbcTemplate);
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<Long>>any()))
+                .thenAnswer(invocation -> ((ConnectionCallback<?>) invocation.getArgument(0)).doInConnection(connection));
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString(), any(Reader.class))).thenAnswer(invocation -> {
+            String csv = FileCopyUtils.copyToString((Reader) invocation.getArgument(1));
+            copies.put(invocation.getArgument(0), csv);
+            return (long) csv.split("\n").length;
+        });
+    }
+
+    private void givenReconcileCheckpoint(BackfillCheckpoint checkpoint) {
+        when(namedParameterJdbcTemplate.queryForObject(eq(PAYMENT_COUNT_RECONCILE_LOCK_SQL), any(SqlParameterSource.class),
+                eq(Boolean.class))).thenReturn(true);
+        when(namedParameterJdbcTemplate.query(eq(BACKFILL_CHECKPOINT_QUERY), anyMap(),
+                ArgumentMatchers.<RowMapper<BackfillCheckpoint>>any())).thenReturn(Collections.singletonList(checkpoint));
+    }
+
+    private static void assertCount(SqlParameterSource count, String tenantId, String businessService, long paymentCount) {
+        assertEquals(tenantId, count.getValue("tenantid"));
+        assertEquals(businessService, count.getValue("businessservice"));
+        assertEquals(paymentCount, count.getValue("paymentcount"));
+    }
+
+    private static Payment payment(String id, PaymentDetail... paymentDetails) {
+        return Payment.builder().id(id).tenantId("pb.amritsar").totalDue(BigDecimal.TEN).totalAmountPaid(BigDecimal.TEN)
+                .transactionNumber("TXN-" + id).transactionDate(1588231800123L).paymentMode(PaymentModeEnum.CASH)
+                .instrumentStatus(InstrumentStatusEnum.APPROVED).paymentStatus(PaymentStatusEnum.NEW)
+                .auditDetails(AUDIT_DETAILS).paymentDetails(Arrays.asList(paymentDetails)).build();
+    }
+
+    private static PaymentDetail paymentDetail(String id, String tenantId, String businessService) {
+        BillAccountDetail billAccountDetail = BillAccountDetail.builder().id("ad-" + id).tenantId(tenantId)
+                .billDetailId("bd-" + id).order(1).amount(BigDecimal.TEN).adjustedAmount(BigDecimal.TEN)
+                .isActualDemand(true).taxHeadCode("PT_TAX").build();
+        BillDetail billDetail = BillDetail.builder().id("bd-" + id).tenantId(tenantId).billId("bill-" + id)
+                .amount(BigDecimal.TEN).amountPaid(BigDecimal.TEN)
+                .billAccountDetails(new ArrayList<>(Collections.singletonList(billAccountDetail))).build();
+        Bill bill = Bill.builder().id("bill-" + id).status(Bill.StatusEnum.PAID).isCancelled(false).tenantId(tenantId)
+                .businessService(businessService).totalAmount(BigDecimal.TEN).consumerCode("PT-" + id)
+                .billDetails(new ArrayList<>(Collections.singletonList(billDetail))).auditDetails(AUDIT_DETAILS).build();
+        return PaymentDetail.builder().id(id).tenantId(tenantId).totalDue(BigDecimal.TEN).totalAmountPaid(BigDecimal.TEN)
+                .businessService(businessService).billId(bill.getId()).bill(bill).auditDetails(AUDIT_DETAILS).build();
+    }
+
+    private ResultSet paymentRow(String paymentId, String paymentDetailId, String billId, String billDetailId,
+                                 BigDecimal billDetailAmount, String billAccountDetails) {
+        Map<String, Object> columns = columns("py_id", paymentId, "py_tenantId", "pb.amritsar",
+                "py_totalAmountPaid", new BigDecimal("125.50"), "transactionDate", 1588231800123L, "paymentMode", "CASH",
+                "instrumentStatus", "APPROVED", "paymentStatus", "NEW", "pyd_id", paymentDetailId,
+                "pyd_tenantId", "pb.amritsar", "businessService", "PT", "billId", billId);
+        columns.putAll(columns("b_id", billId, "b_tenantid", "pb.amritsar", "b_status", "PAID", "b_consumerCode", "PT-1",
+                "bd_id", billDetailId, "bd_tenantid", "pb.amritsar", "bd_billid", billId, "bd_amount", billDetailAmount,
+                "ad_billaccountdetails", billAccountDetails));
+        return row(columns);
+    }
+
+    private static String csv(String id, Object value) {
+        MapSqlParameterSource row = new MapSqlParameterSource().addValue("id", id).addValue("value", value);
+        return PaymentRepository.toCsv(COLUMNS, Collections.singletonList(row));
+    }
+
+    private static Map<String, Object> columns(Object... namesAndValues) {
+        Map<String, Object> columns = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < namesAndValues.length; i += 2)
+            columns.put((String) namesAndValues[i], namesAndValues[i + 1]);
+        return columns;
+    }
+
+    /*
+     * ResultSet positioned on a single row, column names are matched ignoring case as by the driver
+     */
+    private static ResultSet row(Map<String, Object> columns) {
+        Object[] lastValue = new Object[1];
+        return mock(ResultSet.class, invocation -> {
+            if ("wasNull".equals(invocation.getMethod().getName()))
+                return lastValue[0] == null;
+            if (invocation.getArguments().length != 1 || !(invocation.getArguments()[0] instanceof String))
+                return null;
+            Object value = columns.get(invocation.getArguments()[0]);
+            lastValue[0] = value;
+            switch (invocation.getMethod().getName()) {
+                case "getString":
+                    return null == value ? null : value.toString();
+                case "getLong":
+                    return null == value ? 0L : ((Number) value).longValue();
+                case "getInt":
+                    return null == value ? 0 : ((Number) value).intValue();
+                case "getBoolean":
+                    return Boolean.TRUE.equals(value);
+                case "getBigDecimal":
+                case "getObject":
+                    return value;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static PGobject jsonb(String value) throws SQLException {
+        PGobject jsonb = new PGobject();
+        jsonb.setType("jsonb");
+        jsonb.setValue(value);
+        return jsonb;
+    }
+
+}
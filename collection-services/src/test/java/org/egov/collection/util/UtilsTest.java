@@ -0,0 +1,87 @@
+package org.egov.collection.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.egov.tracer.model.CustomException;
+import org.junit.Test;
+
+public class UtilsTest {
+
+    @Test
+    public void testContinuationTokenRoundTrip() {
+        String token = Utils.encodeContinuationToken(1588231800123L, "c6f8ba21-0a7f-4c1f-9e7e-07b1d2a5c3e4");
+
+        Pair<Long, String> keyset = Utils.decodeContinuationToken(token);
+
+        assertEquals(Long.valueOf(1588231800123L), keyset.getLeft());
+        assertEquals("c6f8ba21-0a7f-4c1f-9e7e-07b1d2a5c3e4", keyset.getRight());
+    }
+
+    @Test
+    public void testContinuationTokenKeepsSeparatorsInId() {
+        Pair<Long, String> keyset = Utils.decodeContinuationToken(Utils.encodeContinuationToken(0L, "pb:amritsar:42"));
+
+        assertEquals(Long.valueOf(0L), keyset.getLeft());
+        assertEquals("pb:amritsar:42", keyset.getRight());
+    }
+
+    @Test
+    public void testContinuationTokenIsUrlSafe() {
+        String token = Utils.encodeContinuationToken(Long.MAX_VALUE, "?>?>?>~~~");
+
+        assertFalse(token.contains("+"));
+        assertFalse(token.contains("/"));
+        assertFalse(token.contains("="));
+        assertEquals("?>?>?>~~~", Utils.decodeContinuationToken(token).getRight());
+    }
+
+    @Test
+    public void testDecodeRejectsInvalidBase64() {
+        assertInvalidToken("not a token!");
+    }
+
+    @Test
+    public void testDecodeRejectsKeysetWithoutSeparator() {
+        assertInvalidToken(encode("1588231800123"));
+    }
+
+    @Test
+    public void testDecodeRejectsKeysetWithoutSortKey() {
+        assertInvalidToken(encode(":c6f8ba21"));
+    }
+
+    @Test
+    public void testDecodeRejectsKeysetWithoutId() {
+        assertInvalidToken(encode("1588231800123:"));
+    }
+
+    @Test
+    public void testDecodeRejectsNonNumericSortKey() {
+        assertInvalidToken(encode("yesterday:c6f8ba21"));
+    }
+
+    @Test
+    public void testDecodeRejectsEmptyToken() {
+        assertInvalidToken("");
+    }
+
+    private static String encode(String keyset) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(keyset.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertInvalidToken(String token) {
+        try {
+            Utils.decodeContinuationToken(token);
+            fail("Token should have been rejected: " + token);
+        } catch (CustomException e) {
+            assertEquals("EGCL_INVALID_CONTINUATION_TOKEN", e.getCode());
+        }
+    }
+
+}
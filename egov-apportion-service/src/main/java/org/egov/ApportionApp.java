@@ -11,12 +11,14 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.TimeZone;
 
 @SpringBootApplication
 @ComponentScan(basePackages = { "org.egov", "org.egov.web.controllers" , "org.egov.config"})
 @Import({ TracerConfiguration.class })
+@EnableScheduling
 public class ApportionApp {
 
     @Value("${app.timezone}")
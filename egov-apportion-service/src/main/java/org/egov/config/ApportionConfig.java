@@ -52,6 +52,23 @@ public class ApportionConfig {
     @Value("${persister.save.demand.apportion.response.topic}")
     private String demandResponseTopic;
 
+    @Value("${persister.save.apportion.audit.topic}")
+    private String auditTopic;
+
+
+    //Audit of apportion
+    @Value("${egov.apportion.audit.diff.enabled}")
+    private Boolean auditDiffEnabled;
+
+    @Value("${egov.apportion.audit.batch.size}")
+    private Integer auditBatchSize;
+
+    @Value("${egov.apportion.audit.linger.ms}")
+    private Long auditLingerTime;
+
+    @Value("${egov.apportion.audit.queue.capacity}")
+    private Integer auditQueueCapacity;
+
     //MDMS
     @Value("${egov.mdms.host}")
     private String mdmsHost;
@@ -63,6 +80,29 @@ public class ApportionConfig {
     @Value("${egov.apportion.default.value.order}")
     private Boolean apportionByValueAndOrder;
 
+    //Parallel apportion of bills
+    @Value("${egov.apportion.parallel.pool.size}")
+    private Integer apportionPoolSize;
+
+    @Value("${egov.apportion.parallel.threshold}")
+    private Integer parallelApportionThreshold;
+
+    //MDMS snapshot cache
+    @Value("${egov.apportion.mdms.cache.refresh.interval.ms}")
+    private Long mdmsCacheRefreshInterval;
+
+    @Value("${egov.apportion.mdms.cache.expiry.ms}")
+    private Long mdmsCacheExpiry;
+
+    @Value("${egov.apportion.mdms.cache.idle.timeout.ms}")
+    private Long mdmsCacheIdleTimeout;
+
+    @Value("${egov.apportion.mdms.cache.size.max}")
+    private Integer mdmsCacheMaxSize;
+
+    @Value("${egov.apportion.mdms.cache.load.pool.size}")
+    private Integer mdmsCacheLoadPoolSize;
+
 
 
 
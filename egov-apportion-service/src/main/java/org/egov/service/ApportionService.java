@@ -21,16 +21,16 @@ public class ApportionService {
 
     private Producer producer;
     private ApportionConfig config;
-    private MDMSService mdmsService;
+    private MasterDataSnapshotCache masterDataSnapshotCache;
 
 
     @Autowired
     public ApportionService(List<Apportion> apportions,  Producer producer,
-                            ApportionConfig config, MDMSService mdmsService) {
+                            ApportionConfig config, MasterDataSnapshotCache masterDataSnapshotCache) {
         this.apportions = Collections.unmodifiableList(apportions);
         this.producer = producer;
         this.config = config;
-        this.mdmsService = mdmsService;
+        this.masterDataSnapshotCache = masterDataSnapshotCache;
         initialize();
     }
 
@@ -61,7 +61,7 @@ public class ApportionService {
         producer.push(config.getBillRequestTopic(), request);
 
         //Fetch the required MDMS data
-        Object masterData = mdmsService.mDMSCall(request.getRequestInfo(), request.getTenantId());
+        Object masterData = masterDataSnapshotCache.getMasterData(request.getRequestInfo(), request.getTenantId()).getMdmsData();
 
         for (Bill bill : bills) {
 
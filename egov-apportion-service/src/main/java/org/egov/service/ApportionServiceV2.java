@@ -4,9 +4,14 @@ import static org.egov.util.ApportionConstants.DEFAULT;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.PreDestroy;
 
 import org.egov.config.ApportionConfig;
-import org.egov.producer.Producer;
 import org.egov.web.models.*;
 import org.egov.web.models.enums.DemandApportionRequest;
 import org.egov.web.models.enums.Purpose;
@@ -21,24 +26,32 @@ public class ApportionServiceV2 {
     private final List<ApportionV2> apportions;
     private Map<String, ApportionV2> APPORTION_MAP = new HashMap<>();
 
-    private Producer producer;
+    private AuditService auditService;
     private ApportionConfig config;
-    private MDMSService mdmsService;
     private TranslationService translationService;
+    private MasterDataSnapshotCache masterDataSnapshotCache;
+
+    private ExecutorService apportionExecutor;
 
 
     @Autowired
-    public ApportionServiceV2(List<ApportionV2> apportions, Producer producer,
-                              ApportionConfig config, MDMSService mdmsService,
-                              TranslationService translationService) {
+    public ApportionServiceV2(List<ApportionV2> apportions, AuditService auditService,
+                              ApportionConfig config, TranslationService translationService,
+                              MasterDataSnapshotCache masterDataSnapshotCache) {
         this.apportions = Collections.unmodifiableList(apportions);
-        this.producer = producer;
+        this.auditService = auditService;
         this.config = config;
-        this.mdmsService = mdmsService;
         this.translationService = translationService;
+        this.masterDataSnapshotCache = masterDataSnapshotCache;
+        this.apportionExecutor = Executors.newFixedThreadPool(config.getApportionPoolSize());
         initialize();
     }
 
+    @PreDestroy
+    public void shutdown() {
+        apportionExecutor.shutdown();
+    }
+
     private void initialize() {
         if (Objects.isNull(apportions))
             throw new IllegalStateException("No Apportion found, spring initialization failed.");
@@ -60,49 +73,69 @@ public class ApportionServiceV2 {
      */
     public List<Bill> apportionBills(ApportionRequest request) {
         List<Bill> bills = request.getBills();
-        ApportionV2 apportion;
 
-        //Save the request through persister
-        producer.push(config.getBillRequestTopic(), request);
+        //Audit the request through persister
+        auditService.auditBillRequest(request);
 
         //Fetch the required MDMS data
-        Object masterData = mdmsService.mDMSCall(request.getRequestInfo(), request.getTenantId());
+        BillingMasterData masterData = masterDataSnapshotCache.getMasterData(request.getRequestInfo(), request.getTenantId());
 
-        for (Bill bill : bills) {
-        	
-            // Create a map of businessService to list of billDetails belonging to that businessService
-         //   Map<String, List<BillDetail>> businessServiceToBillDetails = util.groupByBusinessService(billInfo.getBillDetails());
+        /*
+         * Bills are independent of each other, so they are apportioned in parallel
+         * once the request has enough bills to make it worthwhile
+         */
+        if (bills.size() < config.getParallelApportionThreshold()) {
+            bills.forEach(bill -> apportionBill(bill, masterData));
+        } else {
+            CompletableFuture<?>[] futures = bills.stream()
+                    .map(bill -> CompletableFuture.runAsync(() -> apportionBill(bill, masterData), apportionExecutor))
+                    .toArray(CompletableFuture[]::new);
+            try {
+                CompletableFuture.allOf(futures).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                throw e;
+            }
+        }
 
-            bill.getBillDetails().sort(Comparator.comparing(BillDetail::getFromPeriod));
+        //Audit the response through persister
+        auditService.auditBillResponse(request);
+        return bills;
+    }
 
 
-            String businessKey = bill.getBusinessService();
-            BigDecimal amountPaid = bill.getAmountPaid();
+    /**
+     * Apportions the paid amount of a single bill among its billDetails
+     *
+     * @param bill The bill to be apportioned
+     * @param masterData The billing master data
+     */
+    private void apportionBill(Bill bill, BillingMasterData masterData) {
 
-            List<BillDetail> billDetails = bill.getBillDetails();
+        List<BillDetail> billDetails = bill.getBillDetails();
 
-            if (CollectionUtils.isEmpty(billDetails))
-                continue;
+        if (CollectionUtils.isEmpty(billDetails))
+            return;
 
-            // Get the appropriate implementation of Apportion
-            if (isApportionPresent(businessKey))
-                apportion = getApportion(businessKey);
-            else
-                apportion = getApportion(DEFAULT);
+        billDetails.sort(Comparator.comparing(BillDetail::getFromPeriod));
 
-            /*
-             * Apportion the paid amount among the given list of billDetail
-             */
+        String businessKey = bill.getBusinessService();
 
-            ApportionRequestV2 apportionRequestV2 = translationService.translate(bill);
-            List<TaxDetail> taxDetails = apportion.apportionPaidAmount(apportionRequestV2, masterData);
-            updateAdjustedAmountInBills(bill,taxDetails);
-            addAdvanceIfExistForBill(billDetails,taxDetails);
-        }
+        // Get the appropriate implementation of Apportion
+        ApportionV2 apportion;
+        if (isApportionPresent(businessKey))
+            apportion = getApportion(businessKey);
+        else
+            apportion = getApportion(DEFAULT);
 
-        //Save the response through persister
-        producer.push(config.getBillResponseTopic(), request);
-        return bills;
+        /*
+         * Apportion the paid amount among the given list of billDetail
+         */
+        ApportionRequestV2 apportionRequestV2 = translationService.translate(bill);
+        List<TaxDetail> taxDetails = apportion.apportionPaidAmount(apportionRequestV2, masterData);
+        updateAdjustedAmountInBills(bill,taxDetails);
+        addAdvanceIfExistForBill(billDetails,taxDetails);
     }
 
 
@@ -139,11 +172,11 @@ public class ApportionServiceV2 {
         List<Demand> demands = request.getDemands();
         ApportionV2 apportion;
 
-        //Save the request through persister
-        producer.push(config.getDemandRequestTopic(), request);
+        //Audit the request through persister
+        auditService.auditDemandRequest(request);
 
         //Fetch the required MDMS data
-        Object masterData = mdmsService.mDMSCall(request.getRequestInfo(), request.getTenantId());
+        BillingMasterData masterData = masterDataSnapshotCache.getMasterData(request.getRequestInfo(), request.getTenantId());
 
         demands.sort(Comparator.comparing(Demand::getTaxPeriodFrom));
 
@@ -167,8 +200,8 @@ public class ApportionServiceV2 {
 
 
 
-        //Save the response through persister
-        producer.push(config.getDemandResponseTopic(), request);
+        //Audit the response through persister
+        auditService.auditDemandResponse(request);
         return demands;
     }
 
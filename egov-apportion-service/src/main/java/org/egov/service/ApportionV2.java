@@ -2,6 +2,7 @@ package org.egov.service;
 
 import org.egov.web.models.ApportionRequestV2;
 import org.egov.web.models.Bill;
+import org.egov.web.models.BillingMasterData;
 import org.egov.web.models.BillDetail;
 import org.egov.web.models.TaxDetail;
 
@@ -17,6 +18,14 @@ public interface ApportionV2 {
 
 
 
-    List<TaxDetail> apportionPaidAmount(ApportionRequestV2 apportionRequestV2, Object masterData);
+    /**
+     * Apportions the paid amount among the taxDetails of the request
+     *
+     * Called concurrently for the bills of a request, implementations should keep no per call state
+     * @param apportionRequestV2 The translated bill or demands
+     * @param masterData The billing master data with the precomputed taxHead lookups
+     * @return The apportioned taxDetails
+     */
+    List<TaxDetail> apportionPaidAmount(ApportionRequestV2 apportionRequestV2, BillingMasterData masterData);
 
 }
@@ -0,0 +1,214 @@
+package org.egov.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.config.ApportionConfig;
+import org.egov.producer.Producer;
+import org.egov.web.models.*;
+import org.egov.web.models.enums.DemandApportionRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persists the audit of apportion requests
+ *
+ * In full mode the complete request and response are pushed to the persister as before.
+ * In diff mode only the adjusted amounts of every billDetail or demand are recorded; the
+ * records are queued and pushed in batches from a background thread once per linger window
+ * (or earlier when a batch fills up), so apportion never waits on kafka. If the queue is
+ * full the audit is dropped and logged instead of blocking the payment.
+ */
+@Slf4j
+@Service
+public class AuditService {
+
+    public static final String ENTITY_TYPE_BILL = "BILL";
+
+    public static final String ENTITY_TYPE_DEMAND = "DEMAND";
+
+
+    private Producer producer;
+
+    private ApportionConfig config;
+
+    private final BlockingQueue<ApportionAudit> auditQueue;
+
+    private final ScheduledExecutorService auditExecutor;
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final AtomicLong droppedAudits = new AtomicLong();
+
+
+    @Autowired
+    public AuditService(Producer producer, ApportionConfig config) {
+        this.producer = producer;
+        this.config = config;
+        this.auditQueue = new ArrayBlockingQueue<>(config.getAuditQueueCapacity());
+        this.auditExecutor = Executors.newSingleThreadScheduledExecutor();
+        if (config.getAuditDiffEnabled())
+            auditExecutor.scheduleWithFixedDelay(this::flush, config.getAuditLingerTime(),
+                    config.getAuditLingerTime(), TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * Audits the bill apportion request before apportioning
+     *
+     * @param request The apportion request
+     */
+    public void auditBillRequest(ApportionRequest request) {
+        if (!config.getAuditDiffEnabled())
+            producer.push(config.getBillRequestTopic(), request);
+    }
+
+    /**
+     * Audits the bill apportion request after apportioning
+     *
+     * @param request The apportioned request
+     */
+    public void auditBillResponse(ApportionRequest request) {
+        if (!config.getAuditDiffEnabled()) {
+            producer.push(config.getBillResponseTopic(), request);
+            return;
+        }
+
+        String createdBy = getUserUuid(request.getRequestInfo());
+        long createdTime = System.currentTimeMillis();
+
+        for (Bill bill : request.getBills()) {
+            if (CollectionUtils.isEmpty(bill.getBillDetails()))
+                continue;
+
+            for (BillDetail billDetail : bill.getBillDetails()) {
+                Map<String, BigDecimal> adjustedAmounts = new LinkedHashMap<>();
+                if (!CollectionUtils.isEmpty(billDetail.getBillAccountDetails()))
+                    billDetail.getBillAccountDetails().forEach(billAccountDetail ->
+                            adjustedAmounts.put(billAccountDetail.getId(), billAccountDetail.getAdjustedAmount()));
+
+                enqueue(ApportionAudit.builder()
+                        .tenantId(bill.getTenantId())
+                        .entityType(ENTITY_TYPE_BILL)
+                        .entityId(bill.getId())
+                        .detailId(billDetail.getId())
+                        .businessService(bill.getBusinessService())
+                        .consumerCode(bill.getConsumerCode())
+                        .amountPaid(billDetail.getAmountPaid())
+                        .adjustedAmounts(adjustedAmounts)
+                        .createdBy(createdBy)
+                        .createdTime(createdTime)
+                        .build());
+            }
+        }
+    }
+
+    /**
+     * Audits the demand apportion request before apportioning
+     *
+     * @param request The apportion request
+     */
+    public void auditDemandRequest(DemandApportionRequest request) {
+        if (!config.getAuditDiffEnabled())
+            producer.push(config.getDemandRequestTopic(), request);
+    }
+
+    /**
+     * Audits the demand apportion request after apportioning
+     *
+     * @param request The apportioned request
+     */
+    public void auditDemandResponse(DemandApportionRequest request) {
+        if (!config.getAuditDiffEnabled()) {
+            producer.push(config.getDemandResponseTopic(), request);
+            return;
+        }
+
+        String createdBy = getUserUuid(request.getRequestInfo());
+        long createdTime = System.currentTimeMillis();
+
+        for (Demand demand : request.getDemands()) {
+            Map<String, BigDecimal> adjustedAmounts = new LinkedHashMap<>();
+            demand.getDemandDetails().forEach(demandDetail ->
+                    adjustedAmounts.put(demandDetail.getId(), demandDetail.getCollectionAmount()));
+
+            enqueue(ApportionAudit.builder()
+                    .tenantId(demand.getTenantId())
+                    .entityType(ENTITY_TYPE_DEMAND)
+                    .entityId(demand.getId())
+                    .businessService(demand.getBusinessService())
+                    .consumerCode(demand.getConsumerCode())
+                    .adjustedAmounts(adjustedAmounts)
+                    .createdBy(createdBy)
+                    .createdTime(createdTime)
+                    .build());
+        }
+    }
+
+
+    /**
+     * Pushes the queued audits in batches of the configured size
+     */
+    void flush() {
+        try {
+            List<ApportionAudit> batch = new ArrayList<>(config.getAuditBatchSize());
+            while (auditQueue.drainTo(batch, config.getAuditBatchSize()) > 0) {
+                producer.push(config.getAuditTopic(), new ApportionAuditRequest(batch));
+                batch = new ArrayList<>(config.getAuditBatchSize());
+            }
+        } catch (Exception e) {
+            // the executor stops scheduling a task that throws, so failures are only logged
+            log.error("Failed to push apportion audits", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        auditExecutor.shutdown();
+        try {
+            auditExecutor.awaitTermination(config.getAuditLingerTime() * 2, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+
+    private void enqueue(ApportionAudit audit) {
+        if (auditQueue.offer(audit)) {
+            if (auditQueue.size() >= config.getAuditBatchSize() && !auditExecutor.isShutdown()
+                    && flushRequested.compareAndSet(false, true)) {
+                auditExecutor.execute(() -> {
+                    flushRequested.set(false);
+                    flush();
+                });
+            }
+            return;
+        }
+
+        long dropped = droppedAudits.incrementAndGet();
+        log.error("Apportion audit queue full, dropped audit of {}: {}, total dropped: {}",
+                audit.getEntityType(), audit.getEntityId(), dropped);
+    }
+
+    private String getUserUuid(RequestInfo requestInfo) {
+        if (requestInfo == null || requestInfo.getUserInfo() == null)
+            return null;
+        return requestInfo.getUserInfo().getUuid();
+    }
+
+}
@@ -0,0 +1,218 @@
+package org.egov.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.config.ApportionConfig;
+import org.egov.tracer.model.CustomException;
+import org.egov.web.models.BillingMasterData;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Per tenant snapshot of the billing master data with the taxHead lookups precomputed
+ *
+ * Snapshots are refreshed in the background, so requests are served from memory and
+ * only the first request of a tenant (or one after eviction) waits for MDMS. If a refresh
+ * or the reload of an expired snapshot fails, the last loaded snapshot keeps being served.
+ * Background refreshes are made with a system RequestInfo, never with the one of a request.
+ */
+@Slf4j
+@Service
+public class MasterDataSnapshotCache {
+
+    private MDMSService mdmsService;
+
+    private TaxHeadMasterService taxHeadMasterService;
+
+    private ApportionConfig config;
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    private ExecutorService loadExecutor;
+
+
+    @Autowired
+    public MasterDataSnapshotCache(MDMSService mdmsService, TaxHeadMasterService taxHeadMasterService, ApportionConfig config) {
+        this.mdmsService = mdmsService;
+        this.taxHeadMasterService = taxHeadMasterService;
+        this.config = config;
+        this.loadExecutor = Executors.newFixedThreadPool(config.getMdmsCacheLoadPoolSize());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loadExecutor.shutdown();
+    }
+
+
+    /**
+     * Returns the billing master data of the tenant, loading it from MDMS if no valid snapshot exists
+     *
+     * Concurrent requests for a tenant without a snapshot share a single MDMS call
+     *
+     * @param requestInfo The requestInfo of the apportion request
+     * @param tenantId The tenantId of the request
+     * @return The billing master data of the tenant
+     */
+    public BillingMasterData getMasterData(RequestInfo requestInfo, String tenantId) {
+
+        long now = System.currentTimeMillis();
+        Snapshot snapshot = snapshots.compute(tenantId, (key, existing) -> {
+            if (existing != null && !existing.isExpired(now))
+                return existing;
+            long version = existing == null ? 0 : existing.version;
+            return new Snapshot(version, CompletableFuture.supplyAsync(() -> load(requestInfo, tenantId, version), loadExecutor),
+                    existing == null ? null : existing.lastLoaded(), now);
+        });
+        snapshot.lastAccessTime = now;
+
+        try {
+            return snapshot.masterData.join();
+        } catch (CompletionException e) {
+            if (snapshot.previous != null) {
+                // the last loaded data is served again and counts as loaded now, the refresh retries the load
+                log.error("Failed to reload billing master data of tenantId: " + tenantId + ", serving version: "
+                        + snapshot.previous.getVersion(), e.getCause());
+                Snapshot kept = new Snapshot(snapshot.previous.getVersion(), CompletableFuture.completedFuture(snapshot.previous),
+                        null, now);
+                kept.lastAccessTime = now;
+                snapshots.replace(tenantId, snapshot, kept);
+                return snapshot.previous;
+            }
+            // failed first loads are not cached, the next request retries
+            snapshots.remove(tenantId, snapshot);
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new CustomException("MDMS FETCH FAILED", "Failed to fetch billing master data for tenantId: " + tenantId);
+        }
+    }
+
+
+    /**
+     * Refreshes the snapshots due for refresh and evicts the ones not used within the idle timeout
+     */
+    @Scheduled(fixedDelayString = "${egov.apportion.mdms.cache.refresh.interval.ms}",
+            initialDelayString = "${egov.apportion.mdms.cache.refresh.interval.ms}")
+    public void refresh() {
+
+        long now = System.currentTimeMillis();
+        snapshots.entrySet().removeIf(entry -> now - entry.getValue().lastAccessTime > config.getMdmsCacheIdleTimeout());
+
+        snapshots.forEach((tenantId, snapshot) -> {
+            if (!snapshot.masterData.isDone() || snapshot.masterData.isCompletedExceptionally()
+                    || now - snapshot.loadedTime < config.getMdmsCacheRefreshInterval())
+                return;
+
+            BillingMasterData current = snapshot.masterData.join();
+
+            try {
+                BillingMasterData refreshed = load(new RequestInfo(), tenantId, current.getVersion());
+                if (Objects.equals(refreshed.getMdmsData(), current.getMdmsData()))
+                    refreshed = current;
+                else
+                    log.info("Billing master data of tenantId: {} updated to version: {}", tenantId, refreshed.getVersion());
+
+                Snapshot updated = new Snapshot(refreshed.getVersion(), CompletableFuture.completedFuture(refreshed), null, now);
+                updated.lastAccessTime = snapshot.lastAccessTime;
+                snapshots.replace(tenantId, snapshot, updated);
+            } catch (Exception e) {
+                log.error("Failed to refresh billing master data of tenantId: " + tenantId + ", serving version: "
+                        + current.getVersion(), e);
+            }
+        });
+
+        evictIfFull();
+    }
+
+
+    /**
+     * Evicts the snapshot of the given tenant, or of all tenants if tenantId is null
+     *
+     * @param tenantId The tenantId to be evicted
+     */
+    public void evict(String tenantId) {
+        if (tenantId == null)
+            snapshots.clear();
+        else
+            snapshots.remove(tenantId);
+    }
+
+
+    /**
+     * Evicts the least recently used snapshots once the cache grows beyond the configured size
+     */
+    private void evictIfFull() {
+        int excess = snapshots.size() - config.getMdmsCacheMaxSize();
+        if (excess <= 0)
+            return;
+
+        snapshots.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastAccessTime))
+                .limit(excess)
+                .map(Map.Entry::getKey)
+                .forEach(snapshots::remove);
+    }
+
+
+    /**
+     * Fetches the billing master data from MDMS and compiles the taxHead lookups
+     */
+    private BillingMasterData load(RequestInfo requestInfo, String tenantId, long previousVersion) {
+        Object mdmsData = mdmsService.mDMSCall(requestInfo, tenantId);
+        if (mdmsData == null)
+            throw new CustomException("MDMS FETCH FAILED", "Failed to fetch billing master data for tenantId: " + tenantId);
+
+        return taxHeadMasterService.getBillingMasterData(mdmsData).toBuilder()
+                .tenantId(tenantId)
+                .version(previousVersion + 1)
+                .build();
+    }
+
+
+    private class Snapshot {
+
+        private final long version;
+
+        private final CompletableFuture<BillingMasterData> masterData;
+
+        // data of the snapshot replaced by this one while it loads, served if the load fails
+        private final BillingMasterData previous;
+
+        private final long loadedTime;
+
+        private volatile long lastAccessTime;
+
+        private Snapshot(long version, CompletableFuture<BillingMasterData> masterData, BillingMasterData previous, long loadedTime) {
+            this.version = version;
+            this.masterData = masterData;
+            this.previous = previous;
+            this.loadedTime = loadedTime;
+            this.lastAccessTime = loadedTime;
+        }
+
+        /**
+         * The data of this snapshot if it loaded, else the data it was to replace
+         */
+        private BillingMasterData lastLoaded() {
+            if (masterData.isDone() && !masterData.isCompletedExceptionally())
+                return masterData.join();
+            return previous;
+        }
+
+        private boolean isExpired(long now) {
+            return now - loadedTime > config.getMdmsCacheExpiry();
+        }
+    }
+
+}
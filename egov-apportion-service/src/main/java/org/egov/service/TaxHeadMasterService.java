@@ -1,10 +1,13 @@
 package org.egov.service;
 
 import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
 import org.egov.tracer.model.CustomException;
+import org.egov.web.models.BillingMasterData;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -84,4 +87,112 @@ public class TaxHeadMasterService {
    }
 
 
+
+    /**
+     * Precomputes the taxHead lookups of all the businessServices from the MDMS data
+     * so that the apportioning of the bills does not evaluate JsonPath filters per bill
+     * @param mdmsData The master data received from MDMS Service
+     * @return BillingMasterData with the lookups
+     */
+   public BillingMasterData getBillingMasterData(Object mdmsData){
+
+       List<Map<String,Object>> taxHeads = readList(mdmsData, TAXHEAD_LIST_JSONPATH);
+       List<Map<String,Object>> businessServices = readList(mdmsData, BUSINESSSERVICE_LIST_JSONPATH);
+
+       Map<String,Map<String,Integer>> codeToOrderMaps = new HashMap<>();
+       Map<String,String> advanceTaxHeads = new HashMap<>();
+
+       taxHeads.forEach(taxHead -> {
+           Object service = taxHead.get(MDMS_SERVICE_KEY);
+           Object code = taxHead.get(MDMS_TAXHEADCODE_KEY);
+           Object order = taxHead.get(MDMS_ORDER_KEY);
+           if(service == null || code == null)
+               return;
+
+           Map<String,Integer> codeToOrderMap = codeToOrderMaps.computeIfAbsent(service.toString(), k -> new HashMap<>());
+           if(order != null)
+               codeToOrderMap.put(code.toString(), Integer.valueOf(order.toString()));
+
+           if(ADVANCE_COLLECTION_CATEGORY.equals(taxHead.get(MDMS_CATEGORY_KEY)))
+               advanceTaxHeads.putIfAbsent(service.toString(), code.toString());
+       });
+
+       Map<String,Boolean> advanceAllowedFlags = new HashMap<>();
+       businessServices.forEach(businessService -> {
+           Object code = businessService.get(MDMS_TAXHEADCODE_KEY);
+           Object isAdvanceAllowed = businessService.get(MDMS_ADVANCE_ALLOWED_KEY);
+           if(code != null && isAdvanceAllowed != null)
+               advanceAllowedFlags.putIfAbsent(code.toString(), Boolean.valueOf(isAdvanceAllowed.toString()));
+       });
+
+       return BillingMasterData.builder().mdmsData(mdmsData)
+               .codeToOrderMaps(Collections.unmodifiableMap(codeToOrderMaps))
+               .advanceTaxHeads(Collections.unmodifiableMap(advanceTaxHeads))
+               .advanceAllowedFlags(Collections.unmodifiableMap(advanceAllowedFlags))
+               .build();
+   }
+
+
+    /**
+     * Fetches the advance amount taxHead for the given businessService from the precomputed lookup
+     * @param businessService The businessService for which taxhead is to be fetched
+     * @param masterData The precomputed master data
+     * @return The code of the TaxHead
+     */
+   public String getAdvanceTaxHead(String businessService,BillingMasterData masterData){
+
+       String taxHead = masterData.getAdvanceTaxHeads().get(businessService);
+
+       if(taxHead == null)
+           throw new CustomException("NO TAXHEAD FOUND","No Advance taxHead found for businessService: "+businessService);
+
+       return taxHead;
+   }
+
+
+    /**
+     * Returns the map of taxHeadCode to priority for taxHeads of given businessService from the precomputed lookup
+     * @param businessService
+     * @param masterData
+     * @return
+     */
+   public Map<String,Integer> getCodeToOrderMap(String businessService,BillingMasterData masterData){
+
+       Map<String,Integer> codeToOrderMap = masterData.getCodeToOrderMaps().get(businessService);
+
+       if(CollectionUtils.isEmpty(codeToOrderMap))
+           throw new CustomException("NO TAXHEAD FOUND","No taxHeads found for businessService: "+businessService);
+
+       return codeToOrderMap;
+   }
+
+
+    /**
+     * Returns the isAdvanceAllowed flag for the given businessService from the precomputed lookup
+     * @param businessService BusinessService for which advance flag has to be returned
+     * @param masterData The precomputed master data
+     * @return boolean flag indicating whether advance payment is allowed for the given businessService
+     */
+   public Boolean isAdvanceAllowed(String businessService, BillingMasterData masterData){
+
+       Boolean isAdvanceAllowed = masterData.getAdvanceAllowedFlags().get(businessService);
+
+       if(isAdvanceAllowed == null)
+           throw new CustomException("NO BUSINESSSERVICE FOUND","No businessService or isAdvanceAllowed flag found for code: "+businessService);
+
+       return isAdvanceAllowed;
+   }
+
+
+   private List<Map<String,Object>> readList(Object mdmsData, String jsonpath){
+
+       try {
+           List<Map<String,Object>> values = JsonPath.read(mdmsData,jsonpath);
+           return values == null ? Collections.emptyList() : values;
+       } catch (PathNotFoundException e) {
+           return Collections.emptyList();
+       }
+   }
+
+
 }
@@ -61,7 +61,7 @@ public class TranslationService {
 
 
 
-    public ApportionRequestV2 translate(List<Demand> demands,Object mdmsData) {
+    public ApportionRequestV2 translate(List<Demand> demands,BillingMasterData mdmsData) {
 
         // Group by businessService before calling this function
         String businessService = demands.get(0).getBusinessService();
@@ -5,6 +5,7 @@ import org.egov.service.ApportionV2;
 import org.egov.service.TaxHeadMasterService;
 import org.egov.tracer.model.CustomException;
 import org.egov.web.models.ApportionRequestV2;
+import org.egov.web.models.BillingMasterData;
 import org.egov.web.models.Bucket;
 import org.egov.web.models.TaxDetail;
 import org.egov.web.models.enums.Purpose;
@@ -12,6 +13,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
@@ -22,6 +24,11 @@ import static org.egov.util.ApportionConstants.DEFAULT;
 @Service
 public class OrderByPriority implements ApportionV2 {
 
+    /*
+     * amounts are apportioned in paise
+     */
+    private static final int MINOR_UNIT_SCALE = 2;
+
 
     private TaxHeadMasterService taxHeadMasterService;
 
@@ -41,12 +48,10 @@ public class OrderByPriority implements ApportionV2 {
     }
 
     @Override
-    public List<TaxDetail> apportionPaidAmount(ApportionRequestV2 apportionRequestV2, Object masterData) {
+    public List<TaxDetail> apportionPaidAmount(ApportionRequestV2 apportionRequestV2, BillingMasterData masterData) {
         List<TaxDetail> taxDetails = apportionRequestV2.getTaxDetails();
         taxDetails.sort(Comparator.comparing(TaxDetail::getFromPeriod));
         BigDecimal remainingAmount = apportionRequestV2.getAmountPaid();
-        BigDecimal amount;
-        Boolean isAmountPositive;
 
         /*
         * If zero amount payment is done and the total amount of bill or demands is zero. We will
@@ -66,6 +71,94 @@ public class OrderByPriority implements ApportionV2 {
         if(!config.getApportionByValueAndOrder())
             validateOrder(taxDetails);
 
+        remainingAmount = apportion(taxDetails, remainingAmount);
+
+
+        //If advance amount is available
+        if(remainingAmount.compareTo(BigDecimal.ZERO)>0){
+            addAdvanceBillAccountDetail(remainingAmount,apportionRequestV2,masterData);
+        }
+
+
+        return taxDetails;
+    }
+
+
+
+    /**
+     * Apportions the amount over the buckets of the taxDetails in order of period, then amount and priority
+     *
+     * The arithmetic is done on long minor units (paise), BigDecimal is used only when an amount
+     * is not representable in minor units
+     * @param taxDetails TaxDetails sorted by period
+     * @param remainingAmount The amount to be apportioned
+     * @return The amount remaining after apportioning
+     */
+    BigDecimal apportion(List<TaxDetail> taxDetails, BigDecimal remainingAmount){
+
+        MinorUnitTaxDetail[] minorUnitTaxDetails = toMinorUnits(taxDetails);
+        Long remainingInMinorUnit = toMinorUnit(remainingAmount);
+        if(minorUnitTaxDetails == null || remainingInMinorUnit == null)
+            return apportionInDecimal(taxDetails, remainingAmount);
+
+        long remaining = remainingInMinorUnit;
+        long amountBeforeApportion = remaining;
+        int scale = remainingAmount.scale();
+
+        for (MinorUnitTaxDetail minorUnitTaxDetail : minorUnitTaxDetails){
+
+            TaxDetail taxDetail = minorUnitTaxDetail.taxDetail;
+
+            if(remaining == 0){
+                taxDetail.setAmountPaid(BigDecimal.ZERO);
+                continue;
+            }
+
+            minorUnitTaxDetail.sortBuckets(config.getApportionByValueAndOrder());
+
+            for(MinorUnitBucket minorUnitBucket : minorUnitTaxDetail.buckets) {
+
+                Bucket bucket = minorUnitBucket.bucket;
+                long amount = minorUnitBucket.amount - minorUnitBucket.adjustedAmount;
+
+                if (amount >= 0) {
+
+                    if (remaining == 0)
+                        continue;
+
+                    long adjusted = Math.min(remaining, amount);
+                    bucket.setAdjustedAmount(fromMinorUnit(minorUnitBucket.adjustedAmount + adjusted, minorUnitBucket.scale));
+                    remaining -= adjusted;
+                }
+                else {
+                    // FIX ME
+                    // advance should be checked from purpose
+                    if(!bucket.getTaxHeadCode().contains("ADVANCE")) {
+                        bucket.setAdjustedAmount(fromMinorUnit(amount, minorUnitBucket.scale));
+                        remaining -= amount;
+                    }
+                }
+            }
+
+            if(taxDetail.getAmountPaid()==null)
+                taxDetail.setAmountPaid(BigDecimal.ZERO);
+
+            taxDetail.setAmountPaid(taxDetail.getAmountPaid().add(fromMinorUnit(amountBeforeApportion - remaining, scale)));
+            amountBeforeApportion = remaining;
+        }
+
+        return fromMinorUnit(remaining, scale);
+    }
+
+
+    /**
+     * BigDecimal variant of the apportioning, used when the amounts have more than two decimals,
+     * the tests check the minor unit arithmetic against it
+     */
+    BigDecimal apportionInDecimal(List<TaxDetail> taxDetails, BigDecimal remainingAmount){
+
+        BigDecimal amount;
+        Boolean isAmountPositive;
         BigDecimal amountBeforeApportion = remainingAmount;
 
         for (TaxDetail taxDetail : taxDetails){
@@ -120,17 +213,111 @@ public class OrderByPriority implements ApportionV2 {
             amountBeforeApportion = remainingAmount;
         }
 
+        return remainingAmount;
+    }
 
-        //If advance amount is available
-        if(remainingAmount.compareTo(BigDecimal.ZERO)>0){
-            addAdvanceBillAccountDetail(remainingAmount,apportionRequestV2,masterData);
+
+    /**
+     * Converts the buckets of the taxDetails to minor units, returns null if any amount cannot be converted
+     */
+    private MinorUnitTaxDetail[] toMinorUnits(List<TaxDetail> taxDetails){
+
+        MinorUnitTaxDetail[] minorUnitTaxDetails = new MinorUnitTaxDetail[taxDetails.size()];
+
+        for(int i = 0; i < taxDetails.size(); i++){
+
+            TaxDetail taxDetail = taxDetails.get(i);
+            List<Bucket> buckets = taxDetail.getBuckets();
+            MinorUnitBucket[] minorUnitBuckets = new MinorUnitBucket[buckets.size()];
+
+            for(int j = 0; j < buckets.size(); j++){
+                Bucket bucket = buckets.get(j);
+                Long amount = toMinorUnit(bucket.getAmount());
+                Long adjustedAmount = toMinorUnit(bucket.getAdjustedAmount());
+                if(amount == null || adjustedAmount == null)
+                    return null;
+                minorUnitBuckets[j] = new MinorUnitBucket(bucket, amount, adjustedAmount);
+            }
+            minorUnitTaxDetails[i] = new MinorUnitTaxDetail(taxDetail, minorUnitBuckets);
         }
+        return minorUnitTaxDetails;
+    }
 
 
-        return taxDetails;
+    /*
+     * returns null if the amount has more than two decimals or does not fit in a long
+     */
+    private static Long toMinorUnit(BigDecimal amount){
+
+        if(amount == null)
+            return null;
+        try {
+            return amount.movePointRight(MINOR_UNIT_SCALE).longValueExact();
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    /*
+     * sets the scale of the amount the value was derived from, as the decimal arithmetic would,
+     * keeping the two decimals where that scale cannot hold the value exactly
+     */
+    private static BigDecimal fromMinorUnit(long amount, int scale){
+        BigDecimal value = BigDecimal.valueOf(amount, MINOR_UNIT_SCALE);
+        try {
+            return value.setScale(scale);
+        } catch (ArithmeticException e) {
+            return value;
+        }
+    }
+
+
+    private static class MinorUnitBucket {
+
+        private final Bucket bucket;
+        private final long amount;
+        private final long adjustedAmount;
+        private final int priority;
+        private final int scale;
+
+        private MinorUnitBucket(Bucket bucket, long amount, long adjustedAmount) {
+            this.bucket = bucket;
+            this.amount = amount;
+            this.adjustedAmount = adjustedAmount;
+            this.priority = bucket.getPriority() == null ? Integer.MAX_VALUE : bucket.getPriority();
+            this.scale = Math.max(bucket.getAmount().scale(), bucket.getAdjustedAmount().scale());
+        }
     }
 
 
+    private static class MinorUnitTaxDetail {
+
+        private final TaxDetail taxDetail;
+        private final MinorUnitBucket[] buckets;
+
+        private MinorUnitTaxDetail(TaxDetail taxDetail, MinorUnitBucket[] buckets) {
+            this.taxDetail = taxDetail;
+            this.buckets = buckets;
+        }
+
+        /*
+         * sorts on the primitive amounts and reflects the order back in the taxDetail buckets
+         */
+        private void sortBuckets(boolean byValueAndOrder){
+
+            Comparator<MinorUnitBucket> comparator = byValueAndOrder
+                    ? BY_AMOUNT.thenComparingInt(minorUnitBucket -> minorUnitBucket.priority)
+                    : BY_AMOUNT;
+            Arrays.sort(buckets, comparator);
+
+            List<Bucket> taxDetailBuckets = taxDetail.getBuckets();
+            for(int i = 0; i < buckets.length; i++)
+                taxDetailBuckets.set(i, buckets[i].bucket);
+        }
+
+        private static final Comparator<MinorUnitBucket> BY_AMOUNT = Comparator.comparingLong(minorUnitBucket -> minorUnitBucket.amount);
+    }
+
 
     /**
      * Creates a advance BillAccountDetail and adds it to the latest billDetail
@@ -138,7 +325,7 @@ public class OrderByPriority implements ApportionV2 {
      * @param apportionRequestV2 The bill for which apportioning is done
      * @param masterData The required masterData for the TaxHeads
      */
-    private void addAdvanceBillAccountDetail(BigDecimal advanceAmount, ApportionRequestV2 apportionRequestV2, Object masterData){
+    private void addAdvanceBillAccountDetail(BigDecimal advanceAmount, ApportionRequestV2 apportionRequestV2, BillingMasterData masterData){
         List<TaxDetail> taxDetails = apportionRequestV2.getTaxDetails();
         String taxHead = taxHeadMasterService.getAdvanceTaxHead(apportionRequestV2.getBusinessService(),masterData);
 
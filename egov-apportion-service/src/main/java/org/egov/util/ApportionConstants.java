@@ -23,6 +23,18 @@ public class ApportionConstants {
 
     public static final String MDMS_TAXHEADCODE_KEY  = "code";
 
+    public static final String MDMS_SERVICE_KEY  = "service";
+
+    public static final String MDMS_CATEGORY_KEY  = "category";
+
+    public static final String MDMS_ADVANCE_ALLOWED_KEY  = "isAdvanceAllowed";
+
+    public static final String ADVANCE_COLLECTION_CATEGORY  = "ADVANCE_COLLECTION";
+
+    public static final String TAXHEAD_LIST_JSONPATH = "$.MdmsRes.BillingService.TaxHeadMaster";
+
+    public static final String BUSINESSSERVICE_LIST_JSONPATH = "$.MdmsRes.BillingService.BusinessService";
+
 
     public ApportionConstants() {
     }
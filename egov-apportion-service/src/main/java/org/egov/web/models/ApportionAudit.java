@@ -0,0 +1,64 @@
+package org.egov.web.models;
+
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Compact audit of an apportion, holds only the adjusted amounts of one billDetail or demand
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApportionAudit {
+
+    @JsonProperty("tenantId")
+    private String tenantId;
+
+    /*
+     * BILL or DEMAND
+     */
+    @JsonProperty("entityType")
+    private String entityType;
+
+    /*
+     * Id of the bill or demand
+     */
+    @JsonProperty("entityId")
+    private String entityId;
+
+    /*
+     * Id of the billDetail, null for demands
+     */
+    @JsonProperty("detailId")
+    private String detailId;
+
+    @JsonProperty("businessService")
+    private String businessService;
+
+    @JsonProperty("consumerCode")
+    private String consumerCode;
+
+    @JsonProperty("amountPaid")
+    private BigDecimal amountPaid;
+
+    /*
+     * Id of the billAccountDetail or demandDetail to its adjusted amount
+     */
+    @JsonProperty("adjustedAmounts")
+    private Map<String, BigDecimal> adjustedAmounts;
+
+    @JsonProperty("createdBy")
+    private String createdBy;
+
+    @JsonProperty("createdTime")
+    private Long createdTime;
+
+}
@@ -0,0 +1,24 @@
+package org.egov.web.models;
+
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Batch of apportion audits pushed to the persister
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApportionAuditRequest {
+
+    @JsonProperty("Audits")
+    private List<ApportionAudit> audits;
+
+}
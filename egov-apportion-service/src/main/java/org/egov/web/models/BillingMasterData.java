@@ -0,0 +1,48 @@
+package org.egov.web.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Billing master data with the taxHead lookups precomputed per businessService
+ *
+ * Built once from the MDMS response and shared across the bills of a request,
+ * instances must not be modified
+ */
+@Getter
+@Builder(toBuilder = true)
+@AllArgsConstructor
+public class BillingMasterData {
+
+    private String tenantId;
+
+    /*
+     * Incremented every time the master data of the tenant changes in MDMS
+     */
+    private long version;
+
+    private Object mdmsData;
+
+    /*
+     * businessService to map of taxHeadCode to order
+     */
+    @Builder.Default
+    private Map<String, Map<String, Integer>> codeToOrderMaps = Collections.emptyMap();
+
+    /*
+     * businessService to advance taxHead code
+     */
+    @Builder.Default
+    private Map<String, String> advanceTaxHeads = Collections.emptyMap();
+
+    /*
+     * businessService to isAdvanceAllowed flag
+     */
+    @Builder.Default
+    private Map<String, Boolean> advanceAllowedFlags = Collections.emptyMap();
+
+}
@@ -0,0 +1,14 @@
+CREATE TABLE eg_appr_audit(
+tenantId character varying(128),
+entityType character varying(64),
+entityId character varying(128),
+detailId character varying(128),
+businessService character varying(256),
+consumerCode character varying(256),
+amountPaid numeric(12,2),
+adjustedAmounts JSONB,
+createdBy character varying(64),
+createdTime bigint
+);
+
+CREATE INDEX IF NOT EXISTS idx_eg_appr_audit_entityid ON eg_appr_audit(entityId);
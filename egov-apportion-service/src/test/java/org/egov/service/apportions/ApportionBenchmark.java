@@ -0,0 +1,153 @@
+package org.egov.service.apportions;
+
+import org.egov.config.ApportionConfig;
+import org.egov.service.TaxHeadMasterService;
+import org.egov.web.models.ApportionRequestV2;
+import org.egov.web.models.BillingMasterData;
+import org.egov.web.models.Bucket;
+import org.egov.web.models.TaxDetail;
+import org.egov.web.models.enums.Category;
+import org.egov.web.models.enums.Purpose;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the apportion of requests with 1, 100 and 10k bills in minor units against the
+ * BigDecimal apportioning as baseline, both on the same bills on a single thread
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.egov.service.apportions.ApportionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApportionBenchmark {
+
+    private static final String BUSINESS_SERVICE = "PT";
+
+    private static final String[] TAX_HEADS = {"PT_TAX", "PT_FIRE_CESS", "PT_CANCER_CESS", "PT_TIME_PENALTY", "PT_TIME_INTEREST"};
+
+    private static final int BILL_DETAILS_PER_BILL = 4;
+
+    @Param({"1", "100", "10000"})
+    private int billCount;
+
+    private OrderByPriority orderByPriority;
+
+    private BillingMasterData masterData;
+
+    private List<ApportionRequestV2> requests;
+
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        ApportionConfig config = new ApportionConfig();
+        config.setApportionByValueAndOrder(true);
+        orderByPriority = new OrderByPriority(new TaxHeadMasterService(), config);
+
+        Map<String, Integer> codeToOrder = new HashMap<>();
+        for (int i = 0; i < TAX_HEADS.length; i++)
+            codeToOrder.put(TAX_HEADS[i], i);
+
+        masterData = BillingMasterData.builder()
+                .codeToOrderMaps(Collections.singletonMap(BUSINESS_SERVICE, codeToOrder))
+                .advanceTaxHeads(Collections.singletonMap(BUSINESS_SERVICE, "PT_ADVANCE_CARRYFORWARD"))
+                .advanceAllowedFlags(Collections.singletonMap(BUSINESS_SERVICE, false))
+                .build();
+    }
+
+    /*
+     * Apportion updates the request in place, so fresh requests are built for every invocation
+     */
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        requests = new ArrayList<>(billCount);
+        for (int i = 0; i < billCount; i++)
+            requests.add(createRequest(i));
+    }
+
+    @Benchmark
+    public void apportionPaidAmount(Blackhole blackhole) {
+        for (ApportionRequestV2 request : requests)
+            blackhole.consume(orderByPriority.apportionPaidAmount(request, masterData));
+    }
+
+    /*
+     * The taxDetails of the requests are built in period order, as apportion expects
+     */
+    @Benchmark
+    public void apportionInMinorUnits(Blackhole blackhole) {
+        for (ApportionRequestV2 request : requests)
+            blackhole.consume(orderByPriority.apportion(request.getTaxDetails(), request.getAmountPaid()));
+    }
+
+    @Benchmark
+    public void apportionInDecimalBaseline(Blackhole blackhole) {
+        for (ApportionRequestV2 request : requests)
+            blackhole.consume(orderByPriority.apportionInDecimal(request.getTaxDetails(), request.getAmountPaid()));
+    }
+
+
+    private ApportionRequestV2 createRequest(int index) {
+        ApportionRequestV2 request = ApportionRequestV2.builder()
+                .businessService(BUSINESS_SERVICE)
+                .isAdvanceAllowed(false)
+                .taxDetails(new ArrayList<>(BILL_DETAILS_PER_BILL))
+                .build();
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (int period = 0; period < BILL_DETAILS_PER_BILL; period++) {
+            TaxDetail taxDetail = TaxDetail.builder()
+                    .entityId("billDetail-" + index + "-" + period)
+                    .fromPeriod((long) period)
+                    .amountPaid(BigDecimal.ZERO)
+                    .buckets(new ArrayList<>(TAX_HEADS.length))
+                    .build();
+
+            BigDecimal amountToBePaid = BigDecimal.ZERO;
+            for (int i = 0; i < TAX_HEADS.length; i++) {
+                BigDecimal amount = BigDecimal.valueOf(100 + (index + i * 37) % 900, 0).add(new BigDecimal("0.50"));
+                Category category = i == 0 ? Category.TAX : Category.PENALTY;
+                taxDetail.addBucket(Bucket.builder()
+                        .entityId("demandDetail-" + index + "-" + period + "-" + i)
+                        .taxHeadCode(TAX_HEADS[i])
+                        .category(category)
+                        .purpose(Purpose.CURRENT_AMOUNT)
+                        .amount(amount)
+                        .adjustedAmount(BigDecimal.ZERO)
+                        .priority(i)
+                        .build());
+                amountToBePaid = amountToBePaid.add(amount);
+            }
+            taxDetail.setAmountToBePaid(amountToBePaid);
+            request.addTaxDetail(taxDetail);
+            total = total.add(amountToBePaid);
+        }
+
+        // Partial payment, leaves the later periods partly unpaid
+        request.setAmountPaid(total.multiply(new BigDecimal("0.75")).setScale(2, BigDecimal.ROUND_DOWN));
+        return request;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ApportionBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,243 @@
+package org.egov.service.apportions;
+
+import org.egov.config.ApportionConfig;
+import org.egov.service.TaxHeadMasterService;
+import org.egov.web.models.ApportionRequestV2;
+import org.egov.web.models.BillingMasterData;
+import org.egov.web.models.Bucket;
+import org.egov.web.models.TaxDetail;
+import org.egov.web.models.enums.Purpose;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OrderByPriorityTest {
+
+    private static final String BUSINESS_SERVICE = "PT";
+
+    private static final String ADVANCE_TAX_HEAD = "PT_ADVANCE_CARRYFORWARD";
+
+    private OrderByPriority orderByPriority;
+
+    private BillingMasterData masterData;
+
+
+    @Before
+    public void setup() {
+        ApportionConfig config = new ApportionConfig();
+        config.setApportionByValueAndOrder(true);
+        orderByPriority = new OrderByPriority(new TaxHeadMasterService(), config);
+        masterData = BillingMasterData.builder()
+                .advanceTaxHeads(Collections.singletonMap(BUSINESS_SERVICE, ADVANCE_TAX_HEAD))
+                .build();
+    }
+
+    @Test
+    public void testPartlyPaidBucketKeepsTwoDecimalsOverAWholeAmount() {
+        Bucket tax = bucket("PT_TAX", "100", "0", 0);
+        Bucket cess = bucket("PT_FIRE_CESS", "50.5", "0.00", 1);
+        ApportionRequestV2 request = request("120.25", taxDetail(1L, tax, cess));
+
+        orderByPriority.apportionPaidAmount(request, masterData);
+
+        assertEquals(new BigDecimal("50.50"), cess.getAdjustedAmount());
+        assertEquals(new BigDecimal("69.75"), tax.getAdjustedAmount());
+        assertEquals(new BigDecimal("120.25"), request.getTaxDetails().get(0).getAmountPaid());
+    }
+
+    @Test
+    public void testFullyPaidBucketKeepsTheScaleOfItsAmount() {
+        Bucket tax = bucket("PT_TAX", "100", "0", 0);
+        Bucket cess = bucket("PT_FIRE_CESS", "50.5", "0", 1);
+        ApportionRequestV2 request = request("150.50", taxDetail(1L, tax, cess));
+
+        orderByPriority.apportionPaidAmount(request, masterData);
+
+        assertEquals(new BigDecimal("100"), tax.getAdjustedAmount());
+        assertEquals(new BigDecimal("50.5"), cess.getAdjustedAmount());
+        assertEquals(new BigDecimal("150.50"), request.getTaxDetails().get(0).getAmountPaid());
+    }
+
+    @Test
+    public void testAmountsBeyondTwoDecimalsAreApportionedInDecimal() {
+        Bucket tax = bucket("PT_TAX", "10.005", "0", 0);
+        Bucket cess = bucket("PT_FIRE_CESS", "5", "0", 1);
+        ApportionRequestV2 request = request("12.5", taxDetail(1L, tax, cess));
+
+        orderByPriority.apportionPaidAmount(request, masterData);
+
+        assertEquals(0, new BigDecimal("5").compareTo(cess.getAdjustedAmount()));
+        assertEquals(0, new BigDecimal("7.5").compareTo(tax.getAdjustedAmount()));
+        assertEquals(0, new BigDecimal("12.5").compareTo(request.getTaxDetails().get(0).getAmountPaid()));
+    }
+
+    @Test
+    public void testRebateIsAdjustedFirstAndAddsToTheAmountApportioned() {
+        Bucket tax = bucket("PT_TAX", "100", "0", 1);
+        Bucket rebate = bucket("PT_TIME_REBATE", "-10", "0", 0);
+        ApportionRequestV2 request = request("50", taxDetail(1L, tax, rebate));
+
+        orderByPriority.apportionPaidAmount(request, masterData);
+
+        assertEquals(0, new BigDecimal("-10").compareTo(rebate.getAdjustedAmount()));
+        assertEquals(0, new BigDecimal("60").compareTo(tax.getAdjustedAmount()));
+        assertEquals(0, new BigDecimal("50").compareTo(request.getTaxDetails().get(0).getAmountPaid()));
+    }
+
+    @Test
+    public void testAvailableAdvanceIsUsedBeforeThePayment() {
+        Bucket tax = bucket("PT_TAX", "100", "0", 1);
+        Bucket advance = bucket(ADVANCE_TAX_HEAD, "-30", "0", 0);
+        TaxDetail taxDetail = taxDetail(1L, tax, advance);
+        ApportionRequestV2 request = request("50", taxDetail);
+        request.setIsAdvanceAllowed(true);
+
+        orderByPriority.apportionPaidAmount(request, masterData);
+
+        assertEquals(0, new BigDecimal("-30").compareTo(advance.getAdjustedAmount()));
+        assertEquals(0, new BigDecimal("80").compareTo(tax.getAdjustedAmount()));
+        assertEquals(0, new BigDecimal("50").compareTo(taxDetail.getAmountPaid()));
+        assertEquals(2, taxDetail.getBuckets().size());
+    }
+
+    @Test
+    public void testExcessPaymentIsAddedAsAdvanceToTheLatestPeriod() {
+        Bucket firstTax = bucket("PT_TAX", "40", "0", 0);
+        Bucket latestTax = bucket("PT_TAX", "60", "0", 0);
+        ApportionRequestV2 request = request("130.00", taxDetail(2L, latestTax), taxDetail(1L, firstTax));
+
+        orderByPriority.apportionPaidAmount(request, masterData);
+
+        TaxDetail latest = request.getTaxDetails().get(1);
+        Bucket advance = latest.getBuckets().get(1);
+        assertEquals(ADVANCE_TAX_HEAD, advance.getTaxHeadCode());
+        assertEquals(Purpose.ADVANCE_AMOUNT, advance.getPurpose());
+        assertEquals(new BigDecimal("-30.00"), advance.getAmount());
+        assertEquals(new BigDecimal("90.00"), latest.getAmountPaid());
+        assertEquals(new BigDecimal("40.00"), request.getTaxDetails().get(0).getAmountPaid());
+    }
+
+    @Test
+    public void testPaiseLeftOverAreCarriedToTheNextPeriod() {
+        Bucket first = bucket("PT_TAX", "33.33", "0", 0);
+        Bucket second = bucket("PT_FIRE_CESS", "33.33", "0", 1);
+        Bucket third = bucket("PT_TAX", "33.34", "0", 0);
+        ApportionRequestV2 request = request("66.67", taxDetail(1L, first, second), taxDetail(2L, third));
+
+        orderByPriority.apportionPaidAmount(request, masterData);
+
+        assertEquals(new BigDecimal("33.33"), first.getAdjustedAmount());
+        assertEquals(new BigDecimal("33.33"), second.getAdjustedAmount());
+        assertEquals(new BigDecimal("0.01"), third.getAdjustedAmount());
+        assertEquals(new BigDecimal("66.66"), request.getTaxDetails().get(0).getAmountPaid());
+        assertEquals(new BigDecimal("0.01"), request.getTaxDetails().get(1).getAmountPaid());
+    }
+
+    @Test
+    public void testPeriodsAfterThePaymentIsUsedUpAreNotPaid() {
+        Bucket first = bucket("PT_TAX", "10.10", "0", 0);
+        Bucket second = bucket("PT_TAX", "10.10", "0", 0);
+        ApportionRequestV2 request = request("10.10", taxDetail(1L, first), taxDetail(2L, second));
+
+        orderByPriority.apportionPaidAmount(request, masterData);
+
+        assertEquals(new BigDecimal("10.10"), first.getAdjustedAmount());
+        assertEquals(new BigDecimal("0"), second.getAdjustedAmount());
+        assertEquals(BigDecimal.ZERO, request.getTaxDetails().get(1).getAmountPaid());
+    }
+
+    /*
+     * Random bills of mixed scales, partly adjusted and negative buckets apportion to the same amounts
+     * in minor units as in decimal
+     */
+    @Test
+    public void testMinorUnitApportionMatchesDecimalApportion() {
+        Random random = new Random(42);
+        for (int run = 0; run < 500; run++) {
+            long seed = random.nextLong();
+            List<TaxDetail> minorUnit = randomTaxDetails(new Random(seed));
+            List<TaxDetail> decimal = randomTaxDetails(new Random(seed));
+            BigDecimal amountPaid = randomAmount(random, 0, 3000);
+
+            BigDecimal minorUnitRemaining = orderByPriority.apportion(minorUnit, amountPaid);
+            BigDecimal decimalRemaining = orderByPriority.apportionInDecimal(decimal, amountPaid);
+
+            String message = "seed " + seed + ", amount paid " + amountPaid;
+            assertEquals(message, 0, decimalRemaining.compareTo(minorUnitRemaining));
+            for (int i = 0; i < decimal.size(); i++) {
+                assertEquals(message, 0, decimal.get(i).getAmountPaid().compareTo(minorUnit.get(i).getAmountPaid()));
+                List<Bucket> decimalBuckets = decimal.get(i).getBuckets();
+                List<Bucket> minorUnitBuckets = minorUnit.get(i).getBuckets();
+                for (int j = 0; j < decimalBuckets.size(); j++) {
+                    assertEquals(message, decimalBuckets.get(j).getEntityId(), minorUnitBuckets.get(j).getEntityId());
+                    assertEquals(message, 0, decimalBuckets.get(j).getAdjustedAmount().compareTo(minorUnitBuckets.get(j).getAdjustedAmount()));
+                    assertTrue(message, minorUnitBuckets.get(j).getAdjustedAmount().scale() <= 2);
+                }
+            }
+        }
+    }
+
+
+    private static List<TaxDetail> randomTaxDetails(Random random) {
+        List<TaxDetail> taxDetails = new ArrayList<>();
+        int periods = 1 + random.nextInt(4);
+        for (int period = 0; period < periods; period++) {
+            TaxDetail taxDetail = TaxDetail.builder().entityId("billDetail-" + period).fromPeriod((long) period)
+                    .buckets(new ArrayList<>()).build();
+            int buckets = 1 + random.nextInt(5);
+            for (int i = 0; i < buckets; i++) {
+                BigDecimal amount = randomAmount(random, -200, 1000);
+                BigDecimal adjustedAmount = amount.signum() > 0 && random.nextBoolean()
+                        ? amount.multiply(BigDecimal.valueOf(random.nextInt(100), 2)).setScale(amount.scale(), BigDecimal.ROUND_DOWN)
+                        : BigDecimal.ZERO;
+                Bucket bucket = Bucket.builder().entityId("demandDetail-" + period + "-" + i).taxHeadCode("PT_HEAD_" + i)
+                        .amount(amount).adjustedAmount(adjustedAmount).priority(random.nextInt(3)).build();
+                taxDetail.addBucket(bucket);
+            }
+            taxDetails.add(taxDetail);
+        }
+        return taxDetails;
+    }
+
+    /*
+     * amount between the bounds with 0, 1 or 2 decimals
+     */
+    private static BigDecimal randomAmount(Random random, int min, int max) {
+        int scale = random.nextInt(3);
+        long unit = scale == 0 ? 1 : scale == 1 ? 10 : 100;
+        long value = min * unit + (long) (random.nextDouble() * (max - min) * unit);
+        return BigDecimal.valueOf(value, scale);
+    }
+
+    private static Bucket bucket(String taxHeadCode, String amount, String adjustedAmount, int priority) {
+        return Bucket.builder().entityId(taxHeadCode + "-" + amount).taxHeadCode(taxHeadCode).purpose(Purpose.CURRENT_AMOUNT)
+                .amount(new BigDecimal(amount)).adjustedAmount(new BigDecimal(adjustedAmount)).priority(priority).build();
+    }
+
+    private static TaxDetail taxDetail(Long fromPeriod, Bucket... buckets) {
+        BigDecimal amountToBePaid = BigDecimal.ZERO;
+        List<Bucket> bucketList = new ArrayList<>();
+        for (Bucket bucket : buckets) {
+            amountToBePaid = amountToBePaid.add(bucket.getAmount());
+            bucketList.add(bucket);
+        }
+        return TaxDetail.builder().entityId("billDetail-" + fromPeriod).fromPeriod(fromPeriod)
+                .amountToBePaid(amountToBePaid).buckets(bucketList).build();
+    }
+
+    private static ApportionRequestV2 request(String amountPaid, TaxDetail... taxDetails) {
+        List<TaxDetail> taxDetailList = new ArrayList<>();
+        Collections.addAll(taxDetailList, taxDetails);
+        return ApportionRequestV2.builder().businessService(BUSINESS_SERVICE).amountPaid(new BigDecimal(amountPaid))
+                .isAdvanceAllowed(false).taxDetails(taxDetailList).build();
+    }
+
+}
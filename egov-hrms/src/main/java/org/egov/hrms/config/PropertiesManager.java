@@ -96,6 +96,9 @@ public class PropertiesManager {
 
 	@Value("${kafka.topics.hrms.updateData}")
 	public String updateTopic;
+
+	@Value("${kafka.topics.hrms.bulk.create.result}")
+	public String bulkCreateResultTopic;
 	
 	
 	//Variables
@@ -110,4 +113,37 @@ public class PropertiesManager {
 
 	@Value("${state.level.tenant.id}")
 	public String stateLevelTenantId;
+
+	//User lookups
+	@Value("${egov.hrms.user.lookup.pool.size}")
+	public Integer userLookupPoolSize;
+
+	@Value("${egov.hrms.user.lookup.timeout.ms}")
+	public Long userLookupTimeout;
+
+	@Value("${egov.hrms.user.search.batch.size}")
+	public Integer userSearchBatchSize;
+
+	@Value("${egov.hrms.user.cache.expiry.ms}")
+	public Long userCacheExpiry;
+
+	@Value("${egov.hrms.user.cache.size.max}")
+	public Integer userCacheMaxSize;
+
+	//Bulk create
+	@Value("${egov.hrms.bulk.create.max.employees}")
+	public Integer bulkCreateMaxEmployees;
+
+	@Value("${egov.hrms.bulk.create.chunk.size}")
+	public Integer bulkCreateChunkSize;
+
+	@Value("${egov.hrms.bulk.create.pool.size}")
+	public Integer bulkCreatePoolSize;
+
+	//MDMS snapshots
+	@Value("${egov.hrms.mdms.snapshot.refresh.interval.ms}")
+	public Long mdmsSnapshotRefreshInterval;
+
+	@Value("${egov.hrms.mdms.snapshot.eviction.ms}")
+	public Long mdmsSnapshotEviction;
 }
\ No newline at end of file
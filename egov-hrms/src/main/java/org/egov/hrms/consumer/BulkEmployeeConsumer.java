@@ -0,0 +1,59 @@
+package org.egov.hrms.consumer;
+
+import java.util.HashMap;
+
+import org.egov.hrms.config.PropertiesManager;
+import org.egov.hrms.producer.HRMSProducer;
+import org.egov.hrms.service.BulkEmployeeService;
+import org.egov.hrms.web.contract.BulkEmployeeResponse;
+import org.egov.hrms.web.contract.EmployeeRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Job mode of the bulk employee create
+ *
+ * the job is run on the listener thread, so its offset is committed only once the job is done
+ * and a job interrupted by a restart is delivered again. Onboarding a few thousand employees takes
+ * minutes, so the listener polls one job at a time with a poll interval long enough for a job.
+ * In a job delivered again, the rows whose employees were saved fail as existing users, so no
+ * employee is created twice, and the rows whose users were created without saving their employees
+ * are resumed with those users. The result of each job, with the errors of the rows failed,
+ * is pushed to the result topic.
+ */
+@Component
+@Slf4j
+public class BulkEmployeeConsumer {
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private BulkEmployeeService bulkEmployeeService;
+
+    @Autowired
+    private HRMSProducer hrmsProducer;
+
+    @Autowired
+    private PropertiesManager propertiesManager;
+
+    @KafkaListener(topics = {"${kafka.topics.hrms.bulk.create}"}, properties = {"max.poll.records=1",
+            "max.poll.interval.ms=${egov.hrms.bulk.create.max.poll.interval.ms}"})
+    public void listenBulkCreateEmployees(final HashMap<String, Object> record) {
+        EmployeeRequest employeeRequest = mapper.convertValue(record, EmployeeRequest.class);
+        if (CollectionUtils.isEmpty(employeeRequest.getEmployees())) {
+            log.error("Bulk employee create job received without employees");
+            return;
+        }
+        log.info("Bulk employee create job received with {} employees", employeeRequest.getEmployees().size());
+
+        BulkEmployeeResponse response = bulkEmployeeService.create(employeeRequest);
+        hrmsProducer.push(propertiesManager.getBulkCreateResultTopic(), response);
+    }
+}
@@ -31,7 +31,7 @@ public class EmployeeQueryBuilder {
 	public String getEmployeeSearchQuery(EmployeeSearchCriteria criteria,List <Object> preparedStmtList ) {
 		StringBuilder builder = new StringBuilder(EmployeeQueries.HRMS_GET_EMPLOYEES);
 		addWhereClause(criteria, builder, preparedStmtList);
-		return paginationClause(criteria, builder);
+		return paginationClause(criteria, builder, preparedStmtList);
 	}
 
 	public String getEmployeeCountQuery(String tenantId, List <Object> preparedStmtList ) {
@@ -93,22 +93,36 @@ public class EmployeeQueryBuilder {
 		}
 	}
 	
-	public String paginationClause(EmployeeSearchCriteria criteria, StringBuilder builder) {
-		String pagination = EmployeeQueries.HRMS_PAGINATION_WRAPPER;
-		pagination = pagination.replace("{}", builder.toString());
-		if(null != criteria.getOffset())
-			pagination = pagination.replace("$offset", criteria.getOffset().toString());
-		else
-			pagination = pagination.replace("$offset", "0");
-		
-		if(null != criteria.getLimit()){
-			Integer limit = criteria.getLimit() + criteria.getOffset();
-			pagination = pagination.replace("$limit", limit.toString());
+	/**
+	 * Adds the page of the criteria, employees are paged in the order of their tenantid and uuid.
+	 * When the cursor of the criteria is given, the page starts after the employee of the cursor
+	 * on the index and the offset is not applied. Page bounds are bound as parameters.
+	 * 
+	 * @param criteria
+	 * @param builder
+	 * @param preparedStmtList
+	 * @return
+	 */
+	public String paginationClause(EmployeeSearchCriteria criteria, StringBuilder builder, List<Object> preparedStmtList) {
+		Integer offset = 0;
+		if(!StringUtils.isEmpty(criteria.getAfterUuid())) {
+			builder.append(EmployeeQueries.HRMS_KEYSET_CLAUSE);
+			preparedStmtList.add(criteria.getAfterTenantId());
+			preparedStmtList.add(criteria.getAfterUuid());
 		}
+		else if(null != criteria.getOffset())
+			offset = criteria.getOffset();
+
+		Integer limit;
+		if(null != criteria.getLimit())
+			limit = criteria.getLimit();
 		else
-			pagination = pagination.replace("$limit", defaultLimit.toString());
-		
-		return pagination;
+			limit = Math.max(0, defaultLimit - offset);
+
+		builder.append(EmployeeQueries.HRMS_PAGINATION_CLAUSE);
+		preparedStmtList.add(limit);
+		preparedStmtList.add(offset);
+		return builder.toString();
 	}
 
 	public String getAssignmentSearchQuery(EmployeeSearchCriteria criteria, List<Object> preparedStmtList) {
@@ -1,9 +1,11 @@
 package org.egov.hrms.repository;
 
+import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 import org.egov.common.contract.request.RequestInfo;
@@ -11,6 +13,8 @@ import org.egov.hrms.utils.HRMSUtils;
 import org.egov.hrms.web.contract.EmployeeSearchCriteria;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
 
 import lombok.extern.slf4j.Slf4j;
@@ -60,7 +64,9 @@ public class EmployeeRepository {
 		}
 		String query = queryBuilder.getEmployeeSearchQuery(criteria, preparedStmtList);
 		try {
-			employees = jdbcTemplate.query(query, preparedStmtList.toArray(),rowMapper);
+			List<Employee> page = jdbcTemplate.query(query, preparedStmtList.toArray(),rowMapper);
+			fetchChildren(page);
+			employees = page;
 		}catch(Exception e) {
 			log.error("Exception while making the db call: ",e);
 			log.error("query; "+query);
@@ -68,6 +74,37 @@ public class EmployeeRepository {
 		return employees;
 	}
 
+	/**
+	 * Fetches the children of the employees with one statement per child table,
+	 * each row is added to its employee looked up by uuid.
+	 * 
+	 * @param employees
+	 */
+	private void fetchChildren(List<Employee> employees) {
+		if (CollectionUtils.isEmpty(employees))
+			return;
+		Map<String, Employee> employeeMap = new HashMap<>();
+		employees.forEach(employee -> employeeMap.put(employee.getUuid(), employee));
+		String[] uuids = employeeMap.keySet().toArray(new String[0]);
+
+		fetchChild(EmployeeQueries.HRMS_GET_ASSIGNMENTS, uuids, employeeMap, rowMapper::addAssignment);
+		fetchChild(EmployeeQueries.HRMS_GET_JURISDICTIONS, uuids, employeeMap, rowMapper::addJurisdiction);
+		fetchChild(EmployeeQueries.HRMS_GET_EDUCATION, uuids, employeeMap, rowMapper::addEducationDetail);
+		fetchChild(EmployeeQueries.HRMS_GET_DEPTTESTS, uuids, employeeMap, rowMapper::addDeptTest);
+		fetchChild(EmployeeQueries.HRMS_GET_SERVICE_HISTORY, uuids, employeeMap, rowMapper::addServiceHistory);
+		fetchChild(EmployeeQueries.HRMS_GET_DOCUMENTS, uuids, employeeMap, rowMapper::addDocument);
+		fetchChild(EmployeeQueries.HRMS_GET_DEACTIVATION_DETAILS, uuids, employeeMap, rowMapper::addDeactivationDetail);
+		fetchChild(EmployeeQueries.HRMS_GET_REACTIVATION_DETAILS, uuids, employeeMap, rowMapper::addReactivationDetail);
+	}
+
+	private void fetchChild(String query, String[] uuids, Map<String, Employee> employeeMap, BiConsumer<ResultSet, Employee> childMapper) {
+		jdbcTemplate.query(query, (PreparedStatementSetter) ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", uuids)), (RowCallbackHandler) rs -> {
+			Employee employee = employeeMap.get(rs.getString("employee_uuid"));
+			if (null != employee)
+				childMapper.accept(rs, employee);
+		});
+	}
+
 	private List<String> fetchEmployeesforAssignment(EmployeeSearchCriteria criteria, RequestInfo requestInfo) {
 		List<String> employeesIds = new ArrayList<>();
 		List <Object> preparedStmtList = new ArrayList<>();
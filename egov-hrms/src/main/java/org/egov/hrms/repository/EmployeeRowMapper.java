@@ -11,15 +11,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.stereotype.Component;
-import org.springframework.util.CollectionUtils;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Component
 @Slf4j
@@ -30,23 +28,22 @@ public class EmployeeRowMapper implements ResultSetExtractor<List<Employee>> {
 
 	@Override
 	/**
-	 * Maps ResultSet to Employee POJO.
+	 * Maps ResultSet to Employee POJO, in the order of the rows.
+	 * Children are added by the add methods below from their own statements.
 	 */
 	public List<Employee> extractData(ResultSet rs) throws SQLException, DataAccessException {
-		Map<String, Employee> employeeMap = new HashMap<>();
+		Map<String, Employee> employeeMap = new LinkedHashMap<>();
 		while(rs.next()) {
 			String currentid = rs.getString("employee_uuid");
-			Employee currentEmployee = employeeMap.get(currentid);
-			if(null == currentEmployee) {
-				AuditDetails auditDetails = AuditDetails.builder().createdBy(rs.getString("employee_createdby")).createdDate(rs.getLong("employee_createddate"))
-						.lastModifiedBy(rs.getString("employee_lastmodifiedby")).lastModifiedDate(rs.getLong("employee_lastmodifieddate")).build();
-				currentEmployee = Employee.builder().id(rs.getLong("employee_id")).uuid(rs.getString("employee_uuid")).tenantId(rs.getString("employee_tenantid"))
-						.code(rs.getString("employee_code")).dateOfAppointment(null == rs.getObject("employee_doa")? null : rs.getLong("employee_doa")).IsActive(rs.getBoolean("employee_active"))
-						.employeeStatus(rs.getString("employee_status")).employeeType(rs.getString("employee_type")).auditDetails(auditDetails).reActivateEmployee(rs.getBoolean("employee_reactive"))
-						.jurisdictions(new ArrayList<Jurisdiction>()).assignments(new ArrayList<Assignment>()).user(new User())
-						.build();
-			}
-			addChildrenToEmployee(rs, currentEmployee);
+			AuditDetails auditDetails = AuditDetails.builder().createdBy(rs.getString("employee_createdby")).createdDate(rs.getLong("employee_createddate"))
+					.lastModifiedBy(rs.getString("employee_lastmodifiedby")).lastModifiedDate(rs.getLong("employee_lastmodifieddate")).build();
+			Employee currentEmployee = Employee.builder().id(rs.getLong("employee_id")).uuid(rs.getString("employee_uuid")).tenantId(rs.getString("employee_tenantid"))
+					.code(rs.getString("employee_code")).dateOfAppointment(null == rs.getObject("employee_doa")? null : rs.getLong("employee_doa")).IsActive(rs.getBoolean("employee_active"))
+					.employeeStatus(rs.getString("employee_status")).employeeType(rs.getString("employee_type")).auditDetails(auditDetails).reActivateEmployee(rs.getBoolean("employee_reactive"))
+					.jurisdictions(new ArrayList<Jurisdiction>()).assignments(new ArrayList<Assignment>()).education(new ArrayList<EducationalQualification>())
+					.tests(new ArrayList<DepartmentalTest>()).serviceHistory(new ArrayList<ServiceHistory>()).documents(new ArrayList<EmployeeDocument>())
+					.deactivationDetails(new ArrayList<DeactivationDetails>()).reactivationDetails(new ArrayList<ReactivationDetails>()).user(new User())
+					.build();
 			employeeMap.put(currentid, currentEmployee);
 		}
 		
@@ -55,38 +52,14 @@ public class EmployeeRowMapper implements ResultSetExtractor<List<Employee>> {
 	}
 	
 	/**
-	 * Adds all the children data to a employee object.
-	 * 
-	 * @param rs
-	 * @param currentEmployee
-	 */
-	public void addChildrenToEmployee(ResultSet rs, Employee currentEmployee) {
-		setAssignments(rs, currentEmployee);
-		setJurisdictions(rs, currentEmployee);
-		setEducationDetails(rs, currentEmployee);
-		setDeptTests(rs, currentEmployee);
-		setServiceHistory(rs, currentEmployee);
-		setDocuments(rs, currentEmployee);
-		setDeactivationDetails(rs, currentEmployee);
-		setReactivationDetails(rs, currentEmployee);
-	}
-	
-	/**
-	 * Maps Assignments inside a ResultSet to the Assignment POJO inside employee object.
+	 * Maps an Assignment row of a ResultSet to the Assignment POJO inside employee object.
 	 * 
 	 * @param rs
 	 * @param currentEmployee
 	 */
-	public void setAssignments(ResultSet rs, Employee currentEmployee) {
+	public void addAssignment(ResultSet rs, Employee currentEmployee) {
 		try {
-			List<Assignment> assignments = new ArrayList<>();
-			if(CollectionUtils.isEmpty(currentEmployee.getAssignments()))
-				assignments = new ArrayList<Assignment>();
-			else
-				assignments = currentEmployee.getAssignments();
-			
-			List<String> ids = assignments.stream().map(Assignment::getId).collect(Collectors.toList());
-			if(!StringUtils.isEmpty(rs.getString("assignment_uuid")) && !ids.contains(rs.getString("assignment_uuid"))) {
+			if(!StringUtils.isEmpty(rs.getString("assignment_uuid"))) {
 				AuditDetails auditDetails = AuditDetails.builder().createdBy(rs.getString("assignment_createdby")).createdDate(rs.getLong("assignment_createddate"))
 						.lastModifiedBy(rs.getString("assignment_lastmodifiedby")).lastModifiedDate(rs.getLong("assignment_lastmodifieddate")).build();
 				
@@ -95,9 +68,8 @@ public class EmployeeRowMapper implements ResultSetExtractor<List<Employee>> {
 			    .govtOrderNumber(rs.getString("assignment_govtordernumber")).reportingTo(rs.getString("assignment_reportingto")).isHOD(rs.getBoolean("assignment_ishod"))
 				.isCurrentAssignment(rs.getBoolean("assignment_iscurrentassignment")).tenantid(rs.getString("assignment_tenantid")).auditDetails(auditDetails).build();
 				
-				assignments.add(assignment);
+				currentEmployee.getAssignments().add(assignment);
 			}
-			currentEmployee.setAssignments(assignments);
 		}catch(Exception e) {
 			log.error("Error in row mapper while mapping Assignments: ",e);
 			throw new CustomException("ROWMAPPER_ERROR","Error in row mapper while mapping Assignments");
@@ -105,22 +77,15 @@ public class EmployeeRowMapper implements ResultSetExtractor<List<Employee>> {
 	}
 	
 	/**
-	 * Maps Jurisdictions inside a ResultSet to the Jurisdiction POJO inside employee object.
+	 * Maps a Jurisdiction row of a ResultSet to the Jurisdiction POJO inside employee object.
 	 * 
 	 * @param rs
 	 * @param currentEmployee
 	 */
-	public void setJurisdictions(ResultSet rs, Employee currentEmployee) {
+	public void addJurisdiction(ResultSet rs, Employee currentEmployee) {
 		try {
-			List<Jurisdiction> jurisdictions = new ArrayList<>();
-			if(CollectionUtils.isEmpty(currentEmployee.getJurisdictions()))
-				jurisdictions = new ArrayList<Jurisdiction>();
-			else
-				jurisdictions = currentEmployee.getJurisdictions();
-			
-			List<String> ids = jurisdictions.stream().map(Jurisdiction::getId).collect(Collectors.toList());
 			Boolean isActive =  rs.getBoolean("jurisdiction_isactive") !=false;
-			if(isActive && !StringUtils.isEmpty(rs.getString("jurisdiction_uuid")) && !ids.contains(rs.getString("jurisdiction_uuid"))) {
+			if(isActive && !StringUtils.isEmpty(rs.getString("jurisdiction_uuid"))) {
 				AuditDetails auditDetails = AuditDetails.builder().createdBy(rs.getString("jurisdiction_createdby")).createdDate(rs.getLong("jurisdiction_createddate"))
 						.lastModifiedBy(rs.getString("jurisdiction_lastmodifiedby")).lastModifiedDate(rs.getLong("jurisdiction_lastmodifieddate")).build();
 				
@@ -130,9 +95,8 @@ public class EmployeeRowMapper implements ResultSetExtractor<List<Employee>> {
 						.isActive(null == rs.getObject("jurisdiction_isactive")?true:rs.getBoolean("jurisdiction_isactive"))
 						.auditDetails(auditDetails).build();
 				
-				jurisdictions.add(jurisdiction);
+				currentEmployee.getJurisdictions().add(jurisdiction);
 			}
-			currentEmployee.setJurisdictions(jurisdictions);
 		}catch(Exception e) {
 			log.error("Error in row mapper while mapping Jurisdictions: ",e);
 			throw new CustomException("ROWMAPPER_ERROR","Error in row mapper while mapping Jurisdictions");
@@ -140,21 +104,15 @@ public class EmployeeRowMapper implements ResultSetExtractor<List<Employee>> {
 	}
 	
 	/**
-	 * Maps EducationDetails inside a ResultSet to the EducationDetails POJO inside employee object.
+	 * Maps an EducationDetails row of a ResultSet to the EducationDetails POJO inside employee object.
 	 * 
 	 * @param rs
 	 * @param currentEmployee
 	 */
-	public void setEducationDetails(ResultSet rs, Employee currentEmployee) {
+	public void addEducationDetail(ResultSet rs, Employee currentEmployee) {
 		try {
-			List<EducationalQualification> educationDetails = new ArrayList<>();
-			if(CollectionUtils.isEmpty(currentEmployee.getEducation()))
-				educationDetails = new ArrayList<EducationalQualification>();
-			else
-				educationDetails = currentEmployee.getEducation();
-			List<String> ids = educationDetails.stream().map(EducationalQualification::getId).collect(Collectors.toList());
 			Boolean isActive =rs.getBoolean("education_isactive") !=false;
-			if( isActive &&!StringUtils.isEmpty( rs.getString("education_uuid")) && !ids.contains(rs.getString("education_uuid"))) {
+			if( isActive &&!StringUtils.isEmpty( rs.getString("education_uuid"))) {
 				AuditDetails auditDetails = AuditDetails.builder().createdBy(rs.getString("education_createdby")).createdDate(rs.getLong("education_createddate"))
 						.lastModifiedBy(rs.getString("education_lastmodifiedby")).lastModifiedDate(rs.getLong("education_lastmodifieddate")).build();
 				EducationalQualification education = EducationalQualification.builder().id(rs.getString("education_uuid")).qualification(rs.getString("education_qualification")).stream(rs.getString("education_stream"))
@@ -163,9 +121,8 @@ public class EmployeeRowMapper implements ResultSetExtractor<List<Employee>> {
 						.isActive(null == rs.getObject("education_isactive")?true:rs.getBoolean("education_isactive"))
 						.auditDetails(auditDetails).build();
 				
-				educationDetails.add(education);
+				currentEmployee.getEducation().add(education);
 			}
-			currentEmployee.setEducation(educationDetails);
 		}catch(Exception e) {
 			log.error("Error in row mapper while mapping Educational Details: ",e);
 			throw new CustomException("ROWMAPPER_ERROR","Error in row mapper while mapping Educational Details");
@@ -173,22 +130,15 @@ public class EmployeeRowMapper implements ResultSetExtractor<List<Employee>> {
 	}
 	
 	/**
-	 * Maps Dept Tests inside a ResultSet to the DeptTest POJO inside employee object.
+	 * Maps a Dept Test row of a ResultSet to the DeptTest POJO inside employee object.
 	 * 
 	 * @param rs
 	 * @param currentEmployee
 	 */
-	public void setDeptTests(ResultSet rs, Employee currentEmployee) {
+	public void addDeptTest(ResultSet rs, Employee currentEmployee) {
 		try {
-			List<DepartmentalTest> tests = new ArrayList<>();
-			if(CollectionUtils.isEmpty(currentEmployee.getTests()))
-				tests = new ArrayList<DepartmentalTest>();
-			else
-				tests = currentEmployee.getTests();
-			
-			List<String> ids = tests.stream().map(DepartmentalTest::getId).collect(Collectors.toList());
 			Boolean isActive = rs.getBoolean("depttest_isactive") !=false;
-			if(isActive  && !StringUtils.isEmpty(rs.getString("depttest_uuid")) && !ids.contains(rs.getString("depttest_uuid"))) {
+			if(isActive  && !StringUtils.isEmpty(rs.getString("depttest_uuid"))) {
 				AuditDetails auditDetails = AuditDetails.builder().createdBy(rs.getString("depttest_createdby")).createdDate(rs.getLong("depttest_createddate"))
 						.lastModifiedBy(rs.getString("depttest_lastmodifiedby")).lastModifiedDate(rs.getLong("depttest_lastmodifieddate")).build();
 				
@@ -197,9 +147,8 @@ public class EmployeeRowMapper implements ResultSetExtractor<List<Employee>> {
 						.isActive(null == rs.getObject("depttest_isactive")?true:rs.getBoolean("depttest_isactive"))
 						.auditDetails(auditDetails).build();
 				
-				tests.add(test);
+				currentEmployee.getTests().add(test);
 			}
-			currentEmployee.setTests(tests);
 		}catch(Exception e) {
 			log.error("Error in row mapper while mapping Departmental Tests: ",e);
 			throw new CustomException("ROWMAPPER_ERROR","Error in row mapper while mapping Departmental Tests");
@@ -207,21 +156,14 @@ public class EmployeeRowMapper implements ResultSetExtractor<List<Employee>> {
 	}
 	
 	/**
-	 * Maps ServiceHistory inside a ResultSet to the ServiceHistory POJO inside employee object.
+	 * Maps a ServiceHistory row of a ResultSet to the ServiceHistory POJO inside employee object.
 	 * 
 	 * @param rs
 	 * @param currentEmployee
 	 */
-	public void setServiceHistory(ResultSet rs, Employee currentEmployee) {
+	public void addServiceHistory(ResultSet rs, Employee currentEmployee) {
 		try {
-			List<ServiceHistory> history = new ArrayList<>();
-			if(CollectionUtils.isEmpty(currentEmployee.getServiceHistory()))
-				history = new ArrayList<ServiceHistory>();
-			else
-				history = currentEmployee.getServiceHistory();
-			
-			List<String> ids = history.stream().map(ServiceHistory::getId).collect(Collectors.toList());
-			if(!StringUtils.isEmpty(rs.getString("history_uuid")) && !ids.contains(rs.getString("history_uuid"))) {
+			if(!StringUtils.isEmpty(rs.getString("history_uuid"))) {
 				AuditDetails auditDetails = AuditDetails.builder().createdBy(rs.getString("history_createdby")).createdDate(rs.getLong("history_createddate"))
 						.lastModifiedBy(rs.getString("history_lastmodifiedby")).lastModifiedDate(rs.getLong("history_lastmodifieddate")).build();
 				
@@ -229,9 +171,8 @@ public class EmployeeRowMapper implements ResultSetExtractor<List<Employee>> {
 						.serviceTo(null == rs.getObject("history_serviceto")? null :rs.getLong("history_serviceto")).orderNo(rs.getString("history_ordernumber")).isCurrentPosition(rs.getBoolean("history_iscurrentposition"))
 						.location(rs.getString("history_location")).tenantId(rs.getString("history_tenantid")).auditDetails(auditDetails).build();
 				
-				history.add(service);
+				currentEmployee.getServiceHistory().add(service);
 			}
-			currentEmployee.setServiceHistory(history);
 		}catch(Exception e) {
 			log.error("Error in row mapper while mapping Service History: ",e);
 			throw new CustomException("ROWMAPPER_ERROR","Error in row mapper while mapping Service History");
@@ -240,30 +181,22 @@ public class EmployeeRowMapper implements ResultSetExtractor<List<Employee>> {
 	}
 	
 	/**
-	 * Maps Documents inside a ResultSet to the Document POJO inside employee object.
+	 * Maps a Document row of a ResultSet to the Document POJO inside employee object.
 	 * 
 	 * @param rs
 	 * @param currentEmployee
 	 */
-	public void setDocuments(ResultSet rs, Employee currentEmployee) {
+	public void addDocument(ResultSet rs, Employee currentEmployee) {
 		try {
-			List<EmployeeDocument> documents = new ArrayList<>();
-			if(CollectionUtils.isEmpty(currentEmployee.getDocuments()))
-				documents = new ArrayList<EmployeeDocument>();
-			else
-				documents = currentEmployee.getDocuments();
-			
-			List<String> ids = documents.stream().map(EmployeeDocument::getId).collect(Collectors.toList());
-			if(!StringUtils.isEmpty(rs.getString("docs_uuid")) && !ids.contains(rs.getString("docs_uuid")) ) {
+			if(!StringUtils.isEmpty(rs.getString("docs_uuid"))) {
 				AuditDetails auditDetails = AuditDetails.builder().createdBy(rs.getString("docs_createdby")).createdDate(rs.getLong("docs_createddate"))
 						.lastModifiedBy(rs.getString("docs_lastmodifiedby")).lastModifiedDate(rs.getLong("docs_lastmodifieddate")).build();
 				EmployeeDocument document = EmployeeDocument.builder().id(rs.getString("docs_uuid")).documentId(rs.getString("docs_documentid"))
 						.documentName(rs.getString("docs_documentname")).referenceType(rs.getString("docs_referencetype") != null ? EmployeeDocumentReferenceType.valueOf(rs.getString("docs_referencetype")): null)
 						.referenceId(rs.getString("docs_referenceid")).tenantId(rs.getString("docs_tenantid")).auditDetails(auditDetails).build();
 				
-				documents.add(document);
+				currentEmployee.getDocuments().add(document);
 			}
-			currentEmployee.setDocuments(documents);
 		}catch(Exception e) {
 			log.error("Error in row mapper while mapping document: ",e);
 			throw new CustomException("ROWMAPPER_ERROR","Error in row mapper while mapping document");
@@ -272,63 +205,47 @@ public class EmployeeRowMapper implements ResultSetExtractor<List<Employee>> {
 	}
 	
 	/**
-	 * Maps DeactivationDetails inside a ResultSet to the DeactivationDetail POJO inside employee object.
+	 * Maps a DeactivationDetails row of a ResultSet to the DeactivationDetail POJO inside employee object.
 	 * 
 	 * @param rs
 	 * @param currentEmployee
 	 */
-	public void setDeactivationDetails(ResultSet rs, Employee currentEmployee) {
+	public void addDeactivationDetail(ResultSet rs, Employee currentEmployee) {
 		try {
-			List<DeactivationDetails> deactDetails = new ArrayList<>();
-			if(CollectionUtils.isEmpty(currentEmployee.getDeactivationDetails()))
-				deactDetails = new ArrayList<DeactivationDetails>();
-			else
-				deactDetails = currentEmployee.getDeactivationDetails();
-			
-			List<String> ids = deactDetails.stream().map(DeactivationDetails::getId).collect(Collectors.toList());
-			if(!StringUtils.isEmpty(rs.getString("deact_uuid")) && !ids.contains(rs.getString("deact_uuid")) ) {
-				if(rs.getString("deact_uuid")!=null){
-					AuditDetails auditDetails = AuditDetails.builder().createdBy(rs.getString("deact_createdby")).createdDate(rs.getLong("deact_createddate"))
-							.lastModifiedBy(rs.getString("deact_lastmodifiedby")).lastModifiedDate(rs.getLong("deact_lastmodifieddate")).build();
+			if(!StringUtils.isEmpty(rs.getString("deact_uuid"))) {
+				AuditDetails auditDetails = AuditDetails.builder().createdBy(rs.getString("deact_createdby")).createdDate(rs.getLong("deact_createddate"))
+						.lastModifiedBy(rs.getString("deact_lastmodifiedby")).lastModifiedDate(rs.getLong("deact_lastmodifieddate")).build();
 
-					DeactivationDetails deactDetail = DeactivationDetails.builder().id(rs.getString("deact_uuid")).reasonForDeactivation(rs.getString("deact_reasonfordeactivation"))
-							.effectiveFrom(rs.getLong("deact_effectivefrom")).orderNo(rs.getString("deact_ordernumber")).remarks(rs.getString("deact_remarks")!= null ? (rs.getString("deact_remarks")) : null)
-							.tenantId(rs.getString("deact_tenantid")).auditDetails(auditDetails).build();
+				DeactivationDetails deactDetail = DeactivationDetails.builder().id(rs.getString("deact_uuid")).reasonForDeactivation(rs.getString("deact_reasonfordeactivation"))
+						.effectiveFrom(rs.getLong("deact_effectivefrom")).orderNo(rs.getString("deact_ordernumber")).remarks(rs.getString("deact_remarks")!= null ? (rs.getString("deact_remarks")) : null)
+						.tenantId(rs.getString("deact_tenantid")).auditDetails(auditDetails).build();
 
-					deactDetails.add(deactDetail);
-				}
+				currentEmployee.getDeactivationDetails().add(deactDetail);
 			}
-			currentEmployee.setDeactivationDetails(deactDetails);
-
 		}catch(Exception e) {
 			log.error("Error in row mapper while mapping deactivation details: ",e);
 			throw new CustomException("ROWMAPPER_ERROR","Error in row mapper while mapping deactivation details");
 		}
 	}
 
-	public void setReactivationDetails(ResultSet rs, Employee currentEmployee){
+	/**
+	 * Maps a ReactivationDetails row of a ResultSet to the ReactivationDetail POJO inside employee object.
+	 * 
+	 * @param rs
+	 * @param currentEmployee
+	 */
+	public void addReactivationDetail(ResultSet rs, Employee currentEmployee){
 		try {
-			List<ReactivationDetails> reactDetails = new ArrayList<>();
-			if(CollectionUtils.isEmpty(currentEmployee.getReactivationDetails()))
-				reactDetails = new ArrayList<ReactivationDetails>();
-			else
-				reactDetails = currentEmployee.getReactivationDetails();
+			if(!StringUtils.isEmpty(rs.getString("react_uuid"))) {
+				AuditDetails auditDetails = AuditDetails.builder().createdBy(rs.getString("react_createdby")).createdDate(rs.getLong("react_createddate"))
+						.lastModifiedBy(rs.getString("react_lastmodifiedby")).lastModifiedDate(rs.getLong("react_lastmodifieddate")).build();
 
-			List<String> ids = reactDetails.stream().map(ReactivationDetails::getId).collect(Collectors.toList());
-			if(!StringUtils.isEmpty(rs.getString("react_uuid")) && !ids.contains(rs.getString("react_uuid")) ) {
-				if(rs.getString("react_uuid")!=null){
-					AuditDetails auditDetails = AuditDetails.builder().createdBy(rs.getString("react_createdby")).createdDate(rs.getLong("react_createddate"))
-							.lastModifiedBy(rs.getString("react_lastmodifiedby")).lastModifiedDate(rs.getLong("react_lastmodifieddate")).build();
+				ReactivationDetails reactDetail = ReactivationDetails.builder().id(rs.getString("react_uuid")).reasonForReactivation(rs.getString("react_reasonforreactivation"))
+						.effectiveFrom(rs.getLong("react_effectivefrom")).orderNo(rs.getString("react_ordernumber")).remarks(rs.getString("react_remarks")!= null ? (rs.getString("react_remarks")) : null)
+						.tenantId(rs.getString("react_tenantid")).auditDetails(auditDetails).build();
 
-					ReactivationDetails reactDetail = ReactivationDetails.builder().id(rs.getString("react_uuid")).reasonForReactivation(rs.getString("react_reasonforreactivation"))
-							.effectiveFrom(rs.getLong("react_effectivefrom")).orderNo(rs.getString("react_ordernumber")).remarks(rs.getString("react_remarks")!= null ? (rs.getString("react_remarks")) : null)
-							.tenantId(rs.getString("react_tenantid")).auditDetails(auditDetails).build();
-
-					reactDetails.add(reactDetail);
-				}
+				currentEmployee.getReactivationDetails().add(reactDetail);
 			}
-			currentEmployee.setReactivationDetails(reactDetails);
-
 		}catch(Exception e) {
 			log.error("Error in row mapper while mapping reactivation details ",e);
 			throw new CustomException("ROWMAPPER_ERROR","Error in row mapper while mapping reactivation details");
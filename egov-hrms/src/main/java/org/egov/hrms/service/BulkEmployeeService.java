@@ -0,0 +1,297 @@
+package org.egov.hrms.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.hrms.config.PropertiesManager;
+import org.egov.hrms.model.Employee;
+import org.egov.hrms.producer.HRMSProducer;
+import org.egov.hrms.utils.ErrorConstants;
+import org.egov.hrms.utils.ResponseInfoFactory;
+import org.egov.hrms.web.contract.BulkEmployeeError;
+import org.egov.hrms.web.contract.BulkEmployeeResponse;
+import org.egov.hrms.web.contract.EmployeeRequest;
+import org.egov.hrms.web.contract.User;
+import org.egov.hrms.web.validator.EmployeeValidator;
+import org.egov.tracer.model.CustomException;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk onboarding of employees.
+ *
+ * Rows are validated against one MDMS and boundary snapshot of the request, existing users
+ * are checked and users created concurrently on a bounded pool. Employees are saved and
+ * notified in chunks, a failed row is reported with its errors and does not fail the others.
+ * A row whose employee user was created by an earlier delivery of the job, but whose employee
+ * was not saved, is resumed with that user instead of failing as an existing user.
+ */
+@Slf4j
+@Service
+public class BulkEmployeeService {
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Autowired
+	private EmployeeValidator validator;
+
+	@Autowired
+	private IdGenService idGenService;
+
+	@Autowired
+	private HRMSProducer hrmsProducer;
+
+	@Autowired
+	private NotificationService notificationService;
+
+	@Autowired
+	private PropertiesManager propertiesManager;
+
+	@Autowired
+	private ResponseInfoFactory factory;
+
+	private ExecutorService bulkExecutor;
+
+	@PostConstruct
+	public void init() {
+		bulkExecutor = Executors.newFixedThreadPool(propertiesManager.getBulkCreatePoolSize());
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		bulkExecutor.shutdown();
+	}
+
+	/**
+	 * Creates the employees of the request, does following:
+	 * 1. Validates all rows against the MDMS and boundary data fetched once for the request.
+	 * 2. Checks existing users of the valid rows concurrently, resuming the users left without an employee.
+	 * 3. Per chunk, sets ids, creates users concurrently, saves and notifies the employees created.
+	 * 4. Reports errors per row along with the throughput of the run.
+	 *
+	 * @param employeeRequest
+	 * @return employees created and errors of the rows failed
+	 */
+	public BulkEmployeeResponse create(EmployeeRequest employeeRequest) {
+		long startTime = System.currentTimeMillis();
+		RequestInfo requestInfo = employeeRequest.getRequestInfo();
+		List<Employee> employees = employeeRequest.getEmployees();
+		Map<Integer, Map<String, String>> rowErrors = new TreeMap<>(validator.validateBulkCreateEmployees(employeeRequest));
+
+		List<Integer> validRows = new ArrayList<>();
+		List<CompletableFuture<Map<String, String>>> userChecks = new ArrayList<>();
+		Map<Integer, User> resumedUsers = new ConcurrentHashMap<>();
+		for (int index = 0; index < employees.size(); index++) {
+			if (rowErrors.containsKey(index))
+				continue;
+			Employee employee = employees.get(index);
+			Integer row = index;
+			validRows.add(index);
+			userChecks.add(submit(() -> checkExistingUser(employee, requestInfo, row, resumedUsers)));
+		}
+		List<Integer> rowsToCreate = new ArrayList<>();
+		for (int i = 0; i < validRows.size(); i++) {
+			Map<String, String> errorMap = new HashMap<>();
+			Map<String, String> existingUserErrors = join(userChecks.get(i), validRows.get(i), errorMap);
+			if (!CollectionUtils.isEmpty(existingUserErrors))
+				errorMap.putAll(existingUserErrors);
+			if (errorMap.isEmpty())
+				rowsToCreate.add(validRows.get(i));
+			else
+				rowErrors.put(validRows.get(i), errorMap);
+		}
+
+		List<Employee> created = new ArrayList<>();
+		int chunkSize = propertiesManager.getBulkCreateChunkSize();
+		for (int from = 0; from < rowsToCreate.size(); from += chunkSize) {
+			List<Integer> chunk = rowsToCreate.subList(from, Math.min(from + chunkSize, rowsToCreate.size()));
+			created.addAll(createChunk(requestInfo, employees, chunk, resumedUsers, rowErrors));
+			log.info("Bulk create progress: {} of {} rows processed, {} employees created",
+					from + chunk.size(), rowsToCreate.size(), created.size());
+		}
+
+		long timeTaken = Math.max(1, System.currentTimeMillis() - startTime);
+		double employeesPerSecond = created.size() * 1000.0 / timeTaken;
+		log.info("Bulk create of {} employees: {} created, {} failed in {} ms, {} employees/s",
+				employees.size(), created.size(), rowErrors.size(), timeTaken, String.format("%.2f", employeesPerSecond));
+
+		List<BulkEmployeeError> errors = new ArrayList<>();
+		rowErrors.forEach((index, errorMap) -> {
+			Employee employee = employees.get(index);
+			errors.add(BulkEmployeeError.builder().index(index).code(employee.getCode())
+					.mobileNumber(null == employee.getUser() ? null : employee.getUser().getMobileNumber())
+					.errors(errorMap).build());
+		});
+		return BulkEmployeeResponse.builder()
+				.responseInfo(factory.createResponseInfoFromRequestInfo(requestInfo, rowErrors.isEmpty()))
+				.employees(created).errors(errors)
+				.totalCount(employees.size()).createdCount(created.size()).failedCount(rowErrors.size())
+				.timeTakenInMs(timeTaken).employeesPerSecond(employeesPerSecond).build();
+	}
+
+	/**
+	 * Checks if users exist for the row, a user left without an employee by an earlier delivery
+	 * of the job is kept to resume the row with instead of failing it.
+	 *
+	 * @param employee
+	 * @param requestInfo
+	 * @param index
+	 * @param resumedUsers
+	 * @return errors of the row, empty if none
+	 */
+	private Map<String, String> checkExistingUser(Employee employee, RequestInfo requestInfo, Integer index,
+												  Map<Integer, User> resumedUsers) {
+		Map<String, String> errorMap = validator.validateExistingUser(employee, requestInfo);
+		if (CollectionUtils.isEmpty(errorMap))
+			return errorMap;
+		User user = validator.getUserWithoutEmployee(employee, requestInfo);
+		if (null == user)
+			return errorMap;
+		log.info("Bulk create row {} resumed with the existing user {}", index, user.getUuid());
+		if (StringUtils.isEmpty(employee.getCode()))
+			employee.setCode(user.getUserName());
+		resumedUsers.put(index, user);
+		return new HashMap<>();
+	}
+
+	/**
+	 * Creates the employees of a chunk of rows, the employees whose users are created or resumed
+	 * are pushed to the save topic together. Employees of created users are notified, the password
+	 * of a resumed user was generated by the earlier delivery and is not sent again.
+	 *
+	 * @param requestInfo
+	 * @param employees
+	 * @param chunk
+	 * @param resumedUsers
+	 * @param rowErrors
+	 * @return employees created
+	 */
+	private List<Employee> createChunk(RequestInfo requestInfo, List<Employee> employees, List<Integer> chunk,
+									   Map<Integer, User> resumedUsers, Map<Integer, Map<String, String>> rowErrors) {
+		List<Employee> chunkEmployees = new ArrayList<>();
+		chunk.forEach(index -> chunkEmployees.add(employees.get(index)));
+		try {
+			idGenService.setIds(EmployeeRequest.builder().requestInfo(requestInfo).employees(chunkEmployees).build());
+		} catch (CustomException e) {
+			log.error("Id generation failed for bulk create chunk: ", e);
+			chunk.forEach(index -> rowErrors.put(index, errorMap(e)));
+			return new ArrayList<>();
+		}
+
+		List<CompletableFuture<String>> creations = new ArrayList<>();
+		for (int i = 0; i < chunk.size(); i++) {
+			Employee employee = chunkEmployees.get(i);
+			User resumedUser = resumedUsers.get(chunk.get(i));
+			creations.add(submit(() -> {
+				employeeService.enrichCreateRequest(employee, requestInfo);
+				if (null != resumedUser) {
+					resumeUser(employee, resumedUser);
+					return null;
+				}
+				employeeService.createUser(employee, requestInfo);
+				String password = employee.getUser().getPassword();
+				employee.getUser().setPassword(null);
+				return password;
+			}));
+		}
+
+		List<Employee> created = new ArrayList<>();
+		List<Employee> notified = new ArrayList<>();
+		Map<String, String> pwdMap = new HashMap<>();
+		for (int i = 0; i < chunk.size(); i++) {
+			Map<String, String> errorMap = new HashMap<>();
+			String password = join(creations.get(i), chunk.get(i), errorMap);
+			if (!errorMap.isEmpty()) {
+				rowErrors.put(chunk.get(i), errorMap);
+				continue;
+			}
+			Employee employee = chunkEmployees.get(i);
+			created.add(employee);
+			if (!resumedUsers.containsKey(chunk.get(i))) {
+				pwdMap.put(employee.getUuid(), password);
+				notified.add(employee);
+			}
+		}
+
+		if (!created.isEmpty()) {
+			hrmsProducer.push(propertiesManager.getSaveEmployeeTopic(),
+					EmployeeRequest.builder().requestInfo(requestInfo).employees(created).build());
+		}
+		if (!notified.isEmpty()) {
+			notificationService.sendNotification(
+					EmployeeRequest.builder().requestInfo(requestInfo).employees(notified).build(), pwdMap);
+		}
+		return created;
+	}
+
+	/**
+	 * Sets the ids of the existing user on the employee in place of creating its user.
+	 */
+	private void resumeUser(Employee employee, User user) {
+		employee.setId(user.getId());
+		employee.setUuid(user.getUuid());
+		employee.getUser().setId(user.getId());
+		employee.getUser().setUuid(user.getUuid());
+		employee.getUser().setUserName(user.getUserName());
+		employee.getUser().setType(user.getType());
+		employee.getUser().setActive(user.getActive());
+	}
+
+	private <T> CompletableFuture<T> submit(Supplier<T> task) {
+		Map<String, String> context = MDC.getCopyOfContextMap();
+		return CompletableFuture.supplyAsync(() -> {
+			if (null != context)
+				MDC.setContextMap(context);
+			try {
+				return task.get();
+			} finally {
+				MDC.clear();
+			}
+		}, bulkExecutor);
+	}
+
+	/**
+	 * Waits for the task of the row, errors of a failed task are put on the error map.
+	 */
+	private <T> T join(CompletableFuture<T> task, Integer index, Map<String, String> errorMap) {
+		try {
+			return task.join();
+		} catch (CompletionException e) {
+			log.error("Bulk create failed for row {}: ", index, e.getCause());
+			if (e.getCause() instanceof CustomException)
+				errorMap.putAll(errorMap((CustomException) e.getCause()));
+			else
+				errorMap.put(ErrorConstants.HRMS_BULK_CREATE_INVALID_ROW_CODE, ErrorConstants.HRMS_BULK_CREATE_INVALID_ROW_MSG);
+			return null;
+		}
+	}
+
+	private Map<String, String> errorMap(CustomException e) {
+		Map<String, String> errorMap = new HashMap<>();
+		if (!CollectionUtils.isEmpty(e.getErrors()))
+			errorMap.putAll(e.getErrors());
+		else
+			errorMap.put(e.getCode(), e.getMessage());
+		return errorMap;
+	}
+
+}
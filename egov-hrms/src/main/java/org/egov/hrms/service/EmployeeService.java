@@ -76,6 +76,9 @@ public class EmployeeService {
 	@Autowired
 	private UserService userService;
 
+	@Autowired
+	private UserLookupService userLookupService;
+
 	@Autowired
 	private IdGenService idGenService;
 
@@ -165,20 +168,10 @@ public class EmployeeService {
 
 		if(!((!CollectionUtils.isEmpty(criteria.getRoles()) || !StringUtils.isEmpty(criteria.getPhone())) && CollectionUtils.isEmpty(criteria.getUuids()))){
 			if(!CollectionUtils.isEmpty(criteria.getNames())) {
-				List<String> userUUIDs = new ArrayList<>();
-				for(String name: criteria.getNames()) {
-					Map<String, Object> userSearchCriteria = new HashMap<>();
-					userSearchCriteria.put(HRMSConstants.HRMS_USER_SEARCH_CRITERA_TENANTID,criteria.getTenantId());
-					userSearchCriteria.put(HRMSConstants.HRMS_USER_SEARCH_CRITERA_NAME,name);
-					UserResponse userResponse = userService.getUser(requestInfo, userSearchCriteria);
-					userChecked =true;
-					if(!CollectionUtils.isEmpty(userResponse.getUser())) {
-						mapOfUsers.putAll(userResponse.getUser().stream()
-								.collect(Collectors.toMap(User::getUuid, Function.identity())));
-					}
-					List<String> uuids = userResponse.getUser().stream().map(User :: getUuid).collect(Collectors.toList());
-					userUUIDs.addAll(uuids);
-				}
+				Map<String, User> usersByName = userLookupService.searchByNames(requestInfo, criteria.getTenantId(), criteria.getNames());
+				userChecked =true;
+				mapOfUsers.putAll(usersByName);
+				List<String> userUUIDs = new ArrayList<>(usersByName.keySet());
 				if(!CollectionUtils.isEmpty(criteria.getUuids()))
 					criteria.setUuids(criteria.getUuids().stream().filter(userUUIDs::contains).collect(Collectors.toList()));
 				else
@@ -192,14 +185,8 @@ public class EmployeeService {
             employees = repository.fetchEmployees(criteria, requestInfo);
         List<String> uuids = employees.stream().map(Employee :: getUuid).collect(Collectors.toList());
 		if(!CollectionUtils.isEmpty(uuids)){
-            Map<String, Object> UserSearchCriteria = new HashMap<>();
-            UserSearchCriteria.put(HRMSConstants.HRMS_USER_SEARCH_CRITERA_UUID,uuids);
             if(mapOfUsers.isEmpty()){
-            UserResponse userResponse = userService.getUser(requestInfo, UserSearchCriteria);
-			if(!CollectionUtils.isEmpty(userResponse.getUser())) {
-				mapOfUsers = userResponse.getUser().stream()
-						.collect(Collectors.toMap(User :: getUuid, Function.identity()));
-            }
+				mapOfUsers = userLookupService.searchByUuids(requestInfo, uuids);
             }
             for(Employee employee: employees){
                 employee.setUser(mapOfUsers.get(employee.getUuid()));
@@ -216,7 +203,7 @@ public class EmployeeService {
 	 * @param employee
 	 * @param requestInfo
 	 */
-	private void createUser(Employee employee, RequestInfo requestInfo) {
+	void createUser(Employee employee, RequestInfo requestInfo) {
 		enrichUser(employee);
 		UserRequest request = UserRequest.builder().requestInfo(requestInfo).user(employee.getUser()).build();
 		try {
@@ -257,7 +244,7 @@ public class EmployeeService {
 	 * @param employee
 	 * @param requestInfo
 	 */
-	private void enrichCreateRequest(Employee employee, RequestInfo requestInfo) {
+	void enrichCreateRequest(Employee employee, RequestInfo requestInfo) {
 
 		AuditDetails auditDetails = AuditDetails.builder()
 				.createdBy(requestInfo.getUserInfo().getUuid())
@@ -337,6 +324,7 @@ public class EmployeeService {
 			enrichUpdateRequest(employee, requestInfo, existingEmployees);
 			updateUser(employee, requestInfo);
 		});
+		userLookupService.evict(uuidList);
 		hrmsProducer.push(propertiesManager.getUpdateTopic(), employeeRequest);
 		//notificationService.sendReactivationNotification(employeeRequest);
 		return generateResponse(employeeRequest);
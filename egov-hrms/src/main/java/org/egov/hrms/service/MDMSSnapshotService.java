@@ -0,0 +1,257 @@
+package org.egov.hrms.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.hrms.config.PropertiesManager;
+import org.egov.hrms.utils.HRMSConstants;
+import org.egov.mdms.model.MdmsResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * MDMS data used by the employee validations, held as snapshots per tenant.
+ *
+ * Masters and boundaries are indexed into sets once per load, so that each lookup of a validation
+ * is a hash lookup. A snapshot is loaded on the first request of its tenant and refreshed in the
+ * background, a request is served a single snapshot version throughout. Snapshots not used for
+ * the eviction period are dropped. If a refresh fails, the previous snapshot is kept.
+ */
+@Slf4j
+@Service
+public class MDMSSnapshotService {
+
+	@Autowired
+	private MDMSService mdmsService;
+
+	@Autowired
+	private PropertiesManager propertiesManager;
+
+	private final AtomicLong versions = new AtomicLong();
+
+	private final Map<String, Snapshot<Map<String, Set<String>>>> masterSnapshots = new ConcurrentHashMap<>();
+
+	private final Map<String, Snapshot<BoundaryIndex>> boundarySnapshots = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the HRMS masters of the tenant, each master as a set of its codes.
+	 *
+	 * @param requestInfo
+	 * @param tenantId
+	 * @return codes mapped by master, empty if the masters could not be fetched
+	 */
+	public Map<String, Set<String>> getMasterData(RequestInfo requestInfo, String tenantId) {
+		Snapshot<Map<String, Set<String>>> snapshot = get(masterSnapshots, tenantId, tenant -> loadMasterData(requestInfo, tenant));
+		return null == snapshot ? Collections.emptyMap() : snapshot.getData();
+	}
+
+	/**
+	 * Returns the boundary indices of the boundary tenants, boundary tenants without data are left out.
+	 *
+	 * @param requestInfo
+	 * @param boundaries
+	 * @return
+	 */
+	public List<BoundaryIndex> getBoundaryData(RequestInfo requestInfo, Collection<String> boundaries) {
+		List<BoundaryIndex> boundaryIndices = new ArrayList<>();
+		for (String boundary : boundaries) {
+			if (null == boundary)
+				continue;
+			Snapshot<BoundaryIndex> snapshot = get(boundarySnapshots, boundary, tenant -> loadBoundaryData(requestInfo, tenant));
+			if (null != snapshot)
+				boundaryIndices.add(snapshot.getData());
+		}
+		return boundaryIndices;
+	}
+
+	/**
+	 * Reloads the snapshots older than the refresh interval and evicts the ones not used within the eviction period
+	 */
+	@Scheduled(initialDelayString = "${egov.hrms.mdms.snapshot.refresh.interval.ms}",
+			fixedDelayString = "${egov.hrms.mdms.snapshot.refresh.interval.ms}")
+	public void refresh() {
+		RequestInfo requestInfo = new RequestInfo();
+		refresh(masterSnapshots, tenant -> loadMasterData(requestInfo, tenant));
+		refresh(boundarySnapshots, tenant -> loadBoundaryData(requestInfo, tenant));
+	}
+
+	private <T> Snapshot<T> get(Map<String, Snapshot<T>> snapshots, String tenantId, Function<String, T> loader) {
+		Snapshot<T> snapshot = snapshots.get(tenantId);
+		if (null == snapshot) {
+			T data = loader.apply(tenantId);
+			if (null == data)
+				return null;
+			snapshot = new Snapshot<>(data, versions.incrementAndGet());
+			Snapshot<T> loaded = snapshots.putIfAbsent(tenantId, snapshot);
+			if (null != loaded)
+				snapshot = loaded;
+			else
+				log.info("Loaded mdms snapshot version {} for tenant {}", snapshot.getVersion(), tenantId);
+		}
+		snapshot.setLastAccessTime(System.currentTimeMillis());
+		return snapshot;
+	}
+
+	private <T> void refresh(Map<String, Snapshot<T>> snapshots, Function<String, T> loader) {
+		long now = System.currentTimeMillis();
+		snapshots.entrySet().removeIf(entry -> now - entry.getValue().getLastAccessTime() >= propertiesManager.getMdmsSnapshotEviction());
+		for (Map.Entry<String, Snapshot<T>> entry : snapshots.entrySet()) {
+			if (now - entry.getValue().getLoadedTime() < propertiesManager.getMdmsSnapshotRefreshInterval())
+				continue;
+			try {
+				T data = loader.apply(entry.getKey());
+				if (null == data) {
+					log.error("Failed to refresh mdms snapshot for tenant {}, keeping version {}", entry.getKey(), entry.getValue().getVersion());
+					continue;
+				}
+				Snapshot<T> snapshot = new Snapshot<>(data, versions.incrementAndGet());
+				snapshot.setLastAccessTime(entry.getValue().getLastAccessTime());
+				snapshots.replace(entry.getKey(), entry.getValue(), snapshot);
+			} catch (Exception e) {
+				log.error("Failed to refresh mdms snapshot for tenant {}: ", entry.getKey(), e);
+			}
+		}
+	}
+
+	/**
+	 * Fetches the HRMS masters of the tenant and indexes the codes of each master into a set.
+	 *
+	 * @return codes mapped by master, null if the masters could not be fetched
+	 */
+	private Map<String, Set<String>> loadMasterData(RequestInfo requestInfo, String tenantId) {
+		Map<String, List<String>> mdmsData = mdmsService.getMDMSData(requestInfo, tenantId);
+		if (CollectionUtils.isEmpty(mdmsData))
+			return null;
+		Map<String, Set<String>> masterData = new HashMap<>();
+		mdmsData.forEach((master, codes) -> masterData.put(master,
+				null == codes ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(codes))));
+		return Collections.unmodifiableMap(masterData);
+	}
+
+	/**
+	 * Fetches the tenant boundaries of the boundary tenant and indexes them.
+	 *
+	 * @return boundary index, null if the boundaries could not be fetched
+	 */
+	@SuppressWarnings("unchecked")
+	private BoundaryIndex loadBoundaryData(RequestInfo requestInfo, String boundary) {
+		MdmsResponse responseLoc = mdmsService.fetchMDMSDataLoc(requestInfo, boundary);
+		if (null == responseLoc || CollectionUtils.isEmpty(responseLoc.getMdmsRes())
+				|| null == responseLoc.getMdmsRes().get(HRMSConstants.HRMS_MDMS_EGOV_LOCATION_MASTERS_CODE))
+			return null;
+		Map<String, Object> eachMasterMap = (Map) responseLoc.getMdmsRes().get(HRMSConstants.HRMS_MDMS_EGOV_LOCATION_MASTERS_CODE);
+		List<Object> tenantBoundaries = (List<Object>) eachMasterMap.get(HRMSConstants.HRMS_MDMS_TENANT_BOUNDARY_CODE);
+		if (CollectionUtils.isEmpty(tenantBoundaries))
+			return null;
+		return new BoundaryIndex(tenantBoundaries);
+	}
+
+	@Getter
+	private static class Snapshot<T> {
+
+		private final T data;
+
+		private final long version;
+
+		private final long loadedTime = System.currentTimeMillis();
+
+		@Setter
+		private volatile long lastAccessTime = System.currentTimeMillis();
+
+		Snapshot(T data, long version) {
+			this.data = data;
+			this.version = version;
+		}
+	}
+
+	/**
+	 * Tenant boundaries indexed by the root boundary code, as read by the jurisdiction validation:
+	 * hierarchy type codes by boundary code, and the labels and codes found anywhere under a
+	 * tenant boundary by hierarchy type name and boundary code.
+	 */
+	public static class BoundaryIndex {
+
+		private final Map<String, Set<String>> hierarchyTypes = new HashMap<>();
+
+		private final Map<String, Set<String>> boundaryTypes = new HashMap<>();
+
+		private final Map<String, Set<String>> boundaryValues = new HashMap<>();
+
+		@SuppressWarnings("unchecked")
+		BoundaryIndex(List<Object> tenantBoundaries) {
+			for (Object tenantBoundary : tenantBoundaries) {
+				if (!(tenantBoundary instanceof Map))
+					continue;
+				Map<String, Object> entry = (Map<String, Object>) tenantBoundary;
+				Object boundaryCode = getField(entry.get("boundary"), "code");
+				Object hierarchyType = entry.get("hierarchyType");
+				if (null == boundaryCode)
+					continue;
+				Object hierarchyCode = getField(hierarchyType, "code");
+				if (null != hierarchyCode)
+					hierarchyTypes.computeIfAbsent(boundaryCode.toString(), code -> new HashSet<>()).add(hierarchyCode.toString());
+				Object hierarchyName = getField(hierarchyType, "name");
+				if (null == hierarchyName)
+					continue;
+				String key = key(hierarchyName.toString(), boundaryCode.toString());
+				collect(entry, "label", boundaryTypes.computeIfAbsent(key, k -> new HashSet<>()));
+				collect(entry, "code", boundaryValues.computeIfAbsent(key, k -> new HashSet<>()));
+			}
+		}
+
+		public boolean hasHierarchyType(String boundary, String hierarchyType) {
+			return hierarchyTypes.getOrDefault(boundary, Collections.emptySet()).contains(hierarchyType);
+		}
+
+		public boolean hasBoundaryType(String hierarchy, String boundary, String boundaryType) {
+			return boundaryTypes.getOrDefault(key(hierarchy, boundary), Collections.emptySet()).contains(boundaryType);
+		}
+
+		public boolean hasBoundary(String hierarchy, String boundary) {
+			return boundaryValues.getOrDefault(key(hierarchy, boundary), Collections.emptySet()).contains(boundary);
+		}
+
+		private static String key(String hierarchy, String boundary) {
+			return hierarchy + "|" + boundary;
+		}
+
+		private static Object getField(Object node, String field) {
+			return node instanceof Map ? ((Map) node).get(field) : null;
+		}
+
+		/**
+		 * Collects the values of the field at any depth under the node.
+		 */
+		private static void collect(Object node, String field, Set<String> values) {
+			if (node instanceof Map) {
+				for (Object entry : ((Map<?, ?>) node).entrySet()) {
+					Map.Entry<?, ?> mapEntry = (Map.Entry<?, ?>) entry;
+					if (field.equals(mapEntry.getKey()) && null != mapEntry.getValue() && !(mapEntry.getValue() instanceof Map)
+							&& !(mapEntry.getValue() instanceof List))
+						values.add(mapEntry.getValue().toString());
+					collect(mapEntry.getValue(), field, values);
+				}
+			} else if (node instanceof List) {
+				for (Object child : (List<?>) node)
+					collect(child, field, values);
+			}
+		}
+	}
+
+}
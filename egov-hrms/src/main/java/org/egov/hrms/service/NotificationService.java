@@ -71,8 +71,8 @@ public class NotificationService {
 			return;
 		}
 		for(Employee employee: request.getEmployees()) {
-			message = buildMessage(employee, message, pwdMap);
-			SMSRequest smsRequest = SMSRequest.builder().mobileNumber(employee.getUser().getMobileNumber()).message(message).build();
+			String employeeMessage = buildMessage(employee, message, pwdMap);
+			SMSRequest smsRequest = SMSRequest.builder().mobileNumber(employee.getUser().getMobileNumber()).message(employeeMessage).build();
 			producer.push(smsTopic, smsRequest);
 		}
 	}
@@ -0,0 +1,192 @@
+package org.egov.hrms.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.hrms.config.PropertiesManager;
+import org.egov.hrms.utils.HRMSConstants;
+import org.egov.hrms.web.contract.User;
+import org.egov.hrms.web.contract.UserResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * User lookups of the employee search.
+ *
+ * Searches are de-duplicated and run concurrently on a bounded pool within a deadline,
+ * lookups timed out or failed are logged and left out, as failed user searches are.
+ * Users found are cached by uuid for a short time, callers get copies of the cached users.
+ */
+@Slf4j
+@Service
+public class UserLookupService {
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private PropertiesManager propertiesManager;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private ExecutorService lookupExecutor;
+
+	private final Map<String, CachedUser> usersByUuid = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void init() {
+		lookupExecutor = Executors.newFixedThreadPool(propertiesManager.getUserLookupPoolSize());
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		lookupExecutor.shutdown();
+	}
+
+	/**
+	 * Searches the users of the tenant by each of the names, one search per distinct name.
+	 *
+	 * @param requestInfo
+	 * @param tenantId
+	 * @param names
+	 * @return users found mapped by uuid
+	 */
+	public Map<String, User> searchByNames(RequestInfo requestInfo, String tenantId, List<String> names) {
+		List<CompletableFuture<UserResponse>> searches = new ArrayList<>();
+		for (String name : new LinkedHashSet<>(names)) {
+			Map<String, Object> userSearchCriteria = new HashMap<>();
+			userSearchCriteria.put(HRMSConstants.HRMS_USER_SEARCH_CRITERA_TENANTID, tenantId);
+			userSearchCriteria.put(HRMSConstants.HRMS_USER_SEARCH_CRITERA_NAME, name);
+			searches.add(submit(() -> userService.getUser(requestInfo, userSearchCriteria)));
+		}
+		return collect(searches);
+	}
+
+	/**
+	 * Returns the users of the uuids, from the cache where present, the rest are
+	 * searched in batches.
+	 *
+	 * @param requestInfo
+	 * @param uuids
+	 * @return users found mapped by uuid
+	 */
+	public Map<String, User> searchByUuids(RequestInfo requestInfo, List<String> uuids) {
+		Map<String, User> users = new LinkedHashMap<>();
+		List<String> missing = new ArrayList<>();
+		long now = System.currentTimeMillis();
+		for (String uuid : new LinkedHashSet<>(uuids)) {
+			CachedUser cached = usersByUuid.get(uuid);
+			if (null != cached && now - cached.getCachedTime() < propertiesManager.getUserCacheExpiry())
+				users.put(uuid, copy(cached.getUser()));
+			else
+				missing.add(uuid);
+		}
+
+		List<CompletableFuture<UserResponse>> searches = new ArrayList<>();
+		int batchSize = propertiesManager.getUserSearchBatchSize();
+		for (int from = 0; from < missing.size(); from += batchSize) {
+			Map<String, Object> userSearchCriteria = new HashMap<>();
+			userSearchCriteria.put(HRMSConstants.HRMS_USER_SEARCH_CRITERA_UUID,
+					new ArrayList<>(missing.subList(from, Math.min(from + batchSize, missing.size()))));
+			searches.add(submit(() -> userService.getUser(requestInfo, userSearchCriteria)));
+		}
+		users.putAll(collect(searches));
+		return users;
+	}
+
+	/**
+	 * Drops the cached users of the uuids, to be called when the users are updated.
+	 *
+	 * @param uuids
+	 */
+	public void evict(Collection<String> uuids) {
+		uuids.forEach(usersByUuid::remove);
+	}
+
+	private CompletableFuture<UserResponse> submit(Supplier<UserResponse> search) {
+		Map<String, String> context = MDC.getCopyOfContextMap();
+		return CompletableFuture.supplyAsync(() -> {
+			if (null != context)
+				MDC.setContextMap(context);
+			try {
+				return search.get();
+			} finally {
+				MDC.clear();
+			}
+		}, lookupExecutor);
+	}
+
+	/**
+	 * Waits for the searches until the deadline, caches and returns the users found.
+	 */
+	private Map<String, User> collect(List<CompletableFuture<UserResponse>> searches) {
+		Map<String, User> users = new LinkedHashMap<>();
+		long deadline = System.currentTimeMillis() + propertiesManager.getUserLookupTimeout();
+		for (CompletableFuture<UserResponse> search : searches) {
+			try {
+				UserResponse userResponse = search.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+				if (null != userResponse && !CollectionUtils.isEmpty(userResponse.getUser()))
+					userResponse.getUser().forEach(user -> users.put(user.getUuid(), user));
+			} catch (TimeoutException e) {
+				search.cancel(true);
+				log.error("User search timed out after {} ms", propertiesManager.getUserLookupTimeout());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				log.error("User search interrupted: ", e);
+			} catch (ExecutionException e) {
+				log.error("User search failed: ", e.getCause());
+			}
+		}
+		cache(users.values());
+		return users;
+	}
+
+	private void cache(Collection<User> users) {
+		long now = System.currentTimeMillis();
+		if (usersByUuid.size() + users.size() > propertiesManager.getUserCacheMaxSize())
+			usersByUuid.values().removeIf(cached -> now - cached.getCachedTime() >= propertiesManager.getUserCacheExpiry());
+		if (usersByUuid.size() + users.size() > propertiesManager.getUserCacheMaxSize())
+			return;
+		users.forEach(user -> usersByUuid.put(user.getUuid(), new CachedUser(copy(user), now)));
+	}
+
+	private User copy(User user) {
+		return objectMapper.convertValue(user, User.class);
+	}
+
+	@Getter
+	@AllArgsConstructor
+	private static class CachedUser {
+
+		private User user;
+
+		private long cachedTime;
+	}
+
+}
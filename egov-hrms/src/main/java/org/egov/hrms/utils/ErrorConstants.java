@@ -168,6 +168,9 @@ public class ErrorConstants {
 	public static final String HRMS_INVALID_SEARCH_USER_CODE = "ERR_HRMS_INVALID_SEARCH_USER";
 	public static final String HRMS_INVALID_SEARCH_USER_MSG = "For search based on phone number and name, passing of tenant id is mandatory.";
 
+	public static final String HRMS_INVALID_SEARCH_CURSOR_CODE = "ERR_HRMS_INVALID_SEARCH_CURSOR";
+	public static final String HRMS_INVALID_SEARCH_CURSOR_MSG = "For search after an employee, both afterTenantId and afterUuid are mandatory.";
+
 	public static final String HRMS_UPDATE_EMPLOYEE_CODE_CHANGE_CODE = "ERR_HRMS_UPDATE_EMPLOYEE_CODE_CHANGE";
 	public static final String HRMS_UPDATE_EMPLOYEE_CODE_CHANGE_MSG = "Employee code can not be changed in an update request.";
 	public static final String HRMS_UPDATE_EMPLOYEE_NOT_EXIST_CODE = "ERR_HRMS_UPDATE_EMPLOYEE_NOT_EXIST_CODE";
@@ -182,6 +185,15 @@ public class ErrorConstants {
 	public static final String HRMS_BULK_CREATE_DUPLICATE_EMPCODE_CODE = "ERR_HRMS_BULK_CREATE_DUPLICATE_EMPCODE";
 	public static final String HRMS_BULK_CREATE_DUPLICATE_EMPCODE_MSG = "Bulk request has duplicate employee code ";
 
+	public static final String HRMS_BULK_CREATE_MAX_EMPLOYEES_CODE = "ERR_HRMS_BULK_CREATE_MAX_EMPLOYEES";
+	public static final String HRMS_BULK_CREATE_MAX_EMPLOYEES_MSG = "Bulk create request can have at most employees: ";
+
+	public static final String HRMS_BULK_CREATE_MDMS_UNAVAILABLE_CODE = "ERR_HRMS_BULK_CREATE_MDMS_UNAVAILABLE";
+	public static final String HRMS_BULK_CREATE_MDMS_UNAVAILABLE_MSG = "MDMS data could not be fetched for tenant: ";
+
+	public static final String HRMS_BULK_CREATE_INVALID_ROW_CODE = "ERR_HRMS_BULK_CREATE_INVALID_ROW";
+	public static final String HRMS_BULK_CREATE_INVALID_ROW_MSG = "Employee data is incomplete or invalid.";
+
 	public static final String HRMS_UPDATE_DEACT_DETAILS_INCORRECT_EFFECTIVEFROM_CODE = "ERR_HRMS_UPDATE_DEACT_DETAILS_INCORRECT_EFFECTIVEFROM";
 	public static final String HRMS_UPDATE_DEACT_DETAILS_INCORRECT_EFFECTIVEFROM_MSG = "Employee deactivation effective date should be current date only.";
 
@@ -0,0 +1,36 @@
+package org.egov.hrms.web.contract;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Builder
+@AllArgsConstructor
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Setter
+@ToString
+public class BulkEmployeeError {
+
+	@JsonProperty("index")
+	private Integer index;
+
+	@JsonProperty("code")
+	private String code;
+
+	@JsonProperty("mobileNumber")
+	private String mobileNumber;
+
+	@JsonProperty("errors")
+	private Map<String, String> errors;
+
+}
@@ -0,0 +1,51 @@
+package org.egov.hrms.web.contract;
+
+import java.util.List;
+
+import org.egov.common.contract.response.ResponseInfo;
+import org.egov.hrms.model.Employee;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Builder
+@AllArgsConstructor
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Setter
+@ToString
+public class BulkEmployeeResponse {
+
+	@JsonProperty("ResponseInfo")
+	private ResponseInfo responseInfo;
+
+	@JsonProperty("Employees")
+	private List<Employee> employees;
+
+	@JsonProperty("Errors")
+	private List<BulkEmployeeError> errors;
+
+	@JsonProperty("totalCount")
+	private Integer totalCount;
+
+	@JsonProperty("createdCount")
+	private Integer createdCount;
+
+	@JsonProperty("failedCount")
+	private Integer failedCount;
+
+	@JsonProperty("timeTakenInMs")
+	private Long timeTakenInMs;
+
+	@JsonProperty("employeesPerSecond")
+	private Double employeesPerSecond;
+
+}
@@ -55,6 +55,12 @@ public class EmployeeSearchCriteria {
 	public Integer offset;
 	
 	public Integer limit;
+
+	@Size(max = 250)
+	public String afterTenantId;
+
+	@Size(max = 1024)
+	public String afterUuid;
 	
 	
 	public boolean isCriteriaEmpty(EmployeeSearchCriteria criteria) {
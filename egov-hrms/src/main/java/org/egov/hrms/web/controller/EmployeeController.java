@@ -42,7 +42,9 @@ package org.egov.hrms.web.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.egov.common.contract.request.RequestInfo;
+import org.egov.hrms.service.BulkEmployeeService;
 import org.egov.hrms.service.EmployeeService;
+import org.egov.hrms.web.contract.BulkEmployeeResponse;
 import org.egov.hrms.web.contract.EmployeeRequest;
 import org.egov.hrms.web.contract.EmployeeResponse;
 import org.egov.hrms.web.contract.EmployeeSearchCriteria;
@@ -66,6 +68,9 @@ public class EmployeeController {
 	@Autowired
 	private EmployeeService employeeService;
 	
+	@Autowired
+	private BulkEmployeeService bulkEmployeeService;
+	
 	@Autowired
 	private EmployeeValidator validator;
 
@@ -87,6 +92,21 @@ public class EmployeeController {
 	}
 
 
+	/**
+	 * Maps Post Requests for _bulkcreate & returns ResponseEntity of
+	 * BulkEmployeeResponse type, rows failed are reported with their errors
+	 *
+	 * @param employeeRequest
+	 * @return ResponseEntity<?>
+	 */
+	@PostMapping(value = "/_bulkcreate")
+	@ResponseBody
+	public ResponseEntity<?> bulkCreate(@RequestBody @Valid EmployeeRequest employeeRequest) {
+		BulkEmployeeResponse bulkEmployeeResponse = bulkEmployeeService.create(employeeRequest);
+		return new ResponseEntity<>(bulkEmployeeResponse, HttpStatus.OK);
+	}
+
+
 	/**
 	 * Maps Post Requests for _update & returns ResponseEntity of either
 	 * EmployeeResponse type or ErrorResponse type
@@ -6,23 +6,25 @@ import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
 
-import com.jayway.jsonpath.JsonPath;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.kafka.common.protocol.types.Field;
 import org.egov.common.contract.request.RequestInfo;
 import org.egov.common.contract.request.Role;
 import org.egov.hrms.config.PropertiesManager;
 import org.egov.hrms.model.*;
+import org.egov.hrms.model.enums.UserType;
 import org.egov.hrms.service.EmployeeService;
-import org.egov.hrms.service.MDMSService;
+import org.egov.hrms.service.MDMSSnapshotService;
+import org.egov.hrms.service.MDMSSnapshotService.BoundaryIndex;
+import org.egov.hrms.service.UserLookupService;
 import org.egov.hrms.service.UserService;
 import org.egov.hrms.utils.ErrorConstants;
 import org.egov.hrms.utils.HRMSConstants;
 import org.egov.hrms.web.contract.EmployeeRequest;
 import org.egov.hrms.web.contract.EmployeeResponse;
 import org.egov.hrms.web.contract.EmployeeSearchCriteria;
+import org.egov.hrms.web.contract.User;
 import org.egov.hrms.web.contract.UserResponse;
-import org.egov.mdms.model.MdmsResponse;
 import org.egov.tracer.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -35,13 +37,16 @@ import lombok.extern.slf4j.Slf4j;
 public class EmployeeValidator {
 	
 	@Autowired
-	private MDMSService mdmsService;
+	private MDMSSnapshotService mdmsSnapshotService;
 
 	@Autowired
 	private EmployeeService employeeService;
 
 	@Autowired
 	private UserService userService;
+
+	@Autowired
+	private UserLookupService userLookupService;
 	
 	@Autowired
 	private PropertiesManager propertiesManager;
@@ -58,49 +63,124 @@ public class EmployeeValidator {
 		validateExistingDuplicates(request ,errorMap);
 		if(!CollectionUtils.isEmpty(errorMap.keySet()))
 			throw new CustomException(errorMap);
-		Map<String, List<String>> boundaryMap = getBoundaryList(request.getRequestInfo(),request.getEmployees().get(0));
-		Map<String, List<String>> mdmsData = mdmsService.getMDMSData(request.getRequestInfo(), request.getEmployees().get(0).getTenantId());
+		List<BoundaryIndex> boundaryData = getBoundaryList(request.getRequestInfo(),request.getEmployees().get(0));
+		Map<String, Set<String>> mdmsData = mdmsSnapshotService.getMasterData(request.getRequestInfo(), request.getEmployees().get(0).getTenantId());
 		if(!CollectionUtils.isEmpty(mdmsData.keySet())){
-			request.getEmployees().stream().forEach(employee -> validateMdmsData(employee, errorMap, mdmsData,boundaryMap));
+			request.getEmployees().stream().forEach(employee -> validateMdmsData(employee, errorMap, mdmsData, boundaryData));
 		}
 		if(!CollectionUtils.isEmpty(errorMap.keySet()))
 			throw new CustomException(errorMap);
 	}
 
-	public Map<String, List<String>> getBoundaryList(RequestInfo requestInfo,Employee employee){
-		List<String> boundarytList = new ArrayList<>();
-		Map<String, List<String>> eachMasterMap = new HashMap<>();
-		Map<String, List<String>> masterData = new HashMap<>();
-		if(!CollectionUtils.isEmpty(employee.getJurisdictions())){
-			for(Jurisdiction jurisdiction: employee.getJurisdictions()){
-				if(!boundarytList.contains(jurisdiction.getBoundary()))
-					boundarytList.add(jurisdiction.getBoundary());
+	/**
+	 * Validates employee rows of a bulk create against the MDMS and boundary snapshots of the request.
+	 * Unlike the create validation, errors are collected per row instead of failing the request.
+	 * The masters of each tenant are read once, so all rows of a tenant see the same snapshot.
+	 *
+	 * @param request
+	 * @return errors of the invalid rows mapped by row index
+	 */
+	public Map<Integer, Map<String, String>> validateBulkCreateEmployees(EmployeeRequest request) {
+		List<Employee> employees = request.getEmployees();
+		if(employees.size() > propertiesManager.getBulkCreateMaxEmployees())
+			throw new CustomException(ErrorConstants.HRMS_BULK_CREATE_MAX_EMPLOYEES_CODE,
+					ErrorConstants.HRMS_BULK_CREATE_MAX_EMPLOYEES_MSG + propertiesManager.getBulkCreateMaxEmployees());
+		List<BoundaryIndex> boundaryData = getBoundaryList(request.getRequestInfo(), employees);
+		Map<Integer, Map<String, String>> rowErrors = new TreeMap<>();
+		Map<String, Map<String, Set<String>>> masterDataByTenant = new HashMap<>();
+		Set<String> mobileNos = new HashSet<>();
+		Set<String> codes = new HashSet<>();
+		for(int index = 0; index < employees.size(); index++) {
+			Employee employee = employees.get(index);
+			Map<String, String> errorMap = new HashMap<>();
+			try {
+				if(!mobileNos.add(employee.getUser().getMobileNumber()))
+					errorMap.put(ErrorConstants.HRMS_BULK_CREATE_DUPLICATE_MOBILE_CODE, ErrorConstants.HRMS_BULK_CREATE_DUPLICATE_MOBILE_MSG);
+				if(null != employee.getCode() && !codes.add(employee.getCode()))
+					errorMap.put(ErrorConstants.HRMS_BULK_CREATE_DUPLICATE_EMPCODE_CODE, ErrorConstants.HRMS_BULK_CREATE_DUPLICATE_EMPCODE_MSG);
+				Map<String, Set<String>> mdmsData = masterDataByTenant.computeIfAbsent(employee.getTenantId(),
+						tenantId -> mdmsSnapshotService.getMasterData(request.getRequestInfo(), tenantId));
+				if(CollectionUtils.isEmpty(mdmsData.keySet()))
+					throw new CustomException(ErrorConstants.HRMS_BULK_CREATE_MDMS_UNAVAILABLE_CODE,
+							ErrorConstants.HRMS_BULK_CREATE_MDMS_UNAVAILABLE_MSG + employee.getTenantId());
+				validateMdmsData(employee, errorMap, mdmsData, boundaryData);
+			} catch(CustomException e) {
+				throw e;
+			} catch(Exception e) {
+				log.error("Exception while validating bulk create row {}: ", index, e);
+				errorMap.put(ErrorConstants.HRMS_BULK_CREATE_INVALID_ROW_CODE, ErrorConstants.HRMS_BULK_CREATE_INVALID_ROW_MSG);
 			}
-			if(CollectionUtils.isEmpty(boundarytList))
-				boundarytList.add(employee.getTenantId());
+			if(!CollectionUtils.isEmpty(errorMap.keySet()))
+				rowErrors.put(index, errorMap);
 		}
+		return rowErrors;
+	}
 
-		List<MdmsResponse> boundaryResponseList = new ArrayList<>();
-		for(String boundary: boundarytList){
-			MdmsResponse responseLoc = mdmsService.fetchMDMSDataLoc(requestInfo, boundary);
-			if(!CollectionUtils.isEmpty(responseLoc.getMdmsRes()))
-				boundaryResponseList.add(responseLoc);
-		}
+	/**
+	 * Checks if a user already exists for the mobile number or the code of the employee.
+	 *
+	 * @param employee
+	 * @param requestInfo
+	 * @return errors found, empty if none
+	 */
+	public Map<String, String> validateExistingUser(Employee employee, RequestInfo requestInfo) {
+		Map<String, String> errorMap = new HashMap<>();
+		validateUserMobile(Collections.singletonList(employee), errorMap, requestInfo);
+		validateUserName(Collections.singletonList(employee), errorMap, requestInfo);
+		return errorMap;
+	}
 
-		if(!CollectionUtils.isEmpty(boundaryResponseList)){
-			List<String> tenantBoundaryData = new ArrayList<>();
-			for(MdmsResponse responseLoc : boundaryResponseList){
-				if(!CollectionUtils.isEmpty(responseLoc.getMdmsRes().keySet())) {
-					if(null != responseLoc.getMdmsRes().get(HRMSConstants.HRMS_MDMS_EGOV_LOCATION_MASTERS_CODE)) {
-						eachMasterMap = (Map) responseLoc.getMdmsRes().get(HRMSConstants.HRMS_MDMS_EGOV_LOCATION_MASTERS_CODE);
-						tenantBoundaryData.addAll(eachMasterMap.get(HRMSConstants.HRMS_MDMS_TENANT_BOUNDARY_CODE));
-					}
-				}
+	/**
+	 * Returns the employee user an earlier delivery of a bulk create job left without an employee.
+	 * The user of the code, or of the mobile number when the code is to be generated, is returned
+	 * only if it is an employee user of the same mobile number and no employee is saved for it.
+	 *
+	 * @param employee
+	 * @param requestInfo
+	 * @return the user to resume the employee with, null if none
+	 */
+	public User getUserWithoutEmployee(Employee employee, RequestInfo requestInfo) {
+		Map<String, Object> userSearchCriteria = new HashMap<>();
+		userSearchCriteria.put(HRMSConstants.HRMS_USER_SEARCH_CRITERA_TENANTID, employee.getTenantId());
+		if(!StringUtils.isEmpty(employee.getCode()))
+			userSearchCriteria.put(HRMSConstants.HRMS_USER_SEARCH_CRITERA_USERNAME, employee.getCode());
+		else
+			userSearchCriteria.put(HRMSConstants.HRMS_USER_SEARCH_CRITERA_MOBILENO, employee.getUser().getMobileNumber());
+		UserResponse userResponse = userService.getUser(requestInfo, userSearchCriteria);
+		if(null == userResponse || CollectionUtils.isEmpty(userResponse.getUser()))
+			return null;
+		List<User> users = userResponse.getUser().stream()
+				.filter(user -> UserType.EMPLOYEE.toString().equals(user.getType())
+						&& employee.getUser().getMobileNumber().equals(user.getMobileNumber()))
+				.collect(Collectors.toList());
+		if(users.size() != 1)
+			return null;
+		EmployeeSearchCriteria criteria = EmployeeSearchCriteria.builder().tenantId(employee.getTenantId())
+				.uuids(Collections.singletonList(users.get(0).getUuid())).build();
+		EmployeeResponse existingEmployees = employeeService.search(criteria, requestInfo);
+		return CollectionUtils.isEmpty(existingEmployees.getEmployees()) ? users.get(0) : null;
+	}
+
+	public List<BoundaryIndex> getBoundaryList(RequestInfo requestInfo,Employee employee){
+		return getBoundaryList(requestInfo, Collections.singletonList(employee));
+	}
+
+	/**
+	 * Returns the boundary data of the distinct boundaries of the employees' jurisdictions from the MDMS snapshots.
+	 *
+	 * @param requestInfo
+	 * @param employees
+	 * @return
+	 */
+	public List<BoundaryIndex> getBoundaryList(RequestInfo requestInfo, List<Employee> employees){
+		Set<String> boundaries = new LinkedHashSet<>();
+		for(Employee employee: employees){
+			if(!CollectionUtils.isEmpty(employee.getJurisdictions())){
+				for(Jurisdiction jurisdiction: employee.getJurisdictions())
+					boundaries.add(jurisdiction.getBoundary());
 			}
-			if(!CollectionUtils.isEmpty(tenantBoundaryData))
-				masterData.put(HRMSConstants.HRMS_MDMS_TENANT_BOUNDARY_CODE,tenantBoundaryData);
 		}
-		return masterData;
+		return mdmsSnapshotService.getBoundaryData(requestInfo, boundaries);
 	}
 	
 	/**
@@ -139,6 +219,9 @@ public class EmployeeValidator {
 				StringUtils.isEmpty(criteria.getTenantId())) {
 			errorMap.put(ErrorConstants.HRMS_INVALID_SEARCH_USER_CODE, ErrorConstants.HRMS_INVALID_SEARCH_USER_MSG);
 		}
+		if(StringUtils.isEmpty(criteria.getAfterTenantId()) != StringUtils.isEmpty(criteria.getAfterUuid())) {
+			errorMap.put(ErrorConstants.HRMS_INVALID_SEARCH_CURSOR_CODE, ErrorConstants.HRMS_INVALID_SEARCH_CURSOR_MSG);
+		}
 		if(!CollectionUtils.isEmpty(errorMap.keySet()))
 			throw new CustomException(errorMap);
 	}
@@ -230,11 +313,11 @@ public class EmployeeValidator {
      * @param errorMap
      * @param mdmsData
      */
-	private void validateMdmsData(Employee employee, Map<String, String> errorMap, Map<String, List<String>> mdmsData, Map<String, List<String>> boundaryMap) {
+	private void validateMdmsData(Employee employee, Map<String, String> errorMap, Map<String, Set<String>> mdmsData, List<BoundaryIndex> boundaryData) {
 		validateEmployee(employee, errorMap, mdmsData);
 		validateAssignments(employee, errorMap, mdmsData);
 		validateServiceHistory(employee, errorMap, mdmsData);
-		validateJurisdicton(employee, errorMap, mdmsData, boundaryMap);
+		validateJurisdicton(employee, errorMap, mdmsData, boundaryData);
 		validateEducationalDetails(employee, errorMap, mdmsData);
 		validateDepartmentalTest(employee, errorMap, mdmsData);
 	}
@@ -248,7 +331,7 @@ public class EmployeeValidator {
 	 * @param existingEmp
 	 * @param requestInfo
 	 */
-	public void validateDataConsistency(Employee employee, Map<String, String> errorMap, Map<String, List<String>> mdmsData, Employee existingEmp, RequestInfo requestInfo) {
+	public void validateDataConsistency(Employee employee, Map<String, String> errorMap, Map<String, Set<String>> mdmsData, Employee existingEmp, RequestInfo requestInfo) {
 		validateUserData(existingEmp,employee,errorMap, requestInfo);
 		validateConsistencyAssignment(existingEmp,employee,errorMap);
 		validateConsistencyJurisdiction(existingEmp,employee,errorMap);
@@ -301,7 +384,7 @@ public class EmployeeValidator {
 	 * @param errorMap
 	 * @param mdmsData
 	 */
-	private void validateEmployee(Employee employee, Map<String, String> errorMap, Map<String, List<String>> mdmsData) {
+	private void validateEmployee(Employee employee, Map<String, String> errorMap, Map<String, Set<String>> mdmsData) {
 
 		if(employee.getUser().getMobileNumber().length() != 10)
 			errorMap.put(ErrorConstants.HRMS_INVALID_MOB_NO_CODE, ErrorConstants.HRMS_INVALID_MOB_NO_MSG);
@@ -340,7 +423,7 @@ public class EmployeeValidator {
 	 * @param errorMap
 	 * @param mdmsData
 	 */
-	private void validateAssignments(Employee employee, Map<String, String> errorMap, Map<String, List<String>> mdmsData) {
+	private void validateAssignments(Employee employee, Map<String, String> errorMap, Map<String, Set<String>> mdmsData) {
 		List<Assignment> currentAssignments = employee.getAssignments().stream().filter(assignment -> assignment.getIsCurrentAssignment()).collect(Collectors.toList());
 		if(currentAssignments.size() != 1){
 			errorMap.put(ErrorConstants.HRMS_INVALID_CURRENT_ASSGN_CODE, ErrorConstants.HRMS_INVALID_CURRENT_ASSGN_MSG);
@@ -395,7 +478,7 @@ public class EmployeeValidator {
 	 * @param errorMap
 	 * @param mdmsData
 	 */
-	private void validateServiceHistory(Employee employee, Map<String, String> errorMap, Map<String, List<String>> mdmsData) {
+	private void validateServiceHistory(Employee employee, Map<String, String> errorMap, Map<String, Set<String>> mdmsData) {
 		if(!CollectionUtils.isEmpty(employee.getServiceHistory())){
 			List<ServiceHistory> currentService = employee.getServiceHistory().stream().filter(serviceHistory -> null!= serviceHistory.getIsCurrentPosition() && serviceHistory.getIsCurrentPosition()).collect(Collectors.toList());
 			if(currentService.size() > 1){
@@ -430,7 +513,7 @@ public class EmployeeValidator {
 	 * @param errorMap
 	 * @param mdmsData
 	 */
-	private void validateEducationalDetails(Employee employee, Map<String, String> errorMap, Map<String, List<String>> mdmsData) {
+	private void validateEducationalDetails(Employee employee, Map<String, String> errorMap, Map<String, Set<String>> mdmsData) {
 		if(!CollectionUtils.isEmpty(employee.getEducation())){
 			for(EducationalQualification education : employee.getEducation()) {
 				if(null!= education.getQualification() && !mdmsData.get(HRMSConstants.HRMS_MDMS_QUALIFICATION_CODE).contains(education.getQualification()))
@@ -454,22 +537,16 @@ public class EmployeeValidator {
 	 * @param errorMap
 	 * @param mdmsData
 	 */
-	private void validateJurisdicton(Employee employee, Map<String, String> errorMap, Map<String, List<String>> mdmsData,Map<String, List<String>> boundaryMap) {
+	private void validateJurisdicton(Employee employee, Map<String, String> errorMap, Map<String, Set<String>> mdmsData,List<BoundaryIndex> boundaryData) {
 		if(CollectionUtils.isEmpty(employee.getJurisdictions().stream().filter(jurisdiction -> null == jurisdiction.getIsActive() || jurisdiction.getIsActive() &&  jurisdiction.getIsActive() ).collect(Collectors.toList()))){
 			errorMap.put(ErrorConstants.HRMS_INVALID_JURISDICTION_ACTIIEV_NULL_CODE,ErrorConstants.HRMS_INVALID_JURISDICTION_ACTIIEV_NULL_MSG);
 		}
 		for(Jurisdiction jurisdiction: employee.getJurisdictions()) {
-				String hierarchy_type_path = String.format(HRMSConstants.HRMS_TENANTBOUNDARY_HIERARCHY_JSONPATH,jurisdiction.getBoundary());
-				String boundary_type_path = String.format(HRMSConstants.HRMS_TENANTBOUNDARY_BOUNDARY_TYPE_JSONPATH,jurisdiction.getHierarchy(),jurisdiction.getBoundary());
-				String boundary_value_path = String.format(HRMSConstants.HRMS_TENANTBOUNDARY_BOUNDARY_VALUE_JSONPATH,jurisdiction.getHierarchy(),jurisdiction.getBoundary());
-				List<String>  hierarchyTypes = JsonPath.read(boundaryMap,hierarchy_type_path);
-				List <String> boundaryTypes = JsonPath.read(boundaryMap,boundary_type_path);
-				List <String> boundaryValues = JsonPath.read(boundaryMap,boundary_value_path);
-				if(!hierarchyTypes.contains(jurisdiction.getHierarchy()))
+				if(boundaryData.stream().noneMatch(boundaryIndex -> boundaryIndex.hasHierarchyType(jurisdiction.getBoundary(), jurisdiction.getHierarchy())))
 					errorMap.put(ErrorConstants.HRMS_INVALID_JURISDICTION_HEIRARCHY_CODE, ErrorConstants.HRMS_INVALID_JURISDICTION_HEIRARCHY_MSG);
-				if(!boundaryTypes.contains(jurisdiction.getBoundaryType()))
+				if(boundaryData.stream().noneMatch(boundaryIndex -> boundaryIndex.hasBoundaryType(jurisdiction.getHierarchy(), jurisdiction.getBoundary(), jurisdiction.getBoundaryType())))
 					errorMap.put(ErrorConstants.HRMS_INVALID_JURISDICTION_BOUNDARY_TYPE_CODE, ErrorConstants.HRMS_INVALID_JURISDICTION_BOUNDARY_TYPE_MSG);
-				if(!boundaryValues.contains(jurisdiction.getBoundary()))
+				if(boundaryData.stream().noneMatch(boundaryIndex -> boundaryIndex.hasBoundary(jurisdiction.getHierarchy(), jurisdiction.getBoundary())))
 					errorMap.put(ErrorConstants.HRMS_INVALID_JURISDICTION_BOUNDARY_CODE, ErrorConstants.HRMS_INVALID_JURISDICTION_BOUNDARY_MSG);
 			}
 
@@ -486,7 +563,7 @@ public class EmployeeValidator {
 	 * @param errorMap
 	 * @param mdmsData
 	 */
-	private void validateDepartmentalTest(Employee employee, Map<String, String> errorMap, Map<String, List<String>> mdmsData) {
+	private void validateDepartmentalTest(Employee employee, Map<String, String> errorMap, Map<String, Set<String>> mdmsData) {
 		if(!CollectionUtils.isEmpty(employee.getTests())) {
 			for (DepartmentalTest test : employee.getTests()) {
 				if (null!=test.getTest() && !mdmsData.get(HRMSConstants.HRMS_MDMS_DEPT_TEST_CODE).contains(test.getTest()))
@@ -506,7 +583,7 @@ public class EmployeeValidator {
 	 * @param errorMap
 	 * @param mdmsData
 	 */
-	private void validateDeactivationDetails(Employee existingEmp, Employee updatedEmployeeData, Map<String, String> errorMap, Map<String, List<String>> mdmsData){
+	private void validateDeactivationDetails(Employee existingEmp, Employee updatedEmployeeData, Map<String, String> errorMap, Map<String, Set<String>> mdmsData){
 		if(!CollectionUtils.isEmpty(updatedEmployeeData.getDeactivationDetails())) {
 			Date date = new Date();
 			Date  currentDateStartTime = Date.from(date.toInstant().atZone(ZoneId.systemDefault())
@@ -529,7 +606,7 @@ public class EmployeeValidator {
 		}
 	}
 
-	private void validateReactivationDetails(Employee existingEmp, Employee updatedEmployeeData, Map<String, String> errorMap, Map<String, List<String>> mdmsData){
+	private void validateReactivationDetails(Employee existingEmp, Employee updatedEmployeeData, Map<String, String> errorMap, Map<String, Set<String>> mdmsData){
 		if(!CollectionUtils.isEmpty(updatedEmployeeData.getReactivationDetails())) {
 			for (ReactivationDetails reactivationDetails : updatedEmployeeData.getReactivationDetails()) {
 				Boolean isValidDetails = existingEmp.getDeactivationDetails().get(0).getEffectiveFrom() <= reactivationDetails.getEffectiveFrom()
@@ -550,9 +627,11 @@ public class EmployeeValidator {
 	 */
 	public void validateUpdateEmployee(EmployeeRequest request) {
 		Map<String, String> errorMap = new HashMap<>();
-		Map<String, List<String>> boundaryMap = getBoundaryList(request.getRequestInfo(),request.getEmployees().get(0));
-		Map<String, List<String>> mdmsData = mdmsService.getMDMSData(request.getRequestInfo(), request.getEmployees().get(0).getTenantId());
+		List<BoundaryIndex> boundaryData = getBoundaryList(request.getRequestInfo(),request.getEmployees().get(0));
+		Map<String, Set<String>> mdmsData = mdmsSnapshotService.getMasterData(request.getRequestInfo(), request.getEmployees().get(0).getTenantId());
 		List <String> uuidList = request.getEmployees().stream().map(Employee :: getUuid).collect(Collectors.toList()); 
+		// existing users are checked against the request, so they are read afresh
+		userLookupService.evict(uuidList);
 		EmployeeResponse existingEmployeeResponse = employeeService.search(EmployeeSearchCriteria.builder().uuids(uuidList).build(),request.getRequestInfo());
 		List <Employee> existingEmployees = existingEmployeeResponse.getEmployees();
 		for(Employee employee: request.getEmployees()){
@@ -564,7 +643,7 @@ public class EmployeeValidator {
 				else
 					errorMap.put(ErrorConstants.HRMS_UPDATE_EMPLOYEE_NOT_EXIST_CODE, ErrorConstants.HRMS_UPDATE_EMPLOYEE_NOT_EXIST_MSG);
 			}
-			validateMdmsData(employee, errorMap, mdmsData,boundaryMap);
+			validateMdmsData(employee, errorMap, mdmsData, boundaryData);
 		}
 		if(!CollectionUtils.isEmpty(errorMap.keySet())) {	
 			throw new CustomException(errorMap);
@@ -0,0 +1,7 @@
+CREATE INDEX IF NOT EXISTS assignment_employeeid_idx ON eg_hrms_assignment ("employeeid");
+CREATE INDEX IF NOT EXISTS educationaldetails_employeeid_idx ON eg_hrms_educationaldetails ("employeeid");
+CREATE INDEX IF NOT EXISTS departmentaltests_employeeid_idx ON eg_hrms_departmentaltests ("employeeid");
+CREATE INDEX IF NOT EXISTS empdocuments_employeeid_idx ON eg_hrms_empdocuments ("employeeid");
+CREATE INDEX IF NOT EXISTS servicehistory_employeeid_idx ON eg_hrms_servicehistory ("employeeid");
+CREATE INDEX IF NOT EXISTS jurisdiction_employeeid_idx ON eg_hrms_jurisdiction ("employeeid");
+CREATE INDEX IF NOT EXISTS deactivationdetails_employeeid_idx ON eg_hrms_deactivationdetails ("employeeid");
@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS idx_eg_hrms_employee_tenantid_uuid ON eg_hrms_employee (tenantid, uuid);
@@ -0,0 +1,218 @@
+package org.egov.hrms.benchmark;
+
+import org.egov.hrms.config.PropertiesManager;
+import org.egov.hrms.model.Employee;
+import org.egov.hrms.repository.EmployeeQueryBuilder;
+import org.egov.hrms.repository.EmployeeRepository;
+import org.egov.hrms.repository.EmployeeRowMapper;
+import org.egov.hrms.utils.HRMSUtils;
+import org.egov.hrms.web.contract.EmployeeSearchCriteria;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the search of all employees of a ULB with the fan-out of senior employees:
+ * 10 assignments, 5 jurisdictions, 8 service history rows, 3 qualifications, 2 tests,
+ * 4 documents and a deactivation and reactivation each.
+ *
+ * legacyJoin runs the former single statement joining all child tables and de-duplicates
+ * the child ids of every row with list lookups, as the former row mapper did. It does not
+ * build the child objects, so it understates the former cost. batchedFetch runs the
+ * repository search, which fetches the children with one statement per child table.
+ *
+ * Needs a scratch database migrated with the flyway scripts of the service, the benchmark
+ * tenant is deleted at the end of the trial.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.egov.hrms.benchmark.EmployeeSearchBenchmark
+ *   -Dbenchmark.db.url=jdbc:postgresql://localhost:5432/hrms_bench -Dbenchmark.db.username=postgres -Dbenchmark.db.password=postgres
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EmployeeSearchBenchmark {
+
+	private static final String TENANT_ID = "pb.hrmsbenchmark";
+
+	private static final String[] CHILD_ALIASES = {"assignment", "education", "depttest", "docs", "jurisdiction", "history", "deact", "react"};
+
+	/*
+	 * Former search statement, joins every child table to the employee
+	 */
+	private static final String LEGACY_JOIN_QUERY = "SELECT employee.id as employee_id, employee.uuid as employee_uuid, employee.code as employee_code, "
+			+ "employee.dateOfAppointment as employee_doa, employee.employeestatus as employee_status, employeetype as employee_type, employee.active as employee_active, employee.reactivateemployee as employee_reactive, "
+			+ "employee.tenantid as employee_tenantid, employee.createdby as employee_createdby, employee.createddate as employee_createddate, "
+			+ "employee.lastmodifiedby as employee_lastmodifiedby, employee.lastmodifieddate as employee_lastmodifieddate, assignment.uuid as assignment_uuid, "
+			+ "assignment.position as assignment_position, assignment.department as assignment_department, assignment.designation as assignment_designation, "
+			+ "assignment.fromdate as assignment_fromdate, assignment.todate as assignment_todate, assignment.govtordernumber as assignment_govtordernumber, "
+			+ "assignment.reportingto as assignment_reportingto, assignment.ishod as assignment_ishod, assignment.iscurrentassignment as assignment_iscurrentassignment, "
+			+ "assignment.tenantid as assignment_tenantid, "
+			+ "assignment.createdby as assignment_createdby, assignment.createddate as assignment_createddate, assignment.lastmodifiedby as assignment_lastmodifiedby, "
+			+ "assignment.lastmodifieddate as assignment_lastmodifieddate, education.uuid as education_uuid, education.qualification as education_qualification, "
+			+ "education.stream as education_stream, education.yearofpassing as education_yearofpassing, education.university as education_university, "
+			+ "education.remarks as education_remarks,education.isactive as education_isactive ,education.tenantid as education_tenantid, education.createdby as education_createdby, "
+			+ "education.createddate as education_createddate, education.lastmodifiedby as education_lastmodifiedby, education.lastmodifieddate as education_lastmodifieddate, "
+			+ "depttest.uuid as depttest_uuid, depttest.test as depttest_test, depttest.yearofpassing as depttest_yearofpassing, depttest.remarks as depttest_remarks, "
+			+ "depttest.isactive as depttest_isactive, depttest.tenantid as depttest_tenantid, depttest.createdby as depttest_createdby, depttest.createddate as depttest_createddate, "
+			+ "depttest.lastmodifiedby as depttest_lastmodifiedby, depttest.lastmodifieddate as depttest_lastmodifieddate, docs.uuid as docs_uuid, "
+			+ "docs.documentid as docs_documentid, docs.documentname as docs_documentname, docs.referencetype as docs_referencetype, "
+			+ "docs.referenceid as docs_referenceid, docs.tenantid as docs_tenantid, docs.createdby as docs_createdby, docs.createddate as docs_createddate, "
+			+ "docs.lastmodifiedby as docs_lastmodifiedby, docs.lastmodifieddate as docs_lastmodifieddate, jurisdiction.uuid as jurisdiction_uuid, "
+			+ "jurisdiction.hierarchy as jurisdiction_hierarchy, jurisdiction.boundarytype as jurisdiction_boundarytype, jurisdiction.boundary as jurisdiction_boundary, "
+			+ "jurisdiction.isactive as jurisdiction_isactive, jurisdiction.tenantid as jurisdiction_tenantid, jurisdiction.createdby as jurisdiction_createdby, jurisdiction.createddate as jurisdiction_createddate, "
+			+ "jurisdiction.lastmodifiedby as jurisdiction_lastmodifiedby, jurisdiction.lastmodifieddate as jurisdiction_lastmodifieddate, history.uuid as history_uuid, "
+			+ "history.servicestatus as history_servicestatus, history.servicefrom as history_servicefrom, history.serviceto as history_serviceto, "
+			+ "history.ordernumber as history_ordernumber, history.iscurrentposition as history_iscurrentposition, history.location as history_location, "
+			+ "history.tenantid as history_tenantid, history.createdby as history_createdby, history.createddate as history_createddate, "
+			+ "history.lastmodifiedby as history_lastmodifiedby, history.lastmodifieddate as history_lastmodifieddate, deact.uuid as deact_uuid, "
+			+ "deact.reasonfordeactivation as deact_reasonfordeactivation, deact.effectivefrom as deact_effectivefrom, deact.ordernumber as deact_ordernumber, "
+			+ "deact.remarks as deact_remarks, deact.tenantid as deact_tenantid, deact.createdby as deact_createdby, "
+			+ "deact.createddate as deact_createddate, deact.lastmodifiedby as deact_lastmodifiedby, deact.lastmodifieddate as deact_lastmodifieddate, "
+			+ "react.uuid as react_uuid, react.reasonforreactivation as react_reasonforreactivation, react.effectivefrom as react_effectivefrom, react.ordernumber as react_ordernumber, "
+			+ "react.remarks as react_remarks, react.tenantid as react_tenantid, react.createdby as react_createdby, "
+			+ "react.createddate as react_createddate, react.lastmodifiedby as react_lastmodifiedby, react.lastmodifieddate as react_lastmodifieddate "
+			+ "FROM eg_hrms_employee employee LEFT JOIN eg_hrms_assignment assignment ON employee.uuid = assignment.employeeid LEFT JOIN eg_hrms_educationaldetails education "
+			+ "ON employee.uuid = education.employeeid LEFT JOIN eg_hrms_departmentaltests depttest ON employee.uuid = depttest.employeeid LEFT JOIN eg_hrms_empdocuments docs "
+			+ "ON employee.uuid = docs.employeeid LEFT JOIN eg_hrms_servicehistory history ON employee.uuid = history.employeeid LEFT JOIN eg_hrms_jurisdiction jurisdiction "
+			+ "ON employee.uuid = jurisdiction.employeeid LEFT JOIN eg_hrms_deactivationdetails deact ON employee.uuid = deact.employeeid LEFT JOIN eg_hrms_reactivationdetails react "
+			+ "ON employee.uuid = react.employeeid WHERE employee.tenantid = ? ";
+
+	@Param({"10", "100", "1000"})
+	private int employeeCount;
+
+	private SingleConnectionDataSource dataSource;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private EmployeeRepository employeeRepository;
+
+
+	@Setup(Level.Trial)
+	public void setupTrial() {
+		dataSource = new SingleConnectionDataSource(System.getProperty("benchmark.db.url"),
+				System.getProperty("benchmark.db.username"), System.getProperty("benchmark.db.password"), true);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+
+		EmployeeQueryBuilder queryBuilder = new EmployeeQueryBuilder();
+		ReflectionTestUtils.setField(queryBuilder, "defaultLimit", employeeCount);
+		ReflectionTestUtils.setField(queryBuilder, "properties", new PropertiesManager());
+
+		employeeRepository = new EmployeeRepository();
+		ReflectionTestUtils.setField(employeeRepository, "queryBuilder", queryBuilder);
+		ReflectionTestUtils.setField(employeeRepository, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(employeeRepository, "rowMapper", new EmployeeRowMapper());
+		ReflectionTestUtils.setField(employeeRepository, "hrmsUtils", new HRMSUtils());
+
+		seedEmployees();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDownTrial() {
+		// children are removed by the cascading foreign keys
+		jdbcTemplate.update("DELETE FROM eg_hrms_employee WHERE tenantid = ?", TENANT_ID);
+		dataSource.destroy();
+	}
+
+	@Benchmark
+	public void legacyJoin(Blackhole blackhole) {
+		Map<String, Map<String, List<String>>> employeeChildIds = new HashMap<>();
+		jdbcTemplate.query(LEGACY_JOIN_QUERY, new Object[] {TENANT_ID}, (RowCallbackHandler) rs -> {
+			Map<String, List<String>> childIds = employeeChildIds.computeIfAbsent(rs.getString("employee_uuid"), uuid -> new HashMap<>());
+			for (String alias : CHILD_ALIASES) {
+				List<String> ids = childIds.computeIfAbsent(alias, key -> new ArrayList<>());
+				String id = rs.getString(alias + "_uuid");
+				if (id != null && !ids.contains(id))
+					ids.add(id);
+			}
+		});
+		blackhole.consume(employeeChildIds);
+	}
+
+	@Benchmark
+	public void batchedFetch(Blackhole blackhole) {
+		EmployeeSearchCriteria criteria = EmployeeSearchCriteria.builder().tenantId(TENANT_ID).offset(0).limit(employeeCount).build();
+		List<Employee> employees = employeeRepository.fetchEmployees(criteria, null);
+		blackhole.consume(employees);
+	}
+
+
+	private void seedEmployees() {
+		long now = System.currentTimeMillis();
+		List<Object[]> employees = new ArrayList<>();
+		List<Object[]> assignments = new ArrayList<>();
+		List<Object[]> jurisdictions = new ArrayList<>();
+		List<Object[]> history = new ArrayList<>();
+		List<Object[]> education = new ArrayList<>();
+		List<Object[]> tests = new ArrayList<>();
+		List<Object[]> documents = new ArrayList<>();
+		List<Object[]> deactivations = new ArrayList<>();
+		List<Object[]> reactivations = new ArrayList<>();
+
+		long idBase = now * 1000;
+		for (int i = 0; i < employeeCount; i++) {
+			String uuid = UUID.randomUUID().toString();
+			employees.add(new Object[] {idBase + i, uuid, "BENCH-" + i, "PERMANENT", now});
+			for (int j = 0; j < 10; j++)
+				assignments.add(new Object[] {UUID.randomUUID().toString(), uuid, "DEPT_" + j % 4, "DESIG_" + j % 6, now - (10 - j) * 86400000L, j == 9});
+			for (int j = 0; j < 5; j++)
+				jurisdictions.add(new Object[] {UUID.randomUUID().toString(), uuid, "ADMIN", "City", TENANT_ID + ".zone" + j});
+			for (int j = 0; j < 8; j++)
+				history.add(new Object[] {UUID.randomUUID().toString(), uuid, "EMPLOYED", now - (8 - j) * 86400000L, "LOC_" + j});
+			for (int j = 0; j < 3; j++)
+				education.add(new Object[] {UUID.randomUUID().toString(), uuid, "QUAL_" + j, 2000L + j});
+			for (int j = 0; j < 2; j++)
+				tests.add(new Object[] {UUID.randomUUID().toString(), uuid, "TEST_" + j, 2005L + j});
+			for (int j = 0; j < 4; j++)
+				documents.add(new Object[] {UUID.randomUUID().toString(), uuid, UUID.randomUUID().toString(), "doc-" + j + ".pdf", uuid});
+			deactivations.add(new Object[] {UUID.randomUUID().toString(), uuid, "ORDERS", now - 2 * 86400000L});
+			reactivations.add(new Object[] {UUID.randomUUID().toString(), uuid, "ORDERS", now - 86400000L});
+		}
+
+		jdbcTemplate.batchUpdate("INSERT INTO eg_hrms_employee (id, uuid, code, employeestatus, employeetype, active, tenantid, createdby, createddate) "
+				+ "VALUES (?, ?, ?, 'EMPLOYED', ?, true, '" + TENANT_ID + "', 'benchmark', ?)", employees);
+		jdbcTemplate.batchUpdate("INSERT INTO eg_hrms_assignment (uuid, employeeid, position, department, designation, fromdate, iscurrentassignment, tenantid, createdby, createddate) "
+				+ "VALUES (?, ?, 1, ?, ?, ?, ?, '" + TENANT_ID + "', 'benchmark', 0)", assignments);
+		jdbcTemplate.batchUpdate("INSERT INTO eg_hrms_jurisdiction (uuid, employeeid, hierarchy, boundarytype, boundary, isactive, tenantid, createdby, createddate) "
+				+ "VALUES (?, ?, ?, ?, ?, true, '" + TENANT_ID + "', 'benchmark', 0)", jurisdictions);
+		jdbcTemplate.batchUpdate("INSERT INTO eg_hrms_servicehistory (uuid, employeeid, servicestatus, servicefrom, location, tenantid, createdby, createddate) "
+				+ "VALUES (?, ?, ?, ?, ?, '" + TENANT_ID + "', 'benchmark', 0)", history);
+		jdbcTemplate.batchUpdate("INSERT INTO eg_hrms_educationaldetails (uuid, employeeid, qualification, yearofpassing, isactive, tenantid, createdby, createddate) "
+				+ "VALUES (?, ?, ?, ?, true, '" + TENANT_ID + "', 'benchmark', 0)", education);
+		jdbcTemplate.batchUpdate("INSERT INTO eg_hrms_departmentaltests (uuid, employeeid, test, yearofpassing, isactive, tenantid, createdby, createddate) "
+				+ "VALUES (?, ?, ?, ?, true, '" + TENANT_ID + "', 'benchmark', 0)", tests);
+		jdbcTemplate.batchUpdate("INSERT INTO eg_hrms_empdocuments (uuid, employeeid, documentid, documentname, referencetype, referenceid, tenantid, createdby, createddate) "
+				+ "VALUES (?, ?, ?, ?, 'ASSIGNMENT', ?, '" + TENANT_ID + "', 'benchmark', 0)", documents);
+		jdbcTemplate.batchUpdate("INSERT INTO eg_hrms_deactivationdetails (uuid, employeeid, reasonfordeactivation, effectivefrom, tenantid, createdby, createddate) "
+				+ "VALUES (?, ?, ?, ?, '" + TENANT_ID + "', 'benchmark', 0)", deactivations);
+		jdbcTemplate.batchUpdate("INSERT INTO eg_hrms_reactivationdetails (uuid, employeeid, reasonforreactivation, effectivefrom, tenantid, createdby, createddate) "
+				+ "VALUES (?, ?, ?, ?, '" + TENANT_ID + "', 'benchmark', 0)", reactivations);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(EmployeeSearchBenchmark.class.getSimpleName())
+				.jvmArgsAppend("-Dbenchmark.db.url=" + System.getProperty("benchmark.db.url"),
+						"-Dbenchmark.db.username=" + System.getProperty("benchmark.db.username"),
+						"-Dbenchmark.db.password=" + System.getProperty("benchmark.db.password"))
+				.build();
+		new Runner(options).run();
+	}
+
+}
@@ -0,0 +1,110 @@
+package org.egov.hrms.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.egov.hrms.web.contract.EmployeeSearchCriteria;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class EmployeeQueryBuilderTest {
+
+	private static final int DEFAULT_LIMIT = 200;
+
+	private static final String ORDER_AND_PAGE = " ORDER BY employee.tenantid, employee.uuid LIMIT ? OFFSET ?";
+
+	private EmployeeQueryBuilder queryBuilder;
+
+	private List<Object> preparedStmtList;
+
+	@Before
+	public void setup() {
+		queryBuilder = new EmployeeQueryBuilder();
+		ReflectionTestUtils.setField(queryBuilder, "defaultLimit", DEFAULT_LIMIT);
+		preparedStmtList = new ArrayList<>();
+	}
+
+	@Test
+	public void testCursorWithLimitStartsAfterTheCursorWithoutOffset() {
+		EmployeeSearchCriteria criteria = EmployeeSearchCriteria.builder().afterTenantId("pb.amritsar").afterUuid("uuid-5")
+				.limit(20).offset(40).build();
+
+		String query = paginationClause(criteria);
+
+		assertEquals(" and (employee.tenantid, employee.uuid) > (?, ?)" + ORDER_AND_PAGE, query);
+		assertEquals(Arrays.asList("pb.amritsar", "uuid-5", 20, 0), preparedStmtList);
+	}
+
+	@Test
+	public void testCursorWithoutLimitTakesTheDefaultLimit() {
+		EmployeeSearchCriteria criteria = EmployeeSearchCriteria.builder().afterTenantId("pb.amritsar").afterUuid("uuid-5")
+				.build();
+
+		String query = paginationClause(criteria);
+
+		assertEquals(EmployeeQueries.HRMS_KEYSET_CLAUSE + ORDER_AND_PAGE, query);
+		assertEquals(Arrays.asList("pb.amritsar", "uuid-5", DEFAULT_LIMIT, 0), preparedStmtList);
+	}
+
+	@Test
+	public void testOffsetWithoutLimitTakesTheRestOfTheDefaultLimit() {
+		String query = paginationClause(EmployeeSearchCriteria.builder().offset(50).build());
+
+		assertEquals(ORDER_AND_PAGE, query);
+		assertEquals(Arrays.asList(DEFAULT_LIMIT - 50, 50), preparedStmtList);
+	}
+
+	@Test
+	public void testOffsetBeyondTheDefaultLimitReturnsNoRows() {
+		paginationClause(EmployeeSearchCriteria.builder().offset(DEFAULT_LIMIT + 50).build());
+
+		assertEquals(Arrays.asList(0, DEFAULT_LIMIT + 50), preparedStmtList);
+	}
+
+	@Test
+	public void testOffsetWithLimitBindsBoth() {
+		paginationClause(EmployeeSearchCriteria.builder().limit(25).offset(75).build());
+
+		assertEquals(Arrays.asList(25, 75), preparedStmtList);
+	}
+
+	@Test
+	public void testNoPageTakesTheDefaultLimitFromTheStart() {
+		paginationClause(new EmployeeSearchCriteria());
+
+		assertEquals(Arrays.asList(DEFAULT_LIMIT, 0), preparedStmtList);
+	}
+
+	@Test
+	public void testSearchQueryBindsFiltersBeforeTheCursorAndPage() {
+		EmployeeSearchCriteria criteria = EmployeeSearchCriteria.builder().tenantId("pb.amritsar")
+				.codes(Arrays.asList("EMP-1", "EMP-2")).isActive(true)
+				.afterTenantId("pb.amritsar").afterUuid("uuid-5").limit(10).build();
+
+		String query = queryBuilder.getEmployeeSearchQuery(criteria, preparedStmtList);
+
+		assertEquals(Arrays.asList("pb.amritsar", "emp-1", "emp-2", true, "pb.amritsar", "uuid-5", 10, 0), preparedStmtList);
+		assertEquals(preparedStmtList.size(), query.length() - query.replace("?", "").length());
+		assertTrue(query.indexOf("employee.active = ?") < query.indexOf(EmployeeQueries.HRMS_KEYSET_CLAUSE));
+		assertTrue(query.endsWith(EmployeeQueries.HRMS_KEYSET_CLAUSE + ORDER_AND_PAGE));
+	}
+
+	/*
+	 * The cursor compares the columns the page is ordered by, in the same order
+	 */
+	@Test
+	public void testCursorMatchesThePageOrder() {
+		assertTrue(EmployeeQueries.HRMS_KEYSET_CLAUSE.contains("(employee.tenantid, employee.uuid) >"));
+		assertTrue(EmployeeQueries.HRMS_PAGINATION_CLAUSE.startsWith(" ORDER BY employee.tenantid, employee.uuid "));
+	}
+
+	private String paginationClause(EmployeeSearchCriteria criteria) {
+		return queryBuilder.paginationClause(criteria, new StringBuilder(), preparedStmtList);
+	}
+
+}
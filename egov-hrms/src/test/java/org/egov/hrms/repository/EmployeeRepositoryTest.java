@@ -0,0 +1,150 @@
+package org.egov.hrms.repository;
+
+import static org.egov.hrms.repository.EmployeeRowMapperTest.assignment;
+import static org.egov.hrms.repository.EmployeeRowMapperTest.jurisdiction;
+import static org.egov.hrms.repository.EmployeeRowMapperTest.newEmployee;
+import static org.egov.hrms.repository.EmployeeRowMapperTest.row;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.hrms.model.Employee;
+import org.egov.hrms.utils.HRMSUtils;
+import org.egov.hrms.web.contract.EmployeeSearchCriteria;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EmployeeRepositoryTest {
+
+	private static final String SEARCH_QUERY = "employee search";
+
+	@InjectMocks
+	private EmployeeRepository repository;
+
+	@Mock
+	private EmployeeQueryBuilder queryBuilder;
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	@Spy
+	private EmployeeRowMapper rowMapper = new EmployeeRowMapper();
+
+	@Mock
+	private HRMSUtils hrmsUtils;
+
+	/*
+	 * Rows returned by the statement of each child table
+	 */
+	private final Map<String, List<ResultSet>> childRows = new HashMap<>();
+
+	@Before
+	public void setup() {
+		when(queryBuilder.getEmployeeSearchQuery(any(EmployeeSearchCriteria.class), anyList())).thenReturn(SEARCH_QUERY);
+		lenient().doAnswer(invocation -> {
+			RowCallbackHandler handler = invocation.getArgument(2);
+			for (ResultSet rs : childRows.getOrDefault(invocation.getArgument(0), Collections.emptyList()))
+				handler.processRow(rs);
+			return null;
+		}).when(jdbcTemplate).query(anyString(), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+	}
+
+	@Test
+	public void testFetchEmployeesAttachesChildrenToTheirEmployee() {
+		givenEmployees(newEmployee("employee-1"), newEmployee("employee-2"));
+		givenChildRows(EmployeeQueries.HRMS_GET_ASSIGNMENTS,
+				childRow("employee-2", assignment("assignment-3", null)),
+				childRow("employee-1", assignment("assignment-1", 1600000000000L)),
+				childRow("employee-1", assignment("assignment-2", null)));
+
+		List<Employee> employees = repository.fetchEmployees(new EmployeeSearchCriteria(), new RequestInfo());
+
+		assertEquals(2, employees.size());
+		assertEquals("employee-1", employees.get(0).getUuid());
+		assertEquals(Arrays.asList("assignment-1", "assignment-2"), assignmentIds(employees.get(0)));
+		assertEquals(Collections.singletonList("assignment-3"), assignmentIds(employees.get(1)));
+	}
+
+	@Test
+	public void testFetchEmployeesSkipsInactiveChildRows() {
+		givenEmployees(newEmployee("employee-1"), newEmployee("employee-2"));
+		givenChildRows(EmployeeQueries.HRMS_GET_JURISDICTIONS,
+				childRow("employee-1", jurisdiction("jurisdiction-1", true)),
+				childRow("employee-1", jurisdiction("jurisdiction-2", false)),
+				childRow("employee-2", jurisdiction("jurisdiction-3", false)));
+
+		List<Employee> employees = repository.fetchEmployees(new EmployeeSearchCriteria(), new RequestInfo());
+
+		assertEquals(1, employees.get(0).getJurisdictions().size());
+		assertEquals("jurisdiction-1", employees.get(0).getJurisdictions().get(0).getId());
+		assertTrue(employees.get(1).getJurisdictions().isEmpty());
+	}
+
+	@Test
+	public void testFetchEmployeesIgnoresRowsOfOtherEmployees() {
+		givenEmployees(newEmployee("employee-1"));
+		givenChildRows(EmployeeQueries.HRMS_GET_ASSIGNMENTS,
+				childRow("employee-9", assignment("assignment-9", null)),
+				childRow("employee-1", assignment("assignment-1", null)));
+
+		List<Employee> employees = repository.fetchEmployees(new EmployeeSearchCriteria(), new RequestInfo());
+
+		assertEquals(Collections.singletonList("assignment-1"), assignmentIds(employees.get(0)));
+	}
+
+	@Test
+	public void testFetchEmployeesWithoutResultsSkipsChildStatements() {
+		givenEmployees();
+
+		List<Employee> employees = repository.fetchEmployees(new EmployeeSearchCriteria(), new RequestInfo());
+
+		assertTrue(employees.isEmpty());
+		verify(jdbcTemplate, never()).query(anyString(), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+	}
+
+	private void givenEmployees(Employee... employees) {
+		when(jdbcTemplate.query(eq(SEARCH_QUERY), any(Object[].class), any(EmployeeRowMapper.class)))
+				.thenReturn(new ArrayList<>(Arrays.asList(employees)));
+	}
+
+	private void givenChildRows(String query, ResultSet... rows) {
+		childRows.put(query, Arrays.asList(rows));
+	}
+
+	private static ResultSet childRow(String employeeUuid, Map<String, Object> columns) {
+		columns.put("employee_uuid", employeeUuid);
+		return row(columns);
+	}
+
+	private static List<String> assignmentIds(Employee employee) {
+		List<String> ids = new ArrayList<>();
+		employee.getAssignments().forEach(assignment -> ids.add(assignment.getId()));
+		return ids;
+	}
+
+}
@@ -0,0 +1,173 @@
+package org.egov.hrms.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.egov.hrms.model.Assignment;
+import org.egov.hrms.model.DepartmentalTest;
+import org.egov.hrms.model.EducationalQualification;
+import org.egov.hrms.model.Employee;
+import org.egov.hrms.model.Jurisdiction;
+import org.egov.hrms.model.enums.EmployeeDocumentReferenceType;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EmployeeRowMapperTest {
+
+	private EmployeeRowMapper rowMapper;
+
+	private Employee employee;
+
+	@Before
+	public void setup() {
+		rowMapper = new EmployeeRowMapper();
+		employee = newEmployee("employee-1");
+	}
+
+	@Test
+	public void testAddJurisdictionSkipsInactiveRows() {
+		rowMapper.addJurisdiction(row(jurisdiction("jurisdiction-1", true)), employee);
+		rowMapper.addJurisdiction(row(jurisdiction("jurisdiction-2", false)), employee);
+		rowMapper.addJurisdiction(row(jurisdiction("jurisdiction-3", null)), employee);
+
+		assertEquals(1, employee.getJurisdictions().size());
+		Jurisdiction jurisdiction = employee.getJurisdictions().get(0);
+		assertEquals("jurisdiction-1", jurisdiction.getId());
+		assertEquals("ADMIN", jurisdiction.getHierarchy());
+		assertEquals("pb.amritsar", jurisdiction.getBoundary());
+		assertTrue(jurisdiction.getIsActive());
+	}
+
+	@Test
+	public void testAddEducationDetailSkipsInactiveRows() {
+		Map<String, Object> active = education("education-1", true);
+		Map<String, Object> inactive = education("education-2", false);
+
+		rowMapper.addEducationDetail(row(active), employee);
+		rowMapper.addEducationDetail(row(inactive), employee);
+
+		assertEquals(1, employee.getEducation().size());
+		EducationalQualification education = employee.getEducation().get(0);
+		assertEquals("education-1", education.getId());
+		assertEquals(Long.valueOf(2010L), education.getYearOfPassing());
+	}
+
+	@Test
+	public void testAddDeptTestSkipsInactiveRows() {
+		Map<String, Object> active = new HashMap<>();
+		active.put("depttest_uuid", "test-1");
+		active.put("depttest_test", "ACCOUNTS");
+		active.put("depttest_isactive", true);
+		Map<String, Object> inactive = new HashMap<>(active);
+		inactive.put("depttest_uuid", "test-2");
+		inactive.put("depttest_isactive", false);
+
+		rowMapper.addDeptTest(row(active), employee);
+		rowMapper.addDeptTest(row(inactive), employee);
+
+		assertEquals(1, employee.getTests().size());
+		DepartmentalTest test = employee.getTests().get(0);
+		assertEquals("test-1", test.getId());
+		assertEquals("ACCOUNTS", test.getTest());
+	}
+
+	@Test
+	public void testAddAssignmentSkipsRowsWithoutUuid() {
+		rowMapper.addAssignment(row(assignment("assignment-1", null)), employee);
+		rowMapper.addAssignment(row(assignment(null, null)), employee);
+		rowMapper.addAssignment(row(assignment("assignment-2", 1600000000000L)), employee);
+
+		assertEquals(2, employee.getAssignments().size());
+		Assignment current = employee.getAssignments().get(0);
+		assertEquals("assignment-1", current.getId());
+		assertEquals(Long.valueOf(7L), current.getPosition());
+		assertNull(current.getToDate());
+		assertEquals(Long.valueOf(1600000000000L), employee.getAssignments().get(1).getToDate());
+	}
+
+	@Test
+	public void testAddDocumentMapsReferenceType() {
+		Map<String, Object> columns = new HashMap<>();
+		columns.put("docs_uuid", "document-1");
+		columns.put("docs_documentid", "filestore-1");
+		columns.put("docs_referencetype", EmployeeDocumentReferenceType.ASSIGNMENT.name());
+		columns.put("docs_referenceid", "assignment-1");
+
+		rowMapper.addDocument(row(columns), employee);
+
+		assertEquals(1, employee.getDocuments().size());
+		assertEquals(EmployeeDocumentReferenceType.ASSIGNMENT, employee.getDocuments().get(0).getReferenceType());
+		assertEquals("assignment-1", employee.getDocuments().get(0).getReferenceId());
+	}
+
+	static Employee newEmployee(String uuid) {
+		return Employee.builder().uuid(uuid).assignments(new ArrayList<>()).jurisdictions(new ArrayList<>())
+				.education(new ArrayList<>()).tests(new ArrayList<>()).serviceHistory(new ArrayList<>())
+				.documents(new ArrayList<>()).deactivationDetails(new ArrayList<>()).reactivationDetails(new ArrayList<>())
+				.build();
+	}
+
+	static Map<String, Object> assignment(String uuid, Long toDate) {
+		Map<String, Object> columns = new HashMap<>();
+		columns.put("assignment_uuid", uuid);
+		columns.put("assignment_position", 7L);
+		columns.put("assignment_department", "ADM");
+		columns.put("assignment_designation", "CLERK");
+		columns.put("assignment_fromdate", 1500000000000L);
+		columns.put("assignment_todate", toDate);
+		columns.put("assignment_iscurrentassignment", null == toDate);
+		return columns;
+	}
+
+	static Map<String, Object> jurisdiction(String uuid, Boolean isActive) {
+		Map<String, Object> columns = new HashMap<>();
+		columns.put("jurisdiction_uuid", uuid);
+		columns.put("jurisdiction_hierarchy", "ADMIN");
+		columns.put("jurisdiction_boundarytype", "City");
+		columns.put("jurisdiction_boundary", "pb.amritsar");
+		columns.put("jurisdiction_isactive", isActive);
+		return columns;
+	}
+
+	private static Map<String, Object> education(String uuid, Boolean isActive) {
+		Map<String, Object> columns = new HashMap<>();
+		columns.put("education_uuid", uuid);
+		columns.put("education_qualification", "BTECH");
+		columns.put("education_yearofpassing", 2010L);
+		columns.put("education_isactive", isActive);
+		return columns;
+	}
+
+	/**
+	 * ResultSet positioned on a row of the given columns, getters read null columns the way the driver does.
+	 */
+	static ResultSet row(Map<String, Object> columns) {
+		return mock(ResultSet.class, invocation -> {
+			if (invocation.getArguments().length != 1)
+				return null;
+			Object value = columns.get(invocation.getArguments()[0]);
+			switch (invocation.getMethod().getName()) {
+				case "getString":
+					return null == value ? null : value.toString();
+				case "getLong":
+					return null == value ? 0L : ((Number) value).longValue();
+				case "getInt":
+					return null == value ? 0 : ((Number) value).intValue();
+				case "getBoolean":
+					return Boolean.TRUE.equals(value);
+				case "getObject":
+					return value;
+				default:
+					return null;
+			}
+		});
+	}
+
+}
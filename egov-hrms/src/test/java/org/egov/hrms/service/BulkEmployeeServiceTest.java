@@ -0,0 +1,245 @@
+package org.egov.hrms.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.hrms.config.PropertiesManager;
+import org.egov.hrms.model.Employee;
+import org.egov.hrms.producer.HRMSProducer;
+import org.egov.hrms.utils.ErrorConstants;
+import org.egov.hrms.utils.ResponseInfoFactory;
+import org.egov.hrms.web.contract.BulkEmployeeResponse;
+import org.egov.hrms.web.contract.EmployeeRequest;
+import org.egov.hrms.web.contract.User;
+import org.egov.hrms.web.validator.EmployeeValidator;
+import org.egov.tracer.model.CustomException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BulkEmployeeServiceTest {
+
+	private static final String SAVE_TOPIC = "save-hrms-employee";
+
+	@InjectMocks
+	private BulkEmployeeService bulkEmployeeService;
+
+	@Mock
+	private EmployeeService employeeService;
+
+	@Mock
+	private EmployeeValidator validator;
+
+	@Mock
+	private IdGenService idGenService;
+
+	@Mock
+	private HRMSProducer hrmsProducer;
+
+	@Mock
+	private NotificationService notificationService;
+
+	@Mock
+	private ResponseInfoFactory factory;
+
+	@Spy
+	private PropertiesManager propertiesManager = new PropertiesManager();
+
+	private final RequestInfo requestInfo = new RequestInfo();
+
+	@Before
+	public void setup() {
+		propertiesManager.setBulkCreatePoolSize(2);
+		propertiesManager.setBulkCreateChunkSize(2);
+		propertiesManager.setSaveEmployeeTopic(SAVE_TOPIC);
+		bulkEmployeeService.init();
+
+		lenient().when(validator.validateBulkCreateEmployees(any(EmployeeRequest.class))).thenReturn(new HashMap<>());
+		lenient().when(validator.validateExistingUser(any(Employee.class), eq(requestInfo))).thenReturn(new HashMap<>());
+		lenient().doAnswer(invocation -> {
+			Employee employee = invocation.getArgument(0);
+			employee.setUuid("uuid-" + employee.getCode());
+			employee.getUser().setUuid(employee.getUuid());
+			employee.getUser().setPassword("pwd-" + employee.getCode());
+			return null;
+		}).when(employeeService).createUser(any(Employee.class), eq(requestInfo));
+	}
+
+	@After
+	public void tearDown() {
+		bulkEmployeeService.shutdown();
+	}
+
+	@Test
+	public void testRowsFailingValidationAreReportedAndTheOthersCreated() {
+		List<Employee> employees = employees("EMP-1", "EMP-2", "EMP-3");
+		when(validator.validateBulkCreateEmployees(any(EmployeeRequest.class)))
+				.thenReturn(Collections.singletonMap(1, Collections.singletonMap("ERR_HRMS_INVALID_DEPT", "Invalid department")));
+
+		BulkEmployeeResponse response = bulkEmployeeService.create(request(employees));
+
+		assertEquals(Integer.valueOf(2), response.getCreatedCount());
+		assertEquals(Integer.valueOf(1), response.getFailedCount());
+		assertEquals(Integer.valueOf(1), response.getErrors().get(0).getIndex());
+		assertEquals("EMP-2", response.getErrors().get(0).getCode());
+		assertEquals(Arrays.asList("EMP-1", "EMP-3"), codes(savedEmployees(1).get(0)));
+		verify(validator, never()).validateExistingUser(employees.get(1), requestInfo);
+	}
+
+	@Test
+	public void testEmployeesAreSavedAndNotifiedPerChunk() {
+		bulkEmployeeService.create(request(employees("EMP-1", "EMP-2", "EMP-3")));
+
+		List<List<Employee>> saved = savedEmployees(2);
+		assertEquals(Arrays.asList("EMP-1", "EMP-2"), codes(saved.get(0)));
+		assertEquals(Collections.singletonList("EMP-3"), codes(saved.get(1)));
+
+		ArgumentCaptor<Map<String, String>> passwords = passwordCaptor();
+		verify(notificationService, times(2)).sendNotification(any(EmployeeRequest.class), passwords.capture());
+		assertEquals("pwd-EMP-1", passwords.getAllValues().get(0).get("uuid-EMP-1"));
+		assertEquals("pwd-EMP-3", passwords.getAllValues().get(1).get("uuid-EMP-3"));
+		assertNull(saved.get(0).get(0).getUser().getPassword());
+	}
+
+	@Test
+	public void testUserLeftWithoutEmployeeByAnEarlierDeliveryIsResumed() {
+		List<Employee> employees = employees("EMP-1", "EMP-2");
+		when(validator.validateExistingUser(employees.get(0), requestInfo))
+				.thenReturn(existingUserError());
+		when(validator.getUserWithoutEmployee(employees.get(0), requestInfo))
+				.thenReturn(User.builder().id(11L).uuid("existing-uuid").userName("EMP-1").type("EMPLOYEE").active(true).build());
+
+		BulkEmployeeResponse response = bulkEmployeeService.create(request(employees));
+
+		assertEquals(Integer.valueOf(2), response.getCreatedCount());
+		assertEquals(Integer.valueOf(0), response.getFailedCount());
+		verify(employeeService, never()).createUser(employees.get(0), requestInfo);
+		Employee resumed = savedEmployees(1).get(0).get(0);
+		assertEquals("existing-uuid", resumed.getUuid());
+		assertEquals(Long.valueOf(11L), resumed.getId());
+		assertEquals("existing-uuid", resumed.getUser().getUuid());
+
+		ArgumentCaptor<EmployeeRequest> notified = ArgumentCaptor.forClass(EmployeeRequest.class);
+		verify(notificationService).sendNotification(notified.capture(), anyMap());
+		assertEquals(Collections.singletonList("EMP-2"), codes(notified.getValue().getEmployees()));
+	}
+
+	@Test
+	public void testResumedRowWithoutCodeTakesTheUserName() {
+		List<Employee> employees = employees((String) null);
+		when(validator.validateExistingUser(employees.get(0), requestInfo)).thenReturn(existingUserError());
+		when(validator.getUserWithoutEmployee(employees.get(0), requestInfo))
+				.thenReturn(User.builder().id(11L).uuid("existing-uuid").userName("EMP-GEN-1").type("EMPLOYEE").build());
+
+		bulkEmployeeService.create(request(employees));
+
+		assertEquals("EMP-GEN-1", savedEmployees(1).get(0).get(0).getCode());
+		verify(notificationService, never()).sendNotification(any(EmployeeRequest.class), anyMap());
+	}
+
+	@Test
+	public void testExistingUserWithAnEmployeeFailsTheRow() {
+		List<Employee> employees = employees("EMP-1");
+		when(validator.validateExistingUser(employees.get(0), requestInfo)).thenReturn(existingUserError());
+
+		BulkEmployeeResponse response = bulkEmployeeService.create(request(employees));
+
+		assertEquals(Integer.valueOf(0), response.getCreatedCount());
+		assertEquals(existingUserError(), response.getErrors().get(0).getErrors());
+		verify(hrmsProducer, never()).push(any(), any());
+	}
+
+	@Test
+	public void testFailedUserCreationFailsOnlyItsRow() {
+		List<Employee> employees = employees("EMP-1", "EMP-2");
+		doAnswer(invocation -> {
+			throw new CustomException(ErrorConstants.HRMS_USER_CREATION_FAILED_CODE, ErrorConstants.HRMS_USER_CREATION_FAILED_MSG);
+		}).when(employeeService).createUser(employees.get(0), requestInfo);
+
+		BulkEmployeeResponse response = bulkEmployeeService.create(request(employees));
+
+		assertEquals(Integer.valueOf(1), response.getCreatedCount());
+		assertEquals(Integer.valueOf(0), response.getErrors().get(0).getIndex());
+		assertEquals(ErrorConstants.HRMS_USER_CREATION_FAILED_MSG,
+				response.getErrors().get(0).getErrors().get(ErrorConstants.HRMS_USER_CREATION_FAILED_CODE));
+		assertEquals(Collections.singletonList("EMP-2"), codes(savedEmployees(1).get(0)));
+	}
+
+	@Test
+	public void testFailedIdGenerationFailsTheRowsOfTheChunk() {
+		List<Employee> employees = employees("EMP-1", "EMP-2", "EMP-3");
+		doAnswer(invocation -> {
+			EmployeeRequest chunk = invocation.getArgument(0);
+			if (chunk.getEmployees().size() == 2)
+				throw new CustomException("HRMS_IDGEN_FAILED", "Id generation failed");
+			return null;
+		}).when(idGenService).setIds(any(EmployeeRequest.class));
+
+		BulkEmployeeResponse response = bulkEmployeeService.create(request(employees));
+
+		assertEquals(Integer.valueOf(1), response.getCreatedCount());
+		assertEquals(Integer.valueOf(2), response.getFailedCount());
+		assertEquals(Collections.singletonList("EMP-3"), codes(savedEmployees(1).get(0)));
+	}
+
+	private EmployeeRequest request(List<Employee> employees) {
+		return EmployeeRequest.builder().requestInfo(requestInfo).employees(employees).build();
+	}
+
+	private List<List<Employee>> savedEmployees(int chunks) {
+		ArgumentCaptor<EmployeeRequest> saved = ArgumentCaptor.forClass(EmployeeRequest.class);
+		verify(hrmsProducer, times(chunks)).push(eq(SAVE_TOPIC), saved.capture());
+		List<List<Employee>> employees = new ArrayList<>();
+		saved.getAllValues().forEach(request -> employees.add(request.getEmployees()));
+		return employees;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ArgumentCaptor<Map<String, String>> passwordCaptor() {
+		return ArgumentCaptor.forClass(Map.class);
+	}
+
+	private static Map<String, String> existingUserError() {
+		return Collections.singletonMap(ErrorConstants.HRMS_USER_EXIST_MOB_CODE, ErrorConstants.HRMS_USER_EXIST_MOB_MSG);
+	}
+
+	private static List<Employee> employees(String... codes) {
+		List<Employee> employees = new ArrayList<>();
+		for (int i = 0; i < codes.length; i++) {
+			User user = User.builder().name("Employee " + i).mobileNumber("987654321" + i).build();
+			employees.add(Employee.builder().code(codes[i]).tenantId("pb.amritsar").user(user).build());
+		}
+		return employees;
+	}
+
+	private static List<String> codes(List<Employee> employees) {
+		List<String> codes = new ArrayList<>();
+		employees.forEach(employee -> codes.add(employee.getCode()));
+		return codes;
+	}
+
+}
@@ -0,0 +1,107 @@
+package org.egov.hrms.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.egov.hrms.service.MDMSSnapshotService.BoundaryIndex;
+import org.egov.hrms.utils.HRMSConstants;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * Checks the boundary index against the JsonPath reads the jurisdiction validation did before it,
+ * on an egov-location TenantBoundary payload.
+ */
+public class MDMSSnapshotServiceTest {
+
+	private static final String HIERARCHY_JSONPATH = "$.TenantBoundary[?(@.boundary.code ==\"%s\")].hierarchyType.code";
+
+	private static final String BOUNDARY_TYPE_JSONPATH = "$.TenantBoundary[?(@.hierarchyType.name==\"%1$s\" && @.boundary.code ==\"%2$s\")]..label";
+
+	private static final String BOUNDARY_VALUE_JSONPATH = "$.TenantBoundary[?(@.hierarchyType.name==\"%1$s\" && @.boundary.code ==\"%2$s\")]..code";
+
+	private static final String TENANT_BOUNDARY = "{\"TenantBoundary\": ["
+			+ "{\"hierarchyType\": {\"code\": \"REVENUE\", \"name\": \"REVENUE\"},"
+			+ " \"boundary\": {\"id\": 1, \"boundaryNum\": 1, \"name\": \"Amritsar\", \"localname\": \"Amritsar\","
+			+ "  \"longitude\": null, \"latitude\": null, \"label\": \"City\", \"code\": \"pb.amritsar\", \"children\": ["
+			+ "   {\"id\": \"2\", \"boundaryNum\": 1, \"name\": \"Zone 1\", \"localname\": \"Zone 1\", \"label\": \"Zone\", \"code\": \"Z1\", \"children\": ["
+			+ "     {\"id\": \"3\", \"boundaryNum\": 1, \"name\": \"Ward 1\", \"label\": \"Ward\", \"code\": \"W1\", \"children\": ["
+			+ "       {\"id\": \"4\", \"boundaryNum\": 1, \"name\": \"Mohalla 1\", \"label\": \"Locality\", \"code\": \"SUN01\","
+			+ "        \"area\": \"AREA1\", \"pincode\": [143001], \"children\": []}]}]}]}},"
+			+ "{\"hierarchyType\": {\"code\": \"ADMIN\", \"name\": \"ADMIN\"},"
+			+ " \"boundary\": {\"id\": 5, \"boundaryNum\": 1, \"name\": \"Amritsar\", \"label\": \"City\", \"code\": \"pb.amritsar\", \"children\": ["
+			+ "   {\"id\": \"6\", \"boundaryNum\": 1, \"name\": \"Block 1\", \"label\": \"Block\", \"code\": \"B1\", \"children\": []}]}},"
+			+ "{\"hierarchyType\": {\"code\": \"ELECTION\", \"name\": \"Election Hierarchy\"},"
+			+ " \"boundary\": {\"id\": 7, \"boundaryNum\": 1, \"name\": \"Jalandhar\", \"label\": \"City\", \"code\": \"pb.jalandhar\", \"children\": []}}"
+			+ "]}";
+
+	private static final String[] HIERARCHIES = {"REVENUE", "ADMIN", "ELECTION", "Election Hierarchy", "UNKNOWN"};
+
+	private static final String[] BOUNDARIES = {"pb.amritsar", "pb.jalandhar", "Z1", "SUN01", "pb.unknown"};
+
+	private static final String[] BOUNDARY_TYPES = {"City", "Zone", "Ward", "Locality", "Block", "REVENUE", "Unknown"};
+
+	private Map<String, Object> boundaryMap;
+
+	private BoundaryIndex boundaryIndex;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setup() throws IOException {
+		boundaryMap = new ObjectMapper().readValue(TENANT_BOUNDARY, new TypeReference<Map<String, Object>>() {});
+		boundaryIndex = new BoundaryIndex((List<Object>) boundaryMap.get(HRMSConstants.HRMS_MDMS_TENANT_BOUNDARY_CODE));
+	}
+
+	@Test
+	public void testHierarchyTypeMatchesJsonPath() {
+		for (String boundary : BOUNDARIES) {
+			List<String> hierarchyTypes = JsonPath.read(boundaryMap, String.format(HIERARCHY_JSONPATH, boundary));
+			for (String hierarchy : HIERARCHIES)
+				assertEquals(hierarchy + " of " + boundary, hierarchyTypes.contains(hierarchy),
+						boundaryIndex.hasHierarchyType(boundary, hierarchy));
+		}
+	}
+
+	@Test
+	public void testBoundaryTypeMatchesJsonPath() {
+		for (String hierarchy : HIERARCHIES) {
+			for (String boundary : BOUNDARIES) {
+				List<String> boundaryTypes = JsonPath.read(boundaryMap, String.format(BOUNDARY_TYPE_JSONPATH, hierarchy, boundary));
+				for (String boundaryType : BOUNDARY_TYPES)
+					assertEquals(boundaryType + " under " + hierarchy + " " + boundary, boundaryTypes.contains(boundaryType),
+							boundaryIndex.hasBoundaryType(hierarchy, boundary, boundaryType));
+			}
+		}
+	}
+
+	@Test
+	public void testBoundaryMatchesJsonPath() {
+		for (String hierarchy : HIERARCHIES) {
+			for (String boundary : BOUNDARIES) {
+				List<String> boundaryValues = JsonPath.read(boundaryMap, String.format(BOUNDARY_VALUE_JSONPATH, hierarchy, boundary));
+				assertEquals(hierarchy + " " + boundary, boundaryValues.contains(boundary),
+						boundaryIndex.hasBoundary(hierarchy, boundary));
+			}
+		}
+	}
+
+	@Test
+	public void testIndexFindsTheValidBoundaries() {
+		assertTrue(boundaryIndex.hasHierarchyType("pb.amritsar", "REVENUE"));
+		assertTrue(boundaryIndex.hasBoundaryType("REVENUE", "pb.amritsar", "Locality"));
+		assertTrue(boundaryIndex.hasBoundaryType("Election Hierarchy", "pb.jalandhar", "City"));
+		assertFalse(boundaryIndex.hasBoundaryType("ADMIN", "pb.amritsar", "Ward"));
+		assertTrue(boundaryIndex.hasBoundary("ADMIN", "pb.amritsar"));
+		assertFalse(boundaryIndex.hasBoundary("ELECTION", "pb.jalandhar"));
+	}
+
+}
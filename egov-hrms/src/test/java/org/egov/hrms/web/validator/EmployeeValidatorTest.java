@@ -0,0 +1,253 @@
+package org.egov.hrms.web.validator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.hrms.config.PropertiesManager;
+import org.egov.hrms.model.Assignment;
+import org.egov.hrms.model.Employee;
+import org.egov.hrms.model.Jurisdiction;
+import org.egov.hrms.model.Role;
+import org.egov.hrms.service.EmployeeService;
+import org.egov.hrms.service.MDMSSnapshotService;
+import org.egov.hrms.service.MDMSSnapshotService.BoundaryIndex;
+import org.egov.hrms.service.UserService;
+import org.egov.hrms.utils.ErrorConstants;
+import org.egov.hrms.utils.HRMSConstants;
+import org.egov.hrms.web.contract.EmployeeRequest;
+import org.egov.hrms.web.contract.EmployeeResponse;
+import org.egov.hrms.web.contract.EmployeeSearchCriteria;
+import org.egov.hrms.web.contract.User;
+import org.egov.hrms.web.contract.UserResponse;
+import org.egov.tracer.model.CustomException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EmployeeValidatorTest {
+
+	private static final String TENANT = "pb.amritsar";
+
+	@InjectMocks
+	private EmployeeValidator validator;
+
+	@Mock
+	private MDMSSnapshotService mdmsSnapshotService;
+
+	@Mock
+	private EmployeeService employeeService;
+
+	@Mock
+	private UserService userService;
+
+	@Spy
+	private PropertiesManager propertiesManager = new PropertiesManager();
+
+	private final RequestInfo requestInfo = new RequestInfo();
+
+	private final Map<String, Set<String>> masters = new HashMap<>();
+
+	@Before
+	public void setup() {
+		propertiesManager.setBulkCreateMaxEmployees(5);
+
+		masters.put(HRMSConstants.HRMS_MDMS_ROLES_CODE, codes("EMPLOYEE"));
+		masters.put(HRMSConstants.HRMS_MDMS_EMP_TYPE_CODE, codes("PERMANENT"));
+		masters.put(HRMSConstants.HRMS_MDMS_DEPT_CODE, codes("ADM"));
+		masters.put(HRMSConstants.HRMS_MDMS_DESG_CODE, codes("CLERK"));
+		lenient().when(mdmsSnapshotService.getMasterData(requestInfo, TENANT)).thenReturn(masters);
+
+		BoundaryIndex boundaryIndex = mock(BoundaryIndex.class);
+		lenient().when(boundaryIndex.hasHierarchyType(TENANT, "ADMIN")).thenReturn(true);
+		lenient().when(boundaryIndex.hasBoundaryType("ADMIN", TENANT, "City")).thenReturn(true);
+		lenient().when(boundaryIndex.hasBoundary("ADMIN", TENANT)).thenReturn(true);
+		lenient().when(mdmsSnapshotService.getBoundaryData(eq(requestInfo), anyCollection()))
+				.thenReturn(Collections.singletonList(boundaryIndex));
+	}
+
+	@Test
+	public void testBulkCreateReportsErrorsOfTheInvalidRowsOnly() {
+		Employee invalidDepartment = employee("EMP-2", "9876543212");
+		invalidDepartment.getAssignments().get(0).setDepartment("UNKNOWN");
+
+		Map<Integer, Map<String, String>> rowErrors = validator.validateBulkCreateEmployees(
+				request(employee("EMP-1", "9876543211"), invalidDepartment, employee("EMP-3", "9876543213")));
+
+		assertEquals(Collections.singleton(1), rowErrors.keySet());
+		assertEquals(ErrorConstants.HRMS_INVALID_DEPT_MSG, rowErrors.get(1).get(ErrorConstants.HRMS_INVALID_DEPT_CODE));
+	}
+
+	@Test
+	public void testBulkCreateReadsTheMasterDataOncePerTenant() {
+		Employee otherTenant = employee("EMP-3", "9876543213");
+		otherTenant.setTenantId("pb.jalandhar");
+		when(mdmsSnapshotService.getMasterData(requestInfo, "pb.jalandhar")).thenReturn(masters);
+
+		Map<Integer, Map<String, String>> rowErrors = validator.validateBulkCreateEmployees(request(
+				employee("EMP-1", "9876543211"), otherTenant, employee("EMP-2", "9876543212")));
+
+		assertTrue(rowErrors.isEmpty());
+		verify(mdmsSnapshotService, times(1)).getMasterData(requestInfo, TENANT);
+		verify(mdmsSnapshotService, times(1)).getMasterData(requestInfo, "pb.jalandhar");
+		verify(mdmsSnapshotService, times(1)).getBoundaryData(eq(requestInfo), anyCollection());
+	}
+
+	@Test
+	public void testBulkCreateFailsTheRowsRepeatingAMobileNumberOrCode() {
+		Map<Integer, Map<String, String>> rowErrors = validator.validateBulkCreateEmployees(request(
+				employee("EMP-1", "9876543211"), employee("EMP-2", "9876543211"), employee("EMP-1", "9876543213")));
+
+		assertEquals(new HashSet<>(Arrays.asList(1, 2)), rowErrors.keySet());
+		assertTrue(rowErrors.get(1).containsKey(ErrorConstants.HRMS_BULK_CREATE_DUPLICATE_MOBILE_CODE));
+		assertTrue(rowErrors.get(2).containsKey(ErrorConstants.HRMS_BULK_CREATE_DUPLICATE_EMPCODE_CODE));
+	}
+
+	@Test
+	public void testBulkCreateFailsAnIncompleteRowAlone() {
+		Employee withoutAssignments = employee("EMP-2", "9876543212");
+		withoutAssignments.setAssignments(null);
+
+		Map<Integer, Map<String, String>> rowErrors = validator.validateBulkCreateEmployees(
+				request(employee("EMP-1", "9876543211"), withoutAssignments));
+
+		assertEquals(Collections.singleton(1), rowErrors.keySet());
+		assertTrue(rowErrors.get(1).containsKey(ErrorConstants.HRMS_BULK_CREATE_INVALID_ROW_CODE));
+	}
+
+	@Test
+	public void testBulkCreateOverTheMaxEmployeesIsRejected() {
+		List<Employee> employees = new ArrayList<>();
+		for (int i = 0; i < 6; i++)
+			employees.add(employee("EMP-" + i, "987654321" + i));
+
+		assertRejected(request(employees.toArray(new Employee[0])), ErrorConstants.HRMS_BULK_CREATE_MAX_EMPLOYEES_CODE);
+		verify(mdmsSnapshotService, never()).getMasterData(any(RequestInfo.class), anyString());
+	}
+
+	@Test
+	public void testBulkCreateWithoutMasterDataIsRejected() {
+		when(mdmsSnapshotService.getMasterData(requestInfo, TENANT)).thenReturn(Collections.emptyMap());
+
+		assertRejected(request(employee("EMP-1", "9876543211")), ErrorConstants.HRMS_BULK_CREATE_MDMS_UNAVAILABLE_CODE);
+	}
+
+	@Test
+	public void testUserOfTheCodeWithoutEmployeeIsReturned() {
+		Employee employee = employee("EMP-1", "9876543211");
+		givenUsers(user("user-1", "EMPLOYEE", "9876543211"));
+		when(employeeService.search(any(EmployeeSearchCriteria.class), eq(requestInfo)))
+				.thenReturn(EmployeeResponse.builder().employees(new ArrayList<>()).build());
+
+		User user = validator.getUserWithoutEmployee(employee, requestInfo);
+
+		assertEquals("user-1", user.getUuid());
+		ArgumentCaptor<EmployeeSearchCriteria> criteria = ArgumentCaptor.forClass(EmployeeSearchCriteria.class);
+		verify(employeeService).search(criteria.capture(), eq(requestInfo));
+		assertEquals(Collections.singletonList("user-1"), criteria.getValue().getUuids());
+		assertEquals(TENANT, criteria.getValue().getTenantId());
+	}
+
+	@Test
+	public void testUserSearchOfARowWithoutCodeIsByMobileNumber() {
+		Employee employee = employee(null, "9876543211");
+		givenUsers();
+
+		assertNull(validator.getUserWithoutEmployee(employee, requestInfo));
+
+		ArgumentCaptor<Map<String, Object>> criteria = userSearchCaptor();
+		verify(userService).getUser(eq(requestInfo), criteria.capture());
+		assertEquals("9876543211", criteria.getValue().get(HRMSConstants.HRMS_USER_SEARCH_CRITERA_MOBILENO));
+		assertNull(criteria.getValue().get(HRMSConstants.HRMS_USER_SEARCH_CRITERA_USERNAME));
+	}
+
+	@Test
+	public void testUserWithAnEmployeeIsNotReturned() {
+		givenUsers(user("user-1", "EMPLOYEE", "9876543211"));
+		when(employeeService.search(any(EmployeeSearchCriteria.class), eq(requestInfo)))
+				.thenReturn(EmployeeResponse.builder().employees(Collections.singletonList(employee("EMP-1", "9876543211"))).build());
+
+		assertNull(validator.getUserWithoutEmployee(employee("EMP-1", "9876543211"), requestInfo));
+	}
+
+	@Test
+	public void testUserOfAnotherTypeOrMobileNumberIsNotReturned() {
+		givenUsers(user("user-1", "CITIZEN", "9876543211"), user("user-2", "EMPLOYEE", "9876543299"));
+
+		assertNull(validator.getUserWithoutEmployee(employee("EMP-1", "9876543211"), requestInfo));
+		verify(employeeService, never()).search(any(EmployeeSearchCriteria.class), any(RequestInfo.class));
+	}
+
+	private void assertRejected(EmployeeRequest request, String code) {
+		try {
+			validator.validateBulkCreateEmployees(request);
+			fail("Bulk create request should have been rejected");
+		} catch (CustomException e) {
+			assertEquals(code, e.getCode());
+		}
+	}
+
+	private void givenUsers(User... users) {
+		UserResponse userResponse = new UserResponse();
+		userResponse.setUser(Arrays.asList(users));
+		when(userService.getUser(eq(requestInfo), anyMap())).thenReturn(userResponse);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ArgumentCaptor<Map<String, Object>> userSearchCaptor() {
+		return ArgumentCaptor.forClass(Map.class);
+	}
+
+	private EmployeeRequest request(Employee... employees) {
+		return EmployeeRequest.builder().requestInfo(requestInfo).employees(Arrays.asList(employees)).build();
+	}
+
+	private static Employee employee(String code, String mobileNumber) {
+		User user = User.builder().name("Employee").mobileNumber(mobileNumber)
+				.roles(Collections.singletonList(Role.builder().code("EMPLOYEE").build())).build();
+		Assignment assignment = Assignment.builder().department("ADM").designation("CLERK").fromDate(1500000000000L)
+				.isCurrentAssignment(true).build();
+		Jurisdiction jurisdiction = Jurisdiction.builder().hierarchy("ADMIN").boundaryType("City").boundary(TENANT)
+				.isActive(true).build();
+		return Employee.builder().code(code).tenantId(TENANT).employeeType("PERMANENT").user(user)
+				.assignments(new ArrayList<>(Collections.singletonList(assignment)))
+				.jurisdictions(new ArrayList<>(Collections.singletonList(jurisdiction))).build();
+	}
+
+	private static User user(String uuid, String type, String mobileNumber) {
+		return User.builder().uuid(uuid).type(type).mobileNumber(mobileNumber).userName("EMP-1").build();
+	}
+
+	private static Set<String> codes(String... codes) {
+		return new HashSet<>(Arrays.asList(codes));
+	}
+
+}